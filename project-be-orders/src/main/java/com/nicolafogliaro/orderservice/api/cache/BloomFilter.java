@@ -0,0 +1,117 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of {@code long} IDs.
+ * <p>
+ * {@link #mightContain} never returns false for an ID that was {@link #put}, and returns true for an ID that was
+ * not with a probability close to {@link #expectedFpp()}. IDs cannot be removed.
+ * </p>
+ */
+public final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLong setBits = new AtomicLong();
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(long bitSize, int hashCount) {
+        this.words = new AtomicLongArray(Math.toIntExact(bitSize / Long.SIZE));
+        this.bitSize = bitSize;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Sizes the filter for {@code expectedInsertions} IDs at the false-positive probability {@code fpp}, using at
+     * most {@code maxBits} bits. When the cap applies the filter is smaller and its false-positive rate higher.
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp, long maxBits) {
+
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("fpp must be between 0 and 1 (exclusive): " + fpp);
+        }
+
+        long n = Math.max(expectedInsertions, 1);
+        long optimalBits = (long) Math.ceil(-n * Math.log(fpp) / (LN2 * LN2));
+        long bits = Math.max(Long.SIZE, Math.min(optimalBits, maxBits));
+        bits = (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE;
+
+        int hashes = (int) Math.max(1, Math.min(30, Math.round((double) bits / n * LN2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    public void put(long id) {
+
+        long hash1 = mix(id);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+
+        for (int i = 0; i < hashCount; i++) {
+
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            if ((words.getAndAccumulate(word, mask, (current, m) -> current | m) & mask) == 0) {
+                setBits.incrementAndGet();
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(long id) {
+
+        long hash1 = mix(id);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+
+        for (int i = 0; i < hashCount; i++) {
+
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False-positive probability given the bits set so far.
+     */
+    public double expectedFpp() {
+        return Math.pow((double) setBits.get() / bitSize, hashCount);
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public long memoryBytes() {
+        return bitSize / Byte.SIZE;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Number of {@link #put} calls, duplicates included.
+     */
+    public long insertions() {
+        return insertions.get();
+    }
+
+    /**
+     * Finalizer of SplitMix64: spreads consecutive IDs over the whole bit array.
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
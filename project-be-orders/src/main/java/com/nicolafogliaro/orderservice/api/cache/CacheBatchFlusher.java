@@ -0,0 +1,10 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+/**
+ * Applies the cache writes of a committed transaction to the backing store.
+ */
+@FunctionalInterface
+public interface CacheBatchFlusher {
+
+    void flush(CacheWriteBatch batch);
+}
@@ -0,0 +1,196 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reads and fills many entries of one cache with a single round trip.
+ * <p>
+ * For Redis caches the keys are read with one {@code MGET} and the loaded values written back with one pipeline of
+ * {@code SET NX} (same keys, serialization and TTL as {@code RedisCache}), so a value cached meanwhile by an update
+ * is never overwritten. Other caches (e.g. the no-op one of the tests) are accessed key by key.
+ * The reads bypass the near cache: they are meant for the list views, whose keys are rarely hot one by one.
+ * </p>
+ */
+@Slf4j
+@Component
+public class CacheBulkOperations {
+
+    private final CacheManager cacheManager;
+    private final ObjectProvider<RedisConnectionFactory> connectionFactory;
+
+    public CacheBulkOperations(CacheManager cacheManager, ObjectProvider<RedisConnectionFactory> connectionFactory) {
+        this.cacheManager = cacheManager;
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * @return the cached values of the given keys; keys not cached (or not readable) are missing from the map
+     */
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type) {
+
+        Map<K, V> found = new LinkedHashMap<>();
+
+        if (keys.isEmpty()) {
+            return found;
+        }
+
+        RedisCache redisCache = redisCache(cacheName);
+
+        if (redisCache == null) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                keys.forEach(key -> {
+                    V value = cache.get(key, type);
+                    if (value != null) {
+                        found.put(key, value);
+                    }
+                });
+            }
+            return found;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        List<K> orderedKeys = new ArrayList<>(keys);
+        byte[][] redisKeys = orderedKeys.stream().map(key -> redisKey(config, cacheName, key)).toArray(byte[][]::new);
+
+        List<byte[]> values;
+        try (RedisConnection connection = connectionFactory.getObject().getConnection()) {
+            values = connection.stringCommands().mGet(redisKeys);
+        }
+
+        for (int i = 0; values != null && i < orderedKeys.size(); i++) {
+
+            byte[] bytes = values.get(i);
+
+            if (bytes == null) {
+                continue;
+            }
+
+            try {
+                Object value = config.getValueSerializationPair().read(ByteBuffer.wrap(bytes));
+                if (type.isInstance(value)) {
+                    found.put(orderedKeys.get(i), type.cast(value));
+                }
+            } catch (RuntimeException e) {
+                // Unreadable entry (e.g. written by an older version): reload it like a miss
+                log.warn("*** Cannot read {}::{} from the cache: {}", cacheName, orderedKeys.get(i), e.getMessage());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Reads the given keys with one round trip, loads all the misses with one call of {@code loader} and caches them.
+     *
+     * @param loader returns the values of the keys it is given, omitting the ones that do not exist
+     * @return the values found, in the iteration order of {@code keys}; keys that do not exist are missing
+     */
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type, Function<Set<K>, Map<K, V>> loader) {
+
+        Map<K, V> cached = getAll(cacheName, keys, type);
+
+        Set<K> misses = new LinkedHashSet<>(keys);
+        misses.removeAll(cached.keySet());
+
+        Map<K, V> loaded = misses.isEmpty() ? Map.of() : loader.apply(misses);
+        putAllIfAbsent(cacheName, loaded);
+
+        log.debug("Multi-get on {}: {} keys, {} cached, {} loaded", cacheName, keys.size(), cached.size(), loaded.size());
+
+        Map<K, V> values = new LinkedHashMap<>();
+        keys.forEach(key -> {
+            V value = cached.containsKey(key) ? cached.get(key) : loaded.get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Caches the given values unless their key is already cached.
+     */
+    public void putAllIfAbsent(String cacheName, Map<?, ?> values) {
+
+        if (values.isEmpty()) {
+            return;
+        }
+
+        RedisCache redisCache = redisCache(cacheName);
+
+        if (redisCache == null) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                values.forEach(cache::putIfAbsent);
+            }
+            return;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+
+        try (RedisConnection connection = connectionFactory.getObject().getConnection()) {
+
+            connection.openPipeline();
+
+            values.forEach((key, value) -> {
+                Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                connection.stringCommands().set(
+                        redisKey(config, cacheName, key),
+                        ByteUtils.getBytes(config.getValueSerializationPair().write(value != null ? value : NullValue.INSTANCE)),
+                        ttl != null && !ttl.isZero() && !ttl.isNegative() ? Expiration.from(ttl) : Expiration.persistent(),
+                        SetOption.ifAbsent());
+            });
+
+            connection.closePipeline();
+        }
+    }
+
+    private static byte[] redisKey(RedisCacheConfiguration config, String cacheName, Object key) {
+        return RedisCacheKeys.serializeKey(config, cacheName, RedisCacheKeys.convertKey(config, key));
+    }
+
+    /**
+     * Finds the {@link RedisCache} under the cache decorators, {@code null} when the cache is not backed by Redis.
+     */
+    private RedisCache redisCache(String cacheName) {
+
+        CacheManager manager = cacheManager;
+
+        while (true) {
+            if (manager instanceof TransactionalBatchingCacheManager batching) {
+                manager = batching.getTarget();
+            } else if (manager instanceof SingleFlightCacheManager singleFlight) {
+                manager = singleFlight.getTarget();
+            } else if (manager instanceof TwoLevelCacheManager twoLevel) {
+                manager = twoLevel.getTarget();
+            } else {
+                break;
+            }
+        }
+
+        return manager.getCache(cacheName) instanceof RedisCache redisCache ? redisCache : null;
+    }
+}
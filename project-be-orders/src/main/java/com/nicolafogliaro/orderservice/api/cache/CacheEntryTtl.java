@@ -0,0 +1,19 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import java.time.Duration;
+
+/**
+ * Expiration of the entries of one cache, as seen by the refresh-ahead logic.
+ */
+public interface CacheEntryTtl {
+
+    /**
+     * @return the TTL a freshly written entry gets, {@code null} or zero when it does not expire
+     */
+    Duration timeToLive(Object key, Object value);
+
+    /**
+     * @return the time left before the stored entry expires, {@code null} when unknown or not expiring
+     */
+    Duration remainingTimeToLive(Object key);
+}
@@ -0,0 +1,19 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import java.util.List;
+
+/**
+ * Invalidation broadcast to the other nodes after cache writes.
+ *
+ * @param version global, strictly increasing stamp (Redis {@code INCR}) assigned when the message is published
+ * @param origin  identifier of the publishing node, which has already applied the invalidation locally
+ * @param entries invalidated keys (or whole caches)
+ */
+public record CacheInvalidationMessage(long version, String origin, List<Entry> entries) {
+
+    /**
+     * @param clear whether the whole cache was cleared ({@code keys} is then empty)
+     * @param keys  converted cache keys, as used in the Redis keys
+     */
+    public record Entry(String cache, boolean clear, List<String> keys) {}
+}
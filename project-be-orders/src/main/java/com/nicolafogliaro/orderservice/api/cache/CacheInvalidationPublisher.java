@@ -0,0 +1,14 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import java.util.List;
+
+/**
+ * Broadcasts cache invalidations to every node.
+ */
+public interface CacheInvalidationPublisher {
+
+    /**
+     * Publishes the invalidation and returns the version stamp it was given.
+     */
+    long publish(String origin, List<CacheInvalidationMessage.Entry> entries);
+}
@@ -0,0 +1,14 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+/**
+ * Cluster-wide lease on the loading of one cache entry, so that only one node queries the database per key.
+ */
+public interface CacheLoadLease {
+
+    /**
+     * @return true if this node now holds the lease and should load the entry
+     */
+    boolean tryAcquire(String cacheName, String key);
+
+    void release(String cacheName, String key);
+}
@@ -0,0 +1,131 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Decorates the auto-configured {@link RedisCacheManager} (configured in {@code CacheConfig}) with the cache layers of
+ * the application, from the outside in:
+ * <ol>
+ *     <li>{@link TransactionalBatchingCacheManager}: the {@code order}, {@code product} and {@code products} caches,
+ *     and every cache added later, only see the deduplicated writes of committed transactions, written to Redis in
+ *     one pipeline after commit;</li>
+ *     <li>{@link SingleFlightCacheManager}: coalesces the concurrent misses of {@code @Cacheable(sync = true)}
+ *     methods and refreshes hot entries before they expire, on a {@link CacheRefreshExecutor};</li>
+ *     <li>{@link TwoLevelCacheManager}, when the near cache is enabled: a local L1 in front of Redis, invalidated on
+ *     every node with one message per committed batch;</li>
+ *     <li>the Redis cache manager.</li>
+ * </ol>
+ * Other cache managers (e.g. the no-op one used by tests) are left untouched.
+ * The refresh-ahead pools created here are shut down with the context.
+ */
+@Slf4j
+public class CacheManagerDecoratorPostProcessor implements BeanPostProcessor, DisposableBean {
+
+    private final ObjectProvider<RedisConnectionFactory> connectionFactory;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final ObjectProvider<PlatformTransactionManager> transactionManager;
+    private final NearCacheSettings nearCacheSettings;
+    private final SingleFlightSettings singleFlightSettings;
+    private final RefreshAheadSettings refreshAheadSettings;
+
+    private final List<CacheRefreshExecutor> refreshExecutors = new CopyOnWriteArrayList<>();
+
+    public CacheManagerDecoratorPostProcessor(ObjectProvider<RedisConnectionFactory> connectionFactory,
+                                              ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                              ObjectProvider<MeterRegistry> meterRegistry,
+                                              ObjectProvider<PlatformTransactionManager> transactionManager,
+                                              NearCacheSettings nearCacheSettings,
+                                              SingleFlightSettings singleFlightSettings,
+                                              RefreshAheadSettings refreshAheadSettings) {
+        this.connectionFactory = connectionFactory;
+        this.listenerContainer = listenerContainer;
+        this.meterRegistry = meterRegistry;
+        this.transactionManager = transactionManager;
+        this.nearCacheSettings = nearCacheSettings;
+        this.singleFlightSettings = singleFlightSettings;
+        this.refreshAheadSettings = refreshAheadSettings;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+        if (!(bean instanceof RedisCacheManager redisCacheManager)) {
+            return bean;
+        }
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        RedisPipelineCacheBatchFlusher redisFlusher = new RedisPipelineCacheBatchFlusher(connectionFactory.getObject(), redisCacheManager);
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+
+        if (!nearCacheSettings.enabled() || container == null) {
+            log.info("Cache manager '{}' wrapped: cache misses coalesced, cache writes batched per transaction and flushed after commit", beanName);
+            return new TransactionalBatchingCacheManager(singleFlight(redisCacheManager, redisCacheManager, registry), redisFlusher);
+        }
+
+        RedisCacheInvalidationBus bus = new RedisCacheInvalidationBus(connectionFactory.getObject());
+        TwoLevelCacheManager twoLevelCacheManager = new TwoLevelCacheManager(redisCacheManager, nearCacheSettings, bus, registry);
+
+        bus.setListener(twoLevelCacheManager::onMessage);
+        container.addMessageListener(bus, new ChannelTopic(RedisCacheInvalidationBus.CHANNEL));
+
+        CacheManager cacheManager = new TransactionalBatchingCacheManager(singleFlight(twoLevelCacheManager, redisCacheManager, registry), batch -> {
+            try {
+                redisFlusher.flush(batch);
+            } finally {
+                // Even after a partial failure some keys may have changed in Redis
+                twoLevelCacheManager.afterFlush(batch);
+            }
+        });
+
+        log.info("Cache manager '{}' wrapped: near cache for {} in front of Redis, cache misses coalesced, writes batched per transaction (node: {})",
+                beanName, nearCacheSettings.cacheNames(), twoLevelCacheManager.getNodeId());
+        return cacheManager;
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutors.forEach(CacheRefreshExecutor::shutdown);
+    }
+
+    private SingleFlightCacheManager singleFlight(CacheManager target, RedisCacheManager redisCacheManager, MeterRegistry registry) {
+
+        CacheLoadLease lease = singleFlightSettings.leaseEnabled()
+                ? new RedisCacheLoadLease(connectionFactory.getObject(), singleFlightSettings.leaseTtl())
+                : null;
+
+        CacheRefreshExecutor refreshExecutor = refreshAheadSettings.enabled()
+                ? new CacheRefreshExecutor(refreshAheadSettings.threads(), refreshAheadSettings.queueCapacity(), transactionManager.getIfAvailable())
+                : null;
+
+        if (refreshExecutor != null) {
+            refreshExecutors.add(refreshExecutor);
+        }
+
+        return new SingleFlightCacheManager(target,
+                name -> redisCacheManager.getCache(name) instanceof RedisCache redisCache ? redisCache : null,
+                lease,
+                singleFlightSettings,
+                refreshAheadSettings,
+                name -> redisCacheManager.getCache(name) instanceof RedisCache redisCache
+                        ? new RedisCacheEntryTtl(redisCache, connectionFactory.getObject())
+                        : null,
+                refreshExecutor,
+                registry);
+    }
+}
@@ -0,0 +1,76 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool running the background refreshes of cache entries.
+ * <p>
+ * The queue is bounded and a full queue rejects the refresh instead of blocking the request that triggered it.
+ * Each refresh runs in a read-only transaction, like the request that would otherwise have loaded the entry,
+ * so that loaders can navigate lazy associations.
+ * </p>
+ * The pool is owned by whoever creates it, which must {@link #shutdown()} it on context close.
+ */
+public class CacheRefreshExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @param transactionManager {@code null} to run the refreshes without a transaction
+     */
+    public CacheRefreshExecutor(int threads, int queueCapacity, PlatformTransactionManager transactionManager) {
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        if (transactionManager != null) {
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+            this.transactionTemplate.setReadOnly(true);
+        } else {
+            this.transactionTemplate = null;
+        }
+    }
+
+    /**
+     * @return false when the queue is full and the refresh was not scheduled
+     */
+    public boolean submit(Runnable refresh) {
+        try {
+            executor.execute(transactionTemplate == null
+                    ? refresh
+                    : () -> transactionTemplate.executeWithoutResult(status -> refresh.run()));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stops the pool: queued refreshes are dropped (their entries simply expire), running ones are interrupted and
+     * later submissions are rejected.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+}
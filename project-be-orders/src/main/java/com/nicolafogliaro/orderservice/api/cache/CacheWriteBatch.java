@@ -0,0 +1,111 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache writes collected during one transaction, deduplicated per cache and key.
+ * <p>
+ * Only the last operation on a key is kept (a put followed by an evict becomes an evict and vice versa),
+ * and a clear discards every earlier operation of the same cache: after a clear only the clear itself and the
+ * operations that came after it need to be applied. Not thread-safe: a batch belongs to one transaction.
+ * </p>
+ */
+public final class CacheWriteBatch {
+
+    /**
+     * Last pending operation on a key: a put of {@code value}, or an eviction when {@code evict} is true.
+     */
+    public record PendingWrite(Object value, boolean evict) {
+
+        static PendingWrite put(Object value) {
+            return new PendingWrite(value, false);
+        }
+
+        static PendingWrite evict() {
+            return new PendingWrite(null, true);
+        }
+    }
+
+    /**
+     * Pending operations of one cache: an optional clear, applied first, then the key operations in arrival order.
+     */
+    public static final class CacheOps {
+
+        private boolean cleared;
+        private final Map<Object, PendingWrite> writes = new LinkedHashMap<>();
+
+        public boolean isCleared() {
+            return cleared;
+        }
+
+        public Map<Object, PendingWrite> getWrites() {
+            return Collections.unmodifiableMap(writes);
+        }
+    }
+
+    private final Map<String, CacheOps> caches = new LinkedHashMap<>();
+    private int received;
+
+    public void put(String cacheName, Object key, Object value) {
+        ops(cacheName).writes.put(key, PendingWrite.put(value));
+        received++;
+    }
+
+    public void evict(String cacheName, Object key) {
+        ops(cacheName).writes.put(key, PendingWrite.evict());
+        received++;
+    }
+
+    public void clear(String cacheName) {
+        CacheOps ops = ops(cacheName);
+        ops.cleared = true;
+        ops.writes.clear();
+        received++;
+    }
+
+    /**
+     * Pending write for a key, {@code null} when the transaction did not touch it.
+     * A key of a cache cleared in this transaction and not written since then reads as evicted.
+     */
+    public PendingWrite lookup(String cacheName, Object key) {
+
+        CacheOps ops = caches.get(cacheName);
+
+        if (ops == null) {
+            return null;
+        }
+
+        PendingWrite write = ops.writes.get(key);
+        return write != null ? write : ops.cleared ? PendingWrite.evict() : null;
+    }
+
+    public Map<String, CacheOps> getCaches() {
+        return Collections.unmodifiableMap(caches);
+    }
+
+    public boolean isEmpty() {
+        return caches.isEmpty();
+    }
+
+    /**
+     * Number of cache operations requested during the transaction, before deduplication.
+     */
+    public int getReceived() {
+        return received;
+    }
+
+    /**
+     * Number of operations left after deduplication (one per key, plus one per cleared cache).
+     */
+    public int size() {
+        return caches.values().stream()
+                .mapToInt(ops -> ops.writes.size() + (ops.cleared ? 1 : 0))
+                .sum();
+    }
+
+    private CacheOps ops(String cacheName) {
+        return caches.computeIfAbsent(cacheName, name -> new CacheOps());
+    }
+}
@@ -0,0 +1,182 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Answers "does this ID certainly not exist?" without any I/O, for one table.
+ * <p>
+ * Two structures are consulted:
+ * <ul>
+ *     <li>a {@link BloomFilter} of the existing IDs, rebuilt from the table periodically and updated on every
+ *     create. It only answers for IDs up to the highest ID seen by the last rebuild (the watermark): IDs created
+ *     later on other nodes may not have reached this filter yet, and auto-increment IDs above the watermark are
+ *     never rejected by it;</li>
+ *     <li>a short-lived negative cache of IDs recently found missing or deleted. Deleted IDs stay in the Bloom
+ *     filter until the next rebuild, the negative cache covers them meanwhile.</li>
+ * </ul>
+ * Until the first rebuild completes only the negative cache is used.
+ * </p>
+ */
+@Slf4j
+public class IdExistenceFilter {
+
+    private final String name;
+    private final double fpp;
+    private final long maxBits;
+    private final Cache<Long, Boolean> missing;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    private volatile long watermark;
+
+    private final Counter bloomRejections;
+    private final Counter negativeRejections;
+
+    public IdExistenceFilter(String name,
+                             double fpp,
+                             long maxBits,
+                             Duration negativeTtl,
+                             long negativeMaxSize,
+                             MeterRegistry meterRegistry) {
+        this.name = name;
+        this.fpp = fpp;
+        this.maxBits = maxBits;
+        this.missing = Caffeine.newBuilder()
+                .expireAfterWrite(negativeTtl)
+                .maximumSize(negativeMaxSize)
+                .build();
+
+        this.bloomRejections = rejections(meterRegistry, name, "bloom");
+        this.negativeRejections = rejections(meterRegistry, name, "negative-cache");
+
+        Gauge.builder("existence.filter.memory", this, f -> f.filter != null ? f.filter.memoryBytes() : 0)
+                .description("Memory used by the Bloom filter")
+                .baseUnit("bytes")
+                .tag("entity", name)
+                .register(meterRegistry);
+        Gauge.builder("existence.filter.fpp", this, f -> f.filter != null ? f.filter.expectedFpp() : 0)
+                .description("Expected false-positive probability of the Bloom filter")
+                .tag("entity", name)
+                .register(meterRegistry);
+        Gauge.builder("existence.filter.ids", this, f -> f.filter != null ? f.filter.insertions() : 0)
+                .description("IDs added to the Bloom filter since the last rebuild")
+                .tag("entity", name)
+                .register(meterRegistry);
+        Gauge.builder("existence.filter.negative.size", missing, Cache::estimatedSize)
+                .description("IDs in the negative cache")
+                .tag("entity", name)
+                .register(meterRegistry);
+    }
+
+    private static Counter rejections(MeterRegistry registry, String entity, String reason) {
+        return Counter.builder("existence.filter.rejections")
+                .description("Lookups of non-existent IDs answered without I/O")
+                .tag("entity", entity)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * @return true if the ID certainly does not exist (or was found missing/deleted a moment ago)
+     */
+    public boolean isKnownMissing(long id) {
+
+        BloomFilter current = filter;
+
+        if (current != null && id <= watermark && !current.mightContain(id)) {
+            bloomRejections.increment();
+            return true;
+        }
+
+        if (missing.getIfPresent(id) != null) {
+            negativeRejections.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers for a short time that the ID does not exist.
+     */
+    public void markMissing(long id) {
+        missing.put(id, Boolean.TRUE);
+    }
+
+    /**
+     * Synchronized with the swap in {@link #rebuild}, so that an ID created during a rebuild reaches the new filter.
+     */
+    public synchronized void markCreated(long id) {
+
+        if (filter != null) {
+            filter.put(id);
+        }
+        if (building != null) {
+            building.put(id);
+        }
+        missing.invalidate(id);
+    }
+
+    public void markDeleted(long id) {
+        missing.put(id, Boolean.TRUE);
+    }
+
+    /**
+     * Rebuilds the Bloom filter from the table.
+     *
+     * @param expectedIds number of IDs the filter is sized for, including the headroom for future creates
+     * @param scan        feeds every existing ID to the given consumer
+     */
+    public void rebuild(long expectedIds, Consumer<LongConsumer> scan) {
+
+        BloomFilter next = BloomFilter.create(expectedIds, fpp, maxBits);
+
+        synchronized (this) {
+            building = next;
+        }
+
+        long[] maxId = {0};
+
+        try {
+            scan.accept(id -> {
+                next.put(id);
+                maxId[0] = Math.max(maxId[0], id);
+            });
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                building = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            filter = next;
+            building = null;
+            watermark = maxId[0];
+        }
+
+        log.info("Existence filter '{}' rebuilt: {} IDs up to {}, {} bits ({} KiB), {} hashes, expected fpp {}",
+                name, next.insertions(), maxId[0], next.bitSize(), next.memoryBytes() / 1024, next.hashCount(),
+                String.format("%.5f", next.expectedFpp()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+}
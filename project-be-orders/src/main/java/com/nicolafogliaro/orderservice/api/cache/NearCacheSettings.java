@@ -0,0 +1,17 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Settings of the in-process L1 cache ({@code cache.near.*}).
+ *
+ * @param enabled       whether the L1 layer is added in front of Redis at all
+ * @param maximumWeight total weight kept per cache (see {@link NearCacheWeigher})
+ * @param ttl           expire-after-write of L1 entries, an upper bound on staleness if an invalidation is lost
+ * @param cacheNames    caches that get an L1 layer; the others are served by Redis only
+ */
+public record NearCacheSettings(boolean enabled,
+                                long maximumWeight,
+                                Duration ttl,
+                                Set<String> cacheNames) {}
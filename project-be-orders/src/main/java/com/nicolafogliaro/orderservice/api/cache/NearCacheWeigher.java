@@ -0,0 +1,31 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.search.CachedOrderPage;
+
+import java.util.Collection;
+
+/**
+ * Weighs L1 entries by their number of elements, so that one cached order with 5,000 lines or the full product
+ * list does not count as much as a single product. One unit is roughly one DTO.
+ */
+final class NearCacheWeigher implements Weigher<String, TwoLevelCache.L1Entry> {
+
+    @Override
+    public int weigh(String key, TwoLevelCache.L1Entry entry) {
+
+        Object value = entry.value();
+
+        long weight = 1;
+
+        if (value instanceof Collection<?> collection) {
+            weight += collection.size();
+        } else if (value instanceof OrderResponse order && order.items() != null) {
+            weight += order.items().size();
+        } else if (value instanceof CachedOrderPage page && page.content() != null) {
+            weight += page.content().size();
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,45 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.time.Duration;
+
+/**
+ * {@link CacheEntryTtl} of a {@link RedisCache}: the configured TTL function and {@code PTTL} for stored entries.
+ */
+@Slf4j
+public class RedisCacheEntryTtl implements CacheEntryTtl {
+
+    private final RedisCache cache;
+    private final RedisConnectionFactory connectionFactory;
+
+    public RedisCacheEntryTtl(RedisCache cache, RedisConnectionFactory connectionFactory) {
+        this.cache = cache;
+        this.connectionFactory = connectionFactory;
+    }
+
+    @Override
+    public Duration timeToLive(Object key, Object value) {
+        return cache.getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
+    }
+
+    @Override
+    public Duration remainingTimeToLive(Object key) {
+
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        byte[] redisKey = RedisCacheKeys.serializeKey(config, cache.getName(), RedisCacheKeys.convertKey(config, key));
+
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long millis = connection.keyCommands().pTtl(redisKey);
+            // -1: no expiration, -2: no such key
+            return millis != null && millis >= 0 ? Duration.ofMillis(millis) : null;
+        } catch (RuntimeException e) {
+            log.warn("*** Cannot read the TTL of {}::{}: {}", cache.getName(), key, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Redis pub/sub transport of {@link CacheInvalidationMessage}s.
+ * <p>
+ * Publishing runs one script that increments the global version counter and publishes
+ * {@code <version>:<json>} atomically, so version order and delivery order are the same on every node.
+ * </p>
+ */
+@Slf4j
+public class RedisCacheInvalidationBus implements CacheInvalidationPublisher, MessageListener {
+
+    public static final String CHANNEL = "cache:invalidation";
+    public static final String VERSION_KEY = "cache:invalidation:version";
+
+    private static final byte[] PUBLISH_SCRIPT = """
+            local version = redis.call('INCR', KEYS[1])
+            redis.call('PUBLISH', ARGV[1], version .. ':' .. ARGV[2])
+            return version
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private volatile Consumer<CacheInvalidationMessage> listener = message -> {};
+
+    public RedisCacheInvalidationBus(RedisConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public void setListener(Consumer<CacheInvalidationMessage> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public long publish(String origin, List<CacheInvalidationMessage.Entry> entries) {
+
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(new CacheInvalidationMessage(0, origin, entries));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cache invalidation", e);
+        }
+
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Long version = connection.scriptingCommands().eval(PUBLISH_SCRIPT, ReturnType.INTEGER, 1,
+                    VERSION_KEY.getBytes(StandardCharsets.UTF_8),
+                    CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    payload);
+            return version != null ? version : 0L;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+
+        try {
+            long version = Long.parseLong(body.substring(0, separator));
+            CacheInvalidationMessage decoded = objectMapper.readValue(body.substring(separator + 1), CacheInvalidationMessage.class);
+            listener.accept(new CacheInvalidationMessage(version, decoded.origin(), decoded.entries()));
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.error("*** Ignoring malformed cache invalidation message: {}", body, e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.util.ByteUtils;
+
+/**
+ * Key conversion shared by the cache layers built on top of {@code RedisCache}.
+ */
+final class RedisCacheKeys {
+
+    /**
+     * Same conversion as {@code RedisCache#convertKey} for the simple keys used by this service.
+     */
+    static String convertKey(RedisCacheConfiguration config, Object key) {
+
+        if (key instanceof String stringKey) {
+            return stringKey;
+        }
+
+        ConversionService conversionService = config.getConversionService();
+        TypeDescriptor source = TypeDescriptor.forObject(key);
+
+        if (conversionService.canConvert(source, TypeDescriptor.valueOf(String.class))) {
+            return conversionService.convert(key, String.class);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Redis key of a cache entry: prefix (if enabled) plus converted key, serialized with the key serializer.
+     */
+    static byte[] serializeKey(RedisCacheConfiguration config, String cacheName, String key) {
+        String cacheKey = config.usePrefix() ? config.getKeyPrefixFor(cacheName) + key : key;
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(cacheKey));
+    }
+
+    private RedisCacheKeys() {}
+}
@@ -0,0 +1,61 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * {@link CacheLoadLease} stored in Redis as {@code cache-lease:<cache>::<key>}, taken with {@code SET NX PX} and
+ * released only by its owner. The lease expires on its own if the owner dies while loading.
+ * If Redis cannot be reached the lease is considered acquired: loading without it is only less efficient.
+ */
+@Slf4j
+public class RedisCacheLoadLease implements CacheLoadLease {
+
+    private static final byte[] RELEASE_SCRIPT = """
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final Duration ttl;
+    private final byte[] owner = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+
+    public RedisCacheLoadLease(RedisConnectionFactory connectionFactory, Duration ttl) {
+        this.connectionFactory = connectionFactory;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public boolean tryAcquire(String cacheName, String key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Boolean acquired = connection.stringCommands().set(leaseKey(cacheName, key), owner, Expiration.from(ttl), SetOption.ifAbsent());
+            return !Boolean.FALSE.equals(acquired);
+        } catch (RuntimeException e) {
+            log.warn("*** Cannot acquire cache load lease for {}::{}, loading without it: {}", cacheName, key, e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void release(String cacheName, String key) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.scriptingCommands().eval(RELEASE_SCRIPT, ReturnType.INTEGER, 1, leaseKey(cacheName, key), owner);
+        } catch (RuntimeException e) {
+            log.warn("*** Cannot release cache load lease for {}::{}, it will expire in {}: {}", cacheName, key, ttl, e.getMessage());
+        }
+    }
+
+    private static byte[] leaseKey(String cacheName, String key) {
+        return ("cache-lease:" + cacheName + "::" + key).getBytes(StandardCharsets.UTF_8);
+    }
+}
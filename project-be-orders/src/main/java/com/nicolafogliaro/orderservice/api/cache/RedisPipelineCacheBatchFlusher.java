@@ -0,0 +1,110 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import com.nicolafogliaro.orderservice.api.cache.CacheWriteBatch.CacheOps;
+import com.nicolafogliaro.orderservice.api.cache.CacheWriteBatch.PendingWrite;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a {@link CacheWriteBatch} to Redis in a single pipeline.
+ * <p>
+ * Keys, values and TTLs are produced from each cache's {@link RedisCacheConfiguration}, exactly as
+ * {@link RedisCache} would, so entries written here are read back normally. Per cache the pipeline contains:
+ * the clear (a server-side SCAN + UNLINK script, since a pattern delete cannot be pipelined otherwise), one
+ * {@code DEL} with all the evicted keys, then one {@code SET} per put.
+ * </p>
+ */
+public class RedisPipelineCacheBatchFlusher implements CacheBatchFlusher {
+
+    private static final byte[] CLEAR_SCRIPT = """
+            local cursor = '0'
+            local deleted = 0
+            repeat
+              local result = redis.call('SCAN', cursor, 'MATCH', ARGV[1], 'COUNT', 1000)
+              cursor = result[1]
+              if #result[2] > 0 then
+                deleted = deleted + redis.call('UNLINK', unpack(result[2]))
+              end
+            until cursor == '0'
+            return deleted
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisConnectionFactory connectionFactory;
+    private final CacheManager redisCacheManager;
+
+    public RedisPipelineCacheBatchFlusher(RedisConnectionFactory connectionFactory, CacheManager redisCacheManager) {
+        this.connectionFactory = connectionFactory;
+        this.redisCacheManager = redisCacheManager;
+    }
+
+    @Override
+    public void flush(CacheWriteBatch batch) {
+
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+
+            connection.openPipeline();
+
+            for (Map.Entry<String, CacheOps> entry : batch.getCaches().entrySet()) {
+                write(connection, entry.getKey(), entry.getValue());
+            }
+
+            connection.closePipeline();
+        }
+    }
+
+    private void write(RedisConnection connection, String cacheName, CacheOps ops) {
+
+        Cache cache = redisCacheManager.getCache(cacheName);
+
+        if (!(cache instanceof RedisCache redisCache)) {
+            throw new IllegalStateException("Cache " + cacheName + " is not a RedisCache");
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+
+        if (ops.isCleared()) {
+            connection.scriptingCommands().eval(CLEAR_SCRIPT, ReturnType.INTEGER, 0, RedisCacheKeys.serializeKey(config, cacheName, "*"));
+        }
+
+        List<byte[]> evicted = new ArrayList<>();
+
+        for (Map.Entry<Object, PendingWrite> write : ops.getWrites().entrySet()) {
+
+            Object key = write.getKey();
+            Object value = write.getValue().value();
+
+            if (write.getValue().evict() || (value == null && !config.getAllowCacheNullValues())) {
+                evicted.add(RedisCacheKeys.serializeKey(config, cacheName, RedisCacheKeys.convertKey(config, key)));
+                continue;
+            }
+
+            Object storedValue = value != null ? value : NullValue.INSTANCE;
+            Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+
+            connection.stringCommands().set(
+                    RedisCacheKeys.serializeKey(config, cacheName, RedisCacheKeys.convertKey(config, key)),
+                    ByteUtils.getBytes(config.getValueSerializationPair().write(storedValue)),
+                    ttl != null && !ttl.isZero() && !ttl.isNegative() ? Expiration.from(ttl) : Expiration.persistent(),
+                    SetOption.upsert());
+        }
+
+        if (!evicted.isEmpty()) {
+            connection.keyCommands().del(evicted.toArray(new byte[0][]));
+        }
+    }
+}
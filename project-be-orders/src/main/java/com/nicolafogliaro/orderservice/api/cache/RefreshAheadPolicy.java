@@ -0,0 +1,80 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a cache hit should trigger a background refresh, following the XFetch algorithm
+ * (Vattani et al., "Optimal Probabilistic Cache Stampede Prevention").
+ * <p>
+ * An entry that took {@code delta} to load and expires at {@code expiry} is refreshed on a hit at {@code now} when
+ * {@code now - delta * beta * ln(random) >= expiry}. The probability grows as the expiry gets closer and is higher
+ * for entries that are slow to load, so hot entries are almost always refreshed shortly before they expire, by a
+ * single request, while cold entries are left to expire.
+ * </p>
+ * <p>
+ * Load times and expirations are kept per node for the entries this node loaded. For the other entries the
+ * expiration is read once from the cache and the average load time of the cache is used.
+ * </p>
+ */
+final class RefreshAheadPolicy {
+
+    private static final int MAX_TRACKED_ENTRIES = 10_000;
+
+    record EntryStats(long loadNanos, long expiresAtNanos) {}
+
+    private final CacheEntryTtl entryTtl;
+    private final double beta;
+    private final Cache<Object, EntryStats> stats = Caffeine.newBuilder().maximumSize(MAX_TRACKED_ENTRIES).build();
+    private final AtomicLong averageLoadNanos = new AtomicLong();
+
+    RefreshAheadPolicy(CacheEntryTtl entryTtl, double beta) {
+        this.entryTtl = entryTtl;
+        this.beta = beta;
+    }
+
+    void recordLoad(Object key, long loadNanos, Object value, long nowNanos) {
+
+        averageLoadNanos.accumulateAndGet(loadNanos, (average, sample) -> average == 0 ? sample : average + (sample - average) / 8);
+
+        Duration ttl = value != null ? entryTtl.timeToLive(key, value) : null;
+        stats.put(key, new EntryStats(loadNanos, expiresAt(ttl, nowNanos)));
+    }
+
+    boolean shouldRefresh(Object key, long nowNanos) {
+
+        EntryStats entry = stats.getIfPresent(key);
+
+        if (entry == null || entry.expiresAtNanos() <= nowNanos) {
+            // Loaded by another node, or rewritten since we loaded it: ask the cache once
+            long loadNanos = entry != null ? entry.loadNanos() : averageLoadNanos.get();
+            entry = new EntryStats(loadNanos, expiresAt(entryTtl.remainingTimeToLive(key), nowNanos));
+            stats.put(key, entry);
+        }
+
+        long delta = entry.loadNanos() > 0 ? entry.loadNanos() : averageLoadNanos.get();
+
+        if (delta <= 0 || entry.expiresAtNanos() == Long.MAX_VALUE) {
+            return false;
+        }
+
+        double earlyNanos = -delta * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+        return nowNanos + earlyNanos >= entry.expiresAtNanos();
+    }
+
+    void invalidate(Object key) {
+        stats.invalidate(key);
+    }
+
+    void invalidateAll() {
+        stats.invalidateAll();
+    }
+
+    private static long expiresAt(Duration ttl, long nowNanos) {
+        return ttl == null || ttl.isZero() || ttl.isNegative() ? Long.MAX_VALUE : nowNanos + ttl.toNanos();
+    }
+}
@@ -0,0 +1,18 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import java.util.Set;
+
+/**
+ * Settings of the refresh-ahead of hot cache entries ({@code cache.refresh-ahead.*}).
+ *
+ * @param enabled       whether entries are refreshed before they expire at all
+ * @param beta          XFetch eagerness: above 1 refreshes earlier, below 1 later
+ * @param threads       refresh threads per node
+ * @param queueCapacity refreshes waiting for a thread; further refreshes are skipped, the entry then simply expires
+ * @param cacheNames    caches whose entries are refreshed ahead
+ */
+public record RefreshAheadSettings(boolean enabled,
+                                   double beta,
+                                   int threads,
+                                   int queueCapacity,
+                                   Set<String> cacheNames) {}
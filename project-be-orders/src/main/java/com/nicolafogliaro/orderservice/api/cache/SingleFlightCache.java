@@ -0,0 +1,347 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@link Cache} decorator that coalesces concurrent misses on the same key ("single flight").
+ * <p>
+ * {@code @Cacheable(sync = true)} methods reach the cache through {@link #get(Object, Callable)}. On a miss the
+ * first caller of a key becomes the loader and the other callers on this node wait for its result (or its
+ * exception) instead of querying the database too. With a {@link CacheLoadLease} the loaders of the different
+ * nodes are coalesced as well: a node that does not get the lease polls the cache for a while before loading.
+ * Loaded values are stored with {@code putIfAbsent}, so a value written meanwhile by an update is not overwritten.
+ * </p>
+ * <p>
+ * Unlike {@code RedisCache#get(Object, Callable)}, loads of different keys never wait for each other.
+ * </p>
+ * <p>
+ * With a {@link RefreshAheadPolicy}, a hit on an entry close to its expiration also reloads it in the background
+ * on the {@link CacheRefreshExecutor}. The refresh is an in-flight load of the key, so misses arriving meanwhile
+ * wait for it instead of loading again.
+ * </p>
+ */
+@Slf4j
+public class SingleFlightCache implements Cache {
+
+    private final Cache target;
+    private final Function<Object, String> keyConverter;
+    private final CacheLoadLease lease;
+    private final SingleFlightSettings settings;
+    private final RefreshAheadPolicy refreshPolicy;
+    private final CacheRefreshExecutor refreshExecutor;
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter loaded;
+    private final Counter coalesced;
+    private final Counter leaseHits;
+    private final Counter leaseTimeouts;
+    private final Counter refreshed;
+    private final Counter refreshesRejected;
+    private final Counter refreshesFailed;
+
+    /**
+     * @param refreshPolicy   {@code null} to let entries expire without refresh-ahead
+     * @param refreshExecutor required when {@code refreshPolicy} is set
+     */
+    SingleFlightCache(Cache target,
+                      Function<Object, String> keyConverter,
+                      CacheLoadLease lease,
+                      SingleFlightSettings settings,
+                      RefreshAheadPolicy refreshPolicy,
+                      CacheRefreshExecutor refreshExecutor,
+                      MeterRegistry meterRegistry) {
+        this.target = target;
+        this.keyConverter = keyConverter;
+        this.lease = lease;
+        this.settings = settings;
+        this.refreshPolicy = refreshPolicy;
+        this.refreshExecutor = refreshExecutor;
+        this.loaded = counter(meterRegistry, "cache.loads", target.getName(), "loaded");
+        this.coalesced = counter(meterRegistry, "cache.loads", target.getName(), "coalesced");
+        this.leaseHits = counter(meterRegistry, "cache.loads", target.getName(), "lease-hit");
+        this.leaseTimeouts = counter(meterRegistry, "cache.loads", target.getName(), "lease-timeout");
+        this.refreshed = counter(meterRegistry, "cache.refreshes", target.getName(), "refreshed");
+        this.refreshesRejected = counter(meterRegistry, "cache.refreshes", target.getName(), "rejected");
+        this.refreshesFailed = counter(meterRegistry, "cache.refreshes", target.getName(), "failed");
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String cache, String result) {
+        return Counter.builder(name)
+                .description("cache.loads: misses loaded here, coalesced with a load of this node or filled by another node; "
+                        + "cache.refreshes: background refreshes of entries close to expiration")
+                .tag("cache", cache)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public Cache getTarget() {
+        return target;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+
+        ValueWrapper cached = target.get(key);
+
+        if (cached != null) {
+            if (refreshPolicy != null && refreshPolicy.shouldRefresh(key, System.nanoTime())) {
+                refreshAsync(key, cached, valueLoader);
+            }
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+
+        if (leader != null) {
+            coalesced.increment();
+            return (T) await(key, valueLoader, leader);
+        }
+
+        try {
+            Object value = load(key, valueLoader);
+            flight.complete(value);
+            return (T) value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        forget(key);
+        target.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        forget(key);
+        target.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        forget(key);
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        forgetAll();
+        target.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        forgetAll();
+        return target.invalidate();
+    }
+
+    /**
+     * Number of keys being loaded right now on this node.
+     */
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+
+        String leaseKey = null;
+
+        if (lease != null) {
+
+            String convertedKey = keyConverter.apply(key);
+
+            if (lease.tryAcquire(getName(), convertedKey)) {
+                leaseKey = convertedKey;
+            } else {
+                ValueWrapper filled = awaitOtherNode(key);
+                if (filled != null) {
+                    leaseHits.increment();
+                    return filled.get();
+                }
+                leaseTimeouts.increment();
+            }
+        }
+
+        try {
+            Object value = call(key, valueLoader);
+
+            loaded.increment();
+
+            if (value == null) {
+                return null;
+            }
+
+            // An update may have cached a newer value while we were loading: keep it
+            ValueWrapper existing = target.putIfAbsent(key, value);
+            return existing != null && existing.get() != null ? existing.get() : value;
+
+        } finally {
+            if (leaseKey != null) {
+                lease.release(getName(), leaseKey);
+            }
+        }
+    }
+
+    /**
+     * Reloads an entry in the background, registered as the in-flight load of its key.
+     */
+    private void refreshAsync(Object key, ValueWrapper cached, Callable<?> valueLoader) {
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            return; // already being loaded or refreshed
+        }
+
+        boolean submitted = refreshExecutor.submit(() -> {
+            try {
+                flight.complete(refresh(key, cached, valueLoader));
+            } catch (RuntimeException | Error e) {
+                refreshesFailed.increment();
+                flight.completeExceptionally(e);
+                log.warn("*** Refresh of {}::{} failed, the entry will expire: {}", getName(), key, e.getMessage());
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        });
+
+        if (!submitted) {
+            refreshesRejected.increment();
+            inFlight.remove(key, flight);
+            flight.complete(cached.get());
+        }
+    }
+
+    private Object refresh(Object key, ValueWrapper cached, Callable<?> valueLoader) {
+
+        Object value = call(key, valueLoader);
+        refreshed.increment();
+
+        if (value == null) {
+            return null;
+        }
+
+        // Write only over the value we refreshed: if an update replaced or evicted it meanwhile, our load may be older
+        ValueWrapper current = target.get(key);
+        if (current != null && Objects.equals(current.get(), cached.get())) {
+            target.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Runs the loader, measuring its duration for the refresh-ahead policy.
+     */
+    private Object call(Object key, Callable<?> valueLoader) {
+
+        long start = System.nanoTime();
+        Object value;
+
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+
+        if (refreshPolicy != null) {
+            long now = System.nanoTime();
+            refreshPolicy.recordLoad(key, now - start, value, now);
+        }
+        return value;
+    }
+
+    private void forget(Object key) {
+        if (refreshPolicy != null) {
+            refreshPolicy.invalidate(key);
+        }
+    }
+
+    private void forgetAll() {
+        if (refreshPolicy != null) {
+            refreshPolicy.invalidateAll();
+        }
+    }
+
+    private ValueWrapper awaitOtherNode(Object key) {
+
+        long deadline = System.nanoTime() + settings.leaseWait().toNanos();
+
+        try {
+            while (System.nanoTime() < deadline) {
+
+                TimeUnit.MILLISECONDS.sleep(settings.pollInterval().toMillis());
+
+                ValueWrapper cached = target.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static Object await(Object key, Callable<?> valueLoader, CompletableFuture<Object> leader) {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ValueRetrievalException retrievalException) {
+                throw new ValueRetrievalException(key, valueLoader, retrievalException.getCause());
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+}
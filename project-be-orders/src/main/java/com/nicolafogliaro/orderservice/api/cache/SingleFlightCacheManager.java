@@ -0,0 +1,101 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * {@link CacheManager} decorator that wraps every cache of the target manager into a {@link SingleFlightCache},
+ * with refresh-ahead for the caches listed in {@link RefreshAheadSettings#cacheNames()}.
+ */
+public class SingleFlightCacheManager implements CacheManager {
+
+    private final CacheManager target;
+    private final Function<String, RedisCache> redisCaches;
+    private final CacheLoadLease lease;
+    private final SingleFlightSettings settings;
+    private final RefreshAheadSettings refreshSettings;
+    private final Function<String, CacheEntryTtl> entryTtls;
+    private final CacheRefreshExecutor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, SingleFlightCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param redisCaches resolves the underlying {@link RedisCache} of a cache name, used to build the lease keys
+     * @param lease       cluster-wide lease, {@code null} to coalesce the loads of this node only
+     * @param entryTtls   resolves the expiration of the entries of a cache name, {@code null} when unknown
+     */
+    public SingleFlightCacheManager(CacheManager target,
+                                    Function<String, RedisCache> redisCaches,
+                                    CacheLoadLease lease,
+                                    SingleFlightSettings settings,
+                                    RefreshAheadSettings refreshSettings,
+                                    Function<String, CacheEntryTtl> entryTtls,
+                                    CacheRefreshExecutor refreshExecutor,
+                                    MeterRegistry meterRegistry) {
+        this.target = target;
+        this.redisCaches = redisCaches;
+        this.lease = lease;
+        this.settings = settings;
+        this.refreshSettings = refreshSettings;
+        this.entryTtls = entryTtls;
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public CacheManager getTarget() {
+        return target;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+
+        SingleFlightCache cache = caches.get(name);
+
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache targetCache = target.getCache(name);
+
+        if (targetCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new SingleFlightCache(targetCache,
+                keyConverter(name),
+                lease,
+                settings,
+                refreshPolicy(name),
+                refreshExecutor,
+                meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+
+    private RefreshAheadPolicy refreshPolicy(String name) {
+
+        if (!refreshSettings.enabled() || !refreshSettings.cacheNames().contains(name)) {
+            return null;
+        }
+
+        CacheEntryTtl entryTtl = entryTtls.apply(name);
+        return entryTtl != null ? new RefreshAheadPolicy(entryTtl, refreshSettings.beta()) : null;
+    }
+
+    private Function<Object, String> keyConverter(String name) {
+        RedisCache redisCache = redisCaches.apply(name);
+        if (redisCache != null) {
+            return key -> RedisCacheKeys.convertKey(redisCache.getCacheConfiguration(), key);
+        }
+        return String::valueOf;
+    }
+}
@@ -0,0 +1,16 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import java.time.Duration;
+
+/**
+ * Settings of the coalesced loading of cache misses ({@code cache.single-flight.*}).
+ *
+ * @param leaseEnabled whether the nodes also coordinate through a {@link CacheLoadLease}
+ * @param leaseTtl     lifetime of a lease, longer than the slowest expected load
+ * @param leaseWait    how long a node without the lease waits for another node to fill the cache before loading itself
+ * @param pollInterval how often the waiting node looks at the cache
+ */
+public record SingleFlightSettings(boolean leaseEnabled,
+                                   Duration leaseTtl,
+                                   Duration leaseWait,
+                                   Duration pollInterval) {}
@@ -0,0 +1,161 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import com.nicolafogliaro.orderservice.api.cache.CacheWriteBatch.PendingWrite;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * {@link Cache} decorator that records {@code put}, {@code evict} and {@code clear} in the {@link CacheWriteBatch}
+ * of the current transaction instead of writing through. Reads see the pending writes of their own transaction.
+ * Without an active transaction every operation goes straight to the target cache.
+ * <p>
+ * As in Spring's {@code TransactionAwareCacheDecorator}, {@code putIfAbsent}, {@code evictIfPresent} and
+ * {@code invalidate} are applied immediately since their callers expect immediate visibility.
+ * </p>
+ */
+public class TransactionalBatchingCache implements Cache {
+
+    private final Cache target;
+    private final TransactionalBatchingCacheManager cacheManager;
+
+    TransactionalBatchingCache(Cache target, TransactionalBatchingCacheManager cacheManager) {
+        this.target = target;
+        this.cacheManager = cacheManager;
+    }
+
+    public Cache getTarget() {
+        return target;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+
+        PendingWrite pending = pending(key);
+
+        if (pending == null) {
+            return target.get(key);
+        }
+        return pending.evict() ? null : new SimpleValueWrapper(pending.value());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+
+        PendingWrite pending = pending(key);
+
+        if (pending == null) {
+            return target.get(key, type);
+        }
+
+        Object value = pending.evict() ? null : pending.value();
+
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+
+        PendingWrite pending = pending(key);
+
+        if (pending == null) {
+            return target.get(key, valueLoader);
+        }
+
+        if (!pending.evict()) {
+            return (T) pending.value();
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+
+        CacheWriteBatch batch = cacheManager.currentBatch(true);
+
+        if (batch == null) {
+            target.put(key, value);
+        } else {
+            batch.put(getName(), key, value);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return target.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+
+        CacheWriteBatch batch = cacheManager.currentBatch(true);
+
+        if (batch == null) {
+            target.evict(key);
+        } else {
+            batch.evict(getName(), key);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+
+        // Also recorded, so that a put pending in this transaction is not applied over the eviction
+        CacheWriteBatch batch = cacheManager.currentBatch(false);
+        if (batch != null) {
+            batch.evict(getName(), key);
+        }
+        return target.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+
+        CacheWriteBatch batch = cacheManager.currentBatch(true);
+
+        if (batch == null) {
+            target.clear();
+        } else {
+            batch.clear(getName());
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+
+        CacheWriteBatch batch = cacheManager.currentBatch(false);
+        if (batch != null) {
+            batch.clear(getName());
+        }
+        return target.invalidate();
+    }
+
+    private PendingWrite pending(Object key) {
+        CacheWriteBatch batch = cacheManager.currentBatch(false);
+        return batch != null ? batch.lookup(getName(), key) : null;
+    }
+}
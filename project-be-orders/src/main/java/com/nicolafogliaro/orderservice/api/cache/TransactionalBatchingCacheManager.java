@@ -0,0 +1,110 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link CacheManager} decorator that defers the cache writes of a transaction until it commits.
+ * <p>
+ * The first write in a transaction binds a {@link CacheWriteBatch} to it. All the writes of the transaction are
+ * deduplicated in that batch, which is handed to the {@link CacheBatchFlusher} once after commit (one pipelined
+ * round trip instead of one per operation) and simply discarded on rollback. Because nothing is written before
+ * the commit, a concurrent reader cannot re-cache a value that is about to change.
+ * </p>
+ */
+@Slf4j
+public class TransactionalBatchingCacheManager implements CacheManager {
+
+    private final CacheManager target;
+    private final CacheBatchFlusher flusher;
+    private final Map<String, TransactionalBatchingCache> caches = new ConcurrentHashMap<>();
+
+    public TransactionalBatchingCacheManager(CacheManager target, CacheBatchFlusher flusher) {
+        this.target = target;
+        this.flusher = flusher;
+    }
+
+    public CacheManager getTarget() {
+        return target;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+
+        TransactionalBatchingCache cache = caches.get(name);
+
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache targetCache = target.getCache(name);
+
+        if (targetCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new TransactionalBatchingCache(targetCache, this));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+
+    /**
+     * Batch bound to the current transaction.
+     *
+     * @param create whether to bind a new batch when the transaction has none yet
+     * @return the batch, or {@code null} outside a transaction (or when {@code create} is false and none is bound)
+     */
+    CacheWriteBatch currentBatch(boolean create) {
+
+        CacheWriteBatch batch = (CacheWriteBatch) TransactionSynchronizationManager.getResource(this);
+
+        if (batch != null || !create || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return batch;
+        }
+
+        CacheWriteBatch newBatch = new CacheWriteBatch();
+        TransactionSynchronizationManager.bindResource(this, newBatch);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(TransactionalBatchingCacheManager.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(TransactionalBatchingCacheManager.this, newBatch);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+
+                TransactionSynchronizationManager.unbindResourceIfPossible(TransactionalBatchingCacheManager.this);
+
+                if (status == STATUS_COMMITTED && !newBatch.isEmpty()) {
+                    flush(newBatch);
+                }
+            }
+        });
+        return newBatch;
+    }
+
+    private void flush(CacheWriteBatch batch) {
+        try {
+            flusher.flush(batch);
+            log.debug("Flushed {} cache operations ({} requested) after commit", batch.size(), batch.getReceived());
+        } catch (RuntimeException e) {
+            // The transaction is already committed: entries may stay stale until their TTL expires
+            log.error("*** Failed to flush {} cache operations after commit: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+}
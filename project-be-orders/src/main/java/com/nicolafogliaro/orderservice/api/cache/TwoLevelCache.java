@@ -0,0 +1,223 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Cache with an in-process Caffeine L1 in front of a shared L2 (Redis).
+ * <p>
+ * Reads try L1 first, then L2, and copy L2 hits into L1. Writes go to L2 and are turned into invalidations that
+ * the {@link TwoLevelCacheManager} applies locally and broadcasts to the other nodes.
+ * </p>
+ * <p>
+ * Every invalidation carries a global version. A key invalidated at version {@code v} keeps a tombstone with
+ * {@code v}, and a whole-cache clear records its version too. A value read from L2 is only copied into L1 if no
+ * invalidation newer than the start of the read has been seen. Otherwise a read racing with a remote write could
+ * put a value that is already stale back into L1, where it would live until it expires.
+ * </p>
+ */
+public class TwoLevelCache implements Cache {
+
+    /**
+     * L1 entry. {@code value} is the cached value itself, already deserialized.
+     */
+    record L1Entry(Object value) {}
+
+    private final String name;
+    private final Cache l2;
+    private final com.github.benmanes.caffeine.cache.Cache<String, L1Entry> l1;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> tombstones;
+    private final Function<Object, String> keyConverter;
+    private final TwoLevelCacheManager cacheManager;
+    private volatile long clearedVersion;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    TwoLevelCache(String name,
+                  Cache l2,
+                  com.github.benmanes.caffeine.cache.Cache<String, L1Entry> l1,
+                  com.github.benmanes.caffeine.cache.Cache<String, Long> tombstones,
+                  Function<Object, String> keyConverter,
+                  TwoLevelCacheManager cacheManager,
+                  MeterRegistry meterRegistry) {
+        this.name = name;
+        this.l2 = l2;
+        this.l1 = l1;
+        this.tombstones = tombstones;
+        this.keyConverter = keyConverter;
+        this.cacheManager = cacheManager;
+        this.l1Hits = counter(meterRegistry, name, "l1", "hit");
+        this.l1Misses = counter(meterRegistry, name, "l1", "miss");
+        this.l2Hits = counter(meterRegistry, name, "l2", "hit");
+        this.l2Misses = counter(meterRegistry, name, "l2", "miss");
+    }
+
+    private static Counter counter(MeterRegistry registry, String cache, String level, String result) {
+        return Counter.builder("cache.level.gets")
+                .description("Cache lookups per level of the two-level cache")
+                .tag("cache", cache)
+                .tag("level", level)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    com.github.benmanes.caffeine.cache.Cache<String, L1Entry> getL1() {
+        return l1;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+
+        String l1Key = keyConverter.apply(key);
+        L1Entry entry = l1.getIfPresent(l1Key);
+
+        if (entry != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(entry.value());
+        }
+        l1Misses.increment();
+
+        long readStart = cacheManager.currentVersion();
+        ValueWrapper wrapper = l2.get(key);
+
+        if (wrapper == null) {
+            l2Misses.increment();
+            return null;
+        }
+
+        l2Hits.increment();
+        populate(l1Key, wrapper.get(), readStart);
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+
+        ValueWrapper wrapper = get(key);
+
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+
+        long readStart = cacheManager.currentVersion();
+        T value = l2.get(key, valueLoader);
+        populate(keyConverter.apply(key), value, readStart);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        cacheManager.invalidate(name, keyConverter.apply(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        if (existing == null) {
+            cacheManager.invalidate(name, keyConverter.apply(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        cacheManager.invalidate(name, keyConverter.apply(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = l2.evictIfPresent(key);
+        cacheManager.invalidate(name, keyConverter.apply(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        cacheManager.invalidateAll(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = l2.invalidate();
+        cacheManager.invalidateAll(name);
+        return invalidated;
+    }
+
+    /**
+     * Applies an invalidation of {@code key} stamped with {@code version} to L1.
+     */
+    void applyInvalidation(String key, long version) {
+        tombstones.asMap().merge(key, version, Math::max);
+        l1.invalidate(key);
+    }
+
+    /**
+     * Applies a clear stamped with {@code version} to L1.
+     */
+    void applyClear(long version) {
+        synchronized (this) {
+            clearedVersion = Math.max(clearedVersion, version);
+        }
+        l1.invalidateAll();
+    }
+
+    String convertKey(Object key) {
+        return keyConverter.apply(key);
+    }
+
+    private void populate(String l1Key, Object value, long readStart) {
+
+        if (value == null) {
+            return;
+        }
+
+        Long tombstone = tombstones.getIfPresent(l1Key);
+
+        if ((tombstone != null && tombstone > readStart) || clearedVersion > readStart) {
+            return; // invalidated while we were reading L2: the value may already be stale
+        }
+
+        l1.put(l1Key, new L1Entry(value));
+
+        // Re-check: an invalidation applied between the check and the put must win
+        Long after = tombstones.getIfPresent(l1Key);
+        if ((after != null && after > readStart) || clearedVersion > readStart) {
+            l1.invalidate(l1Key);
+        }
+    }
+}
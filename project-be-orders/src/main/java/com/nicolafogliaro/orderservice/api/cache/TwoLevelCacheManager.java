@@ -0,0 +1,211 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nicolafogliaro.orderservice.api.cache.CacheWriteBatch.CacheOps;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * {@link CacheManager} that puts a {@link TwoLevelCache} (Caffeine L1) in front of the configured caches of the
+ * target manager (Redis, L2) and keeps the L1 layers of all the nodes consistent.
+ * <p>
+ * Every change of an L2 entry is published on the {@link CacheInvalidationPublisher}, which stamps it with a
+ * global, monotonically increasing version. Each node applies the invalidations to its own L1 and remembers the
+ * highest version seen (its epoch), which {@link TwoLevelCache} uses to refuse refilling L1 with values read
+ * before a newer invalidation. Caches not listed in {@link NearCacheSettings#cacheNames()} are served by the
+ * target manager unchanged.
+ * </p>
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager target;
+    private final NearCacheSettings settings;
+    private final CacheInvalidationPublisher publisher;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong epoch = new AtomicLong();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager target,
+                                NearCacheSettings settings,
+                                CacheInvalidationPublisher publisher,
+                                MeterRegistry meterRegistry) {
+        this.target = target;
+        this.settings = settings;
+        this.publisher = publisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public CacheManager getTarget() {
+        return target;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+
+        TwoLevelCache cache = caches.get(name);
+
+        if (cache != null) {
+            return cache;
+        }
+
+        Cache l2 = target.getCache(name);
+
+        if (l2 == null || !settings.cacheNames().contains(name)) {
+            return l2;
+        }
+        return caches.computeIfAbsent(name, key -> createCache(name, l2));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+
+    long currentVersion() {
+        return epoch.get();
+    }
+
+    /**
+     * Invalidates one key on every node after its L2 entry was written.
+     */
+    void invalidate(String cacheName, String key) {
+        publishAndApply(List.of(new CacheInvalidationMessage.Entry(cacheName, false, List.of(key))));
+    }
+
+    /**
+     * Invalidates a whole cache on every node after its L2 entries were removed.
+     */
+    void invalidateAll(String cacheName) {
+        publishAndApply(List.of(new CacheInvalidationMessage.Entry(cacheName, true, List.of())));
+    }
+
+    /**
+     * Invalidates, with a single message, the L1 entries touched by a batch that was just written to L2.
+     */
+    public void afterFlush(CacheWriteBatch batch) {
+
+        List<CacheInvalidationMessage.Entry> entries = new ArrayList<>();
+
+        batch.getCaches().forEach((cacheName, ops) -> {
+            if (settings.cacheNames().contains(cacheName) && getCache(cacheName) instanceof TwoLevelCache cache) {
+                entries.add(toEntry(cache, ops));
+            }
+        });
+
+        if (!entries.isEmpty()) {
+            publishAndApply(entries);
+        }
+    }
+
+    /**
+     * Applies an invalidation received from the bus. Our own messages were already applied when published,
+     * they only move the epoch forward.
+     */
+    public void onMessage(CacheInvalidationMessage message) {
+
+        if (!nodeId.equals(message.origin())) {
+            apply(message.entries(), message.version());
+        }
+        epoch.accumulateAndGet(message.version(), Math::max);
+    }
+
+    private void publishAndApply(List<CacheInvalidationMessage.Entry> entries) {
+
+        long version;
+
+        try {
+            version = publisher.publish(nodeId, entries);
+        } catch (RuntimeException e) {
+            // Other nodes keep their copy until the L1 TTL expires; at least drop ours
+            log.error("*** Failed to publish cache invalidation {}: {}", entries, e.getMessage(), e);
+            entries.forEach(this::dropLocally);
+            return;
+        }
+
+        apply(entries, version);
+        epoch.accumulateAndGet(version, Math::max);
+    }
+
+    private void apply(List<CacheInvalidationMessage.Entry> entries, long version) {
+
+        for (CacheInvalidationMessage.Entry entry : entries) {
+
+            TwoLevelCache cache = caches.get(entry.cache());
+
+            if (cache == null) {
+                continue; // no L1 yet on this node, nothing to invalidate
+            }
+
+            if (entry.clear()) {
+                cache.applyClear(version);
+            }
+            entry.keys().forEach(key -> cache.applyInvalidation(key, version));
+        }
+    }
+
+    private void dropLocally(CacheInvalidationMessage.Entry entry) {
+
+        TwoLevelCache cache = caches.get(entry.cache());
+
+        if (cache == null) {
+            return;
+        }
+
+        if (entry.clear()) {
+            cache.getL1().invalidateAll();
+        }
+        cache.getL1().invalidateAll(entry.keys());
+    }
+
+    private static CacheInvalidationMessage.Entry toEntry(TwoLevelCache cache, CacheOps ops) {
+        List<String> keys = ops.getWrites().keySet().stream().map(cache::convertKey).toList();
+        return new CacheInvalidationMessage.Entry(cache.getName(), ops.isCleared(), keys);
+    }
+
+    private TwoLevelCache createCache(String name, Cache l2) {
+
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.L1Entry> l1 = Caffeine.newBuilder()
+                .maximumWeight(settings.maximumWeight())
+                .weigher(new NearCacheWeigher())
+                .expireAfterWrite(settings.ttl())
+                .recordStats()
+                .build();
+
+        // A tombstone only has to outlive the reads that started before it, and no L1 entry outlives the TTL
+        com.github.benmanes.caffeine.cache.Cache<String, Long> tombstones = Caffeine.newBuilder()
+                .maximumSize(settings.maximumWeight())
+                .expireAfterWrite(settings.ttl())
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, l1, name, "level", "l1");
+
+        log.info("Near cache enabled for '{}' (maximum weight: {}, ttl: {})", name, settings.maximumWeight(), settings.ttl());
+        return new TwoLevelCache(name, l2, l1, tombstones, keyConverter(l2), this, meterRegistry);
+    }
+
+    private static Function<Object, String> keyConverter(Cache l2) {
+        if (l2 instanceof RedisCache redisCache) {
+            return key -> RedisCacheKeys.convertKey(redisCache.getCacheConfiguration(), key);
+        }
+        return String::valueOf;
+    }
+}
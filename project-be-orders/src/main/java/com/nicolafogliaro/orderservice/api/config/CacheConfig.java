@@ -3,17 +3,29 @@ package com.nicolafogliaro.orderservice.api.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
 import com.nicolafogliaro.orderservice.api.dto.product.ProductResponse;
+import com.nicolafogliaro.orderservice.api.cache.NearCacheSettings;
+import com.nicolafogliaro.orderservice.api.cache.RefreshAheadSettings;
+import com.nicolafogliaro.orderservice.api.cache.SingleFlightSettings;
+import com.nicolafogliaro.orderservice.api.cache.CacheManagerDecoratorPostProcessor;
+import com.nicolafogliaro.orderservice.api.search.CachedOrderPage;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.Duration;
+import java.util.Set;
 
 import static com.fasterxml.jackson.annotation.JsonTypeInfo.As.PROPERTY;
 import static org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig;
@@ -26,6 +38,8 @@ public class CacheConfig {
     public static final String PRODUCTS_CACHE_NAME = "products";
     public static final String PRODUCT_CACHE_NAME = "product";
     public static final String ORDER_CACHE_NAME = "order";
+    // Pages of order searches, keyed by the orders epochs (see OrderSearchResultCache)
+    public static final String ORDER_SEARCH_CACHE_NAME = "orderSearch";
 
 
     @Value("${spring.redis.host:localhost}")
@@ -37,6 +51,20 @@ public class CacheConfig {
     @Value("${redis.ttl:3600}")
     private long cacheTtl;
 
+    // Per-cache TTLs (seconds), so that the entries of different caches do not all expire together
+    @Value("${redis.cache-ttl.order:${redis.ttl:3600}}")
+    private long orderCacheTtl;
+
+    @Value("${redis.cache-ttl.product:${redis.ttl:3600}}")
+    private long productCacheTtl;
+
+    @Value("${redis.cache-ttl.products:${redis.ttl:3600}}")
+    private long productsCacheTtl;
+
+    // Short: entries are never evicted, the epochs only make the next searches miss them
+    @Value("${redis.cache-ttl.order-search:60}")
+    private long orderSearchCacheTtl;
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         log.info(">>> Redis Config: url: {}, port: {}", redisUrl, redisPort);
@@ -45,6 +73,48 @@ public class CacheConfig {
         return lettuceConnectionFactory;
     }
 
+    /**
+     * Receives the near cache invalidations published by the other nodes.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * Static: bean post processors are instantiated before regular beans, hence the settings as method parameters.
+     */
+    @Bean
+    public static CacheManagerDecoratorPostProcessor cacheManagerDecoratorPostProcessor(
+            ObjectProvider<RedisConnectionFactory> connectionFactory,
+            ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<PlatformTransactionManager> transactionManager,
+            @Value("${cache.near.enabled:true}") boolean nearCacheEnabled,
+            @Value("${cache.near.maximum-weight:10000}") long nearCacheMaximumWeight,
+            @Value("${cache.near.ttl:60s}") Duration nearCacheTtl,
+            @Value("${cache.near.cache-names:product,order,products}") Set<String> nearCacheNames,
+            @Value("${cache.single-flight.lease.enabled:false}") boolean leaseEnabled,
+            @Value("${cache.single-flight.lease.ttl:5s}") Duration leaseTtl,
+            @Value("${cache.single-flight.lease.wait:2s}") Duration leaseWait,
+            @Value("${cache.single-flight.lease.poll-interval:25ms}") Duration leasePollInterval,
+            @Value("${cache.refresh-ahead.enabled:true}") boolean refreshAheadEnabled,
+            @Value("${cache.refresh-ahead.beta:1.0}") double refreshAheadBeta,
+            @Value("${cache.refresh-ahead.threads:2}") int refreshAheadThreads,
+            @Value("${cache.refresh-ahead.queue-capacity:100}") int refreshAheadQueueCapacity,
+            @Value("${cache.refresh-ahead.cache-names:product,order,products}") Set<String> refreshAheadCacheNames) {
+        return new CacheManagerDecoratorPostProcessor(connectionFactory,
+                listenerContainer,
+                meterRegistry,
+                transactionManager,
+                new NearCacheSettings(nearCacheEnabled, nearCacheMaximumWeight, nearCacheTtl, nearCacheNames),
+                new SingleFlightSettings(leaseEnabled, leaseTtl, leaseWait, leasePollInterval),
+                new RefreshAheadSettings(refreshAheadEnabled, refreshAheadBeta, refreshAheadThreads, refreshAheadQueueCapacity, refreshAheadCacheNames));
+    }
+
     @Bean
     public RedisCacheManagerBuilderCustomizer redisBuilderCustomizer(ObjectMapper objectMapper) {
 
@@ -59,6 +129,7 @@ public class CacheConfig {
         //I would rather create Jackson2JsonRedisSerializer for each cached model to ensure our own model's freedom
         Jackson2JsonRedisSerializer<OrderResponse> employeeJackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(cacheObjectMapper, OrderResponse.class);
         Jackson2JsonRedisSerializer<ProductResponse> departmentJackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(cacheObjectMapper, ProductResponse.class);
+        Jackson2JsonRedisSerializer<CachedOrderPage> orderSearchSerializer = new Jackson2JsonRedisSerializer<>(cacheObjectMapper, CachedOrderPage.class);
 
         return builder -> {
             builder.cacheDefaults(defaultCacheConfig()
@@ -67,15 +138,19 @@ public class CacheConfig {
                     )
                     .withCacheConfiguration(ORDER_CACHE_NAME, defaultCacheConfig()
                             .serializeValuesWith(fromSerializer(employeeJackson2JsonRedisSerializer))
-                            .entryTtl(Duration.ofSeconds(cacheTtl))
+                            .entryTtl(Duration.ofSeconds(orderCacheTtl))
                     )
                     .withCacheConfiguration(PRODUCT_CACHE_NAME, defaultCacheConfig()
                             .serializeValuesWith(fromSerializer(departmentJackson2JsonRedisSerializer))
-                            .entryTtl(Duration.ofSeconds(cacheTtl))
+                            .entryTtl(Duration.ofSeconds(productCacheTtl))
                     )
                     .withCacheConfiguration(PRODUCTS_CACHE_NAME, defaultCacheConfig()
                             .serializeValuesWith(fromSerializer(departmentJackson2JsonRedisSerializer))
-                            .entryTtl(Duration.ofSeconds(cacheTtl))
+                            .entryTtl(Duration.ofSeconds(productsCacheTtl))
+                    )
+                    .withCacheConfiguration(ORDER_SEARCH_CACHE_NAME, defaultCacheConfig()
+                            .serializeValuesWith(fromSerializer(orderSearchSerializer))
+                            .entryTtl(Duration.ofSeconds(orderSearchCacheTtl))
                     );
         };
     }
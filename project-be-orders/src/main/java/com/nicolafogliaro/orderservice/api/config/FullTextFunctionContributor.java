@@ -0,0 +1,32 @@
+package com.nicolafogliaro.orderservice.api.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the MariaDB full-text relevance functions, so JPQL and Criteria queries can use {@code MATCH ... AGAINST}.
+ * <p>
+ * {@code match_against(col, query)} returns the relevance in boolean mode (greater than 0 when the row matches).
+ * The column must be exactly that of a FULLTEXT index.
+ * The functions are registered for every dialect but only render valid SQL on MariaDB/MySQL, so callers must
+ * use them only in {@link com.nicolafogliaro.orderservice.api.repository.specification.TextSearchMode#FULLTEXT} mode.
+ * </p>
+ * Loaded by Hibernate through {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}.
+ */
+public class FullTextFunctionContributor implements FunctionContributor {
+
+    public static final String MATCH_AGAINST = "match_against";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+
+        BasicType<Double> relevance = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.DOUBLE);
+
+        functionContributions.getFunctionRegistry()
+                .registerPattern(MATCH_AGAINST, "match(?1) against(?2 in boolean mode)", relevance);
+    }
+}
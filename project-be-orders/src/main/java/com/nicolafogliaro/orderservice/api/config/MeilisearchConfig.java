@@ -0,0 +1,82 @@
+package com.nicolafogliaro.orderservice.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meilisearch.sdk.Client;
+import com.meilisearch.sdk.Config;
+import com.meilisearch.sdk.json.JacksonJsonHandler;
+import com.nicolafogliaro.orderservice.api.search.CircuitBreaker;
+import com.nicolafogliaro.orderservice.api.search.CircuitBreakerSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * One Meilisearch {@link Client} for the whole application: the SDK keeps its HTTP transport (and the keep-alive
+ * connections to Meilisearch) per client, so the client must not be built per request.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "search.engine", havingValue = "meilisearch", matchIfMissing = true)
+public class MeilisearchConfig {
+
+    public static final String MEILISEARCH_EXECUTOR = "meilisearchExecutor";
+
+    @Bean
+    public Client meilisearchClient(ObjectMapper objectMapper,
+                                    @Value("${meilisearch.host:http://localhost:7700}") String host,
+                                    @Value("${meilisearch.api-key:}") String apiKey) {
+
+        log.info("Creating Meilisearch client for {}", host);
+
+        return new Client(new Config(host, apiKey, new JacksonJsonHandler(objectMapper)));
+    }
+
+    /**
+     * Threads running the Meilisearch requests: their number bounds the requests in flight, the queue bounds the
+     * requests waiting for one. When both are full the request is rejected instead of piling up.
+     */
+    @Bean(name = MEILISEARCH_EXECUTOR)
+    public ThreadPoolTaskExecutor meilisearchExecutor(@Value("${meilisearch.max-in-flight:16}") int maxInFlight,
+                                                      @Value("${meilisearch.queue-capacity:200}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxInFlight);
+        executor.setMaxPoolSize(maxInFlight);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("Meilisearch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Breaker of the request path calls ({@code MeilisearchGateway#call}): while Meilisearch fails or is slow, the
+     * searches go to the database right away instead of each waiting for its timeout.
+     */
+    @Bean
+    public CircuitBreaker meilisearchCircuitBreaker(MeterRegistry meterRegistry,
+                                                    @Value("${meilisearch.breaker.window-size:50}") int windowSize,
+                                                    @Value("${meilisearch.breaker.minimum-calls:20}") int minimumCalls,
+                                                    @Value("${meilisearch.breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                                                    @Value("${meilisearch.breaker.slow-call-duration:PT0.25S}") Duration slowCallDuration,
+                                                    @Value("${meilisearch.breaker.slow-call-rate-threshold:50}") int slowCallRateThreshold,
+                                                    @Value("${meilisearch.breaker.open-duration:PT10S}") Duration openDuration,
+                                                    @Value("${meilisearch.breaker.half-open-calls:5}") int halfOpenCalls) {
+        return new CircuitBreaker("meilisearch", new CircuitBreakerSettings(windowSize,
+                minimumCalls,
+                failureRateThreshold,
+                slowCallDuration,
+                slowCallRateThreshold,
+                openDuration,
+                halfOpenCalls), meterRegistry);
+    }
+}
@@ -0,0 +1,91 @@
+package com.nicolafogliaro.orderservice.api.controller;
+
+import com.nicolafogliaro.orderservice.api.dto.draft.CreateDraftOrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.draft.DraftItemRequest;
+import com.nicolafogliaro.orderservice.api.dto.draft.DraftOrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.service.DraftOrderService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * http://localhost:8080/order-service/api/v1/drafts
+ */
+@Slf4j
+@Validated
+@RestController
+@RequestMapping("/api/v1/drafts")
+@RequiredArgsConstructor
+@Tag(name = "Draft Order API", description = "Endpoints for editing draft orders (carts) and checking them out as real orders")
+public class DraftOrderController {
+
+    private final DraftOrderService draftOrderService;
+
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public DraftOrderResponse createDraft(@Valid @RequestBody CreateDraftOrderRequest request) {
+        log.info(">>> [{}#createDraft] --> req: {}", DraftOrderController.class.getSimpleName(), request);
+        DraftOrderResponse res = draftOrderService.createDraft(request);
+        log.info("<<< [{}#createDraft] --> req: {} | <--- res: {}", DraftOrderController.class.getSimpleName(), request, res);
+        return res;
+    }
+
+    @GetMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public DraftOrderResponse getDraft(@PathVariable String id) {
+        log.info(">>> [{}#getDraft] --> id: {}", DraftOrderController.class.getSimpleName(), id);
+        return draftOrderService.getDraft(id);
+    }
+
+    /**
+     * Set the quantity of a product in the draft (adds the line if missing).
+     */
+    @PutMapping("/{id}/items/{productId}")
+    @ResponseStatus(HttpStatus.OK)
+    public DraftOrderResponse setItem(@PathVariable String id,
+                                      @PathVariable Long productId,
+                                      @Valid @RequestBody DraftItemRequest request) {
+        log.info(">>> [{}#setItem] --> id: {}, productId: {}, req: {}", DraftOrderController.class.getSimpleName(), id, productId, request);
+        return draftOrderService.setItem(id, productId, request.quantity());
+    }
+
+    @DeleteMapping("/{id}/items/{productId}")
+    @ResponseStatus(HttpStatus.OK)
+    public DraftOrderResponse removeItem(@PathVariable String id, @PathVariable Long productId) {
+        log.info(">>> [{}#removeItem] --> id: {}, productId: {}", DraftOrderController.class.getSimpleName(), id, productId);
+        return draftOrderService.removeItem(id, productId);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteDraft(@PathVariable String id) {
+        log.info(">>> [{}#deleteDraft] --> id: {}", DraftOrderController.class.getSimpleName(), id);
+        draftOrderService.deleteDraft(id);
+    }
+
+    /**
+     * Promote the draft to a real order: stock is reserved for all the lines at once and the draft is removed.
+     */
+    @PostMapping("/{id}/checkout")
+    @ResponseStatus(HttpStatus.CREATED)
+    public OrderResponse checkout(@PathVariable String id) {
+        log.info(">>> [{}#checkout] --> id: {}", DraftOrderController.class.getSimpleName(), id);
+        OrderResponse res = draftOrderService.checkout(id);
+        log.info("<<< [{}#checkout] --> id: {} | <--- res: {}", DraftOrderController.class.getSimpleName(), id, res);
+        return res;
+    }
+}
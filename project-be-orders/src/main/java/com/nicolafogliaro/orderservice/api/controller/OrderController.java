@@ -1,10 +1,18 @@
 package com.nicolafogliaro.orderservice.api.controller;
 
 
+import com.nicolafogliaro.orderservice.api.dto.order.OrderQuoteResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderRequest;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.UpdateOrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemResponse;
+import com.nicolafogliaro.orderservice.api.dto.page.CursorPageResponse;
+import com.nicolafogliaro.orderservice.api.dto.page.SeekPageResponse;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.service.LargeOrderService;
+import com.nicolafogliaro.orderservice.api.service.OrderQuoteService;
 import com.nicolafogliaro.orderservice.api.service.OrderSearchService;
 import com.nicolafogliaro.orderservice.api.service.OrderService;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,9 +30,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.InputStream;
+import java.util.List;
+
 /**
  * http://localhost:8080/order-service/api/v1/orders
  */
@@ -38,6 +50,9 @@ public class OrderController {
 
     private final OrderService orderService;
     private final OrderSearchService orderSearchService;
+    private final LargeOrderService largeOrderService;
+    private final OrderQuoteService orderQuoteService;
+    private final ExistenceFilterService existenceFilterService;
 
 
     /**
@@ -47,11 +62,53 @@ public class OrderController {
     @ResponseStatus(HttpStatus.OK)
     public OrderResponse getOrderById(@PathVariable Long id) {
         log.info(">>> [{}#getOrderById] --> id: {}", OrderController.class.getSimpleName(), id);
+        existenceFilterService.requireOrder(id);
         OrderResponse res = orderService.getOrderById(id);
         log.info("<<< [{}#getOrderById] ---> id: {} | <--- res: {}", OrderController.class.getSimpleName(), id, res);
         return res;
     }
 
+    /**
+     * Get many orders at once ({@code GET ?ids=1,2,3}), in the requested order. IDs that do not exist are left out.
+     */
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public List<OrderResponse> getOrdersByIds(@RequestParam List<Long> ids) {
+        log.info(">>> [{}#getOrdersByIds] --> ids: {}", OrderController.class.getSimpleName(), ids);
+        List<OrderResponse> res = orderService.getOrdersByIds(ids);
+        log.info("<<< [{}#getOrdersByIds] ---> ids: {} | <--- res: {} orders", OrderController.class.getSimpleName(), ids, res.size());
+        return res;
+    }
+
+    /**
+     * Get only the header of an order and the number of its items ({@code GET /{id}?includeItems=false}).
+     * Meant for large orders, whose items are read page by page from {@link #getOrderItems(Long, Long, Integer)}.
+     */
+    @GetMapping(path = "/{id}", params = "includeItems=false")
+    @ResponseStatus(HttpStatus.OK)
+    public OrderSummaryResponse getOrderSummary(@PathVariable Long id) {
+        log.info(">>> [{}#getOrderSummary] --> id: {}", OrderController.class.getSimpleName(), id);
+        existenceFilterService.requireOrder(id);
+        OrderSummaryResponse res = orderService.getOrderSummary(id);
+        log.info("<<< [{}#getOrderSummary] ---> id: {} | <--- res: {}", OrderController.class.getSimpleName(), id, res);
+        return res;
+    }
+
+    /**
+     * Get the items of an order with keyset pagination.
+     * The first page is requested without {@code after}; the following ones pass the {@code nextCursor} of the previous page.
+     */
+    @GetMapping("/{id}/items")
+    @ResponseStatus(HttpStatus.OK)
+    public CursorPageResponse<OrderItemResponse> getOrderItems(@PathVariable Long id,
+                                                               @RequestParam(required = false) Long after,
+                                                               @RequestParam(required = false) Integer limit) {
+        log.info(">>> [{}#getOrderItems] --> id: {}, after: {}, limit: {}", OrderController.class.getSimpleName(), id, after, limit);
+        CursorPageResponse<OrderItemResponse> res = orderService.getOrderItems(id, after, limit);
+        log.info("<<< [{}#getOrderItems] ---> id: {} | <--- items: {}, nextCursor: {}", OrderController.class.getSimpleName(), id, res.content().size(), res.nextCursor());
+        return res;
+    }
+
     /**
      * Create a new order.
      * Stock levels for the ordered products will be checked and updated by the OrderService.
@@ -65,6 +122,34 @@ public class OrderController {
         return res;
     }
 
+    /**
+     * Price an order without creating it.
+     * Returns line subtotals, the total and stock availability flags; no stock is reserved and nothing is persisted.
+     */
+    @PostMapping(path = "/quote", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public OrderQuoteResponse quoteOrder(@Valid @RequestBody OrderRequest request) {
+        log.info(">>> [{}#quoteOrder] --> req: {}", OrderController.class.getSimpleName(), request);
+        OrderQuoteResponse res = orderQuoteService.quote(request);
+        log.info("<<< [{}#quoteOrder] --> req: {} | <--- res: {}", OrderController.class.getSimpleName(), request, res);
+        return res;
+    }
+
+    /**
+     * Create a large (B2B) order.
+     * Accepts the same JSON as {@link #createOrder(OrderRequest)} without the 100 items limit: the body is read as a
+     * stream and items are aggregated by product, so only the order header and the item count are returned.
+     * Items can be browsed page by page on {@code /api/v1/orders/{id}/items}.
+     */
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public OrderSummaryResponse createLargeOrder(InputStream body) {
+        log.info(">>> [{}#createLargeOrder]", OrderController.class.getSimpleName());
+        OrderSummaryResponse res = largeOrderService.createLargeOrder(body);
+        log.info("<<< [{}#createLargeOrder] <--- res: {}", OrderController.class.getSimpleName(), res);
+        return res;
+    }
+
     /**
      * Update an existing order.
      * Stock levels will be adjusted by the OrderService based on changes in the order.
@@ -128,6 +213,20 @@ public class OrderController {
         return orderResponses;
     }
 
+    /**
+     * Database search with keyset pagination: send back {@code nextCursor} as {@code cursor} to read the next page.
+     * Unlike {@link #searchOrders(OrderSearchCriteria)}, deep pages cost the same as the first one and no count is
+     * run unless {@code includeTotal} is set.
+     */
+    @PostMapping(path = "/search/cursor", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public SeekPageResponse<OrderResponse> searchOrdersByCursor(@Valid @RequestBody OrderSearchCriteria request) {
+        log.info(">>> [{}#searchOrdersByCursor] --> req: {}", OrderController.class.getSimpleName(), request);
+        SeekPageResponse<OrderResponse> res = orderSearchService.searchOrdersWithDbByCursor(request);
+        log.info("<<< [{}#searchOrdersByCursor] --> req: {} | <--- {} orders", OrderController.class.getSimpleName(), request, res.content().size());
+        return res;
+    }
+
     @PostMapping(path = "/search/engine", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.OK)
     public Page<OrderResponse> searchOrdersWithSearchEngine(@Valid @RequestBody OrderSearchCriteria request) {
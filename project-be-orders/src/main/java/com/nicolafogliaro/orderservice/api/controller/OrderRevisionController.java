@@ -0,0 +1,44 @@
+package com.nicolafogliaro.orderservice.api.controller;
+
+import com.nicolafogliaro.orderservice.api.dto.page.CursorPageResponse;
+import com.nicolafogliaro.orderservice.api.dto.revision.OrderRevisionResponse;
+import com.nicolafogliaro.orderservice.api.service.OrderRevisionService;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * http://localhost:8080/order-service/api/v1/orders/{id}/revisions
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/orders/{id}/revisions")
+@RequiredArgsConstructor
+@Tag(name = "Order Revision API", description = "Change history of orders")
+public class OrderRevisionController {
+
+    private final OrderRevisionService orderRevisionService;
+
+
+    /**
+     * Get the revisions of an order, oldest first, with keyset pagination.
+     * Revisions are written asynchronously, so the latest change may appear with a short delay.
+     */
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public CursorPageResponse<OrderRevisionResponse> getRevisions(@PathVariable Long id,
+                                                                  @RequestParam(required = false) Long after,
+                                                                  @RequestParam(required = false) Integer limit) {
+        log.info(">>> [{}#getRevisions] --> id: {}, after: {}, limit: {}", OrderRevisionController.class.getSimpleName(), id, after, limit);
+        CursorPageResponse<OrderRevisionResponse> res = orderRevisionService.getRevisions(id, after, limit);
+        log.info("<<< [{}#getRevisions] ---> id: {} | <--- revisions: {}, nextCursor: {}", OrderRevisionController.class.getSimpleName(), id, res.content().size(), res.nextCursor());
+        return res;
+    }
+}
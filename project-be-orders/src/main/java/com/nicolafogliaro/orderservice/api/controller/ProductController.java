@@ -3,6 +3,7 @@ package com.nicolafogliaro.orderservice.api.controller;
 import com.nicolafogliaro.orderservice.api.dto.product.CreateProductRequest;
 import com.nicolafogliaro.orderservice.api.dto.product.ProductResponse;
 import com.nicolafogliaro.orderservice.api.dto.product.UpdateProductRequest;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
 import com.nicolafogliaro.orderservice.api.service.impl.ProductServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -19,6 +20,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -36,6 +38,7 @@ import java.util.List;
 public class ProductController {
 
     private final ProductServiceImpl productService;
+    private final ExistenceFilterService existenceFilterService;
 
     /**
      * GET /api/v1/products
@@ -53,6 +56,24 @@ public class ProductController {
         return res;
     }
 
+    /**
+     * GET /api/v1/products?ids=1,2,3
+     * Retrieves many products by ID.
+     *
+     * @param ids The product IDs.
+     * @return The products found, in the requested order; IDs that do not exist are left out.
+     */
+    @GetMapping(params = "ids")
+    @Operation(summary = "Get products by IDs", description = "Retrieve many products at once by providing their IDs.")
+    @ApiResponse(responseCode = "200", description = "Products found and details retrieved successfully.")
+    @ApiResponse(responseCode = "400", description = "Too many IDs requested.")
+    public List<ProductResponse> getProductsByIds(@RequestParam List<Long> ids) {
+        log.info(">>> [{}#getProductsByIds] --> ids: {}", ProductController.class.getSimpleName(), ids);
+        List<ProductResponse> res = productService.getProductsByIds(ids);
+        log.info("<<< [{}#getProductsByIds] ---> ids: {} | <--- res: {} products", ProductController.class.getSimpleName(), ids, res.size());
+        return res;
+    }
+
     /**
      * GET /api/v1/products/{id}
      * Retrieves a product by ID.
@@ -66,6 +87,7 @@ public class ProductController {
     @ApiResponse(responseCode = "404", description = "Product with specified ID not found.")
     public ProductResponse getProductById(@PathVariable Long id) {
         log.info(">>> [{}#getProductById] --> id: {}", ProductController.class.getSimpleName(), id);
+        existenceFilterService.requireProduct(id);
         ProductResponse res = productService.getProductById(id);
         log.info("<<< [{}#getProductById] ---> id: {} | <--- res: {}", OrderController.class.getSimpleName(), id, res);
         return res;
@@ -0,0 +1,22 @@
+package com.nicolafogliaro.orderservice.api.dto.draft;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Request to open a draft order (cart).
+ */
+@Schema(description = "Draft order (cart) creation request")
+public record CreateDraftOrderRequest(
+
+        @NotNull
+        @Schema(description = "Unique identifier of the customer", example = "1001", requiredMode = Schema.RequiredMode.REQUIRED)
+        Long customerId,
+
+        @NotEmpty(message = "Order description cannot be empty")
+        @Size(max = 500, message = "Description cannot exceed 500 characters")
+        @Schema(description = "Description or notes for the order", example = "Rush delivery requested", requiredMode = Schema.RequiredMode.REQUIRED)
+        String orderDescription
+) {}
@@ -0,0 +1,15 @@
+package com.nicolafogliaro.orderservice.api.dto.draft;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Sets the quantity of one product in a draft order.
+ */
+@Schema(description = "Quantity of a product in a draft order")
+public record DraftItemRequest(
+
+        @Schema(description = "The number of units of the product. Must be at least 1.", example = "2", minimum = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+        @Min(value = 1, message = "Quantity must be at least 1")
+        int quantity
+) {}
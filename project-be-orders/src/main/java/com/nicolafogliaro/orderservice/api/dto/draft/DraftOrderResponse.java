@@ -0,0 +1,29 @@
+package com.nicolafogliaro.orderservice.api.dto.draft;
+
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Current content of a draft order. Prices are not stored in a draft: they are resolved at checkout
+ * (or previewed with {@code POST /api/v1/orders/quote}).
+ */
+@Schema(description = "Draft order (cart) stored in Redis")
+public record DraftOrderResponse(
+
+        @Schema(description = "Identifier of the draft", example = "5b0b1c0e-2f4e-4c1a-9d0f-3b1f8f0d2a77")
+        String id,
+
+        @Schema(description = "Identifier of the customer who owns the draft", example = "1001")
+        Long customerId,
+
+        @Schema(description = "Description or notes for the order", example = "Rush delivery requested")
+        String orderDescription,
+
+        @Schema(description = "Lines of the draft, sorted by product ID")
+        List<OrderItemRequest> items,
+
+        @Schema(description = "Seconds before the draft expires if it is not modified", example = "86400")
+        long expiresInSeconds
+) {}
@@ -0,0 +1,14 @@
+package com.nicolafogliaro.orderservice.api.dto.order;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of a change of the order search projection: the key read by the incremental
+ * synchronization of the search index.
+ */
+public interface OrderChangeView {
+
+    Long getOrderId();
+
+    LocalDateTime getChangedAt();
+}
@@ -0,0 +1,28 @@
+package com.nicolafogliaro.orderservice.api.dto.order;
+
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderQuoteLineResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Price preview of an order request. Nothing is persisted and no stock is reserved,
+ * so the figures are indicative until the order is actually created.
+ */
+@Schema(description = "Price preview of an order request")
+public record OrderQuoteResponse(
+
+        @Schema(description = "Identifier of the customer the quote was computed for", example = "1001")
+        Long customerId,
+
+        @Schema(description = "Priced lines, in the same order as the request")
+        List<OrderQuoteLineResponse> items,
+
+        @Schema(description = "Sum of the line subtotals", example = "129.99", type = "number", format = "double")
+        BigDecimal totalAmount,
+
+        @Schema(description = "Whether every line can currently be fulfilled", example = "true")
+        boolean available
+) implements Serializable {}
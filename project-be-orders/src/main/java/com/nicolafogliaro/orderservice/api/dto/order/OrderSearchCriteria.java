@@ -1,10 +1,12 @@
 package com.nicolafogliaro.orderservice.api.dto.order;
 
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -30,6 +32,12 @@ public class OrderSearchCriteria {
     @Positive(message = "Customer ID must be a positive number if provided.")
     private Long customerId;
 
+    /**
+     * The status of the orders to be searched.
+     * If null, orders in any status are considered.
+     */
+    @Schema(description = "Status of the orders.", example = "SHIPPED")
+    private OrderStatus status;
 
     /**
      * A general query string for text-based search.
@@ -82,7 +90,7 @@ public class OrderSearchCriteria {
      * Defaults to the value of {@code CREATED_AT}.
      */
     @Builder.Default
-    @Schema(description = "Field to sort the results by.", defaultValue = "createdAt", example = "createdAt")
+    @Schema(description = "Field to sort the results by ('relevance' ranks full-text matches in the database search).", defaultValue = "createdAt", example = "createdAt")
     private String sort = CREATED_AT;
 
     /**
@@ -94,4 +102,20 @@ public class OrderSearchCriteria {
     @Schema(description = "Sort direction.", defaultValue = "desc", example = "asc", allowableValues = {"asc", "desc"})
     @Pattern(regexp = "asc|desc", message = "Sort direction must be 'asc' or 'desc'.")
     private String direction = "desc";
-}
\ No newline at end of file
+
+    /**
+     * Opaque continuation token returned as {@code nextCursor} by the cursor search.
+     * Must be sent back with the same sort and direction; ignored by the page-based searches.
+     */
+    @Schema(description = "Cursor returned by the previous page of the cursor search, omitted for the first page.")
+    @Size(max = 512, message = "Cursor must not exceed 512 characters.")
+    private String cursor;
+
+    /**
+     * Whether the cursor search must also count all the matching orders (an extra query).
+     * Defaults to false; the page-based searches always count.
+     */
+    @Builder.Default
+    @Schema(description = "Whether the cursor search also returns the total number of matches.", defaultValue = "false", example = "false")
+    private Boolean includeTotal = false;
+}
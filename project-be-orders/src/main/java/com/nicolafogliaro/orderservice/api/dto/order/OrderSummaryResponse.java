@@ -0,0 +1,41 @@
+package com.nicolafogliaro.orderservice.api.dto.order;
+
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Header-only representation of an order.
+ * Carries the number of order lines instead of the lines themselves, which are served page by page
+ * from the {@code /api/v1/orders/{id}/items} sub-resource.
+ */
+@Schema(description = "Order header with the number of its items")
+public record OrderSummaryResponse(
+
+        @Schema(description = "Unique identifier of the order", example = "1001")
+        Long id,
+
+        @Schema(description = "Identifier of the customer who placed this order", example = "5001")
+        Long customerId,
+
+        @Schema(description = "Text description or notes for the order", example = "Quarterly restock")
+        String description,
+
+        @Schema(description = "Current status of the order", example = "PENDING")
+        OrderStatus status,
+
+        @Schema(description = "Total monetary amount of the order", example = "129.99")
+        BigDecimal totalAmount,
+
+        @Schema(description = "Number of items (order lines) in the order", example = "5000")
+        long itemCount,
+
+        @Schema(description = "Timestamp when the order was created", example = "2025-05-14T13:45:30")
+        LocalDateTime createdAt,
+
+        @Schema(description = "Timestamp when the order was last updated", example = "2025-05-14T14:15:22")
+        LocalDateTime updatedAt
+) implements Serializable {}
@@ -0,0 +1,14 @@
+package com.nicolafogliaro.orderservice.api.dto.order;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an order ID and its last update time: what the consistency checker compares with the
+ * search index.
+ */
+public interface OrderVersionView {
+
+    Long getId();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,23 @@
+package com.nicolafogliaro.orderservice.api.dto.orderitem;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of an order line joined with the few product columns shown to clients.
+ * Used by the paged items queries so that no {@link com.nicolafogliaro.orderservice.api.model.Product}
+ * entity is hydrated (and no persistence context entry is created) for each line.
+ */
+public interface OrderItemView {
+
+    Long getId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    String getProductDescription();
+
+    Integer getQuantity();
+
+    BigDecimal getUnitPrice();
+}
@@ -0,0 +1,16 @@
+package com.nicolafogliaro.orderservice.api.dto.orderitem;
+
+/**
+ * Read-only projection of the searchable text of a product contained in an order (once per order and product).
+ * Used to rebuild the order search projection without loading the order lines.
+ */
+public interface OrderProductTextView {
+
+    Long getOrderId();
+
+    Long getProductId();
+
+    String getProductName();
+
+    String getProductDescription();
+}
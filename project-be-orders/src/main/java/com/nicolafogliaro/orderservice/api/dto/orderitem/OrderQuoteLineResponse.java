@@ -0,0 +1,34 @@
+package com.nicolafogliaro.orderservice.api.dto.orderitem;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Priced line of an order quote.
+ */
+@Schema(description = "Priced line of an order quote, with the stock availability of its product")
+public record OrderQuoteLineResponse(
+
+        @Schema(description = "Unique identifier of the product", example = "789")
+        Long productId,
+
+        @Schema(description = "Name of the product", example = "Wireless Mouse")
+        String productName,
+
+        @Schema(description = "Requested quantity", example = "2")
+        Integer quantity,
+
+        @Schema(description = "Current price of a single unit of the product", example = "25.99", type = "number", format = "double")
+        BigDecimal unitPrice,
+
+        @Schema(description = "quantity * unitPrice", example = "51.98", type = "number", format = "double")
+        BigDecimal subtotalPrice,
+
+        @Schema(description = "Units of the product currently in stock", example = "40")
+        Integer stockQuantity,
+
+        @Schema(description = "Whether the stock covers the total quantity requested for this product across all lines", example = "true")
+        boolean available
+) implements Serializable {}
@@ -0,0 +1,33 @@
+package com.nicolafogliaro.orderservice.api.dto.page;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a keyset (cursor) paginated listing.
+ * The next page is requested by passing {@code nextCursor} as the {@code after} parameter; no total count is computed.
+ *
+ * @param <T> element type
+ */
+@Schema(description = "Page of a keyset paginated listing")
+public record CursorPageResponse<T>(
+
+        @Schema(description = "Elements of the page, in ascending cursor order")
+        List<T> content,
+
+        @Schema(description = "Cursor to pass as 'after' to read the next page, null when there are no more elements", example = "1250")
+        Long nextCursor,
+
+        @Schema(description = "Whether more elements follow this page", example = "true")
+        boolean hasNext,
+
+        @Schema(description = "Maximum number of elements requested for the page", example = "50")
+        int limit
+) implements Serializable {
+
+    public static <T> CursorPageResponse<T> empty(int limit) {
+        return new CursorPageResponse<>(List.of(), null, false, limit);
+    }
+}
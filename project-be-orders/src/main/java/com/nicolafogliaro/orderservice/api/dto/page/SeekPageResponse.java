@@ -0,0 +1,32 @@
+package com.nicolafogliaro.orderservice.api.dto.page;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of a keyset paginated search.
+ * The next page is requested by sending {@code nextCursor} back with the same criteria; the total is only computed on request.
+ *
+ * @param <T> element type
+ */
+@Schema(description = "Page of a keyset paginated search")
+public record SeekPageResponse<T>(
+
+        @Schema(description = "Elements of the page, in the requested sort order")
+        List<T> content,
+
+        @Schema(description = "Opaque cursor to send as 'cursor' to read the next page, null when there are no more elements",
+                example = "MXxDUkVBVEVEX0FUfERFU0N8MjAyNS0wNS0yMFQxMDoxNTozMHwxMjUw")
+        String nextCursor,
+
+        @Schema(description = "Whether more elements follow this page", example = "true")
+        boolean hasNext,
+
+        @Schema(description = "Maximum number of elements requested for the page", example = "20")
+        int size,
+
+        @Schema(description = "Number of elements matching the criteria, null unless 'includeTotal' was requested", example = "5321")
+        Long totalElements
+) implements Serializable {}
@@ -0,0 +1,42 @@
+package com.nicolafogliaro.orderservice.api.dto.revision;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the change history of an order. Snapshots and diff are returned as stored (JSON objects).
+ */
+@Schema(description = "Revision of an order")
+public record OrderRevisionResponse(
+
+        @Schema(description = "Identifier of the revision, also used as paging cursor", example = "42")
+        Long id,
+
+        @Schema(description = "Identifier of the order", example = "1001")
+        Long orderId,
+
+        @Schema(description = "Kind of change", example = "UPDATED")
+        OrderRevisionType revisionType,
+
+        @Schema(description = "Who made the change (X-User header, 'anonymous' when missing)", example = "jdoe")
+        String changedBy,
+
+        @Schema(description = "When the change was committed", example = "2025-05-14T13:45:30")
+        LocalDateTime changedAt,
+
+        @JsonRawValue
+        @Schema(description = "Order before the change", type = "object")
+        String before,
+
+        @JsonRawValue
+        @Schema(description = "Order after the change", type = "object")
+        String after,
+
+        @JsonRawValue
+        @Schema(description = "Changed fields and items", type = "object")
+        String changes
+) implements Serializable {}
@@ -0,0 +1,9 @@
+package com.nicolafogliaro.orderservice.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class DraftOrderNotFoundException extends RuntimeException {
+    public DraftOrderNotFoundException(String message) {super(message);}
+}
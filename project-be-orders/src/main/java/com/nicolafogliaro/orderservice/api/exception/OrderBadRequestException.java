@@ -0,0 +1,13 @@
+package com.nicolafogliaro.orderservice.api.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an order payload cannot be accepted (malformed or invalid content).
+ * Results in an HTTP 400 Bad Request response.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class OrderBadRequestException extends RuntimeException {
+    public OrderBadRequestException(String message) {super(message);}
+}
@@ -6,4 +6,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class OrderNotFoundException extends RuntimeException {
     public OrderNotFoundException(String message) {super(message);}
+
+    /**
+     * @param writableStackTrace false for the expected misses rejected without a lookup, where a stack trace is only overhead
+     */
+    public OrderNotFoundException(String message, boolean writableStackTrace) {super(message, null, false, writableStackTrace);}
 }
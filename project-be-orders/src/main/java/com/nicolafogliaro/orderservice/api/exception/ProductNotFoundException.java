@@ -10,4 +10,9 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class ProductNotFoundException extends RuntimeException {
     public ProductNotFoundException(String message) {super(message);}
+
+    /**
+     * @param writableStackTrace false for the expected misses rejected without a lookup, where a stack trace is only overhead
+     */
+    public ProductNotFoundException(String message, boolean writableStackTrace) {super(message, null, false, writableStackTrace);}
 }
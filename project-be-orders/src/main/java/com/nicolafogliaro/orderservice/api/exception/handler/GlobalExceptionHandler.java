@@ -1,6 +1,9 @@
 package com.nicolafogliaro.orderservice.api.exception.handler;
 
+import com.nicolafogliaro.orderservice.api.exception.ConcurrencyConflictException;
+import com.nicolafogliaro.orderservice.api.exception.DraftOrderNotFoundException;
 import com.nicolafogliaro.orderservice.api.exception.InsufficientStockException;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
 import com.nicolafogliaro.orderservice.api.exception.OrderNotFoundException;
 import com.nicolafogliaro.orderservice.api.exception.ProductBadRequestException;
 import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
@@ -42,6 +45,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(ex.getMessage()));
     }
 
+    @ExceptionHandler(OrderBadRequestException.class)
+    public ResponseEntity<ErrorResponse> handleOrderBadRequest(OrderBadRequestException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(DraftOrderNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleDraftOrderNotFound(DraftOrderNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(ConcurrencyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrencyConflict(ConcurrencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(ex.getMessage()));
+    }
+
     @ExceptionHandler(InsufficientStockException.class)
     public ResponseEntity<ErrorResponse> handleInsufficientStock(InsufficientStockException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ErrorResponse(ex.getMessage()));
@@ -0,0 +1,30 @@
+package com.nicolafogliaro.orderservice.api.initializer;
+
+import com.nicolafogliaro.orderservice.api.service.OrderSearchEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchEngineInitializer {
+
+    private final OrderSearchEngine orderSearchEngine;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Async("asyncTaskExecutor")
+    public void initializeSearchEngineAfterStartup() {
+        log.info(">>> Starting search engine initialization ({})...", orderSearchEngine.getClass().getSimpleName());
+        try {
+            orderSearchEngine.initializeIndexes();
+            log.info("<<< Search engine initialization completed successfully.");
+        } catch (Exception e) {
+            log.error("*** Failed to initialize the search engine: " + e.getMessage(), e);
+        }
+    }
+
+}
@@ -1,12 +1,14 @@
 package com.nicolafogliaro.orderservice.api.listener;
 
-import com.nicolafogliaro.orderservice.api.model.order.Order;
-import com.nicolafogliaro.orderservice.api.service.MeilisearchService;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchEngine;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.List;
+
 /**
  * A listener to automatically index orders when they change
  */
@@ -14,30 +16,55 @@ import org.springframework.transaction.event.TransactionalEventListener;
 @RequiredArgsConstructor
 public class OrderEventListener {
 
-    private final MeilisearchService meilisearchService;
+    private final OrderSearchEngine orderSearchEngine;
 
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleOrderCreatedOrUpdated(OrderChangedEvent event) {
-        meilisearchService.indexOrder(event.getOrder());
+        orderSearchEngine.indexOrder(event.getOrder());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void handleOrderIdsChanged(OrderIdsChangedEvent event) {
+        orderSearchEngine.reindexOrders(event.getOrderIds());
     }
 
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void handleOrderDeleted(OrderDeletedEvent event) {
-        meilisearchService.deleteOrder(event.getOrderId());
+        orderSearchEngine.deleteOrder(event.getOrderId());
     }
 
+    /**
+     * Published inside the transaction that creates or updates an order, with the order as committed
+     * (mapped while the items are still loaded).
+     */
     public static class OrderChangedEvent {
-        private final Order order;
+        private final OrderResponse order;
 
-        public OrderChangedEvent(Order order) {
+        public OrderChangedEvent(OrderResponse order) {
             this.order = order;
         }
 
-        public Order getOrder() {
+        public OrderResponse getOrder() {
             return order;
         }
     }
 
+    /**
+     * Published inside the transaction that changes orders without loading them (bulk inserts, product renames):
+     * the engine reads them again after commit if it needs to.
+     */
+    public static class OrderIdsChangedEvent {
+        private final List<Long> orderIds;
+
+        public OrderIdsChangedEvent(List<Long> orderIds) {
+            this.orderIds = List.copyOf(orderIds);
+        }
+
+        public List<Long> getOrderIds() {
+            return orderIds;
+        }
+    }
+
     public static class OrderDeletedEvent {
         private final Long orderId;
 
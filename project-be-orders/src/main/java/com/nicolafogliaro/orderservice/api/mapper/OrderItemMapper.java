@@ -2,6 +2,7 @@ package com.nicolafogliaro.orderservice.api.mapper;
 
 import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
 import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemResponse;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemView;
 import com.nicolafogliaro.orderservice.api.model.OrderItem;
 import com.nicolafogliaro.orderservice.api.model.Product;
 import com.nicolafogliaro.orderservice.api.model.order.Order;
@@ -37,6 +38,23 @@ public class OrderItemMapper {
         );
     }
 
+    public static OrderItemResponse fromView(OrderItemView view) {
+
+        if (Objects.isNull(view)) {
+            return null;
+        }
+
+        return new OrderItemResponse(
+                view.getId(),
+                view.getProductId(),
+                view.getProductName(),
+                view.getProductDescription(),
+                view.getQuantity(),
+                view.getUnitPrice(),
+                calculateSubtotalPrice(view.getQuantity(), view.getUnitPrice())
+        );
+    }
+
     public static List<OrderItemResponse> toDtoList(List<OrderItem> items) {
 
         if (Objects.isNull(items) || items.isEmpty()) {
@@ -4,4 +4,9 @@ public interface OrderColumnNameForSearch {
 
     String CREATED_AT = "createdAt";
 
+    /**
+     * Pseudo sort field: full-text relevance of the text query (database search in FULLTEXT mode only).
+     */
+    String RELEVANCE = "relevance";
+
 }
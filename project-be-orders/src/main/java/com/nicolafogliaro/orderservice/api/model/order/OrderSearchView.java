@@ -0,0 +1,90 @@
+package com.nicolafogliaro.orderservice.api.model.order;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Search projection of an order: one row per order with the filterable header fields and, in {@code searchText},
+ * the lowercased text of the order description and of the names and descriptions of its products.
+ * <p>
+ * The database search reads only this table, so a text query is a single scan instead of a join of
+ * {@code orders}, {@code order_items} and {@code products}. Rows are kept up to date by
+ * {@link com.nicolafogliaro.orderservice.api.service.OrderSearchViewService}. The attribute names are the same
+ * as those of {@link Order}, so sort fields and keyset cursors apply to both.
+ * </p>
+ */
+@Entity
+@Table(name = "order_search_view", indexes = {
+        @Index(name = "idx_order_search_view_customer_id_created_at", columnList = "customer_id, created_at"),
+        @Index(name = "idx_order_search_view_status_created_at", columnList = "status, created_at"),
+        @Index(name = "idx_order_search_view_created_at", columnList = "created_at"),
+        @Index(name = "idx_order_search_view_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_order_search_view_total_amount", columnList = "total_amount"),
+        @Index(name = "idx_order_search_view_changed_at_order_id", columnList = "changed_at, order_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSearchView {
+
+    /**
+     * Separator between the texts of {@code searchText}, so that a query cannot match across two of them.
+     */
+    public static final char TEXT_SEPARATOR = '\u001F';
+
+    /**
+     * ID of the order (not generated: the row shares the key of its order).
+     */
+    @Id
+    @Column(name = "order_id", columnDefinition = "BIGINT")
+    private Long id;
+
+    @Column(name = "customer_id", columnDefinition = "BIGINT")
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 50)
+    private OrderStatus status;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal totalAmount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * When the row was last written with different values, including product text changes that leave the order
+     * untouched: the high-watermark of the incremental search index synchronization.
+     */
+    @UpdateTimestamp
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    /**
+     * Lowercased order description, product names and product descriptions (each product once),
+     * joined with {@link #TEXT_SEPARATOR}.
+     */
+    @Lob
+    @Column(name = "search_text", nullable = false)
+    private String searchText;
+}
@@ -0,0 +1,52 @@
+package com.nicolafogliaro.orderservice.api.model.order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Order attributes the search can be sorted on with keyset (cursor) pagination.
+ * Each field knows how to write its values into a cursor and read them back.
+ */
+public enum OrderSortField {
+
+    ID("id", Long::valueOf),
+    CUSTOMER_ID("customerId", Long::valueOf),
+    STATUS("status", OrderStatus::valueOf),
+    TOTAL_AMOUNT("totalAmount", BigDecimal::new),
+    CREATED_AT(OrderColumnNameForSearch.CREATED_AT, LocalDateTime::parse),
+    UPDATED_AT("updatedAt", LocalDateTime::parse);
+
+    private final String attribute;
+    private final Function<String, ? extends Comparable<?>> parser;
+
+    OrderSortField(String attribute, Function<String, ? extends Comparable<?>> parser) {
+        this.attribute = attribute;
+        this.parser = parser;
+    }
+
+    public String getAttribute() {
+        return attribute;
+    }
+
+    public static Optional<OrderSortField> fromAttribute(String attribute) {
+        return Arrays.stream(values()).filter(field -> field.attribute.equals(attribute)).findFirst();
+    }
+
+    public String format(Object value) {
+        return value instanceof BigDecimal decimal ? decimal.toPlainString() : String.valueOf(value);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the text is not a value of this field
+     */
+    public Comparable<?> parse(String value) {
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid " + attribute + " value: " + value, e);
+        }
+    }
+}
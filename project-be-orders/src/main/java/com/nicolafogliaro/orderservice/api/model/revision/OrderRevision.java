@@ -0,0 +1,73 @@
+package com.nicolafogliaro.orderservice.api.model.revision;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the change history of an order.
+ * Rows are written in batches by the revision writer with plain JDBC, the entity is only used to read them.
+ * There is no foreign key to {@code orders}: the history of a deleted order is kept.
+ */
+@Entity
+@Table(name = "order_revisions", indexes = @Index(name = "idx_order_revisions_order_id_id", columnList = "order_id, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderRevision {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(columnDefinition = "BIGINT")
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, columnDefinition = "BIGINT")
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "revision_type", nullable = false, length = 20)
+    private OrderRevisionType revisionType;
+
+    @Column(name = "changed_by", nullable = false, length = 100)
+    private String changedBy;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    /**
+     * JSON snapshot of the order before the change, null for {@link OrderRevisionType#CREATED}.
+     */
+    @Lob
+    @Column(name = "before_state")
+    private String beforeState;
+
+    /**
+     * JSON snapshot of the order after the change, null for {@link OrderRevisionType#DELETED}.
+     */
+    @Lob
+    @Column(name = "after_state")
+    private String afterState;
+
+    /**
+     * JSON diff: changed header fields and added/removed/changed items.
+     */
+    @Lob
+    @Column(name = "changes")
+    private String changes;
+}
@@ -0,0 +1,10 @@
+package com.nicolafogliaro.orderservice.api.model.revision;
+
+/**
+ * Kind of change recorded by an {@link OrderRevision}.
+ */
+public enum OrderRevisionType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,46 @@
+package com.nicolafogliaro.orderservice.api.model.revision;
+
+import com.nicolafogliaro.orderservice.api.model.OrderItem;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable copy of the state of an {@link Order} at a point in time.
+ * Taken on the request thread (a plain field copy, no serialization) and turned into JSON by the revision writer.
+ *
+ * @param items quantity and unit price per product ID
+ */
+public record OrderSnapshot(Long id,
+                            Long customerId,
+                            String description,
+                            OrderStatus status,
+                            BigDecimal totalAmount,
+                            SortedMap<Long, ItemSnapshot> items) {
+
+    public record ItemSnapshot(Integer quantity, BigDecimal unitPrice) {}
+
+    public static OrderSnapshot of(Order order) {
+
+        TreeMap<Long, ItemSnapshot> items = new TreeMap<>();
+
+        for (OrderItem item : order.getOrderItems()) {
+            if (item.getProduct() != null) {
+                items.merge(item.getProduct().getId(),
+                        new ItemSnapshot(item.getQuantity(), item.getUnitPrice()),
+                        (a, b) -> new ItemSnapshot(a.quantity() + b.quantity(), b.unitPrice()));
+            }
+        }
+
+        return new OrderSnapshot(order.getId(),
+                order.getCustomerId(),
+                order.getDescription(),
+                order.getStatus(),
+                order.getTotalAmount(),
+                Collections.unmodifiableSortedMap(items));
+    }
+}
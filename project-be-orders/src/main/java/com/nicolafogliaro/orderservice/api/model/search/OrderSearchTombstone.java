@@ -0,0 +1,41 @@
+package com.nicolafogliaro.orderservice.api.model.search;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record of a deleted order, written in the transaction of the delete, so that the incremental synchronization
+ * removes the order from the search index. Tombstones are purged after {@code meilisearch.sync.tombstone-retention}.
+ */
+@Entity
+@Table(name = "order_search_tombstones", indexes = @Index(name = "idx_order_search_tombstones_deleted_at", columnList = "deleted_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSearchTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(columnDefinition = "BIGINT")
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, columnDefinition = "BIGINT")
+    private Long orderId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,44 @@
+package com.nicolafogliaro.orderservice.api.model.search;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the incremental synchronization of one search index: the last
+ * {@code (order_search_view.changed_at, order_id)} and the last tombstone sent to the index.
+ * A missing row means that the index was never fully synchronized.
+ */
+@Entity
+@Table(name = "search_sync_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchSyncState {
+
+    @Id
+    @Column(name = "index_name", length = 100)
+    private String indexName;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    @Column(name = "order_id", nullable = false, columnDefinition = "BIGINT")
+    private Long orderId;
+
+    @Column(name = "tombstone_id", nullable = false, columnDefinition = "BIGINT")
+    private Long tombstoneId;
+
+    @Column(name = "synced_at", nullable = false)
+    private LocalDateTime syncedAt;
+}
@@ -1,8 +1,14 @@
 package com.nicolafogliaro.orderservice.api.repository;
 
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemView;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderProductTextView;
 import com.nicolafogliaro.orderservice.api.model.OrderItem;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
@@ -13,4 +19,39 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
     boolean existsByProductId(Long productId);
 
+    /**
+     * Keyset page of the lines of an order: the lines with {@code id > after}, in ascending ID order.
+     * Served by the {@code (order_id, id)} index, so the cost does not depend on how deep the page is.
+     */
+    @Query("""
+            SELECT oi.id AS id, p.id AS productId, p.name AS productName, p.description AS productDescription,
+                   oi.quantity AS quantity, oi.unitPrice AS unitPrice
+            FROM OrderItem oi JOIN oi.product p
+            WHERE oi.order.id = :orderId AND oi.id > :after
+            ORDER BY oi.id
+            """)
+    List<OrderItemView> findPageByOrderId(@Param("orderId") Long orderId, @Param("after") Long after, Limit limit);
+
+    /**
+     * Names and descriptions of the distinct products of the given orders, by order then product ID.
+     */
+    @Query("""
+            SELECT DISTINCT oi.order.id AS orderId, p.id AS productId, p.name AS productName, p.description AS productDescription
+            FROM OrderItem oi JOIN oi.product p
+            WHERE oi.order.id IN :orderIds
+            ORDER BY oi.order.id, p.id
+            """)
+    List<OrderProductTextView> findProductTextsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Keyset page of the IDs of the orders containing a product: the IDs greater than {@code after}, ascending.
+     */
+    @Query("""
+            SELECT DISTINCT oi.order.id
+            FROM OrderItem oi
+            WHERE oi.product.id = :productId AND oi.order.id > :after
+            ORDER BY oi.order.id
+            """)
+    List<Long> findOrderIdsByProductId(@Param("productId") Long productId, @Param("after") Long after, Limit limit);
+
 }
@@ -1,13 +1,21 @@
 package com.nicolafogliaro.orderservice.api.repository;
 
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderVersionView;
 import com.nicolafogliaro.orderservice.api.model.order.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +34,57 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     @EntityGraph(attributePaths = {"orderItems.product"})
     Page<Order> findAll(Pageable pageable);
 
+    /**
+     * Retrieves many orders with one {@code IN (...)} query, items and products included (multi-get).
+     */
+    @EntityGraph(attributePaths = {"orderItems.product"})
+    List<Order> findAllWithItemsByIdIn(Collection<Long> ids);
+
+    /**
+     * Keyset page of the IDs of the orders updated at or after {@code since}: the IDs greater than {@code after},
+     * ascending. Used to (re)build search indexes in chunks.
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.updatedAt >= :since AND o.id > :after ORDER BY o.id")
+    List<Long> findIdsUpdatedSince(@Param("since") LocalDateTime since, @Param("after") Long after, Limit limit);
+
+    /**
+     * Keyset page of the order IDs greater than {@code after}, ascending (a primary key range scan).
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.id > :after ORDER BY o.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Limit limit);
+
+    /**
+     * Keyset page of the IDs and update times of the orders in the ID range {@code (after, to]}, ascending.
+     * Compared with the search index by the consistency checker.
+     */
+    @Query("SELECT o.id AS id, o.updatedAt AS updatedAt FROM Order o WHERE o.id > :after AND o.id <= :to ORDER BY o.id")
+    List<OrderVersionView> findVersionsInRange(@Param("after") Long after, @Param("to") Long to, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(o.id), 0) FROM Order o")
+    Long findMaxId();
+
+    /**
+     * Retrieves the order header and the number of its lines without loading the lines themselves.
+     */
+    @Query("""
+            SELECT new com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse(
+                o.id, o.customerId, o.description, o.status, o.totalAmount,
+                (SELECT COUNT(oi.id) FROM OrderItem oi WHERE oi.order.id = o.id),
+                o.createdAt, o.updatedAt)
+            FROM Order o
+            WHERE o.id = :id
+            """)
+    Optional<OrderSummaryResponse> findSummaryById(@Param("id") Long id);
+
+    /**
+     * Sets the total of an order whose items were written outside the persistence context (e.g. JDBC batches).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.totalAmount = :totalAmount, o.updatedAt = :updatedAt WHERE o.id = :id")
+    int updateTotalAmount(@Param("id") Long id,
+                          @Param("totalAmount") BigDecimal totalAmount,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+
 //    @Query("SELECT o FROM Order o JOIN FETCH o.orderItems")
 //    List<Order> findAllWithOrderItems();
 
@@ -0,0 +1,18 @@
+package com.nicolafogliaro.orderservice.api.repository;
+
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevision;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface OrderRevisionRepository extends JpaRepository<OrderRevision, Long> {
+
+    /**
+     * Keyset page of the revisions of an order, oldest first, served by the {@code (order_id, id)} index.
+     */
+    @Query("SELECT r FROM OrderRevision r WHERE r.orderId = :orderId AND r.id > :after ORDER BY r.id")
+    List<OrderRevision> findPageByOrderId(@Param("orderId") Long orderId, @Param("after") Long after, Limit limit);
+}
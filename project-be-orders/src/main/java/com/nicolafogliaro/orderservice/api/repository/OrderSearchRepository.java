@@ -0,0 +1,43 @@
+package com.nicolafogliaro.orderservice.api.repository;
+
+import com.nicolafogliaro.orderservice.api.model.order.OrderSearchView;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
+import com.nicolafogliaro.orderservice.api.repository.specification.OrderKeyset;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Narrow search queries over the order search projection, as a fragment of {@link OrderSearchViewRepository}:
+ * they read only IDs (or keys), so the orders of a page can then be fetched with their items in one query.
+ */
+public interface OrderSearchRepository {
+
+    /**
+     * Reads one page of the IDs of the orders matching {@code spec}, sorted as requested (ties broken by ID).
+     * The total is counted only when it cannot be derived from the page itself.
+     */
+    Page<Long> findIdPage(Specification<OrderSearchView> spec, Pageable pageable);
+
+    /**
+     * Same as {@link #findIdPage(Specification, Pageable)}, most relevant first for a full-text boolean-mode query
+     * (the sort of {@code pageable} is ignored).
+     */
+    Page<Long> findIdPageByRelevance(Specification<OrderSearchView> spec, String booleanQuery, Pageable pageable);
+
+    /**
+     * Reads only the keys (sort value and ID) of the orders matching {@code spec} that follow {@code after}
+     * in {@code (field, id)} order. The query seeks directly to the position instead of skipping rows.
+     *
+     * @param after position of the last row of the previous page, {@code null} for the first page
+     * @param limit maximum number of keys to return
+     */
+    List<OrderKeyset> findKeysAfter(Specification<OrderSearchView> spec,
+                                    OrderSortField field,
+                                    Sort.Direction direction,
+                                    OrderKeyset after,
+                                    int limit);
+}
@@ -0,0 +1,167 @@
+package com.nicolafogliaro.orderservice.api.repository;
+
+import com.nicolafogliaro.orderservice.api.model.order.OrderSearchView;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
+import com.nicolafogliaro.orderservice.api.repository.specification.OrderKeyset;
+import com.nicolafogliaro.orderservice.api.repository.specification.OrderSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Criteria API implementation of {@link OrderSearchRepository}.
+ * <p>
+ * A keyset page is {@code WHERE <filters> AND (f > :v OR (f = :v AND id > :id)) ORDER BY f, id LIMIT n}
+ * ({@code <} for descending sorts), which an index on {@code f} (InnoDB appends the primary key to every
+ * secondary index) serves without reading the skipped rows. Nullable fields are sorted as
+ * {@code COALESCE(f, 0)} so that the comparison is defined for every row.
+ * </p>
+ */
+class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Long> findIdPage(Specification<OrderSearchView> spec, Pageable pageable) {
+        return findIdPage(spec, pageable, (root, cb) -> {
+            List<jakarta.persistence.criteria.Order> orderBy = new ArrayList<>(QueryUtils.toOrders(pageable.getSort(), root, cb));
+            if (pageable.getSort().getOrderFor("id") == null) {
+                // Without a unique tie-breaker, rows with equal sort values may move between pages
+                orderBy.add(cb.asc(root.get("id")));
+            }
+            return orderBy;
+        });
+    }
+
+    @Override
+    public Page<Long> findIdPageByRelevance(Specification<OrderSearchView> spec, String booleanQuery, Pageable pageable) {
+        return findIdPage(spec, pageable, (root, cb) -> List.of(
+                cb.desc(OrderSpecifications.relevance(root, cb, booleanQuery)),
+                cb.desc(root.get("id"))));
+    }
+
+    private Page<Long> findIdPage(Specification<OrderSearchView> spec,
+                                  Pageable pageable,
+                                  BiFunction<Root<OrderSearchView>, CriteriaBuilder, List<jakarta.persistence.criteria.Order>> orderBy) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<OrderSearchView> root = query.from(OrderSearchView.class);
+
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+
+        query.select(root.get("id")).orderBy(orderBy.apply(root, cb));
+        if (filter != null) {
+            query.where(filter);
+        }
+
+        TypedQuery<Long> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec));
+    }
+
+    private long count(Specification<OrderSearchView> spec) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<OrderSearchView> root = query.from(OrderSearchView.class);
+
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+
+        query.select(cb.count(root));
+        if (filter != null) {
+            query.where(filter);
+        }
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    public List<OrderKeyset> findKeysAfter(Specification<OrderSearchView> spec,
+                                           OrderSortField field,
+                                           Sort.Direction direction,
+                                           OrderKeyset after,
+                                           int limit) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<OrderSearchView> root = query.from(OrderSearchView.class);
+
+        Path<Long> id = root.get("id");
+        Expression<Comparable<Object>> sortValue = sortExpression(root, cb, field);
+
+        List<Predicate> predicates = new ArrayList<>();
+
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (filter != null) {
+            predicates.add(filter);
+        }
+
+        if (after != null) {
+            predicates.add(seekPredicate(cb, sortValue, id, direction, after));
+        }
+
+        // The sort value is selected too: it is needed for the next cursor
+        query.multiselect(id, sortValue)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(direction.isAscending()
+                        ? List.of(cb.asc(sortValue), cb.asc(id))
+                        : List.of(cb.desc(sortValue), cb.desc(id)));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> new OrderKeyset(field, direction, (Comparable<?>) tuple.get(1), tuple.get(0, Long.class)))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Expression<Comparable<Object>> sortExpression(Root<OrderSearchView> root, CriteriaBuilder cb, OrderSortField field) {
+        return switch (field) {
+            case CUSTOMER_ID -> (Expression<Comparable<Object>>) (Expression<?>) cb.coalesce(root.<Long>get(field.getAttribute()), 0L);
+            default -> root.get(field.getAttribute());
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate seekPredicate(CriteriaBuilder cb,
+                                           Expression<Comparable<Object>> sortValue,
+                                           Path<Long> id,
+                                           Sort.Direction direction,
+                                           OrderKeyset after) {
+
+        Comparable<Object> value = (Comparable<Object>) after.value();
+
+        if (direction.isAscending()) {
+            return cb.or(
+                    cb.greaterThan(sortValue, value),
+                    cb.and(cb.equal(sortValue, value), cb.greaterThan(id, after.id())));
+        }
+
+        return cb.or(
+                cb.lessThan(sortValue, value),
+                cb.and(cb.equal(sortValue, value), cb.lessThan(id, after.id())));
+    }
+}
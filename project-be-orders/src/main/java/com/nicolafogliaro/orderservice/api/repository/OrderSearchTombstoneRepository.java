@@ -0,0 +1,30 @@
+package com.nicolafogliaro.orderservice.api.repository;
+
+import com.nicolafogliaro.orderservice.api.model.search.OrderSearchTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OrderSearchTombstoneRepository extends JpaRepository<OrderSearchTombstone, Long> {
+
+    /**
+     * Keyset page of the tombstones written after the given one, in write order.
+     */
+    @Query("SELECT t FROM OrderSearchTombstone t WHERE t.id > :after ORDER BY t.id")
+    List<OrderSearchTombstone> findPageAfter(@Param("after") Long after, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM OrderSearchTombstone t")
+    Long findMaxId();
+
+    /**
+     * Purges the tombstones older than {@code before} that the index synchronization has already sent.
+     */
+    @Modifying
+    @Query("DELETE FROM OrderSearchTombstone t WHERE t.deletedAt < :before AND t.id <= :sentId")
+    int deleteSentBefore(@Param("before") LocalDateTime before, @Param("sentId") Long sentId);
+}
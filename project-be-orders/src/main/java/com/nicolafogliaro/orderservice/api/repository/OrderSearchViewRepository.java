@@ -0,0 +1,42 @@
+package com.nicolafogliaro.orderservice.api.repository;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderChangeView;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSearchView;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository of the order search projection ({@code order_search_view}), the table read by the database search.
+ */
+public interface OrderSearchViewRepository extends JpaRepository<OrderSearchView, Long>,
+        JpaSpecificationExecutor<OrderSearchView>, OrderSearchRepository {
+
+    /**
+     * Removes the projection of an order without loading it first.
+     */
+    @Modifying
+    @Query("DELETE FROM OrderSearchView v WHERE v.id = :id")
+    int deleteByOrderId(@Param("id") Long id);
+
+    /**
+     * Keyset page of the rows changed after {@code (since, after)} and not after {@code until}, in change order,
+     * served by the {@code (changed_at, order_id)} index.
+     */
+    @Query("""
+            SELECT v.id AS orderId, v.changedAt AS changedAt
+            FROM OrderSearchView v
+            WHERE (v.changedAt > :since OR (v.changedAt = :since AND v.id > :after)) AND v.changedAt <= :until
+            ORDER BY v.changedAt, v.id
+            """)
+    List<OrderChangeView> findChangesAfter(@Param("since") LocalDateTime since,
+                                           @Param("after") Long after,
+                                           @Param("until") LocalDateTime until,
+                                           Limit limit);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,5 +18,22 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.id = :id")
     Optional<Product> findByIdWithLock(@Param("id") Long id);
 
+    // For pessimistic lock of a batch of products, always acquired in ascending ID order to avoid deadlocks
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInWithLock(@Param("ids") Collection<Long> ids);
+
     List<Product> findByNameContainingIgnoreCase(String name);
+
+    /**
+     * Full-text search on the name (MariaDB only, see {@code FullTextFunctionContributor}), most relevant first.
+     *
+     * @param booleanQuery query built by {@code FullTextQuery#toBooleanQuery}
+     */
+    @Query("""
+            SELECT p FROM Product p
+            WHERE match_against(p.name, :query) > 0
+            ORDER BY match_against(p.name, :query) DESC, p.id
+            """)
+    List<Product> findByNameFullText(@Param("query") String booleanQuery);
 }
@@ -0,0 +1,7 @@
+package com.nicolafogliaro.orderservice.api.repository;
+
+import com.nicolafogliaro.orderservice.api.model.search.SearchSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface SearchSyncStateRepository extends JpaRepository<SearchSyncState, String> {
+}
@@ -0,0 +1,53 @@
+package com.nicolafogliaro.orderservice.api.repository.specification;
+
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Turns a user query into a safe MariaDB boolean-mode full-text query.
+ * <p>
+ * The text is split on anything that is not a letter or a digit, so the boolean operators ({@code + - < > ( ) ~ * " @})
+ * of the input are never interpreted. Words the index does not contain (shorter than {@code innodb_ft_min_token_size}
+ * or in the default InnoDB stopword list) are dropped, since requiring them would match nothing. Every remaining word
+ * is required and matched as a prefix: {@code "gaming lapt"} becomes {@code "+gaming* +lapt*"}.
+ * </p>
+ */
+public final class FullTextQuery {
+
+    static final int MIN_WORD_LENGTH = 3;
+    static final int MAX_WORDS = 10;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Default InnoDB full-text stopwords (INFORMATION_SCHEMA.INNODB_FT_DEFAULT_STOPWORD) of at least MIN_WORD_LENGTH chars
+    private static final Set<String> STOPWORDS = Set.of(
+            "about", "are", "com", "for", "from", "how", "that", "the", "this", "was", "what", "when", "where", "who",
+            "will", "with", "und", "www");
+
+    /**
+     * @return the boolean-mode query, empty when the text has no indexable word
+     */
+    public static Optional<String> toBooleanQuery(String text) {
+
+        if (!StringUtils.hasText(text)) {
+            return Optional.empty();
+        }
+
+        String query = Arrays.stream(SEPARATORS.split(text.toLowerCase(Locale.ROOT)))
+                .filter(word -> word.length() >= MIN_WORD_LENGTH && !STOPWORDS.contains(word))
+                .distinct()
+                .limit(MAX_WORDS)
+                .map(word -> "+" + word + "*")
+                .collect(Collectors.joining(" "));
+
+        return query.isEmpty() ? Optional.empty() : Optional.of(query);
+    }
+
+    private FullTextQuery() {}
+}
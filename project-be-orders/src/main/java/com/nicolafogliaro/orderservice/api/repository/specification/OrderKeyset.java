@@ -0,0 +1,58 @@
+package com.nicolafogliaro.orderservice.api.repository.specification;
+
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of a row in a keyset paginated search: the value of the sort field and the ID (tie-breaker) of the
+ * last row returned. It travels to the client as an opaque token that also records the sort it belongs to,
+ * so a cursor cannot be replayed against a different ordering.
+ *
+ * @param value sort field value of the last row
+ */
+public record OrderKeyset(OrderSortField field, Sort.Direction direction, Comparable<?> value, Long id) {
+
+    private static final String VERSION = "1";
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = String.join(SEPARATOR, VERSION, field.name(), direction.name(), field.format(value), String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed or was issued for another sort
+     */
+    public static OrderKeyset decode(String token, OrderSortField field, Sort.Direction direction) {
+
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+
+        // The value is in the middle, so it is bounded by the first three and the last separator
+        String[] head = raw.split("\\|", 4);
+        int lastSeparator = raw.lastIndexOf(SEPARATOR);
+
+        if (head.length < 4 || !VERSION.equals(head[0]) || lastSeparator <= head[0].length() + head[1].length() + head[2].length() + 2) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+
+        if (!field.name().equals(head[1]) || !direction.name().equals(head[2])) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort");
+        }
+
+        String value = raw.substring(head[0].length() + head[1].length() + head[2].length() + 3, lastSeparator);
+
+        try {
+            return new OrderKeyset(field, direction, field.parse(value), Long.valueOf(raw.substring(lastSeparator + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+    }
+}
@@ -1,13 +1,9 @@
 package com.nicolafogliaro.orderservice.api.repository.specification;
 
 import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
-import com.nicolafogliaro.orderservice.api.model.OrderItem;
-import com.nicolafogliaro.orderservice.api.model.Product;
-import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSearchView;
 import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.CriteriaQuery;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import lombok.extern.slf4j.Slf4j;
@@ -17,36 +13,57 @@ import org.springframework.util.StringUtils;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
+import static com.nicolafogliaro.orderservice.api.config.FullTextFunctionContributor.MATCH_AGAINST;
 import static com.nicolafogliaro.orderservice.api.model.order.OrderColumnNameForSearch.CREATED_AT;
 
 /**
- * Specifications class for building dynamic JPA queries for Order entities.
+ * Specifications class for building dynamic JPA queries for the order search projection ({@link OrderSearchView}).
  * Provides flexible and type-safe criteria for filtering orders based on
  * various search parameters.
  */
 @Slf4j
 public final class OrderSpecifications {
 
+    private static final String SEARCH_TEXT = "searchText";
+
     /**
-     * Creates a JPA Specification for Order entities based on the provided search criteria.
-     * This specification can be used to filter orders by text content (name/description)
-     * and date range.
+     * Creates a JPA Specification for the order search projection based on the provided search criteria.
+     * This specification can be used to filter orders by text content (order description, product names and
+     * descriptions), customer, status and date range.
      *
      * @param criteria The search criteria containing filters to apply
      * @return A Specification that can be used with Spring Data JPA repositories
      */
-    public static Specification<Order> withSearchCriteria(OrderSearchCriteria criteria) {
+    public static Specification<OrderSearchView> withSearchCriteria(OrderSearchCriteria criteria) {
+        return withSearchCriteria(criteria, TextSearchMode.LIKE);
+    }
+
+    /**
+     * Same as {@link #withSearchCriteria(OrderSearchCriteria)}, matching the text query with the given mode.
+     */
+    public static Specification<OrderSearchView> withSearchCriteria(OrderSearchCriteria criteria, TextSearchMode textSearchMode) {
+
+        log.debug(">>> [OrderSpecifications#withSearchCriteria] criteria: {}, textSearchMode: {}", criteria, textSearchMode);
 
-        log.debug(">>> [OrderSpecifications#withSearchCriteria] criteria: {}", criteria);
+        Optional<String> fullTextQuery = textSearchMode == TextSearchMode.FULLTEXT ?
+                FullTextQuery.toBooleanQuery(criteria.getQuery()) : Optional.empty();
 
         return (root, query, cb) -> {
 
             List<Predicate> predicates = new ArrayList<>();
 
             addCustomerIdPredicate(cb, root, predicates, criteria);
+            addStatusPredicate(cb, root, predicates, criteria);
             addDateRangePredicates(cb, root, predicates, criteria);
-            addTextSearchPredicates(cb, root, query, predicates, criteria);
+
+            if (fullTextQuery.isPresent()) {
+                addFullTextSearchPredicates(cb, root, predicates, fullTextQuery.get());
+            } else {
+                addTextSearchPredicates(cb, root, predicates, criteria);
+            }
 
             Predicate and = cb.and(predicates.toArray(new Predicate[0]));
             log.debug("<<< [OrderSpecifications#withSearchCriteria] res: {}", and);
@@ -56,7 +73,7 @@ public final class OrderSpecifications {
 
     private static void addCustomerIdPredicate(
             CriteriaBuilder cb,
-            Root<Order> root,
+            Root<OrderSearchView> root,
             List<Predicate> predicates,
             OrderSearchCriteria criteria) {
 
@@ -65,9 +82,20 @@ public final class OrderSpecifications {
         }
     }
 
+    private static void addStatusPredicate(
+            CriteriaBuilder cb,
+            Root<OrderSearchView> root,
+            List<Predicate> predicates,
+            OrderSearchCriteria criteria) {
+
+        if (criteria.getStatus() != null) {
+            predicates.add(cb.equal(root.get("status"), criteria.getStatus()));
+        }
+    }
+
     private static void addDateRangePredicates(
             CriteriaBuilder cb,
-            Root<Order> root,
+            Root<OrderSearchView> root,
             List<Predicate> predicates,
             OrderSearchCriteria criteria) {
 
@@ -84,29 +112,35 @@ public final class OrderSpecifications {
 
     private static void addTextSearchPredicates(
             CriteriaBuilder cb,
-            Root<Order> root,
-            CriteriaQuery<?> query,
+            Root<OrderSearchView> root,
             List<Predicate> predicates,
             OrderSearchCriteria criteria) {
 
         if (StringUtils.hasText(criteria.getQuery())) {
 
-            String searchTerm = "%" + criteria.getQuery().toLowerCase() + "%";
-
-            Predicate orderDesc = cb.like(cb.lower(root.get("description")), searchTerm);
+            // The projection text is stored lowercased, so only the term is lowercased (no LOWER() per row)
+            String searchTerm = "%" + criteria.getQuery().toLowerCase(Locale.ROOT) + "%";
 
-            // Join with OrderItem, then with Product to filter by product description
-            Join<Order, OrderItem> orderItemJoin = root.join("orderItems", JoinType.INNER);
-            Join<OrderItem, Product> productJoin = orderItemJoin.join("product", JoinType.INNER);
+            predicates.add(cb.like(root.get(SEARCH_TEXT), searchTerm));
+        }
 
-            Predicate productDesc = cb.like(cb.lower(productJoin.get("description")), searchTerm);
-            Predicate productName = cb.like(cb.lower(productJoin.get("name")), searchTerm);
+    }
 
-            predicates.add(cb.or(orderDesc, productDesc, productName));
+    /**
+     * Full-text relevance of the order search text for a boolean-mode query (0 when it does not match).
+     */
+    public static Expression<Double> relevance(Root<OrderSearchView> root, CriteriaBuilder cb, String booleanQuery) {
+        return cb.function(MATCH_AGAINST, Double.class, root.get(SEARCH_TEXT), cb.literal(booleanQuery));
+    }
 
-            query.distinct(true); // Prevent duplicate orders if multiple items match
-        }
+    private static void addFullTextSearchPredicates(
+            CriteriaBuilder cb,
+            Root<OrderSearchView> root,
+            List<Predicate> predicates,
+            String booleanQuery) {
 
+        // Served by ft_order_search_view_search_text
+        predicates.add(cb.gt(relevance(root, cb, booleanQuery), 0));
     }
 
     private OrderSpecifications() {}
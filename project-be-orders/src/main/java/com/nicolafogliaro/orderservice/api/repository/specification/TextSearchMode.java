@@ -0,0 +1,18 @@
+package com.nicolafogliaro.orderservice.api.repository.specification;
+
+/**
+ * How the database search matches the free-text query ({@code search.db.text-mode}).
+ */
+public enum TextSearchMode {
+
+    /**
+     * Case-insensitive substring match ({@code LOWER(x) LIKE '%term%'}): works on every database, scans the table.
+     */
+    LIKE,
+
+    /**
+     * MariaDB {@code MATCH ... AGAINST} on the FULLTEXT indexes: every word must match as a word prefix.
+     * Queries without any indexable word fall back to {@link #LIKE}.
+     */
+    FULLTEXT
+}
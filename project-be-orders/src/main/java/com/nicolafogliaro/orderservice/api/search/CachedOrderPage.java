@@ -0,0 +1,24 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Page of search results as stored in the {@code orderSearch} cache: {@link PageImpl} itself has no stable JSON form.
+ */
+public record CachedOrderPage(List<OrderResponse> content, int page, int size, long totalElements) implements Serializable {
+
+    public static CachedOrderPage of(Page<OrderResponse> page) {
+        return new CachedOrderPage(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements());
+    }
+
+    public Page<OrderResponse> toPage() {
+        return new PageImpl<>(content, size > 0 ? PageRequest.of(page, size) : Pageable.unpaged(), totalElements);
+    }
+}
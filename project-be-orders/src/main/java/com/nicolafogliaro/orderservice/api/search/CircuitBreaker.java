@@ -0,0 +1,274 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker.
+ * <p>
+ * While {@link State#CLOSED} every call is let through and its outcome recorded in a window of the latest
+ * {@code windowSize} calls. Once the window holds {@code minimumCalls}, a failure rate or a slow call rate at or
+ * above its threshold opens the breaker: calls are rejected right away for {@code openDuration}, so a struggling
+ * dependency is not waited for by every request. Then the breaker is {@link State#HALF_OPEN}: {@code halfOpenCalls}
+ * probes are let through and the others still rejected; when all the probes have completed the breaker closes if
+ * they stayed under both thresholds, otherwise it opens again.
+ * </p>
+ * <p>
+ * Outcomes of calls let through before the last state change are ignored, so a slow call that started before the
+ * breaker opened does not count against the probes.
+ * </p>
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        public int code() {
+            return code;
+        }
+    }
+
+    /**
+     * Thrown instead of running a call while the breaker is open (or half-open with all its probes in flight).
+     */
+    public static class OpenException extends IllegalStateException {
+        public OpenException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Right to run one call, to be completed with its outcome.
+     */
+    public final class Permit {
+
+        private final long generation;
+        private final long startedAt;
+
+        private Permit(long generation, long startedAt) {
+            this.generation = generation;
+            this.startedAt = startedAt;
+        }
+
+        public void onSuccess() {
+            record(this, false);
+        }
+
+        public void onFailure() {
+            record(this, true);
+        }
+
+        /**
+         * Gives the permit back without an outcome, when the call could not tell anything about the dependency.
+         */
+        public void release() {
+            CircuitBreaker.this.release(this);
+        }
+    }
+
+    /**
+     * State and rates of the current window, for monitoring.
+     */
+    public record Snapshot(String name,
+                           State state,
+                           int bufferedCalls,
+                           double failureRate,
+                           double slowCallRate,
+                           Duration remainingOpenTime,
+                           CircuitBreakerSettings settings) {}
+
+    private final String name;
+    private final CircuitBreakerSettings settings;
+    private final LongSupplier nanoClock;
+
+    // Window of the latest outcomes, as a ring
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int buffered;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+
+    private final Counter successful;
+    private final Counter failedCalls;
+    private final Counter slowCallsCounter;
+    private final Counter rejected;
+    private final MeterRegistry meterRegistry;
+
+    public CircuitBreaker(String name, CircuitBreakerSettings settings, MeterRegistry meterRegistry) {
+        this(name, settings, meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, CircuitBreakerSettings settings, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.name = name;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.failed = new boolean[settings.windowSize()];
+        this.slow = new boolean[settings.windowSize()];
+
+        Gauge.builder("search.breaker.state", this, breaker -> breaker.state().code())
+                .description("0: closed, 1: open, 2: half-open")
+                .tag("breaker", name)
+                .register(meterRegistry);
+        Gauge.builder("search.breaker.failure.rate", this, breaker -> breaker.snapshot().failureRate())
+                .tag("breaker", name)
+                .register(meterRegistry);
+        Gauge.builder("search.breaker.slow.rate", this, breaker -> breaker.snapshot().slowCallRate())
+                .tag("breaker", name)
+                .register(meterRegistry);
+        this.successful = counter("success");
+        this.failedCalls = counter("failure");
+        this.slowCallsCounter = counter("slow");
+        this.rejected = counter("rejected");
+    }
+
+    private Counter counter(String result) {
+        return Counter.builder("search.breaker.calls")
+                .description("Calls through the breaker: success and failure, slow (also counted in those), rejected")
+                .tag("breaker", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the permit to run a call, or null when the call must not run
+     */
+    public synchronized Permit tryAcquire() {
+
+        long now = nanoClock.getAsLong();
+
+        if (state == State.OPEN && now - openedAt >= settings.openDuration().toNanos()) {
+            transitionTo(State.HALF_OPEN, now);
+        }
+
+        if (state == State.OPEN || (state == State.HALF_OPEN && probesStarted >= settings.halfOpenCalls())) {
+            rejected.increment();
+            return null;
+        }
+
+        if (state == State.HALF_OPEN) {
+            probesStarted++;
+        }
+        return new Permit(generation, now);
+    }
+
+    /**
+     * Like {@link #tryAcquire()}, throwing instead of returning null.
+     */
+    public Permit acquire() {
+        Permit permit = tryAcquire();
+        if (permit == null) {
+            throw new OpenException("Circuit breaker " + name + " is " + state());
+        }
+        return permit;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized Snapshot snapshot() {
+        long remaining = state == State.OPEN
+                ? Math.max(0, settings.openDuration().toNanos() - (nanoClock.getAsLong() - openedAt))
+                : 0;
+        return new Snapshot(name, state, buffered, rate(failures), rate(slowCalls), Duration.ofNanos(remaining), settings);
+    }
+
+    private synchronized void record(Permit permit, boolean failure) {
+
+        long now = nanoClock.getAsLong();
+        boolean slowCall = now - permit.startedAt >= settings.slowCallDuration().toNanos();
+
+        (failure ? failedCalls : successful).increment();
+        if (slowCall) {
+            slowCallsCounter.increment();
+        }
+
+        if (permit.generation != generation || state == State.OPEN) {
+            return;
+        }
+
+        add(failure, slowCall);
+
+        if (state == State.HALF_OPEN) {
+            if (buffered >= settings.halfOpenCalls()) {
+                transitionTo(overThresholds() ? State.OPEN : State.CLOSED, now);
+            }
+        } else if (buffered >= settings.minimumCalls() && overThresholds()) {
+            transitionTo(State.OPEN, now);
+        }
+    }
+
+    private synchronized void release(Permit permit) {
+        if (permit.generation == generation && state == State.HALF_OPEN) {
+            probesStarted--;
+        }
+    }
+
+    private void add(boolean failure, boolean slowCall) {
+
+        if (buffered == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            buffered++;
+        }
+
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+    }
+
+    private boolean overThresholds() {
+        return rate(failures) >= settings.failureRateThreshold() || rate(slowCalls) >= settings.slowCallRateThreshold();
+    }
+
+    private double rate(int count) {
+        return buffered == 0 ? 0 : count * 100.0 / buffered;
+    }
+
+    private void transitionTo(State target, long now) {
+
+        switch (target) {
+            case OPEN -> log.warn("*** Circuit breaker {} opens for {}: failure rate {}%, slow call rate {}% over {} calls",
+                    name, settings.openDuration(), rate(failures), rate(slowCalls), buffered);
+            case HALF_OPEN -> log.info("Circuit breaker {} half-open, letting {} probes through", name, settings.halfOpenCalls());
+            case CLOSED -> log.info("Circuit breaker {} closed", name);
+        }
+
+        meterRegistry.counter("search.breaker.transitions", "breaker", name, "to", target.name()).increment();
+
+        state = target;
+        generation++;
+        openedAt = target == State.OPEN ? now : openedAt;
+        probesStarted = 0;
+        next = 0;
+        buffered = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
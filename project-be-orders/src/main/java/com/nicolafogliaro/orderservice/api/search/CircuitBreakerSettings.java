@@ -0,0 +1,22 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import java.time.Duration;
+
+/**
+ * Settings of a {@link CircuitBreaker} ({@code meilisearch.breaker.*}).
+ *
+ * @param windowSize            number of latest calls the rates are computed on
+ * @param minimumCalls          calls needed in the window before the breaker may open
+ * @param failureRateThreshold  percentage of failed calls that opens the breaker
+ * @param slowCallDuration      calls lasting at least this long are slow, even when they succeed
+ * @param slowCallRateThreshold percentage of slow calls that opens the breaker
+ * @param openDuration          how long the breaker rejects calls before letting probes through
+ * @param halfOpenCalls         probe calls let through when half-open; all must complete before deciding
+ */
+public record CircuitBreakerSettings(int windowSize,
+                                     int minimumCalls,
+                                     int failureRateThreshold,
+                                     Duration slowCallDuration,
+                                     int slowCallRateThreshold,
+                                     Duration openDuration,
+                                     int halfOpenCalls) {}
@@ -0,0 +1,112 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue that keeps only the latest value per key.
+ * <p>
+ * Offering a key already queued replaces its value in place (it keeps its position and takes no extra room), so
+ * a burst of changes to the same entity costs one slot and one delivery. When the queue is full, a new key waits
+ * up to the given timeout for room, which slows the producers down instead of growing without bounds.
+ * {@link #poll} hands out batches: as soon as {@code maxItems} values are queued, or whatever is queued when the
+ * timeout expires.
+ * </p>
+ */
+public final class CoalescingQueue<K, V> {
+
+    public enum Offer {ADDED, REPLACED, REJECTED}
+
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition batchReady = lock.newCondition();
+
+    private int batchSize = 1;
+
+    public CoalescingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Queues the value of a key, replacing the value already queued for it.
+     *
+     * @return {@link Offer#REJECTED} when the key is new and the queue stayed full for the whole timeout
+     */
+    public Offer offer(K key, V value, long timeout, TimeUnit unit) throws InterruptedException {
+
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            if (entries.containsKey(key)) {
+                entries.put(key, value);
+                return Offer.REPLACED;
+            }
+
+            while (entries.size() >= capacity) {
+                if (nanos <= 0) {
+                    return Offer.REJECTED;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+
+            entries.put(key, value);
+            if (entries.size() >= batchSize) {
+                batchReady.signal();
+            }
+            return Offer.ADDED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes and returns up to {@code maxItems} values in queue order, waiting until that many are queued or the
+     * timeout expires. The result may be empty.
+     */
+    public List<V> poll(int maxItems, long timeout, TimeUnit unit) throws InterruptedException {
+
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            batchSize = maxItems;
+            while (entries.size() < maxItems && nanos > 0) {
+                nanos = batchReady.awaitNanos(nanos);
+            }
+
+            List<V> batch = new ArrayList<>(Math.min(maxItems, entries.size()));
+            Iterator<V> values = entries.values().iterator();
+            while (values.hasNext() && batch.size() < maxItems) {
+                batch.add(values.next());
+                values.remove();
+            }
+
+            if (!batch.isEmpty()) {
+                notFull.signalAll();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
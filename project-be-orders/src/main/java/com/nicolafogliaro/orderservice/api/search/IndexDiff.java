@@ -0,0 +1,93 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Differences between the orders of an ID range in the database and their documents in the search index, compared
+ * by {@code updatedAt} at second precision (the precision of the column and of the indexed documents).
+ * <p>
+ * Orders updated after {@code settledBefore} are only counted as pending: their change may still be on its way
+ * through the indexer or the incremental synchronization. The lag of a stale document is how far its
+ * {@code updatedAt} is behind the database, the lag of a missing one how long ago its order was last updated.
+ * </p>
+ *
+ * @param missing  orders without document
+ * @param stale    orders whose document has another {@code updatedAt}
+ * @param orphaned documents without order
+ * @param checked  orders compared
+ * @param pending  orders too recently updated to be compared
+ * @param maxLag   largest lag of the missing and stale documents
+ */
+public record IndexDiff(List<Long> missing,
+                        List<Long> stale,
+                        List<Long> orphaned,
+                        int checked,
+                        int pending,
+                        Duration maxLag) {
+
+    /**
+     * @param database      update time of the orders of the range, by ID
+     * @param indexed       update time of the documents of the same range, by ID (null when the document has none)
+     * @param settledBefore orders updated after this are not compared
+     * @param now           reference time of the lag of the missing documents
+     */
+    public static IndexDiff of(Map<Long, LocalDateTime> database,
+                               Map<Long, LocalDateTime> indexed,
+                               LocalDateTime settledBefore,
+                               LocalDateTime now) {
+
+        List<Long> missing = new ArrayList<>();
+        List<Long> stale = new ArrayList<>();
+        int pending = 0;
+        Duration maxLag = Duration.ZERO;
+
+        for (Map.Entry<Long, LocalDateTime> order : database.entrySet()) {
+
+            LocalDateTime updatedAt = order.getValue().truncatedTo(ChronoUnit.SECONDS);
+
+            if (updatedAt.isAfter(settledBefore)) {
+                pending++;
+                continue;
+            }
+
+            Duration lag;
+            if (!indexed.containsKey(order.getKey())) {
+                missing.add(order.getKey());
+                lag = Duration.between(updatedAt, now);
+            } else {
+                LocalDateTime indexedAt = indexed.get(order.getKey());
+                if (indexedAt != null && indexedAt.truncatedTo(ChronoUnit.SECONDS).equals(updatedAt)) {
+                    continue;
+                }
+                stale.add(order.getKey());
+                lag = indexedAt != null ? Duration.between(indexedAt, updatedAt).abs() : Duration.between(updatedAt, now);
+            }
+
+            if (lag.compareTo(maxLag) > 0) {
+                maxLag = lag;
+            }
+        }
+
+        List<Long> orphaned = indexed.keySet().stream().filter(id -> !database.containsKey(id)).sorted().toList();
+
+        return new IndexDiff(missing, stale, orphaned, database.size() - pending, pending, maxLag);
+    }
+
+    public int divergent() {
+        return missing.size() + stale.size() + orphaned.size();
+    }
+
+    /**
+     * Orders whose document must be sent again.
+     */
+    public List<Long> outdated() {
+        List<Long> outdated = new ArrayList<>(missing);
+        outdated.addAll(stale);
+        return outdated;
+    }
+}
@@ -0,0 +1,442 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemResponse;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index of orders, searched on the order description and the names and descriptions of the
+ * products of its items.
+ * <p>
+ * Every indexed order gets an internal document number ({@code int}, in insertion order). Two term dictionaries
+ * map to posting lists of document numbers, kept as growable {@code int} arrays in ascending order:
+ * <ul>
+ *     <li>the prefixes (up to {@value #MAX_PREFIX_LENGTH} characters) of every word, so a query token matching
+ *     the start of a word is a single lookup;</li>
+ *     <li>the {@value #GRAM_LENGTH}-grams of every word: for a token matching inside a word the postings of its
+ *     grams are intersected and the few candidates left are checked against the stored text.</li>
+ * </ul>
+ * A document matches when every query token is contained in one of its words (tokens shorter than
+ * {@value #GRAM_LENGTH} characters only match the start of a word). Customer, dates, status and amount are kept as
+ * {@code long} columns indexed by document number, used to filter and sort the matches without touching the
+ * documents.
+ * </p>
+ * <p>
+ * An update appends a new document and marks the old one deleted, so the posting lists never change in the middle;
+ * deleted documents are dropped by {@link #compact()}. The index is not thread-safe: the caller must exclude
+ * writes from reads.
+ * </p>
+ */
+public final class InvertedIndex {
+
+    static final int MAX_PREFIX_LENGTH = 8;
+    static final int GRAM_LENGTH = 3;
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final char TEXT_SEPARATOR = '\u001F';
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int AMOUNT_SCALE = 4;
+
+    // Rank of each status in alphabetical order of the names, as the database sorts the status column
+    private static final int[] STATUS_RANKS = statusRanks();
+
+    private final Map<String, IntList> prefixPostings = new HashMap<>();
+    private final Map<String, IntList> gramPostings = new HashMap<>();
+    private final Map<Long, Integer> documentsByOrderId = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    private long[] orderIds = new long[INITIAL_CAPACITY];
+    private long[] customerIds = new long[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private long[] updatedAt = new long[INITIAL_CAPACITY];
+    private long[] totalAmounts = new long[INITIAL_CAPACITY];
+    private long[] statusRanks = new long[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private OrderResponse[] documents = new OrderResponse[INITIAL_CAPACITY];
+
+    private int documentCount;
+
+    /**
+     * Filters, sort and page of a search. {@code text} may be blank (all orders), the other filters null.
+     */
+    public record Query(String text,
+                        Long customerId,
+                        OrderStatus status,
+                        LocalDateTime createdFrom,
+                        LocalDateTime createdTo,
+                        OrderSortField sortField,
+                        boolean ascending,
+                        int offset,
+                        int limit) {}
+
+    /**
+     * One page of matching orders, plus the number of all the matches.
+     */
+    public record Result(List<OrderResponse> orders, int totalHits) {}
+
+    /**
+     * Adds an order, replacing the previous version of the same order if any.
+     */
+    public void add(OrderResponse order) {
+
+        remove(order.id());
+
+        int document = documentCount++;
+        ensureCapacity(documentCount);
+
+        String text = searchText(order);
+
+        orderIds[document] = order.id();
+        customerIds[document] = Objects.requireNonNullElse(order.customerId(), 0L); // sorted as COALESCE(customer_id, 0)
+        createdAt[document] = epochMicros(order.createdAt());
+        updatedAt[document] = epochMicros(order.updatedAt());
+        totalAmounts[document] = scaledAmount(order.totalAmount());
+        statusRanks[document] = order.status() != null ? STATUS_RANKS[order.status().ordinal()] : -1;
+        texts[document] = text;
+        documents[document] = order;
+
+        for (String word : words(text)) {
+
+            for (int length = 1; length <= Math.min(word.length(), MAX_PREFIX_LENGTH); length++) {
+                prefixPostings.computeIfAbsent(word.substring(0, length), key -> new IntList()).addOnce(document);
+            }
+
+            for (int start = 0; start + GRAM_LENGTH <= word.length(); start++) {
+                gramPostings.computeIfAbsent(word.substring(start, start + GRAM_LENGTH), key -> new IntList()).addOnce(document);
+            }
+        }
+
+        live.set(document);
+        documentsByOrderId.put(order.id(), document);
+    }
+
+    /**
+     * Removes an order. Its postings stay until the next {@link #compact()}, but are no longer matched.
+     */
+    public void remove(Long orderId) {
+
+        Integer document = documentsByOrderId.remove(orderId);
+
+        if (document != null) {
+            live.clear(document);
+            texts[document] = null;
+            documents[document] = null;
+        }
+    }
+
+    public Result search(Query query) {
+
+        BitSet matches = (BitSet) live.clone();
+
+        for (String token : words(normalize(query.text()))) {
+            matches.and(match(token));
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+
+        long from = query.createdFrom() != null ? epochMicros(query.createdFrom()) : Long.MIN_VALUE;
+        long to = query.createdTo() != null ? epochMicros(query.createdTo()) : Long.MAX_VALUE;
+
+        int[] hits = new int[matches.cardinality()];
+        int hitCount = 0;
+
+        for (int document = matches.nextSetBit(0); document >= 0; document = matches.nextSetBit(document + 1)) {
+
+            if (query.customerId() != null && customerIds[document] != query.customerId()) {
+                continue;
+            }
+
+            if (query.status() != null && statusRanks[document] != STATUS_RANKS[query.status().ordinal()]) {
+                continue;
+            }
+
+            if (createdAt[document] < from || createdAt[document] > to) {
+                continue;
+            }
+
+            hits[hitCount++] = document;
+        }
+
+        long[] sortValues = sortColumn(query.sortField());
+        IntComparator comparator = (a, b) -> {
+            int byValue = Long.compare(sortValues[a], sortValues[b]);
+            return byValue != 0 ? byValue : Long.compare(orderIds[a], orderIds[b]);
+        };
+
+        sort(hits, 0, hitCount, query.ascending() ? comparator : (a, b) -> comparator.compare(b, a));
+
+        List<OrderResponse> page = new ArrayList<>(Math.max(0, Math.min(query.limit(), hitCount - query.offset())));
+        for (int i = query.offset(); i < hitCount && i < query.offset() + query.limit(); i++) {
+            page.add(documents[hits[i]]);
+        }
+
+        return new Result(page, hitCount);
+    }
+
+    /**
+     * Number of orders in the index.
+     */
+    public int size() {
+        return documentsByOrderId.size();
+    }
+
+    /**
+     * Whether deleted and replaced documents make up more than a third of the index.
+     */
+    public boolean needsCompaction() {
+        return documentCount >= INITIAL_CAPACITY && documentCount - size() > documentCount / 3;
+    }
+
+    /**
+     * Returns a new index holding only the current version of every order.
+     */
+    public InvertedIndex compact() {
+        InvertedIndex compacted = new InvertedIndex();
+        forEachDocument(compacted::add);
+        return compacted;
+    }
+
+    /**
+     * Visits the current version of every order, in insertion order.
+     */
+    public void forEachDocument(Consumer<OrderResponse> action) {
+        for (int document = live.nextSetBit(0); document >= 0; document = live.nextSetBit(document + 1)) {
+            action.accept(documents[document]);
+        }
+    }
+
+    /**
+     * Documents containing the token: prefix postings, then the gram postings checked against the text.
+     */
+    private BitSet match(String token) {
+
+        BitSet result = new BitSet(documentCount);
+
+        if (token.length() <= MAX_PREFIX_LENGTH) {
+            IntList postings = prefixPostings.get(token);
+            if (postings != null) {
+                postings.setAll(result);
+            }
+        }
+
+        if (token.length() < GRAM_LENGTH) {
+            return result;
+        }
+
+        BitSet candidates = null;
+
+        for (int start = 0; start + GRAM_LENGTH <= token.length(); start++) {
+
+            IntList postings = gramPostings.get(token.substring(start, start + GRAM_LENGTH));
+            if (postings == null) {
+                return result;
+            }
+
+            BitSet gramDocuments = new BitSet(documentCount);
+            postings.setAll(gramDocuments);
+
+            if (candidates == null) {
+                candidates = gramDocuments;
+            } else {
+                candidates.and(gramDocuments);
+            }
+        }
+
+        candidates.and(live);
+        candidates.andNot(result);
+
+        for (int document = candidates.nextSetBit(0); document >= 0; document = candidates.nextSetBit(document + 1)) {
+            if (texts[document].contains(token)) {
+                result.set(document);
+            }
+        }
+
+        return result;
+    }
+
+    private long[] sortColumn(OrderSortField field) {
+        return switch (field) {
+            case ID -> orderIds;
+            case CUSTOMER_ID -> customerIds;
+            case STATUS -> statusRanks;
+            case TOTAL_AMOUNT -> totalAmounts;
+            case CREATED_AT -> createdAt;
+            case UPDATED_AT -> updatedAt;
+        };
+    }
+
+    private void ensureCapacity(int capacity) {
+
+        if (capacity <= orderIds.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, orderIds.length * 2);
+
+        orderIds = Arrays.copyOf(orderIds, newCapacity);
+        customerIds = Arrays.copyOf(customerIds, newCapacity);
+        createdAt = Arrays.copyOf(createdAt, newCapacity);
+        updatedAt = Arrays.copyOf(updatedAt, newCapacity);
+        totalAmounts = Arrays.copyOf(totalAmounts, newCapacity);
+        statusRanks = Arrays.copyOf(statusRanks, newCapacity);
+        texts = Arrays.copyOf(texts, newCapacity);
+        documents = Arrays.copyOf(documents, newCapacity);
+    }
+
+    /**
+     * Lowercased order description and product texts (each product once), separated so that no token spans two.
+     */
+    static String searchText(OrderResponse order) {
+
+        Set<String> values = new LinkedHashSet<>();
+        values.add(order.description());
+
+        if (order.items() != null) {
+            order.items().stream()
+                    .sorted(Comparator.comparing(OrderItemResponse::productId, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .forEach(item -> {
+                        values.add(item.productName());
+                        values.add(item.productDescription());
+                    });
+        }
+
+        StringBuilder text = new StringBuilder();
+        values.stream().filter(Objects::nonNull).forEach(value -> text.append(normalize(value)).append(TEXT_SEPARATOR));
+        return text.toString();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : WORD_SEPARATOR.split(text)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static long epochMicros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return 0L;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    private static long scaledAmount(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(AMOUNT_SCALE, RoundingMode.DOWN).unscaledValue().longValue();
+    }
+
+    private static int[] statusRanks() {
+        OrderStatus[] byName = OrderStatus.values().clone();
+        Arrays.sort(byName, Comparator.comparing(OrderStatus::name));
+
+        int[] ranks = new int[byName.length];
+        for (int rank = 0; rank < byName.length; rank++) {
+            ranks[byName[rank].ordinal()] = rank;
+        }
+        return ranks;
+    }
+
+    @FunctionalInterface
+    private interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Quicksort of {@code values[from, to)} without boxing (insertion sort for short ranges).
+     */
+    private static void sort(int[] values, int from, int to, IntComparator comparator) {
+
+        while (to - from > 16) {
+
+            int pivot = values[from + (to - from) / 2];
+            int i = from;
+            int j = to - 1;
+
+            while (i <= j) {
+                while (comparator.compare(values[i], pivot) < 0) {
+                    i++;
+                }
+                while (comparator.compare(values[j], pivot) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = values[i];
+                    values[i++] = values[j];
+                    values[j--] = swap;
+                }
+            }
+
+            // Recurse into the smaller side, loop on the larger one
+            if (j - from < to - i) {
+                sort(values, from, j + 1, comparator);
+                from = i;
+            } else {
+                sort(values, i, to, comparator);
+                to = j + 1;
+            }
+        }
+
+        for (int i = from + 1; i < to; i++) {
+            int value = values[i];
+            int j = i - 1;
+            while (j >= from && comparator.compare(values[j], value) > 0) {
+                values[j + 1] = values[j];
+                j--;
+            }
+            values[j + 1] = value;
+        }
+    }
+
+    /**
+     * Growable array of ascending document numbers.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        /**
+         * Appends the document unless it is already the last one (a word may repeat a prefix or a gram).
+         */
+        void addOnce(int document) {
+            if (size > 0 && values[size - 1] == document) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = document;
+        }
+
+        void setAll(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.nicolafogliaro.orderservice.api.search.OrderSearchDocument.CREATED_AT_EPOCH;
+import static com.nicolafogliaro.orderservice.api.search.OrderSearchDocument.epochSeconds;
+
+/**
+ * Translates the filters of an {@link OrderSearchCriteria} into a Meilisearch filter expression, with the same
+ * meaning as {@code OrderSpecifications} for the database: customer, status and creation date range, inclusive.
+ * The attributes must be in {@link #FILTERABLE_ATTRIBUTES} of the index.
+ */
+public final class MeilisearchFilter {
+
+    // id: ID ranges read by the consistency checker
+    public static final List<String> FILTERABLE_ATTRIBUTES = List.of("id", "customerId", "status", CREATED_AT_EPOCH, "totalAmount");
+
+    private MeilisearchFilter() {
+    }
+
+    /**
+     * @return the filter expression, empty when the criteria have no filter
+     */
+    public static Optional<String> of(OrderSearchCriteria criteria) {
+
+        List<String> conditions = new ArrayList<>();
+
+        if (criteria.getCustomerId() != null) {
+            conditions.add("customerId = " + criteria.getCustomerId());
+        }
+
+        // Enum names only: no quoting issue
+        if (criteria.getStatus() != null) {
+            conditions.add("status = " + criteria.getStatus().name());
+        }
+
+        if (criteria.getStartDate() != null) {
+            conditions.add(CREATED_AT_EPOCH + " >= " + epochSeconds(criteria.getStartDate().atStartOfDay()));
+        }
+
+        if (criteria.getEndDate() != null) {
+            conditions.add(CREATED_AT_EPOCH + " <= " + epochSeconds(criteria.getEndDate().atTime(LocalTime.MAX)));
+        }
+
+        return conditions.isEmpty() ? Optional.empty() : Optional.of(String.join(" AND ", conditions));
+    }
+}
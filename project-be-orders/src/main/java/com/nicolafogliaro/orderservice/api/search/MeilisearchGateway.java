@@ -0,0 +1,139 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.meilisearch.sdk.Client;
+import com.meilisearch.sdk.exceptions.MeilisearchApiException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static com.nicolafogliaro.orderservice.api.config.MeilisearchConfig.MEILISEARCH_EXECUTOR;
+
+/**
+ * Entry point for the Meilisearch requests of the request path (search, single document writes).
+ * <p>
+ * Every request runs on the shared client through the {@code meilisearchExecutor}, which bounds the requests in
+ * flight. {@link #call} waits for the result at most {@code meilisearch.request-timeout}, the latency budget of a
+ * request: a slow Meilisearch then fails the search quickly (and the caller falls back to the database) instead of
+ * holding the request thread. A request that times out is cancelled: if still queued it never runs, if running its
+ * worker is interrupted (the HTTP client gives the thread back once its blocking read ends). {@link #call} also goes
+ * through the Meilisearch {@link CircuitBreaker}: once enough calls fail or are slow, the next ones fail right away
+ * until the half-open probes succeed again.
+ * {@link #callAsync} returns immediately, for writes whose result the caller does not wait for.
+ * Bulk and administrative work (index creation, full sync) uses {@link #client()} directly.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "meilisearch", matchIfMissing = true)
+public class MeilisearchGateway {
+
+    private final Client client;
+    private final ThreadPoolTaskExecutor executor;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${meilisearch.request-timeout:PT0.5S}")
+    private Duration requestTimeout = Duration.ofMillis(500);
+
+    public MeilisearchGateway(Client client,
+                              @Qualifier(MEILISEARCH_EXECUTOR) ThreadPoolTaskExecutor executor,
+                              CircuitBreaker circuitBreaker,
+                              MeterRegistry meterRegistry) {
+        this.client = client;
+        this.executor = executor;
+        this.circuitBreaker = circuitBreaker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Client client() {
+        return client;
+    }
+
+    /**
+     * Runs a request and waits for its result.
+     *
+     * @throws CircuitBreaker.OpenException when the breaker rejects the request
+     * @throws IllegalStateException         when the request times out or cannot be queued; request errors are rethrown
+     */
+    public <T> T call(String operation, Function<Client, T> request) {
+
+        CircuitBreaker.Permit permit = circuitBreaker.acquire();
+
+        // A plain Future, unlike a CompletableFuture, interrupts the worker when cancelled
+        Future<T> future;
+        try {
+            future = executor.submit(() -> execute(operation, request));
+        } catch (RuntimeException e) {
+            permit.onFailure();
+            throw rejected(operation, e);
+        }
+
+        try {
+            T result = future.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            permit.onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            permit.onFailure();
+            future.cancel(true);
+            throw new IllegalStateException("Meilisearch " + operation + " timed out after " + requestTimeout, e);
+        } catch (InterruptedException e) {
+            // Not the fault of Meilisearch: the call is left out of the breaker window
+            permit.release();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Meilisearch " + operation, e);
+        } catch (ExecutionException e) {
+            // An API error (e.g. an invalid sort) means that Meilisearch answered: it does not count as a failure
+            if (e.getCause() instanceof MeilisearchApiException) {
+                permit.onSuccess();
+            } else {
+                permit.onFailure();
+            }
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException("Meilisearch " + operation + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Queues a request. The future completes exceptionally when the request fails or the queue is full.
+     */
+    public <T> CompletableFuture<T> callAsync(String operation, Function<Client, T> request) {
+
+        try {
+            return CompletableFuture.supplyAsync(() -> execute(operation, request), executor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(rejected(operation, e));
+        }
+    }
+
+    private <T> T execute(String operation, Function<Client, T> request) {
+        Timer timer = meterRegistry.timer("meilisearch.requests", "operation", operation);
+        return timer.record(() -> request.apply(client));
+    }
+
+    private IllegalStateException rejected(String operation, RuntimeException e) {
+        log.warn("Meilisearch {} rejected, {} requests queued", operation, executor.getQueueSize());
+        return new IllegalStateException("Too many Meilisearch requests in flight", e);
+    }
+
+    /**
+     * The cause of a failed {@link #callAsync} future.
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+    }
+}
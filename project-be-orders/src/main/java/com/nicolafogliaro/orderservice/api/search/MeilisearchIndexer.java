@@ -0,0 +1,228 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meilisearch.sdk.Index;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.nicolafogliaro.orderservice.api.service.MeilisearchService.ORDERS_INDEX;
+
+/**
+ * Asynchronous indexing of single order changes into Meilisearch.
+ * <p>
+ * {@link #index} and {@link #delete} only queue the change in a {@link CoalescingQueue} keyed by order ID, so an
+ * order changed several times before the next flush is sent once, in its latest version. One worker thread takes
+ * batches of up to {@code meilisearch.indexer.batch-size} changes (or what is queued after
+ * {@code meilisearch.indexer.flush-interval}) and sends them with one {@code addDocuments} and one
+ * {@code deleteDocuments} call. Failed calls are retried with exponential backoff; meanwhile the queue fills up and
+ * new orders wait up to {@code meilisearch.indexer.offer-timeout} for room, then are dropped.
+ * </p>
+ * <p>
+ * Dropped, failed and unflushed (JVM crash) changes are not lost for the index: the incremental synchronization
+ * sends every change recorded after its watermark anyway. This path only makes changes visible within a second.
+ * </p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "search.engine", havingValue = "meilisearch", matchIfMissing = true)
+public class MeilisearchIndexer {
+
+    /**
+     * Latest change of an order: its document, or null when it was deleted.
+     */
+    record Change(Long orderId, OrderResponse document) {}
+
+    private final MeilisearchGateway meilisearchGateway;
+    private final ObjectMapper objectMapper;
+    private final CoalescingQueue<Long, Change> queue;
+
+    private final Counter enqueuedCounter;
+    private final Counter coalescedCounter;
+    private final Counter droppedCounter;
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    @Value("${meilisearch.indexer.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${meilisearch.indexer.flush-interval:PT0.5S}")
+    private Duration flushInterval = Duration.ofMillis(500);
+
+    @Value("${meilisearch.indexer.offer-timeout:PT0.05S}")
+    private Duration offerTimeout = Duration.ofMillis(50);
+
+    @Value("${meilisearch.indexer.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${meilisearch.indexer.initial-backoff:PT0.2S}")
+    private Duration initialBackoff = Duration.ofMillis(200);
+
+    @Value("${meilisearch.indexer.max-backoff:PT10S}")
+    private Duration maxBackoff = Duration.ofSeconds(10);
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public MeilisearchIndexer(MeilisearchGateway meilisearchGateway,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${meilisearch.indexer.capacity:10000}") int capacity) {
+        this.meilisearchGateway = meilisearchGateway;
+        this.objectMapper = objectMapper;
+        this.queue = new CoalescingQueue<>(capacity);
+
+        Gauge.builder("search.indexer.queue.size", queue, CoalescingQueue::size)
+                .description("Order changes waiting to be sent to the search index")
+                .register(meterRegistry);
+        this.enqueuedCounter = meterRegistry.counter("search.indexer.enqueued");
+        this.coalescedCounter = meterRegistry.counter("search.indexer.coalesced");
+        this.droppedCounter = meterRegistry.counter("search.indexer.dropped");
+        this.sentCounter = meterRegistry.counter("search.indexer.sent");
+        this.retriedCounter = meterRegistry.counter("search.indexer.retried");
+        this.failedCounter = meterRegistry.counter("search.indexer.failed");
+        this.flushTimer = meterRegistry.timer("search.indexer.flush");
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("Meilisearch-indexer").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+
+        // Last attempt for what is still queued, without retries
+        List<Change> remaining = queue.poll(Integer.MAX_VALUE, 0, TimeUnit.NANOSECONDS);
+        log.info("Sending {} pending search index changes before shutdown", remaining.size());
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            List<Change> batch = remaining.subList(from, Math.min(from + batchSize, remaining.size()));
+            try {
+                send(batch);
+            } catch (RuntimeException e) {
+                failedCounter.increment(batch.size());
+                log.warn("Could not send {} search index changes on shutdown", batch.size(), e);
+            }
+        }
+    }
+
+    public void index(OrderResponse order) {
+        enqueue(new Change(order.id(), order));
+    }
+
+    public void delete(Long orderId) {
+        enqueue(new Change(orderId, null));
+    }
+
+    private void enqueue(Change change) {
+        try {
+            switch (queue.offer(change.orderId(), change, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                case ADDED -> enqueuedCounter.increment();
+                case REPLACED -> coalescedCounter.increment();
+                case REJECTED -> {
+                    droppedCounter.increment();
+                    log.warn("*** Search indexer queue full, order {} left to the incremental sync", change.orderId());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedCounter.increment();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<Change> batch = queue.poll(batchSize, flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                if (!batch.isEmpty()) {
+                    flushTimer.record(() -> sendWithRetries(batch));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("*** Unexpected error in the search indexer", e);
+            }
+        }
+    }
+
+    /**
+     * Sends a batch, retrying with exponential backoff. While it retries no other batch is sent, so the changes of
+     * an order reach the index in order.
+     */
+    private void sendWithRetries(List<Change> batch) {
+
+        long backoff = initialBackoff.toMillis();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                send(batch);
+                sentCounter.increment(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !running) {
+                    failedCounter.increment(batch.size());
+                    log.error("*** Could not send {} search index changes after {} attempts, left to the incremental sync",
+                            batch.size(), attempt, e);
+                    return;
+                }
+                retriedCounter.increment();
+                log.warn("Sending {} search index changes failed (attempt {}), retrying in {} ms: {}",
+                        batch.size(), attempt, backoff, e.getMessage());
+            }
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failedCounter.increment(batch.size());
+                return;
+            }
+            backoff = Math.min(backoff * 2, maxBackoff.toMillis());
+        }
+    }
+
+    private void send(List<Change> batch) {
+
+        List<OrderSearchDocument> documents = batch.stream().map(Change::document).filter(Objects::nonNull)
+                .map(OrderSearchDocument::of)
+                .toList();
+        List<String> deletedIds = batch.stream().filter(change -> change.document() == null)
+                .map(change -> change.orderId().toString())
+                .toList();
+
+        Index index = meilisearchGateway.client().index(ORDERS_INDEX);
+
+        if (!documents.isEmpty()) {
+            try {
+                index.addDocuments(objectMapper.writeValueAsString(documents));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize the orders for Meilisearch", e);
+            }
+        }
+
+        if (!deletedIds.isEmpty()) {
+            index.deleteDocuments(deletedIds);
+        }
+    }
+}
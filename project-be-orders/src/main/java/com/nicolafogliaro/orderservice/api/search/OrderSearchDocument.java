@@ -0,0 +1,28 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Order as indexed in Meilisearch: the fields of the {@link OrderResponse}, read back as is from the hits, plus
+ * {@code createdAtEpoch}, the creation time in epoch seconds that the date filters compare with.
+ * Meilisearch only filters numbers by range, while {@code createdAt} is sent as a string.
+ */
+public record OrderSearchDocument(@JsonUnwrapped OrderResponse order, Long createdAtEpoch) {
+
+    public static final String CREATED_AT_EPOCH = "createdAtEpoch";
+
+    public static OrderSearchDocument of(OrderResponse order) {
+        return new OrderSearchDocument(order, order.createdAt() != null ? epochSeconds(order.createdAt()) : null);
+    }
+
+    /**
+     * The local date-time read as UTC, like the database compares it regardless of the server zone.
+     */
+    public static long epochSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
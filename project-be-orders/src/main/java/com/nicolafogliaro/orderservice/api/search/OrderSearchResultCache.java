@@ -0,0 +1,208 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.util.MyTextUtils;
+import com.nicolafogliaro.orderservice.api.util.MyTransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import static com.nicolafogliaro.orderservice.api.config.CacheConfig.ORDER_SEARCH_CACHE_NAME;
+import static com.nicolafogliaro.orderservice.api.model.order.OrderColumnNameForSearch.CREATED_AT;
+
+/**
+ * Cache of order search pages, keyed by a hash of the normalized criteria and by "orders epochs" kept in Redis.
+ * <p>
+ * Nothing is evicted on writes: every committed order change increments the global epoch and stamps the epoch of
+ * the customers of the changed orders with it. A search for one customer is keyed by that customer's epoch (plus
+ * the {@code all} epoch, stamped by the changes whose customers are not known), any other search by the global
+ * epoch, so after a write the next search misses and the old entries expire unread. The epochs are read before
+ * searching: a page loaded while a write commits is stored under the previous epoch and never served.
+ * </p>
+ * <p>
+ * Pages are stored in the {@code orderSearch} cache, whose single-flight layer coalesces the identical searches of
+ * a node while the first one loads. When Redis cannot be reached the searches simply bypass the cache. Results of
+ * the search engine are only as fresh as its index, which is fed asynchronously.
+ * </p>
+ */
+@Slf4j
+@Component
+public class OrderSearchResultCache {
+
+    static final String GLOBAL_EPOCH_KEY = "order-search:epoch";
+    static final String ALL_EPOCH_KEY = "order-search:epoch:all";
+    static final String CUSTOMER_EPOCH_KEY_PREFIX = "order-search:epoch:customer:";
+
+    /**
+     * KEYS[1] global epoch; KEYS[2] all epoch; KEYS[3..] customer epochs; ARGV[1] "1" to stamp the all epoch;
+     * ARGV[2] ttl seconds of the customer epochs. Returns the new global epoch.
+     * The customer epochs take the unique global value, so one that expired and comes back never repeats an old
+     * value; they only have to outlive the cached pages keyed by them.
+     */
+    private static final RedisScript<Long> BUMP_SCRIPT = new DefaultRedisScript<>("""
+            local epoch = redis.call('INCR', KEYS[1])
+            if ARGV[1] == '1' then redis.call('SET', KEYS[2], epoch) end
+            for i = 3, #KEYS do redis.call('SET', KEYS[i], epoch, 'EX', ARGV[2]) end
+            return epoch
+            """, Long.class);
+
+    public enum Source {DB, ENGINE}
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+
+    private final Counter lookups;
+    private final Counter loads;
+    private final Counter bypassed;
+
+    @Value("${search.cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${search.cache.epoch-ttl:PT2H}")
+    private Duration epochTtl = Duration.ofHours(2);
+
+    public OrderSearchResultCache(StringRedisTemplate redisTemplate, CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        this.lookups = meterRegistry.counter("search.cache.lookups");
+        this.loads = meterRegistry.counter("search.cache.loads");
+        this.bypassed = meterRegistry.counter("search.cache.bypassed");
+    }
+
+    /**
+     * Returns the cached page of the criteria, or runs the search and caches its page.
+     */
+    public Page<OrderResponse> get(Source source, OrderSearchCriteria criteria, Supplier<Page<OrderResponse>> search) {
+
+        Cache cache = enabled ? cacheManager.getCache(ORDER_SEARCH_CACHE_NAME) : null;
+        String epoch = cache != null ? currentEpoch(criteria.getCustomerId()) : null;
+
+        if (epoch == null) {
+            bypassed.increment();
+            return search.get();
+        }
+
+        lookups.increment();
+
+        String key = source.name().toLowerCase(Locale.ROOT) + ":" + epoch + ":" + hash(criteria);
+
+        try {
+            CachedOrderPage page = cache.get(key, () -> {
+                loads.increment();
+                return CachedOrderPage.of(search.get());
+            });
+            return page.toPage();
+        } catch (Cache.ValueRetrievalException e) {
+            // The callers handle the exceptions of the search itself
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Invalidates, after the current transaction commits, the searches that may include orders of these customers
+     * (null entries, orders without customer, only affect the searches for all customers).
+     */
+    public void invalidate(Collection<Long> customerIds) {
+        if (enabled) {
+            List<Long> customers = customerIds.stream().filter(Objects::nonNull).distinct().toList();
+            MyTransactionUtils.afterCommit(() -> bump(false, customers));
+        }
+    }
+
+    /**
+     * Invalidates every cached search after the current transaction commits, for changes whose customers are not known.
+     */
+    public void invalidateAll() {
+        if (enabled) {
+            MyTransactionUtils.afterCommit(() -> bump(true, List.of()));
+        }
+    }
+
+    private void bump(boolean all, List<Long> customerIds) {
+
+        List<String> keys = new ArrayList<>(customerIds.size() + 2);
+        keys.add(GLOBAL_EPOCH_KEY);
+        keys.add(ALL_EPOCH_KEY);
+        customerIds.forEach(customerId -> keys.add(CUSTOMER_EPOCH_KEY_PREFIX + customerId));
+
+        try {
+            redisTemplate.execute(BUMP_SCRIPT, keys, all ? "1" : "0", String.valueOf(epochTtl.toSeconds()));
+        } catch (RuntimeException e) {
+            // The cached pages of the previous epoch stay until they expire
+            log.error("*** Could not move the order search epochs (customers: {}, all: {})", customerIds, all, e);
+        }
+    }
+
+    /**
+     * The epochs a search depends on, or null when they cannot be read.
+     */
+    private String currentEpoch(Long customerId) {
+        try {
+            if (customerId == null) {
+                return "g" + Objects.requireNonNullElse(redisTemplate.opsForValue().get(GLOBAL_EPOCH_KEY), "0");
+            }
+            List<String> epochs = redisTemplate.opsForValue().multiGet(List.of(ALL_EPOCH_KEY, CUSTOMER_EPOCH_KEY_PREFIX + customerId));
+            return "a" + epochOrZero(epochs, 0) + ".c" + epochOrZero(epochs, 1);
+        } catch (RuntimeException e) {
+            log.warn("Order search epochs not available, searching without cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String epochOrZero(List<String> epochs, int index) {
+        return epochs != null && epochs.get(index) != null ? epochs.get(index) : "0";
+    }
+
+    /**
+     * SHA-256 of the criteria in canonical form: defaults applied, text query trimmed, lowercased and with single
+     * spaces (all the searches ignore case), cursor fields left out.
+     */
+    static String hash(OrderSearchCriteria criteria) {
+
+        String query = MyTextUtils.nonEmpty(criteria.getQuery())
+                ? criteria.getQuery().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT)
+                : "";
+
+        String canonical = String.join("|",
+                "q=" + query,
+                "customer=" + Objects.toString(criteria.getCustomerId(), ""),
+                "status=" + Objects.toString(criteria.getStatus(), ""),
+                "from=" + Objects.toString(criteria.getStartDate(), ""),
+                "to=" + Objects.toString(criteria.getEndDate(), ""),
+                "sort=" + (MyTextUtils.nonEmpty(criteria.getSort()) ? criteria.getSort() : CREATED_AT),
+                "direction=" + (MyTextUtils.nonEmpty(criteria.getDirection()) ? criteria.getDirection().toLowerCase(Locale.ROOT) : "desc"),
+                "page=" + Objects.requireNonNullElse(criteria.getPage(), 0),
+                "size=" + Objects.requireNonNullElse(criteria.getSize(), 20));
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint {@code /actuator/searchbreaker}: state, window rates and settings of the search engine
+ * {@link CircuitBreaker}. The same values are published as the {@code search.breaker.*} metrics.
+ */
+@Component
+@Endpoint(id = "searchbreaker")
+@ConditionalOnProperty(name = "search.engine", havingValue = "meilisearch", matchIfMissing = true)
+public class SearchBreakerEndpoint {
+
+    private final CircuitBreaker circuitBreaker;
+
+    public SearchBreakerEndpoint(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @ReadOperation
+    public CircuitBreaker.Snapshot breaker() {
+        return circuitBreaker.snapshot();
+    }
+}
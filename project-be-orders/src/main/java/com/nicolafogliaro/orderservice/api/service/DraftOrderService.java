@@ -0,0 +1,32 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.nicolafogliaro.orderservice.api.dto.draft.CreateDraftOrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.draft.DraftOrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.exception.ConcurrencyConflictException;
+import com.nicolafogliaro.orderservice.api.exception.DraftOrderNotFoundException;
+import com.nicolafogliaro.orderservice.api.exception.InsufficientStockException;
+import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
+
+public interface DraftOrderService {
+
+    DraftOrderResponse createDraft(CreateDraftOrderRequest request);
+
+    DraftOrderResponse getDraft(String draftId) throws DraftOrderNotFoundException;
+
+    /**
+     * Sets (adds or replaces) the quantity of a product in the draft.
+     */
+    DraftOrderResponse setItem(String draftId, Long productId, int quantity) throws DraftOrderNotFoundException, ConcurrencyConflictException;
+
+    DraftOrderResponse removeItem(String draftId, Long productId) throws DraftOrderNotFoundException, ConcurrencyConflictException;
+
+    void deleteDraft(String draftId);
+
+    /**
+     * Reserves the stock of all the lines at once and persists the draft as a real order.
+     * The draft is deleted when the order is committed.
+     */
+    OrderResponse checkout(String draftId)
+            throws DraftOrderNotFoundException, ConcurrencyConflictException, ProductNotFoundException, InsufficientStockException;
+}
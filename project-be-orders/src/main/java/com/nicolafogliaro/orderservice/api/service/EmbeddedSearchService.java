@@ -0,0 +1,466 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.search.InvertedIndex;
+import com.nicolafogliaro.orderservice.api.util.MyTextUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.nicolafogliaro.orderservice.api.model.order.OrderColumnNameForSearch.CREATED_AT;
+
+/**
+ * In-process search engine ({@code search.engine: embedded}): an {@link InvertedIndex} of all the orders, kept in
+ * memory and fed by the same after-commit order events as Meilisearch. Searches take a read lock and never leave the
+ * JVM; order changes take the write lock for the few microseconds of an index update.
+ * <p>
+ * Full rebuilds (startup without snapshot, nightly) and compactions build a new index without holding the lock; the
+ * changes received meanwhile are recorded and replayed on the new index before it replaces the current one.
+ * When {@code search.embedded.snapshot-path} is set, the indexed orders are saved there periodically (if changed)
+ * and on shutdown. At startup the snapshot is loaded and only the orders updated since it was written are read
+ * from the database; orders deleted while the application was down stay in the index until the nightly rebuild.
+ * </p>
+ * <p>
+ * Orders changed without a document in the event (bulk orders, orders of a renamed product) are read again from the
+ * database by {@link #reindexOrders}, in chunks after commit. A rename the application missed (e.g. done while it
+ * was down) is only picked up by the nightly rebuild: it does not change the {@code updated_at} of the orders the
+ * snapshot catch-up reads.
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "search.engine", havingValue = "embedded")
+public class EmbeddedSearchService implements OrderSearchEngine {
+
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final LocalDateTime ALL_ORDERS = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private InvertedIndex index = new InvertedIndex();
+    // Changes received while a new index is being built (null value: deleted), null when no build runs
+    private Map<Long, OrderResponse> changesDuringBuild;
+    private boolean dirty;
+
+    private volatile boolean ready;
+
+    @Value("${search.embedded.snapshot-path:}")
+    private String snapshotPath = "";
+
+    @Value("${search.embedded.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${search.embedded.catch-up-margin:PT5M}")
+    private Duration catchUpMargin = Duration.ofMinutes(5);
+
+    public EmbeddedSearchService(OrderRepository orderRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Also used after commit, where joining the finished transaction would keep every chunk in its context
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void initializeIndexes() {
+
+        log.info(">>> [{}#initializeIndexes] --> snapshotPath: {}", EmbeddedSearchService.class.getSimpleName(), snapshotPath);
+
+        Optional<Instant> savedAt = loadSnapshot();
+
+        if (savedAt.isEmpty()) {
+            syncAllOrders();
+            return;
+        }
+
+        // The snapshot is served right away; orders committed while it was written are read again
+        LocalDateTime since = LocalDateTime.ofInstant(savedAt.get().minus(catchUpMargin), ZoneId.systemDefault());
+        int caughtUp = indexOrdersUpdatedSince(since, this::indexOrder);
+
+        log.info("<<< [{}#initializeIndexes] <--- snapshot of {} loaded, {} orders updated since then indexed",
+                EmbeddedSearchService.class.getSimpleName(), savedAt.get(), caughtUp);
+    }
+
+    @Override
+    public Page<OrderResponse> searchOrders(OrderSearchCriteria criteria) {
+
+        if (!ready) {
+            throw new IllegalStateException("The embedded search index is not loaded yet");
+        }
+
+        int page = criteria.getPage() != null ? criteria.getPage() : 0;
+        int size = criteria.getSize() != null ? criteria.getSize() : 20;
+
+        // Like the database search, unsupported sorts (e.g. relevance) fall back to the newest orders first
+        String sort = MyTextUtils.nonEmpty(criteria.getSort()) ? criteria.getSort() : CREATED_AT;
+        OrderSortField sortField = OrderSortField.fromAttribute(sort).orElse(OrderSortField.CREATED_AT);
+        boolean ascending = OrderSortField.fromAttribute(sort).isPresent() && "asc".equalsIgnoreCase(criteria.getDirection());
+
+        InvertedIndex.Result result = search(new InvertedIndex.Query(
+                criteria.getQuery(),
+                criteria.getCustomerId(),
+                criteria.getStatus(),
+                criteria.getStartDate() != null ? criteria.getStartDate().atStartOfDay() : null,
+                criteria.getEndDate() != null ? criteria.getEndDate().atTime(LocalTime.MAX) : null,
+                sortField,
+                ascending,
+                page * size,
+                size));
+
+        return new PageImpl<>(result.orders(), PageRequest.of(page, size), result.totalHits());
+    }
+
+    @Override
+    public void indexOrder(OrderResponse order) {
+        apply(order.id(), order);
+    }
+
+    @Override
+    public void deleteOrder(Long orderId) {
+        apply(orderId, null);
+    }
+
+    /**
+     * Reads the orders again in chunks of {@code search.embedded.chunk-size}; the ones not found were deleted.
+     */
+    @Override
+    public void reindexOrders(Collection<Long> orderIds) {
+
+        List<Long> ids = List.copyOf(orderIds);
+
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            List<OrderResponse> orders = readOnlyTransaction.execute(status ->
+                    orderRepository.findAllWithItemsByIdIn(chunk).stream().map(OrderMapper::toDto).toList());
+
+            Set<Long> found = new HashSet<>();
+            orders.forEach(order -> {
+                found.add(order.id());
+                apply(order.id(), order);
+            });
+            chunk.stream().filter(id -> !found.contains(id)).forEach(this::deleteOrder);
+        }
+    }
+
+    /**
+     * Rebuilds the index from the database in chunks of {@code search.embedded.chunk-size} orders.
+     * Searches keep using the current index until the new one is complete.
+     */
+    @Scheduled(cron = "${search.embedded.rebuild-cron:0 0 1 * * ?}")
+    @Override
+    public void syncAllOrders() {
+
+        if (!beginBuild()) {
+            log.warn("An embedded search index build is already running, sync skipped");
+            return;
+        }
+
+        log.info("Starting embedded search index rebuild");
+
+        InvertedIndex rebuilt = new InvertedIndex();
+
+        try {
+            int indexed = indexOrdersUpdatedSince(ALL_ORDERS, rebuilt::add);
+            completeBuild(rebuilt);
+            log.info("Completed embedded search index rebuild, indexed {} orders", indexed);
+        } catch (RuntimeException e) {
+            abortBuild();
+            log.error("*** Error during embedded search index rebuild", e);
+        }
+    }
+
+    /**
+     * Drops deleted and replaced documents once they make up a large part of the index, then saves the snapshot
+     * if the index changed since the last one.
+     */
+    @Scheduled(initialDelayString = "${search.embedded.maintenance-interval:PT1M}",
+            fixedDelayString = "${search.embedded.maintenance-interval:PT1M}")
+    public void maintain() {
+
+        if (!ready) {
+            return;
+        }
+
+        compactIfNeeded();
+
+        if (MyTextUtils.nonEmpty(snapshotPath)) {
+            saveSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ready && MyTextUtils.nonEmpty(snapshotPath)) {
+            saveSnapshot();
+        }
+    }
+
+    private InvertedIndex.Result search(InvertedIndex.Query query) {
+        lock.readLock().lock();
+        try {
+            return index.search(query);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Long orderId, OrderResponse order) {
+        lock.writeLock().lock();
+        try {
+            if (order != null) {
+                index.add(order);
+            } else {
+                index.remove(orderId);
+            }
+            if (changesDuringBuild != null) {
+                changesDuringBuild.put(orderId, order);
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean beginBuild() {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringBuild != null) {
+                return false;
+            }
+            changesDuringBuild = new LinkedHashMap<>();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void completeBuild(InvertedIndex built) {
+        lock.writeLock().lock();
+        try {
+            changesDuringBuild.forEach((orderId, order) -> {
+                if (order != null) {
+                    built.add(order);
+                } else {
+                    built.remove(orderId);
+                }
+            });
+            index = built;
+            changesDuringBuild = null;
+            dirty = true;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void abortBuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringBuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactIfNeeded() {
+
+        List<OrderResponse> documents;
+
+        lock.writeLock().lock();
+        try {
+            if (changesDuringBuild != null || !index.needsCompaction()) {
+                return;
+            }
+            changesDuringBuild = new LinkedHashMap<>();
+            documents = documents(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        InvertedIndex compacted = new InvertedIndex();
+        documents.forEach(compacted::add);
+        completeBuild(compacted);
+
+        log.info("Compacted the embedded search index, {} orders", documents.size());
+    }
+
+    /**
+     * Reads the orders updated since the given time with their items, one chunk per short read-only transaction.
+     *
+     * @return the number of order IDs read
+     */
+    private int indexOrdersUpdatedSince(LocalDateTime since, Consumer<OrderResponse> sink) {
+
+        int count = 0;
+        Long after = 0L;
+
+        while (after != null) {
+
+            Long from = after;
+            List<Long> ids = readOnlyTransaction.execute(status -> {
+                List<Long> chunk = orderRepository.findIdsUpdatedSince(since, from, Limit.of(chunkSize));
+                if (!chunk.isEmpty()) {
+                    orderRepository.findAllWithItemsByIdIn(chunk).forEach(order -> sink.accept(OrderMapper.toDto(order)));
+                }
+                return chunk;
+            });
+
+            count += ids.size();
+            after = ids.size() == chunkSize ? ids.get(ids.size() - 1) : null;
+        }
+
+        return count;
+    }
+
+    private void saveSnapshot() {
+
+        Instant savedAt = Instant.now();
+        List<OrderResponse> documents;
+
+        lock.writeLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            documents = documents(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Path path = Path.of(snapshotPath).toAbsolutePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(path.getParent());
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporary))))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(savedAt.toEpochMilli());
+                out.writeInt(documents.size());
+                for (OrderResponse document : documents) {
+                    byte[] json = objectMapper.writeValueAsBytes(document);
+                    out.writeInt(json.length);
+                    out.write(json);
+                }
+            }
+
+            // Readers of the path see either the previous snapshot or the complete new one
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            log.info("Saved embedded search snapshot with {} orders to {}", documents.size(), path);
+        } catch (IOException e) {
+            log.error("*** Could not save the embedded search snapshot to {}", path, e);
+            markDirty();
+        }
+    }
+
+    /**
+     * Loads the snapshot into a new index and makes it current.
+     *
+     * @return when the snapshot was written, empty if there is no usable snapshot
+     */
+    private Optional<Instant> loadSnapshot() {
+
+        if (!MyTextUtils.nonEmpty(snapshotPath) || !Files.isRegularFile(Path.of(snapshotPath))) {
+            return Optional.empty();
+        }
+
+        if (!beginBuild()) {
+            return Optional.empty();
+        }
+
+        Path path = Path.of(snapshotPath);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                log.warn("Ignoring embedded search snapshot {} with version {} (expected {})", path, version, SNAPSHOT_VERSION);
+                abortBuild();
+                return Optional.empty();
+            }
+
+            Instant savedAt = Instant.ofEpochMilli(in.readLong());
+            int size = in.readInt();
+
+            InvertedIndex loaded = new InvertedIndex();
+            for (int i = 0; i < size; i++) {
+                byte[] json = in.readNBytes(in.readInt());
+                loaded.add(objectMapper.readValue(json, OrderResponse.class));
+            }
+
+            completeBuild(loaded);
+            return Optional.of(savedAt);
+
+        } catch (IOException | RuntimeException e) {
+            log.error("*** Could not load the embedded search snapshot {}, rebuilding from the database", path, e);
+            abortBuild();
+            return Optional.empty();
+        }
+    }
+
+    private void markDirty() {
+        lock.writeLock().lock();
+        try {
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static List<OrderResponse> documents(InvertedIndex index) {
+        List<OrderResponse> documents = new ArrayList<>(index.size());
+        index.forEachDocument(documents::add);
+        return documents;
+    }
+}
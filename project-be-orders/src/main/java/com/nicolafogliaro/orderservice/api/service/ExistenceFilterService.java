@@ -0,0 +1,42 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.nicolafogliaro.orderservice.api.exception.OrderNotFoundException;
+import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
+
+/**
+ * Rejects lookups of order and product IDs that certainly do not exist before any cache or database access.
+ */
+public interface ExistenceFilterService {
+
+    /**
+     * @throws OrderNotFoundException if the order certainly does not exist
+     */
+    void requireOrder(Long id) throws OrderNotFoundException;
+
+    /**
+     * @throws ProductNotFoundException if the product certainly does not exist
+     */
+    void requireProduct(Long id) throws ProductNotFoundException;
+
+    /**
+     * Non-throwing variant of {@link #requireOrder(Long)}, for lookups of many IDs.
+     */
+    boolean isOrderKnownMissing(Long id);
+
+    boolean isProductKnownMissing(Long id);
+
+    void orderMissing(Long id);
+
+    void productMissing(Long id);
+
+    /**
+     * Records a new order once the current transaction commits, on every node.
+     */
+    void orderCreated(Long id);
+
+    void orderDeleted(Long id);
+
+    void productCreated(Long id);
+
+    void productDeleted(Long id);
+}
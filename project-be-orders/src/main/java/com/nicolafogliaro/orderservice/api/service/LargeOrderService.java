@@ -0,0 +1,20 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse;
+import com.nicolafogliaro.orderservice.api.exception.InsufficientStockException;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
+import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
+
+import java.io.InputStream;
+
+public interface LargeOrderService {
+
+    /**
+     * Creates an order from a streamed JSON body (same shape as {@code OrderRequest}) without materializing its items.
+     *
+     * @param body raw request body
+     * @return the order header with the number of persisted items
+     */
+    OrderSummaryResponse createLargeOrder(InputStream body)
+            throws OrderBadRequestException, ProductNotFoundException, InsufficientStockException;
+}
@@ -0,0 +1,410 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meilisearch.sdk.Index;
+import com.meilisearch.sdk.model.DocumentsQuery;
+import com.meilisearch.sdk.model.TaskInfo;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderVersionView;
+import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.search.IndexDiff;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchGateway;
+import com.nicolafogliaro.orderservice.api.search.OrderSearchDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.nicolafogliaro.orderservice.api.service.MeilisearchService.ORDERS_INDEX;
+
+/**
+ * Consistency checker of the Meilisearch {@code orders} index: compares the orders of the database with their
+ * documents by ID and {@code updatedAt}, one ID-range chunk of {@code meilisearch.consistency.chunk-size} orders at
+ * a time, and repairs the differences of each chunk in one {@code addDocuments} and one {@code deleteDocuments}
+ * call (see {@link IndexDiff}).
+ * <p>
+ * The sampled check runs every {@code meilisearch.consistency.sample-interval} on
+ * {@code meilisearch.consistency.sample-chunks} chunks starting at random IDs: cheap enough to run continuously, it
+ * measures the lag and divergence of the index and repairs what it meets. The full check
+ * ({@code meilisearch.consistency.full-cron}) splits the whole ID space into
+ * {@code meilisearch.consistency.parallelism} ranges walked in parallel, and replaces a periodic full reindex.
+ * </p>
+ * <p>
+ * A chunk reads the index before the database, so that an order created in between is not taken for a document
+ * without order. Only {@code updatedAt} is compared: a renamed product changes the documents of its orders without
+ * changing the orders, that is left to the incremental synchronization.
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "search.engine", havingValue = "meilisearch", matchIfMissing = true)
+public class MeilisearchConsistencyService {
+
+    public enum Mode {SAMPLED, FULL}
+
+    /**
+     * Outcome of a check.
+     */
+    public record Report(Mode mode,
+                         int chunks,
+                         int checked,
+                         int pending,
+                         int missing,
+                         int stale,
+                         int orphaned,
+                         int repaired,
+                         Duration maxLag) {
+
+        public int divergent() {
+            return missing + stale + orphaned;
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final MeilisearchGateway meilisearchGateway;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+
+    // One check at a time: a sampled check is skipped while the full check runs
+    private final ReentrantLock checkLock = new ReentrantLock();
+
+    // Results of the last check, published as gauges
+    private final AtomicLong lastLagSeconds = new AtomicLong();
+    private final AtomicLong lastDivergent = new AtomicLong();
+
+    @Value("${meilisearch.consistency.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${meilisearch.consistency.chunk-size:500}")
+    private int chunkSize = 500;
+
+    @Value("${meilisearch.consistency.sample-chunks:2}")
+    private int sampleChunks = 2;
+
+    @Value("${meilisearch.consistency.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${meilisearch.consistency.settle-delay:PT2M}")
+    private Duration settleDelay = Duration.ofMinutes(2);
+
+    @Value("${meilisearch.consistency.repair:true}")
+    private boolean repair = true;
+
+    public MeilisearchConsistencyService(OrderRepository orderRepository,
+                                         MeilisearchGateway meilisearchGateway,
+                                         ObjectMapper objectMapper,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry) {
+        this.orderRepository = orderRepository;
+        this.meilisearchGateway = meilisearchGateway;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        Gauge.builder("search.consistency.lag", lastLagSeconds, AtomicLong::get)
+                .description("Largest lag behind the database of the documents found outdated by the last check")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("search.consistency.divergent", lastDivergent, AtomicLong::get)
+                .description("Missing, stale and orphaned documents found by the last check")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${meilisearch.consistency.sample-interval:PT1M}",
+            fixedDelayString = "${meilisearch.consistency.sample-interval:PT1M}")
+    public void scheduledSampledCheck() {
+        if (enabled) {
+            try {
+                runSampledCheck();
+            } catch (Exception e) {
+                log.error("*** Sampled consistency check of index {} failed", ORDERS_INDEX, e);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${meilisearch.consistency.full-cron:0 0 3 * * SUN}")
+    public void scheduledFullCheck() {
+        if (enabled) {
+            try {
+                runFullCheck();
+            } catch (Exception e) {
+                log.error("*** Full consistency check of index {} failed", ORDERS_INDEX, e);
+            }
+        }
+    }
+
+    /**
+     * Checks (and repairs) the chunks starting at {@code sample-chunks} random IDs.
+     *
+     * @return the report, or null when another check is running
+     */
+    public Report runSampledCheck() {
+
+        if (!checkLock.tryLock()) {
+            return null;
+        }
+
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long maxId = orderRepository.findMaxId();
+            Tally tally = new Tally();
+
+            if (maxId > 0) {
+                for (int i = 0; i < sampleChunks; i++) {
+                    checkRange(ThreadLocalRandom.current().nextLong(maxId), Long.MAX_VALUE, 1, tally);
+                }
+            }
+
+            Report report = publish(Mode.SAMPLED, tally, sample);
+            if (report.divergent() > 0) {
+                log.warn("Sampled consistency check of index {}: {}", ORDERS_INDEX, report);
+            }
+            return report;
+        } finally {
+            checkLock.unlock();
+        }
+    }
+
+    /**
+     * Checks (and repairs) all the orders, in {@code parallelism} ID ranges walked concurrently.
+     *
+     * @return the report, or null when another check is running
+     * @throws IllegalStateException when a range cannot be checked
+     */
+    public Report runFullCheck() {
+
+        if (!checkLock.tryLock()) {
+            log.warn("A consistency check of index {} is already running, full check skipped", ORDERS_INDEX);
+            return null;
+        }
+
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long maxId = orderRepository.findMaxId();
+            long rangeSize = Math.max(1, (maxId + parallelism - 1) / parallelism);
+
+            log.info(">>> [{}#runFullCheck] --> maxId: {}, ranges: {}, chunkSize: {}",
+                    MeilisearchConsistencyService.class.getSimpleName(), maxId, parallelism, chunkSize);
+
+            List<Callable<Tally>> ranges = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                long after = i * rangeSize;
+                // The last range is open: documents above the highest order ID are orphans too
+                long to = i == parallelism - 1 ? Long.MAX_VALUE : after + rangeSize;
+                ranges.add(() -> {
+                    Tally tally = new Tally();
+                    checkRange(after, to, Integer.MAX_VALUE, tally);
+                    return tally;
+                });
+            }
+
+            Tally total = new Tally();
+            try (ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                    Thread.ofPlatform().name("Search-consistency-", 0).factory())) {
+                for (Future<Tally> range : executor.invokeAll(ranges)) {
+                    total.add(range.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while checking index " + ORDERS_INDEX, e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not check index " + ORDERS_INDEX, e.getCause());
+            }
+
+            Report report = publish(Mode.FULL, total, sample);
+            log.info("<<< [{}#runFullCheck] <--- {}", MeilisearchConsistencyService.class.getSimpleName(), report);
+            return report;
+        } finally {
+            checkLock.unlock();
+        }
+    }
+
+    /**
+     * Checks the orders of the ID range {@code (after, to]}, at most {@code maxChunks} chunks from its start.
+     */
+    private void checkRange(long after, long to, int maxChunks, Tally tally) {
+
+        Index index = meilisearchGateway.client().index(ORDERS_INDEX);
+
+        for (int chunk = 0; chunk < maxChunks && after < to; chunk++) {
+
+            List<Long> ids = orderRepository.findIdsAfter(after, Limit.of(chunkSize));
+            boolean lastChunk = ids.size() < chunkSize || ids.get(ids.size() - 1) >= to;
+            long upper = lastChunk ? to : ids.get(ids.size() - 1);
+
+            LocalDateTime now = LocalDateTime.now();
+            Map<Long, LocalDateTime> indexed = readIndexed(index, after, upper);
+            Map<Long, LocalDateTime> database = new LinkedHashMap<>();
+            for (OrderVersionView order : orderRepository.findVersionsInRange(after, upper, Limit.unlimited())) {
+                database.put(order.getId(), order.getUpdatedAt());
+            }
+
+            IndexDiff diff = IndexDiff.of(database, indexed, now.minus(settleDelay), now);
+            tally.add(diff, repair && diff.divergent() > 0 ? repair(index, diff) : 0);
+
+            if (lastChunk) {
+                return;
+            }
+            after = upper;
+        }
+    }
+
+    /**
+     * ID and {@code updatedAt} of the documents of the ID range {@code (after, to]}, read in pages of a chunk.
+     */
+    private Map<Long, LocalDateTime> readIndexed(Index index, long after, long to) {
+
+        String filter = "id > " + after + (to == Long.MAX_VALUE ? "" : " AND id <= " + to);
+        Map<Long, LocalDateTime> indexed = new HashMap<>();
+
+        try {
+            for (int offset = 0; ; ) {
+                DocumentsQuery query = new DocumentsQuery();
+                query.setFilter(new String[]{filter});
+                query.setFields(new String[]{"id", "updatedAt"});
+                query.setOffset(offset);
+                query.setLimit(chunkSize);
+
+                // Raw JSON read with the application mapper, which wrote the dates of the documents
+                JsonNode page = objectMapper.readTree(index.getRawDocuments(query));
+                JsonNode results = page.path("results");
+                for (JsonNode document : results) {
+                    JsonNode updatedAt = document.path("updatedAt");
+                    indexed.put(document.path("id").asLong(),
+                            updatedAt.isMissingNode() || updatedAt.isNull() ? null : objectMapper.treeToValue(updatedAt, LocalDateTime.class));
+                }
+
+                offset += results.size();
+                if (results.isEmpty() || offset >= page.path("total").asInt()) {
+                    return indexed;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read the documents of index " + ORDERS_INDEX, e);
+        }
+    }
+
+    /**
+     * Sends again the outdated documents of a chunk and deletes its orphans.
+     *
+     * @return the number of documents repaired
+     */
+    private int repair(Index index, IndexDiff diff) {
+
+        List<Long> outdated = diff.outdated();
+        List<String> taskUids = new ArrayList<>(2);
+
+        if (!outdated.isEmpty()) {
+            List<OrderSearchDocument> documents = readOnlyTransaction.execute(status ->
+                    orderRepository.findAllWithItemsByIdIn(outdated).stream().map(OrderMapper::toDto).map(OrderSearchDocument::of).toList());
+            // Orders deleted in the meantime are missing here: their tombstones remove them
+            if (!documents.isEmpty()) {
+                try {
+                    taskUids.add(taskUid(index.addDocuments(objectMapper.writeValueAsString(documents))));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException("Could not serialize the orders for Meilisearch", e);
+                }
+            }
+        }
+
+        if (!diff.orphaned().isEmpty()) {
+            taskUids.add(taskUid(index.deleteDocuments(diff.orphaned().stream().map(String::valueOf).toList())));
+        }
+
+        log.info("Repairing index {}: missing {}, stale {}, orphaned {} (tasks {})",
+                ORDERS_INDEX, diff.missing(), diff.stale(), diff.orphaned(), taskUids);
+
+        int repaired = outdated.size() + diff.orphaned().size();
+        meterRegistry.counter("search.consistency.repaired").increment(repaired);
+        return repaired;
+    }
+
+    private static String taskUid(TaskInfo task) {
+        return String.valueOf(task.getTaskUid());
+    }
+
+    private Report publish(Mode mode, Tally tally, Timer.Sample sample) {
+
+        Report report = tally.toReport(mode);
+        String modeTag = mode.name().toLowerCase(Locale.ROOT);
+
+        meterRegistry.counter("search.consistency.checked", "mode", modeTag).increment(report.checked());
+        meterRegistry.counter("search.consistency.divergences", "mode", modeTag, "type", "missing").increment(report.missing());
+        meterRegistry.counter("search.consistency.divergences", "mode", modeTag, "type", "stale").increment(report.stale());
+        meterRegistry.counter("search.consistency.divergences", "mode", modeTag, "type", "orphaned").increment(report.orphaned());
+        sample.stop(meterRegistry.timer("search.consistency.check", "mode", modeTag));
+        lastLagSeconds.set(report.maxLag().toSeconds());
+        lastDivergent.set(report.divergent());
+
+        return report;
+    }
+
+    /**
+     * Totals of the chunks checked by one thread, then of the whole check.
+     */
+    private static final class Tally {
+
+        private int chunks;
+        private int checked;
+        private int pending;
+        private int missing;
+        private int stale;
+        private int orphaned;
+        private int repaired;
+        private Duration maxLag = Duration.ZERO;
+
+        void add(IndexDiff diff, int repairedDocuments) {
+            chunks++;
+            checked += diff.checked();
+            pending += diff.pending();
+            missing += diff.missing().size();
+            stale += diff.stale().size();
+            orphaned += diff.orphaned().size();
+            repaired += repairedDocuments;
+            maxLag = diff.maxLag().compareTo(maxLag) > 0 ? diff.maxLag() : maxLag;
+        }
+
+        void add(Tally other) {
+            chunks += other.chunks;
+            checked += other.checked;
+            pending += other.pending;
+            missing += other.missing;
+            stale += other.stale;
+            orphaned += other.orphaned;
+            repaired += other.repaired;
+            maxLag = other.maxLag.compareTo(maxLag) > 0 ? other.maxLag : maxLag;
+        }
+
+        Report toReport(Mode mode) {
+            return new Report(mode, chunks, checked, pending, missing, stale, orphaned, repaired, maxLag);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meilisearch.sdk.model.Task;
+import com.meilisearch.sdk.model.TaskInfo;
+import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchGateway;
+import com.nicolafogliaro.orderservice.api.search.OrderSearchDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streaming full reindex of the orders into a Meilisearch index.
+ * <p>
+ * Orders are read in ascending-ID chunks of {@code meilisearch.reindex.chunk-size}, each chunk in its own short
+ * read-only transaction with its items and products fetched by one query. A chunk is serialized straight from the
+ * entities into a reused buffer and sent with one {@code addDocuments} call; at most
+ * {@code meilisearch.reindex.parallelism} chunks are in flight, so reading waits for Meilisearch instead of piling
+ * up payloads. The memory used therefore depends on the chunk size, not on the number of orders.
+ * </p>
+ * <p>
+ * Meilisearch applies the documents asynchronously: the task of every chunk is kept and waited for at the end,
+ * and a failed task fails the reindex.
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "search.engine", havingValue = "meilisearch", matchIfMissing = true)
+public class MeilisearchReindexService {
+
+    private final OrderRepository orderRepository;
+    private final MeilisearchGateway meilisearchGateway;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${meilisearch.reindex.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${meilisearch.reindex.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${meilisearch.reindex.task-timeout:PT30M}")
+    private Duration taskTimeout = Duration.ofMinutes(30);
+
+    public MeilisearchReindexService(OrderRepository orderRepository,
+                                     MeilisearchGateway meilisearchGateway,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.meilisearchGateway = meilisearchGateway;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Sends all the orders to the given index and waits until Meilisearch has applied them.
+     *
+     * @return the number of orders sent
+     * @throws IllegalStateException when a chunk cannot be sent or a Meilisearch task fails
+     */
+    public long reindex(String indexUid) {
+
+        log.info(">>> [{}#reindex] --> indexUid: {}, chunkSize: {}, parallelism: {}",
+                MeilisearchReindexService.class.getSimpleName(), indexUid, chunkSize, parallelism);
+
+        Semaphore inFlight = new Semaphore(parallelism);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Integer> taskUids = Collections.synchronizedList(new ArrayList<>());
+        StringWriter buffer = new StringWriter(chunkSize * 1024);
+
+        long sent = 0;
+        Long after = 0L;
+
+        try {
+            while (after != null && failure.get() == null) {
+
+                Long from = after;
+                Chunk chunk = readOnlyTransaction.execute(status -> readChunk(from, buffer));
+
+                if (chunk.count() == 0) {
+                    break;
+                }
+
+                inFlight.acquire();
+                meilisearchGateway.callAsync("reindex", client -> client.index(indexUid).addDocuments(chunk.payload()))
+                        .whenComplete((TaskInfo task, Throwable e) -> {
+                            if (e != null) {
+                                failure.compareAndSet(null, MeilisearchGateway.unwrap(e));
+                            } else {
+                                taskUids.add(task.getTaskUid());
+                            }
+                            inFlight.release();
+                        });
+
+                sent += chunk.count();
+                after = chunk.count() == chunkSize ? chunk.lastId() : null;
+            }
+
+            // Waits for the chunks still being sent
+            inFlight.acquire(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reindexing " + indexUid, e);
+        }
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Could not send the orders to index " + indexUid, failure.get());
+        }
+
+        waitForTasks(indexUid, taskUids);
+
+        log.info("<<< [{}#reindex] --> indexUid: {} | <--- orders: {}, tasks: {}",
+                MeilisearchReindexService.class.getSimpleName(), indexUid, sent, taskUids.size());
+        return sent;
+    }
+
+    /**
+     * Reads the orders of one chunk and serializes them as a JSON array, without building the DTO list.
+     */
+    private Chunk readChunk(Long after, StringWriter buffer) {
+
+        List<Long> ids = orderRepository.findIdsAfter(after, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return new Chunk(0, null, null);
+        }
+
+        buffer.getBuffer().setLength(0);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            generator.writeStartArray();
+            for (Order order : orderRepository.findAllWithItemsByIdIn(ids)) {
+                objectMapper.writeValue(generator, OrderSearchDocument.of(OrderMapper.toDto(order)));
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new Chunk(ids.size(), ids.get(ids.size() - 1), buffer.toString());
+    }
+
+    private void waitForTasks(String indexUid, List<Integer> taskUids) {
+
+        int timeout = (int) taskTimeout.toMillis();
+
+        for (Integer taskUid : taskUids) {
+
+            meilisearchGateway.client().waitForTask(taskUid, timeout, 500);
+
+            Task task = meilisearchGateway.client().getTask(taskUid);
+            if ("failed".equalsIgnoreCase(String.valueOf(task.getStatus()))) {
+                throw new IllegalStateException("Meilisearch task " + taskUid + " on index " + indexUid + " failed: " + task.getError());
+            }
+        }
+    }
+
+    private record Chunk(int count, Long lastId, String payload) {}
+}
@@ -2,71 +2,61 @@ package com.nicolafogliaro.orderservice.api.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.meilisearch.sdk.Client;
-import com.meilisearch.sdk.Config;
 import com.meilisearch.sdk.Index;
 import com.meilisearch.sdk.SearchRequest;
 import com.meilisearch.sdk.exceptions.MeilisearchApiException;
 import com.meilisearch.sdk.exceptions.MeilisearchException;
-import com.meilisearch.sdk.json.JacksonJsonHandler;
+import com.meilisearch.sdk.model.IndexesQuery;
 import com.meilisearch.sdk.model.SearchResultPaginated;
-import com.meilisearch.sdk.model.Searchable;
 import com.meilisearch.sdk.model.Settings;
+import com.meilisearch.sdk.model.SwapIndexesParams;
+import com.meilisearch.sdk.model.Task;
 import com.meilisearch.sdk.model.TaskInfo;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
-import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
-import com.nicolafogliaro.orderservice.api.model.order.Order;
-import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchFilter;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchGateway;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchIndexer;
+import com.nicolafogliaro.orderservice.api.search.OrderSearchDocument;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+
+import static com.nicolafogliaro.orderservice.api.model.order.OrderColumnNameForSearch.RELEVANCE;
 
 
 @Service
+@ConditionalOnProperty(name = "search.engine", havingValue = "meilisearch", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
-public class MeilisearchService {
-
-    private static final String ORDERS_INDEX = "orders";
-
-    @Value("${meilisearch.host:http://localhost:7700}")
-    private String meilisearchHost;
+public class MeilisearchService implements OrderSearchEngine {
 
-    @Value("${meilisearch.api-key:}")
-    private String meilisearchApiKey;
+    public static final String ORDERS_INDEX = "orders";
+    private static final String ORDERS_INDEX_VERSION_PREFIX = ORDERS_INDEX + "_v";
+    private static final int INDEXES_PAGE_SIZE = 100;
 
-    private final OrderRepository orderRepository;
     private final ObjectMapper objectMapper;
+    private final MeilisearchGateway meilisearchGateway;
+    private final MeilisearchIndexer meilisearchIndexer;
+    private final MeilisearchSyncService meilisearchSyncService;
+    private final MeilisearchReindexService meilisearchReindexService;
 
-    /**
-     * Get a Meilisearch client
-     */
-    private Client getClient() {
-        Config config = new Config(meilisearchHost, meilisearchApiKey, new JacksonJsonHandler(objectMapper));
-        return new Client(config);
-    }
-
-    @Transactional(readOnly = true) // readOnly = true is a good practice for read operations
+    @Override
     public void initializeIndexes() {
         log.info(">>> [{}#initializeIndexes] Attempting to initialize Meilisearch indexes...", MeilisearchService.class.getSimpleName());
 
         try {
-            Client client = getClient();
-            if (client == null) {
-                log.error("*** [{}#initializeIndexes] Meilisearch client is null. Cannot initialize indexes.", MeilisearchService.class.getSimpleName());
-                return;
-            }
+            Client client = meilisearchGateway.client();
 
             log.info(">>> [{}#initializeIndexes] Current Meilisearch indexes: {}", MeilisearchService.class.getSimpleName(), client.getIndexes().getResults());
 
@@ -74,9 +64,19 @@ public class MeilisearchService {
             try {
                 Index index = client.index(ORDERS_INDEX);
                 Settings currentSettings = index.getSettings(); // This will throw MeilisearchApiException if index is not found
-                log.info("Index {} already exists. Searchable attributes: {}. Proceeding to sync orders.",
+                log.info("Index {} already exists. Searchable attributes: {}.",
                         ORDERS_INDEX, Arrays.toString(currentSettings.getSearchableAttributes()));
-                syncAllOrders();
+                if (!hasFilterableAttributes(currentSettings)) {
+                    // Configured before some filters existed (createdAtEpoch documents, id ranges of the consistency checker)
+                    log.warn("Index {} has filterable attributes {} instead of {}, rebuilding it.",
+                            ORDERS_INDEX, Arrays.toString(currentSettings.getFilterableAttributes()), MeilisearchFilter.FILTERABLE_ATTRIBUTES);
+                    syncAllOrders();
+                } else if (meilisearchSyncService.needsFullSync(index)) {
+                    syncAllOrders();
+                } else {
+                    // Only the orders changed while the application was down
+                    meilisearchSyncService.syncChanges();
+                }
             } catch (MeilisearchApiException e) {
                 // Check if the exception is specifically "index_not_found"
                 // Based on logs, MeilisearchApiException has e.getCode() for "index_not_found"
@@ -103,7 +103,7 @@ public class MeilisearchService {
                 }
             }
         } catch (Exception e) {
-            // Catch-all for other issues like getClient() failing, or re-thrown exceptions.
+            // Catch-all for other issues like Meilisearch being unreachable, or re-thrown exceptions.
             // Log the error but don't prevent application startup, as per original logic.
             log.error("*** [{}#initializeIndexes] Failed to initialize Meilisearch indexes due to an unexpected error: {}. Application will continue, but Meilisearch functionality may be impaired.",
                     MeilisearchService.class.getSimpleName(), e.getMessage(), e);
@@ -124,7 +124,7 @@ public class MeilisearchService {
         // 1. Create the index
         TaskInfo creationTaskInfo = client.createIndex(indexUid, "id");
         log.info("Index creation task enqueued for '{}'. Task UID: {}. Waiting for completion...", indexUid, creationTaskInfo.getTaskUid());
-        client.waitForTask(creationTaskInfo.getTaskUid()); // Waits with default timeout and interval
+        waitForSuccess(client, creationTaskInfo, "creation of index " + indexUid); // Waits with default timeout and interval
         log.info("Index '{}' created successfully.", indexUid);
 
         // 2. Configure settings for the newly created index
@@ -138,33 +138,44 @@ public class MeilisearchService {
         settings.setSearchableAttributes(searchableAttributesList.toArray(String[]::new));
         settings.setSortableAttributes(sortableAttributesList.toArray(String[]::new));
 
-        // You can configure other settings like filterableAttributes, rankingRules, etc. here
-        // settings.setFilterableAttributes(List.of("status", "customerId").toArray(String[]::new));
+        // The search filters run in Meilisearch (see MeilisearchFilter)
+        settings.setFilterableAttributes(MeilisearchFilter.FILTERABLE_ATTRIBUTES.toArray(String[]::new));
 
-        log.info("Updating settings for index '{}'. Searchable: {}, Sortable: {}. Waiting for task completion...",
+        log.info("Updating settings for index '{}'. Searchable: {}, Sortable: {}, Filterable: {}. Waiting for task completion...",
                 indexUid,
                 searchableAttributesList,
-                sortableAttributesList);
+                sortableAttributesList,
+                MeilisearchFilter.FILTERABLE_ATTRIBUTES);
 
         TaskInfo settingsUpdateTaskInfo = index.updateSettings(settings);
         log.info("Settings update task enqueued for index '{}'. Task UID: {}", indexUid, settingsUpdateTaskInfo.getTaskUid());
-        client.waitForTask(settingsUpdateTaskInfo.getTaskUid()); // Wait for settings update to complete
+        waitForSuccess(client, settingsUpdateTaskInfo, "settings update of index " + indexUid);
 
         log.info("Settings for index '{}' updated successfully.", indexUid);
         log.info("<<< [{}#createAndConfigureIndexInternal] Index '{}' fully created and configured.", MeilisearchService.class.getSimpleName(), indexUid);
     }
 
     /**
-     * Search for orders using Meilisearch
+     * Whether the index was configured with all the attributes filtered by {@link MeilisearchFilter}.
      */
-    public Page<OrderResponse> searchOrders(OrderSearchCriteria criteria) throws MeilisearchException {
+    private boolean hasFilterableAttributes(Settings settings) {
+        String[] filterable = settings.getFilterableAttributes();
+        return filterable != null && Arrays.asList(filterable).containsAll(MeilisearchFilter.FILTERABLE_ATTRIBUTES);
+    }
 
-        Client client = getClient();
+    /**
+     * Search for orders using Meilisearch. The filters are part of the search request, so the total hits and the
+     * pages cover all the matching orders.
+     */
+    @Override
+    public Page<OrderResponse> searchOrders(OrderSearchCriteria criteria) throws MeilisearchException {
 
         SearchRequest searchRequest = SearchRequest.builder().q(criteria.getQuery()).limit(criteria.getSize()).offset(criteria.getPage() * criteria.getSize()).build();
 
-        // Add sorting if needed
-        if (criteria.getSort() != null) {
+        MeilisearchFilter.of(criteria).ifPresent(filter -> searchRequest.setFilter(new String[]{filter}));
+
+        // Add sorting if needed (Meilisearch ranks by relevance when there is no sort)
+        if (criteria.getSort() != null && !RELEVANCE.equals(criteria.getSort())) {
             String sortStr = criteria.getSort();
             if (criteria.getDirection().equalsIgnoreCase("desc")) {
                 sortStr = sortStr + ":desc";
@@ -172,7 +183,8 @@ public class MeilisearchService {
             searchRequest.setSort(new String[]{sortStr});
         }
 
-        SearchResultPaginated searchResult = (SearchResultPaginated) client.index(ORDERS_INDEX).search(searchRequest);
+        SearchResultPaginated searchResult = meilisearchGateway.call("search",
+                client -> (SearchResultPaginated) client.index(ORDERS_INDEX).search(searchRequest));
 
         // Convert hits to DTOs
         List<OrderResponse> orders = new ArrayList<>();
@@ -189,131 +201,175 @@ public class MeilisearchService {
     }
 
     /**
-     * Search for order IDs using Meilisearch
+     * Queue an order for indexing in Meilisearch: it is sent with the next batch of the {@link MeilisearchIndexer}
      */
-    public List<Long> searchOrderIds(String query) {
+    @Override
+    public void indexOrder(OrderResponse order) {
+        meilisearchIndexer.index(order);
+    }
 
+    /**
+     * Index an order in Meilisearch. The future completes when Meilisearch has enqueued the indexing task.
+     */
+    public CompletableFuture<TaskInfo> indexOrderAsync(OrderResponse order) {
+        String document;
         try {
-
-            Client client = getClient();
-
-            Index index = client.index(ORDERS_INDEX);
-
-            SearchRequest searchRequest = SearchRequest.builder().q(query).limit(1000)// Set a reasonable limit
-                    .attributesToRetrieve(new String[]{"id"}).build();
-
-            Searchable searchResult = index.search(searchRequest);
-
-            List<Long> orderIds = new ArrayList<>();
-
-            searchResult.getHits().forEach(hit -> {
-                try {
-                    orderIds.add(Long.valueOf(hit.get("id").toString()));
-                } catch (Exception e) {
-                    log.error("Error extracting ID from Meilisearch hit", e);
-                }
-            });
-
-            return orderIds;
+            document = objectMapper.writeValueAsString(List.of(OrderSearchDocument.of(order)));
         } catch (Exception e) {
-            log.error("Error searching Meilisearch for order IDs", e);
-            return List.of();
+            return CompletableFuture.failedFuture(e);
         }
+        return meilisearchGateway.callAsync("index", client -> client.index(ORDERS_INDEX).addDocuments(document));
     }
 
     /**
-     * Index an order in Meilisearch
+     * Nothing to send now: these changes moved the search projection of the orders, so the incremental
+     * {@link MeilisearchSyncService#syncChanges()} reads and sends their documents in chunks.
      */
-    public void indexOrder(Order order) {
-        try {
-            Client client = getClient();
-            OrderResponse orderDTO = OrderMapper.toDto(order);
-            client.index(ORDERS_INDEX).addDocuments(objectMapper.writeValueAsString(List.of(orderDTO)));
-        } catch (Exception e) {
-            log.error("Error indexing order in Meilisearch", e);
-        }
+    @Override
+    public void reindexOrders(Collection<Long> orderIds) {
+        log.debug("{} orders left to the incremental sync", orderIds.size());
     }
 
     /**
-     * Delete an order from Meilisearch
+     * Queue the deletion of an order from Meilisearch: it is sent with the next batch of the {@link MeilisearchIndexer}
      */
+    @Override
     public void deleteOrder(Long orderId) {
-        try {
-            Client client = getClient();
-            client.index(ORDERS_INDEX).deleteDocument(orderId.toString());
-        } catch (Exception e) {
-            log.error("Error deleting order from Meilisearch", e);
-        }
+        meilisearchIndexer.delete(orderId);
     }
 
     /**
-     * Delete an order from Meilisearch
+     * Delete an order from Meilisearch. The future completes when Meilisearch has enqueued the deletion task.
      */
-    public void deleteOrder2(Long orderId) {
+    public CompletableFuture<TaskInfo> deleteOrderAsync(Long orderId) {
+        return meilisearchGateway.callAsync("delete", client -> client.index(ORDERS_INDEX).deleteDocument(orderId.toString()));
+    }
+
+    /**
+     * Full sync of all orders with Meilisearch, only when the index is missing or does not match the database:
+     * the scheduled {@link MeilisearchSyncService#syncChanges()} keeps it up to date afterwards.
+     */
+    @Override
+    public void syncAllOrders() {
+
+        log.info("Starting Meilisearch full sync");
+
         try {
-            Client client = getClient();
-            TaskInfo task = client.index(ORDERS_INDEX).deleteDocument(orderId.toString());
-            log.debug("Order deleted from Meilisearch with task ID: {}", task.getTaskUid());
+            meilisearchSyncService.runFullSync(this::uploadAllOrders);
         } catch (Exception e) {
-            log.error("Error deleting order from Meilisearch", e);
+            log.error("Error during Meilisearch sync", e);
         }
     }
 
     /**
-     * Scheduled job to sync all orders with Meilisearch
+     * Blue/green rebuild: the orders are indexed into a new versioned index ({@code orders_v<n>}) configured like
+     * {@code orders}, which is then swapped with {@code orders} in one Meilisearch task. Searches keep reading the
+     * complete previous index until the swap, and the previous documents are dropped with the versioned index.
+     * <p>
+     * A failed build is dropped. When the swap fails (or its outcome is unknown) the versioned index holds the
+     * complete build: it is kept, the exception fails the full synchronization so the watermark does not move, and
+     * the next rebuild drops it.
+     * </p>
      */
-    @Scheduled(cron = "0 0 1 * * ?") // Daily at 1 AM
-    public void syncAllOrders() {
+    private void uploadAllOrders() {
+
+        Client client = meilisearchGateway.client();
 
-        log.info("Starting scheduled Meilisearch sync");
+        dropVersionedIndexes(client);
+
+        String versionUid = ORDERS_INDEX_VERSION_PREFIX + System.currentTimeMillis();
+        boolean swapRequested = false;
 
         try {
+            createAndConfigureIndexInternal(client, versionUid);
 
-            List<Order> allOrders = orderRepository.findAll();
+            // Streamed in chunks: the orders are never all in memory
+            long indexed = meilisearchReindexService.reindex(versionUid);
 
-            List<OrderResponse> orderDTOs = allOrders.stream().map(OrderMapper::toDto).collect(Collectors.toList());
+            ensureIndexExists(client, ORDERS_INDEX);
 
-            Client client = getClient();
+            SwapIndexesParams swap = new SwapIndexesParams();
+            swap.setIndexes(new String[]{ORDERS_INDEX, versionUid});
 
-            Index index = client.index(ORDERS_INDEX);
+            swapRequested = true;
+            waitForSuccess(client, client.swapIndexes(new SwapIndexesParams[]{swap}), "swap of " + ORDERS_INDEX + " with " + versionUid);
 
-            // Reset the index - try to delete all documents first
-            try {
-                TaskInfo deleteTask = index.deleteAllDocuments();
-                log.debug("Delete all documents task ID: {}", deleteTask.getTaskUid());
-            } catch (Exception e) {
-                log.warn("Error deleting documents from Meilisearch index", e);
-
-                // If deleting documents fails, try to delete and recreate the index
-                try {
-                    client.deleteIndex(ORDERS_INDEX);
-                    client.createIndex(ORDERS_INDEX, "id");
-                    log.info("Created new index {} with primary key 'id'", ORDERS_INDEX);
-                } catch (Exception ex) {
-                    log.warn("Error recreating Meilisearch index", ex);
-                }
+            log.info("Completed Meilisearch sync, indexed {} orders into {} and swapped it with {}", indexed, versionUid, ORDERS_INDEX);
+
+            // It now holds the previous documents
+            dropIndex(client, versionUid);
+        } finally {
+            if (!swapRequested) {
+                // The incomplete build
+                dropIndex(client, versionUid);
             }
+        }
+    }
 
-            Settings settings = index.getSettings();
+    /**
+     * Waits for a Meilisearch task and checks its outcome: waiting alone does not fail when the task fails.
+     *
+     * @throws IllegalStateException when the task failed or was canceled
+     */
+    private void waitForSuccess(Client client, TaskInfo taskInfo, String description) {
 
-            // Configure searchable attributes based on the OrderResponse fields
-            settings.setSearchableAttributes(List.of("customerId", "description", "items.productName", "items.productDescription").toArray(String[]::new));
-            settings.setSortableAttributes(List.of("id", "createdAt", "totalAmount", "status").toArray(String[]::new));
+        client.waitForTask(taskInfo.getTaskUid());
 
-            TaskInfo settingsTask = index.updateSettings(settings);
-            log.debug("Settings update task ID: {}", settingsTask.getTaskUid());
+        Task task = client.getTask(taskInfo.getTaskUid());
+        String status = String.valueOf(task.getStatus());
+        if ("failed".equalsIgnoreCase(status) || "canceled".equalsIgnoreCase(status)) {
+            throw new IllegalStateException("Meilisearch task " + taskInfo.getTaskUid() + " (" + description + ") " + status + ": " + task.getError());
+        }
+    }
+
+    /**
+     * Removes the versioned indexes left by an interrupted or failed rebuild, reading all the pages of indexes.
+     */
+    private void dropVersionedIndexes(Client client) {
+
+        List<String> versionUids = new ArrayList<>();
 
-            // Batch index documents
-            if (!orderDTOs.isEmpty()) {
+        for (int offset = 0; ; ) {
+            IndexesQuery query = new IndexesQuery();
+            query.setOffset(offset);
+            query.setLimit(INDEXES_PAGE_SIZE);
 
-                TaskInfo indexTask = index.addDocuments(objectMapper.writeValueAsString(orderDTOs));
+            Index[] indexes = client.getIndexes(query).getResults();
+            Arrays.stream(indexes)
+                    .map(Index::getUid)
+                    .filter(uid -> uid.startsWith(ORDERS_INDEX_VERSION_PREFIX))
+                    .forEach(versionUids::add);
 
-                log.debug("Sync indexing task ID: {}", indexTask.getTaskUid());
+            if (indexes.length < INDEXES_PAGE_SIZE) {
+                break;
             }
+            offset += indexes.length;
+        }
+
+        // Dropped after paging: deleting while paging would shift the pages
+        versionUids.forEach(uid -> dropIndex(client, uid));
+    }
 
-            log.info("Completed Meilisearch sync, indexed {} orders", orderDTOs.size());
+    private void dropIndex(Client client, String indexUid) {
+        try {
+            client.waitForTask(client.deleteIndex(indexUid).getTaskUid());
+            log.info("Dropped Meilisearch index {}", indexUid);
         } catch (Exception e) {
-            log.error("Error during Meilisearch sync", e);
+            log.warn("Could not drop Meilisearch index {}", indexUid, e);
+        }
+    }
+
+    /**
+     * Swapping needs both indexes: creates an empty, configured {@code orders} when it is missing.
+     */
+    private void ensureIndexExists(Client client, String indexUid) {
+        try {
+            client.getIndex(indexUid);
+        } catch (MeilisearchApiException e) {
+            if (!"index_not_found".equals(e.getCode())) {
+                throw e;
+            }
+            createAndConfigureIndexInternal(client, indexUid);
         }
     }
 
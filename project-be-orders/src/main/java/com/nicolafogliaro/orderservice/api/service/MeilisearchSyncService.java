@@ -0,0 +1,248 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meilisearch.sdk.Index;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderChangeView;
+import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
+import com.nicolafogliaro.orderservice.api.model.search.OrderSearchTombstone;
+import com.nicolafogliaro.orderservice.api.model.search.SearchSyncState;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.repository.OrderSearchTombstoneRepository;
+import com.nicolafogliaro.orderservice.api.repository.OrderSearchViewRepository;
+import com.nicolafogliaro.orderservice.api.repository.SearchSyncStateRepository;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchGateway;
+import com.nicolafogliaro.orderservice.api.search.OrderSearchDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.nicolafogliaro.orderservice.api.service.MeilisearchService.ORDERS_INDEX;
+
+/**
+ * Incremental synchronization of the Meilisearch {@code orders} index.
+ * <p>
+ * Every {@code meilisearch.sync.interval} the orders whose search projection changed after the watermark
+ * {@code (changed_at, order_id)} stored in {@code search_sync_state} are sent in batches of
+ * {@code meilisearch.sync.batch-size}, then the tombstones of the deleted orders. The watermark moves after each
+ * batch accepted by Meilisearch, so a failure resumes where it stopped. Changes younger than
+ * {@code meilisearch.sync.settle-delay} are left for the next run, so that transactions still committing with an
+ * older timestamp are not skipped.
+ * </p>
+ * <p>
+ * A full synchronization ({@link #runFullSync}) is only needed when the index is missing or does not match the
+ * database; it records a watermark taken before the upload started.
+ * </p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "search.engine", havingValue = "meilisearch", matchIfMissing = true)
+public class MeilisearchSyncService {
+
+    private final OrderRepository orderRepository;
+    private final OrderSearchViewRepository orderSearchViewRepository;
+    private final OrderSearchTombstoneRepository orderSearchTombstoneRepository;
+    private final SearchSyncStateRepository searchSyncStateRepository;
+    private final MeilisearchGateway meilisearchGateway;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate transaction;
+
+    // Serializes the incremental runs and the full synchronizations
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    @Value("${meilisearch.sync.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${meilisearch.sync.settle-delay:PT10S}")
+    private Duration settleDelay = Duration.ofSeconds(10);
+
+    @Value("${meilisearch.sync.tombstone-retention:P7D}")
+    private Duration tombstoneRetention = Duration.ofDays(7);
+
+    public MeilisearchSyncService(OrderRepository orderRepository,
+                                  OrderSearchViewRepository orderSearchViewRepository,
+                                  OrderSearchTombstoneRepository orderSearchTombstoneRepository,
+                                  SearchSyncStateRepository searchSyncStateRepository,
+                                  MeilisearchGateway meilisearchGateway,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderSearchViewRepository = orderSearchViewRepository;
+        this.orderSearchTombstoneRepository = orderSearchTombstoneRepository;
+        this.searchSyncStateRepository = searchSyncStateRepository;
+        this.meilisearchGateway = meilisearchGateway;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Whether the existing index must be rebuilt: it was never fully synchronized, or it is empty while there
+     * are orders.
+     */
+    public boolean needsFullSync(Index index) {
+
+        if (!searchSyncStateRepository.existsById(ORDERS_INDEX)) {
+            log.warn("Index {} has no synchronization state", ORDERS_INDEX);
+            return true;
+        }
+
+        long documents = index.getStats().getNumberOfDocuments();
+        if (documents == 0 && orderSearchViewRepository.count() > 0) {
+            log.warn("Index {} is empty while the database has orders", ORDERS_INDEX);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Runs a full upload of the index, then stores a watermark taken before it started: the changes made during
+     * the upload are sent again by the next incremental run.
+     *
+     * @throws RuntimeException when the upload fails; the watermark is then left unchanged
+     */
+    public void runFullSync(Runnable upload) {
+
+        syncLock.lock();
+        try {
+            LocalDateTime changedAt = LocalDateTime.now().minus(settleDelay);
+            Long tombstoneId = orderSearchTombstoneRepository.findMaxId();
+
+            upload.run();
+
+            saveState(SearchSyncState.builder()
+                    .indexName(ORDERS_INDEX)
+                    .changedAt(changedAt)
+                    .orderId(0L)
+                    .tombstoneId(tombstoneId)
+                    .build());
+
+            log.info("Full synchronization of index {} recorded, watermark {} / tombstone {}", ORDERS_INDEX, changedAt, tombstoneId);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Sends the orders changed and deleted since the last run. Skipped while another synchronization runs and
+     * before the first full synchronization.
+     */
+    @Scheduled(initialDelayString = "${meilisearch.sync.interval:PT30S}", fixedDelayString = "${meilisearch.sync.interval:PT30S}")
+    public void syncChanges() {
+
+        if (!syncLock.tryLock()) {
+            return;
+        }
+
+        try {
+            SearchSyncState state = searchSyncStateRepository.findById(ORDERS_INDEX).orElse(null);
+            if (state == null) {
+                return;
+            }
+
+            LocalDateTime until = LocalDateTime.now().minus(settleDelay);
+
+            int changed = sendChanges(state, until);
+            int deleted = sendDeletions(state, until);
+
+            if (changed > 0 || deleted > 0) {
+                log.info("Synchronized index {}: {} orders changed, {} deleted", ORDERS_INDEX, changed, deleted);
+            }
+        } catch (Exception e) {
+            log.error("*** Incremental synchronization of index {} failed, it resumes from the last watermark", ORDERS_INDEX, e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Drops the tombstones already sent to the index and older than the retention period.
+     */
+    @Scheduled(cron = "${meilisearch.sync.tombstone-purge-cron:0 30 1 * * ?}")
+    public void purgeTombstones() {
+
+        searchSyncStateRepository.findById(ORDERS_INDEX).ifPresent(state -> {
+            Integer purged = transaction.execute(status -> orderSearchTombstoneRepository.deleteSentBefore(
+                    LocalDateTime.now().minus(tombstoneRetention), state.getTombstoneId()));
+            log.info("Purged {} search tombstones", purged);
+        });
+    }
+
+    private int sendChanges(SearchSyncState state, LocalDateTime until) throws JsonProcessingException {
+
+        int sent = 0;
+        List<OrderChangeView> changes;
+
+        do {
+            changes = orderSearchViewRepository.findChangesAfter(state.getChangedAt(), state.getOrderId(), until, Limit.of(batchSize));
+            if (changes.isEmpty()) {
+                break;
+            }
+
+            List<Long> orderIds = changes.stream().map(OrderChangeView::getOrderId).toList();
+            List<OrderSearchDocument> documents = readOnlyTransaction.execute(status ->
+                    orderRepository.findAllWithItemsByIdIn(orderIds).stream().map(OrderMapper::toDto).map(OrderSearchDocument::of).toList());
+
+            // Orders deleted in the meantime are missing here: their tombstones remove them
+            if (!documents.isEmpty()) {
+                meilisearchGateway.client().index(ORDERS_INDEX).addDocuments(objectMapper.writeValueAsString(documents));
+            }
+
+            OrderChangeView last = changes.get(changes.size() - 1);
+            state.setChangedAt(last.getChangedAt());
+            state.setOrderId(last.getOrderId());
+            saveState(state);
+
+            sent += documents.size();
+        } while (changes.size() == batchSize);
+
+        return sent;
+    }
+
+    private int sendDeletions(SearchSyncState state, LocalDateTime until) {
+
+        int sent = 0;
+        List<OrderSearchTombstone> page;
+
+        do {
+            page = orderSearchTombstoneRepository.findPageAfter(state.getTombstoneId(), Limit.of(batchSize));
+
+            // Tombstones are sent in ID order: stop at the first one too recent to be sure that none before it is missing
+            List<OrderSearchTombstone> settled = page.stream().takeWhile(tombstone -> !tombstone.getDeletedAt().isAfter(until)).toList();
+            if (settled.isEmpty()) {
+                break;
+            }
+
+            meilisearchGateway.client().index(ORDERS_INDEX)
+                    .deleteDocuments(settled.stream().map(tombstone -> tombstone.getOrderId().toString()).toList());
+
+            state.setTombstoneId(settled.get(settled.size() - 1).getId());
+            saveState(state);
+
+            sent += settled.size();
+            if (settled.size() < page.size()) {
+                break;
+            }
+        } while (page.size() == batchSize);
+
+        return sent;
+    }
+
+    private void saveState(SearchSyncState state) {
+        state.setSyncedAt(LocalDateTime.now());
+        searchSyncStateRepository.save(state);
+    }
+}
@@ -0,0 +1,16 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderQuoteResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderRequest;
+import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
+
+public interface OrderQuoteService {
+
+    /**
+     * Prices an order request without writing anything and without taking locks.
+     *
+     * @param request the order as it would be submitted to {@code createOrder}
+     * @return line subtotals, total and availability flags
+     */
+    OrderQuoteResponse quote(OrderRequest request) throws ProductNotFoundException;
+}
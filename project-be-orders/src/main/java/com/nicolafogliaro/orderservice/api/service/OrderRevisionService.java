@@ -0,0 +1,20 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.nicolafogliaro.orderservice.api.dto.page.CursorPageResponse;
+import com.nicolafogliaro.orderservice.api.dto.revision.OrderRevisionResponse;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot;
+
+public interface OrderRevisionService {
+
+    /**
+     * Records a change of an order. The revision is queued when the current transaction commits
+     * and written asynchronously; nothing is recorded if the transaction rolls back.
+     *
+     * @param before state before the change, {@code null} for a creation
+     * @param after  state after the change, {@code null} for a deletion
+     */
+    void record(OrderRevisionType type, OrderSnapshot before, OrderSnapshot after);
+
+    CursorPageResponse<OrderRevisionResponse> getRevisions(Long orderId, Long after, Integer limit);
+}
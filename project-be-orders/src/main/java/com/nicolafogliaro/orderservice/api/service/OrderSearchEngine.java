@@ -0,0 +1,43 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import org.springframework.data.domain.Page;
+
+import java.util.Collection;
+
+/**
+ * Full-text search engine of orders, selected with {@code search.engine}: {@code meilisearch} (default, external
+ * service) or {@code embedded} (in-process index, for single-node deployments).
+ * The engine is fed after commit with the orders changed by the application.
+ */
+public interface OrderSearchEngine {
+
+    /**
+     * Prepares the index at startup (creation, first synchronization or snapshot load).
+     */
+    void initializeIndexes();
+
+    /**
+     * Search for orders, returning the indexed documents. The text query, customer, status and creation dates are
+     * all matched by the engine, so the totals and the pages are exact.
+     *
+     * @throws RuntimeException when the engine is not available, so that the caller can fall back to the database
+     */
+    Page<OrderResponse> searchOrders(OrderSearchCriteria criteria);
+
+    void indexOrder(OrderResponse order);
+
+    /**
+     * Indexes orders changed without their document at hand (bulk inserts, product renames). Called after commit;
+     * an engine that needs the documents reads them from the database in chunks.
+     */
+    void reindexOrders(Collection<Long> orderIds);
+
+    void deleteOrder(Long orderId);
+
+    /**
+     * Rebuilds the whole index from the database.
+     */
+    void syncAllOrders();
+}
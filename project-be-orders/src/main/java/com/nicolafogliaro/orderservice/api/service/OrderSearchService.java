@@ -2,11 +2,21 @@ package com.nicolafogliaro.orderservice.api.service;
 
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.dto.page.SeekPageResponse;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
 import org.springframework.data.domain.Page;
 
 public interface OrderSearchService {
 
     Page<OrderResponse> searchOrdersWithDb(OrderSearchCriteria criteria);
 
+    /**
+     * Keyset paginated database search: pages are read by seeking past the cursor instead of skipping rows.
+     * {@code page} is ignored; the total is only counted when {@code includeTotal} is set.
+     *
+     * @throws OrderBadRequestException if the sort field is not supported or the cursor is invalid
+     */
+    SeekPageResponse<OrderResponse> searchOrdersWithDbByCursor(OrderSearchCriteria criteria) throws OrderBadRequestException;
+
     Page<OrderResponse> searchOrdersWithSearchEngine(OrderSearchCriteria criteria);
 }
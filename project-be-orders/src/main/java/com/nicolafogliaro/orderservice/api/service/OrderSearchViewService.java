@@ -0,0 +1,31 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+
+import java.util.Collection;
+
+/**
+ * Keeps the order search projection ({@code order_search_view}) in step with orders and products.
+ * Order changes are applied in the transaction of the change; product changes after it commits.
+ */
+public interface OrderSearchViewService {
+
+    /**
+     * Writes the projection of an order from the given entity, whose items must be loaded.
+     */
+    void orderChanged(Order order);
+
+    /**
+     * Rebuilds the projection of the given orders from the database, without loading their lines.
+     * Orders that no longer exist lose their projection.
+     */
+    void ordersChanged(Collection<Long> orderIds);
+
+    void orderDeleted(Long orderId);
+
+    /**
+     * Rebuilds, once the current transaction commits, the projection of every order containing the product.
+     * To be called when the name or the description of the product changes.
+     */
+    void productChanged(Long productId);
+}
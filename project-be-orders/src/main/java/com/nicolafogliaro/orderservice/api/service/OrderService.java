@@ -2,15 +2,42 @@ package com.nicolafogliaro.orderservice.api.service;
 
 import com.nicolafogliaro.orderservice.api.dto.order.OrderRequest;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.UpdateOrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemResponse;
+import com.nicolafogliaro.orderservice.api.dto.page.CursorPageResponse;
 import com.nicolafogliaro.orderservice.api.exception.ConcurrencyConflictException;
 import com.nicolafogliaro.orderservice.api.exception.InsufficientStockException;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
 import com.nicolafogliaro.orderservice.api.exception.OrderNotFoundException;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface OrderService {
 
     OrderResponse getOrderById(Long orderId);
 
+    /**
+     * Orders with the given IDs, in the requested order; IDs that do not exist are left out.
+     *
+     * @throws OrderBadRequestException if more IDs than the configured maximum are requested
+     */
+    List<OrderResponse> getOrdersByIds(Collection<Long> orderIds) throws OrderBadRequestException;
+
+    /**
+     * Order header plus the number of its items, without loading the items.
+     */
+    OrderSummaryResponse getOrderSummary(Long orderId) throws OrderNotFoundException;
+
+    /**
+     * Keyset page of the items of an order.
+     *
+     * @param after ID of the last item of the previous page, {@code null} for the first page
+     * @param limit maximum number of items to return (clamped to the configured maximum)
+     */
+    CursorPageResponse<OrderItemResponse> getOrderItems(Long orderId, Long after, Integer limit) throws OrderNotFoundException;
+
     OrderResponse createOrder(OrderRequest request);
 
     OrderResponse updateOrder(Long orderId, UpdateOrderRequest updateRequest)
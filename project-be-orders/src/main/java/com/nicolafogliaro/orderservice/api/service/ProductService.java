@@ -5,6 +5,7 @@ import com.nicolafogliaro.orderservice.api.dto.product.ProductResponse;
 import com.nicolafogliaro.orderservice.api.dto.product.UpdateProductRequest;
 import com.nicolafogliaro.orderservice.api.model.Product;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductService {
@@ -15,6 +16,11 @@ public interface ProductService {
 
     ProductResponse getProductById(Long id);
 
+    /**
+     * Products with the given IDs, in the requested order; IDs that do not exist are left out.
+     */
+    List<ProductResponse> getProductsByIds(Collection<Long> ids);
+
     ProductResponse createProduct(CreateProductRequest request);
 
     ProductResponse updateProduct(Long id, UpdateProductRequest request);
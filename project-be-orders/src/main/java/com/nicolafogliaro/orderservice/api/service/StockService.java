@@ -1,8 +1,21 @@
 package com.nicolafogliaro.orderservice.api.service;
 
+import com.nicolafogliaro.orderservice.api.model.Product;
+
+import java.util.Map;
+import java.util.SortedMap;
+
 public interface StockService {
 
     void updateStock(Long productId, int quantityChange);
 
     boolean checkStockAvailability(Long productId, int requestedQuantity);
+
+    /**
+     * Reserves (decrements) stock for a batch of products with a single locking query.
+     *
+     * @param quantitiesByProduct requested quantity per product ID, sorted by ID so locks are always taken in the same order
+     * @return the locked and updated products, keyed by ID
+     */
+    Map<Long, Product> reserveStock(SortedMap<Long, Integer> quantitiesByProduct);
 }
@@ -0,0 +1,285 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.nicolafogliaro.orderservice.api.dto.draft.CreateDraftOrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.draft.DraftOrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
+import com.nicolafogliaro.orderservice.api.exception.ConcurrencyConflictException;
+import com.nicolafogliaro.orderservice.api.exception.DraftOrderNotFoundException;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
+import com.nicolafogliaro.orderservice.api.listener.OrderEventListener.OrderChangedEvent;
+import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
+import com.nicolafogliaro.orderservice.api.model.OrderItem;
+import com.nicolafogliaro.orderservice.api.model.Product;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.service.DraftOrderService;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.service.OrderRevisionService;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchViewService;
+import com.nicolafogliaro.orderservice.api.service.StockService;
+import com.nicolafogliaro.orderservice.api.util.MyTransactionUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Draft orders (carts) kept in Redis, so that cart edits never touch MariaDB.
+ * <p>
+ * Each draft is one hash {@code draft-order:{id}}: the header fields ({@code customerId}, {@code description})
+ * plus one {@code item:{productId}} field per line holding the quantity. Every mutation is a single Lua call that
+ * checks the draft still exists, applies the change and renews the TTL. At checkout the {@code checkout} field is
+ * set with {@code HSETNX}, so a second checkout (or an edit) of the same draft is rejected while the first one runs.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DraftOrderServiceImpl implements DraftOrderService {
+
+    static final String KEY_PREFIX = "draft-order:";
+    static final String CUSTOMER_ID_FIELD = "customerId";
+    static final String DESCRIPTION_FIELD = "description";
+    static final String CHECKOUT_FIELD = "checkout";
+    static final String ITEM_FIELD_PREFIX = "item:";
+
+    private static final int HEADER_FIELDS = 2;
+
+    /**
+     * KEYS[1] draft key; ARGV[1] customer ID; ARGV[2] description; ARGV[3] ttl seconds. Writes the header and the TTL
+     * together, so a draft never exists without expiry.
+     */
+    static final RedisScript<Long> CREATE_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('HSET', KEYS[1], 'customerId', ARGV[1], 'description', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS[1] draft key; ARGV[1] item field; ARGV[2] quantity; ARGV[3] ttl seconds; ARGV[4] max items; ARGV[5] header fields.
+     * Returns 1 on success, -1 if the draft does not exist, -2 if it is full, -3 if a checkout is running.
+     */
+    static final RedisScript<Long> SET_ITEM_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            if redis.call('HEXISTS', KEYS[1], 'checkout') == 1 then return -3 end
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0
+               and redis.call('HLEN', KEYS[1]) - tonumber(ARGV[5]) >= tonumber(ARGV[4]) then return -2 end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            return 1
+            """, Long.class);
+
+    /**
+     * KEYS[1] draft key; ARGV[1] item field; ARGV[2] ttl seconds. Same return codes as {@link #SET_ITEM_SCRIPT}.
+     */
+    static final RedisScript<Long> REMOVE_ITEM_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end
+            if redis.call('HEXISTS', KEYS[1], 'checkout') == 1 then return -3 end
+            redis.call('HDEL', KEYS[1], ARGV[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[2])
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final StockService stockService;
+    private final OrderRepository orderRepository;
+    private final OrderRevisionService orderRevisionService;
+    private final ExistenceFilterService existenceFilterService;
+    private final OrderSearchViewService orderSearchViewService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${drafts.ttl:86400}")
+    private long ttlSeconds = 86400;
+
+    @Value("${drafts.max-items:100}")
+    private int maxItems = 100;
+
+
+    @Override
+    public DraftOrderResponse createDraft(CreateDraftOrderRequest request) {
+
+        String draftId = UUID.randomUUID().toString();
+        String key = KEY_PREFIX + draftId;
+
+        redisTemplate.execute(CREATE_SCRIPT, List.of(key),
+                request.customerId().toString(),
+                request.orderDescription(),
+                Long.toString(ttlSeconds));
+
+        log.info("Draft order {} created for customer {}", draftId, request.customerId());
+        return new DraftOrderResponse(draftId, request.customerId(), request.orderDescription(), List.of(), ttlSeconds);
+    }
+
+    @Override
+    public DraftOrderResponse getDraft(String draftId) throws DraftOrderNotFoundException {
+        return toResponse(draftId, readDraft(draftId));
+    }
+
+    @Override
+    public DraftOrderResponse setItem(String draftId, Long productId, int quantity) {
+
+        if (quantity <= 0) {
+            throw new OrderBadRequestException("quantity: Quantity must be at least 1");
+        }
+
+        Long result = redisTemplate.execute(SET_ITEM_SCRIPT, List.of(KEY_PREFIX + draftId),
+                ITEM_FIELD_PREFIX + productId,
+                Integer.toString(quantity),
+                Long.toString(ttlSeconds),
+                Integer.toString(maxItems),
+                Integer.toString(HEADER_FIELDS));
+
+        checkMutationResult(draftId, result);
+        return getDraft(draftId);
+    }
+
+    @Override
+    public DraftOrderResponse removeItem(String draftId, Long productId) {
+
+        Long result = redisTemplate.execute(REMOVE_ITEM_SCRIPT, List.of(KEY_PREFIX + draftId),
+                ITEM_FIELD_PREFIX + productId,
+                Long.toString(ttlSeconds));
+
+        checkMutationResult(draftId, result);
+        return getDraft(draftId);
+    }
+
+    @Override
+    public void deleteDraft(String draftId) {
+        redisTemplate.delete(KEY_PREFIX + draftId);
+    }
+
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    @Override
+    public OrderResponse checkout(String draftId) {
+
+        log.info(">>> [{}#checkout] --> draftId: {}", DraftOrderServiceImpl.class.getSimpleName(), draftId);
+
+        String key = KEY_PREFIX + draftId;
+
+        if (!Boolean.TRUE.equals(redisTemplate.opsForHash().putIfAbsent(key, CHECKOUT_FIELD, "1"))) {
+            // HSETNX also succeeds on a missing key, so a false result means the field is already there
+            throw new ConcurrencyConflictException("Draft order " + draftId + " is already being checked out");
+        }
+
+        // Release the guard if anything below fails, so the customer can retry
+        MyTransactionUtils.afterRollback(() -> redisTemplate.opsForHash().delete(key, CHECKOUT_FIELD));
+
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(key);
+
+        if (!fields.containsKey(CUSTOMER_ID_FIELD)) {
+            redisTemplate.delete(key); // only the guard field was written: the draft had expired
+            throw new DraftOrderNotFoundException("Draft order not found with ID: " + draftId);
+        }
+
+        TreeMap<Long, Integer> quantities = readItems(fields);
+
+        if (quantities.isEmpty()) {
+            throw new OrderBadRequestException("items: Order must contain at least one item");
+        }
+
+        // One locking query for all the lines, in ascending product ID order
+        Map<Long, Product> products = stockService.reserveStock(quantities);
+
+        Order order = Order.builder()
+                .customerId(Long.valueOf((String) fields.get(CUSTOMER_ID_FIELD)))
+                .description((String) fields.get(DESCRIPTION_FIELD))
+                .status(OrderStatus.PENDING)
+                .totalAmount(BigDecimal.ZERO)
+                .orderItems(new ArrayList<>())
+                .build();
+
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            order.addOrderItem(OrderItem.builder()
+                    .product(product)
+                    .unitPrice(product.getPrice())
+                    .quantity(quantity)
+                    .build());
+        });
+
+        order.calculateTotalAmount();
+
+        Order saved = orderRepository.save(order);
+
+        orderRevisionService.record(OrderRevisionType.CREATED, null, OrderSnapshot.of(saved));
+        existenceFilterService.orderCreated(saved.getId());
+        orderSearchViewService.orderChanged(saved);
+
+        OrderResponse res = OrderMapper.toDto(saved);
+        eventPublisher.publishEvent(new OrderChangedEvent(res));
+
+        MyTransactionUtils.afterCommit(() -> redisTemplate.delete(key));
+
+        log.info("<<< [{}#checkout] --> draftId: {} | <--- res: {}", DraftOrderServiceImpl.class.getSimpleName(), draftId, res);
+        return res;
+    }
+
+
+    private Map<Object, Object> readDraft(String draftId) {
+
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(KEY_PREFIX + draftId);
+
+        if (!fields.containsKey(CUSTOMER_ID_FIELD)) {
+            throw new DraftOrderNotFoundException("Draft order not found with ID: " + draftId);
+        }
+        return fields;
+    }
+
+    private DraftOrderResponse toResponse(String draftId, Map<Object, Object> fields) {
+
+        List<OrderItemRequest> items = new ArrayList<>();
+        readItems(fields).forEach((productId, quantity) -> items.add(new OrderItemRequest(productId, quantity)));
+
+        Long ttl = redisTemplate.getExpire(KEY_PREFIX + draftId);
+
+        return new DraftOrderResponse(draftId,
+                Long.valueOf((String) fields.get(CUSTOMER_ID_FIELD)),
+                (String) fields.get(DESCRIPTION_FIELD),
+                items,
+                ttl != null && ttl > 0 ? ttl : 0);
+    }
+
+    private static TreeMap<Long, Integer> readItems(Map<Object, Object> fields) {
+
+        TreeMap<Long, Integer> quantities = new TreeMap<>();
+
+        fields.forEach((field, value) -> {
+            String name = (String) field;
+            if (name.startsWith(ITEM_FIELD_PREFIX)) {
+                quantities.put(Long.valueOf(name.substring(ITEM_FIELD_PREFIX.length())), Integer.valueOf((String) value));
+            }
+        });
+        return quantities;
+    }
+
+    private void checkMutationResult(String draftId, Long result) {
+
+        if (result == null || result == -1L) {
+            throw new DraftOrderNotFoundException("Draft order not found with ID: " + draftId);
+        }
+        if (result == -2L) {
+            throw new OrderBadRequestException("items: Order must not have more than " + maxItems + " items");
+        }
+        if (result == -3L) {
+            throw new ConcurrencyConflictException("Draft order " + draftId + " is being checked out");
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.nicolafogliaro.orderservice.api.cache.IdExistenceFilter;
+import com.nicolafogliaro.orderservice.api.exception.OrderNotFoundException;
+import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.util.MyTransactionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * Existence filters of the {@code orders} and {@code products} tables.
+ * <p>
+ * Creates and deletes are applied after commit on this node and broadcast to the other nodes on the
+ * {@value #CHANNEL} Redis channel (when the Redis cache is in use). Broadcasts are best-effort: a lost message is
+ * repaired by the next periodic rebuild, and the watermark of {@link IdExistenceFilter} already keeps new
+ * auto-increment IDs from being rejected.
+ * </p>
+ */
+@Slf4j
+@Service
+public class ExistenceFilterServiceImpl implements ExistenceFilterService, MessageListener {
+
+    static final String CHANNEL = "existence:events";
+
+    private static final String ORDERS = "orders";
+    private static final String PRODUCTS = "products";
+
+    // Room for the IDs created until the next rebuild, so the false-positive rate stays near the target
+    private static final double HEADROOM = 0.25;
+    private static final int MIN_EXPECTED_IDS = 1_000;
+    private static final int FETCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<RedisConnectionFactory> connectionFactory;
+    private final ObjectProvider<RedisMessageListenerContainer> listenerContainer;
+    private final boolean enabled;
+    private final IdExistenceFilter orders;
+    private final IdExistenceFilter products;
+    private volatile boolean broadcast;
+
+    public ExistenceFilterServiceImpl(JdbcTemplate jdbcTemplate,
+                                      MeterRegistry meterRegistry,
+                                      ObjectProvider<RedisConnectionFactory> connectionFactory,
+                                      ObjectProvider<RedisMessageListenerContainer> listenerContainer,
+                                      @Value("${existence-filter.enabled:true}") boolean enabled,
+                                      @Value("${existence-filter.fpp:0.01}") double fpp,
+                                      @Value("${existence-filter.max-memory:8MB}") DataSize maxMemory,
+                                      @Value("${existence-filter.negative-ttl:30s}") Duration negativeTtl,
+                                      @Value("${existence-filter.negative-max-size:100000}") long negativeMaxSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.connectionFactory = connectionFactory;
+        this.listenerContainer = listenerContainer;
+        this.enabled = enabled;
+
+        long maxBits = maxMemory.toBytes() * Byte.SIZE;
+        this.orders = new IdExistenceFilter(ORDERS, fpp, maxBits, negativeTtl, negativeMaxSize, meterRegistry);
+        this.products = new IdExistenceFilter(PRODUCTS, fpp, maxBits, negativeTtl, negativeMaxSize, meterRegistry);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        RedisMessageListenerContainer container = listenerContainer.getIfAvailable();
+        if (enabled && container != null) {
+            container.addMessageListener(this, new ChannelTopic(CHANNEL));
+            broadcast = true;
+        }
+    }
+
+    @Override
+    public void requireOrder(Long id) throws OrderNotFoundException {
+        if (isOrderKnownMissing(id)) {
+            throw new OrderNotFoundException("Order not found with ID: " + id, false);
+        }
+    }
+
+    @Override
+    public void requireProduct(Long id) throws ProductNotFoundException {
+        if (isProductKnownMissing(id)) {
+            throw new ProductNotFoundException("Product with ID " + id + " not found.", false);
+        }
+    }
+
+    @Override
+    public boolean isOrderKnownMissing(Long id) {
+        return enabled && id != null && orders.isKnownMissing(id);
+    }
+
+    @Override
+    public boolean isProductKnownMissing(Long id) {
+        return enabled && id != null && products.isKnownMissing(id);
+    }
+
+    @Override
+    public void orderMissing(Long id) {
+        orders.markMissing(id);
+    }
+
+    @Override
+    public void productMissing(Long id) {
+        products.markMissing(id);
+    }
+
+    @Override
+    public void orderCreated(Long id) {
+        MyTransactionUtils.afterCommit(() -> apply(ORDERS, true, id));
+    }
+
+    @Override
+    public void orderDeleted(Long id) {
+        MyTransactionUtils.afterCommit(() -> apply(ORDERS, false, id));
+    }
+
+    @Override
+    public void productCreated(Long id) {
+        MyTransactionUtils.afterCommit(() -> apply(PRODUCTS, true, id));
+    }
+
+    @Override
+    public void productDeleted(Long id) {
+        MyTransactionUtils.afterCommit(() -> apply(PRODUCTS, false, id));
+    }
+
+    /**
+     * Rebuilds both Bloom filters from the tables. Deleted IDs leave the filters only here.
+     */
+    @Scheduled(initialDelayString = "${existence-filter.initial-delay:PT5S}", fixedDelayString = "${existence-filter.rebuild-interval:PT30M}")
+    public void rebuild() {
+
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            rebuild(orders, "orders");
+            rebuild(products, "products");
+        } catch (RuntimeException e) {
+            log.error("*** Existence filter rebuild failed, keeping the previous filters: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+
+        // <entity>:<created|deleted>:<id>
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+
+        try {
+            applyLocally(parts[0], "created".equals(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            log.error("*** Ignoring malformed existence event: {}", new String(message.getBody(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private void rebuild(IdExistenceFilter filter, String table) {
+
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        long expected = Math.max(MIN_EXPECTED_IDS, (long) (Objects.requireNonNullElse(count, 0L) * (1 + HEADROOM)));
+
+        filter.rebuild(expected, ids -> scanIds(table, ids));
+    }
+
+    private void scanIds(String table, LongConsumer ids) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT id FROM " + table, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> ids.accept(resultSet.getLong(1)));
+    }
+
+    private void apply(String entity, boolean created, Long id) {
+
+        applyLocally(entity, created, id);
+
+        if (!broadcast) {
+            return;
+        }
+
+        String event = entity + ":" + (created ? "created" : "deleted") + ":" + id;
+
+        try (RedisConnection connection = connectionFactory.getObject().getConnection()) {
+            connection.publish(CHANNEL.getBytes(StandardCharsets.UTF_8), event.getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            log.warn("*** Cannot broadcast existence event {}: {}", event, e.getMessage());
+        }
+    }
+
+    private void applyLocally(String entity, boolean created, long id) {
+
+        IdExistenceFilter filter = ORDERS.equals(entity) ? orders : products;
+
+        if (created) {
+            filter.markCreated(id);
+        } else {
+            filter.markDeleted(id);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse;
+import com.nicolafogliaro.orderservice.api.listener.OrderEventListener.OrderIdsChangedEvent;
+import com.nicolafogliaro.orderservice.api.mapper.OrderItemMapper;
+import com.nicolafogliaro.orderservice.api.model.Product;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.service.LargeOrderService;
+import com.nicolafogliaro.orderservice.api.service.OrderRevisionService;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchViewService;
+import com.nicolafogliaro.orderservice.api.service.StockService;
+import com.nicolafogliaro.orderservice.api.service.impl.LargeOrderStreamParser.ParsedLargeOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Large-order path (B2B orders with thousands of lines).
+ * <p>
+ * The body is parsed as a stream and aggregated by product before any database work, so no connection is held
+ * while the client uploads. Inside one transaction the order header is inserted, then the products are processed
+ * in ascending-ID chunks: each chunk locks and decrements stock with a single query and inserts its
+ * {@code order_items} with one JDBC batch. The persistence context is cleared after every chunk, so the memory
+ * used does not grow with the number of lines.
+ * </p>
+ * <p>
+ * The CREATED revision holds the header only (empty {@code items}): a snapshot of thousands of lines would be kept
+ * in the revision queue and written as one JSON document. The lines of the order are in {@code order_items}.
+ * </p>
+ */
+@Slf4j
+@Service
+public class LargeOrderServiceImpl implements LargeOrderService {
+
+    private static final String INSERT_ORDER_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, quantity, unit_price, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final OrderRepository orderRepository;
+    private final StockService stockService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExistenceFilterService existenceFilterService;
+    private final OrderSearchViewService orderSearchViewService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderRevisionService orderRevisionService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${orders.large.max-lines:20000}")
+    private int maxLines;
+
+    @Value("${orders.large.chunk-size:500}")
+    private int chunkSize;
+
+    public LargeOrderServiceImpl(OrderRepository orderRepository,
+                                 StockService stockService,
+                                 JdbcTemplate jdbcTemplate,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 ExistenceFilterService existenceFilterService,
+                                 OrderSearchViewService orderSearchViewService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 OrderRevisionService orderRevisionService) {
+        this.orderRepository = orderRepository;
+        this.stockService = stockService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.existenceFilterService = existenceFilterService;
+        this.orderSearchViewService = orderSearchViewService;
+        this.eventPublisher = eventPublisher;
+        this.orderRevisionService = orderRevisionService;
+    }
+
+    @Override
+    public OrderSummaryResponse createLargeOrder(InputStream body) {
+
+        ParsedLargeOrder parsed = new LargeOrderStreamParser(objectMapper, maxLines).parse(body);
+
+        log.info(">>> [{}#createLargeOrder] --> customerId: {}, lines: {}, distinct products: {}",
+                LargeOrderServiceImpl.class.getSimpleName(), parsed.customerId(), parsed.lineCount(), parsed.quantitiesByProduct().size());
+
+        OrderSummaryResponse res = transactionTemplate.execute(status -> persist(parsed));
+
+        log.info("<<< [{}#createLargeOrder] <--- res: {}", LargeOrderServiceImpl.class.getSimpleName(), res);
+        return res;
+    }
+
+    private OrderSummaryResponse persist(ParsedLargeOrder parsed) {
+
+        Order order = orderRepository.save(Order.builder()
+                .customerId(parsed.customerId())
+                .description(parsed.description())
+                .status(parsed.status())
+                .totalAmount(BigDecimal.ZERO)
+                .orderItems(new ArrayList<>())
+                .build());
+
+        Long orderId = order.getId();
+        BigDecimal totalAmount = BigDecimal.ZERO;
+
+        TreeMap<Long, Integer> chunk = new TreeMap<>();
+
+        for (Map.Entry<Long, Integer> entry : parsed.quantitiesByProduct().entrySet()) {
+
+            chunk.put(entry.getKey(), entry.getValue());
+
+            if (chunk.size() == chunkSize) {
+                totalAmount = totalAmount.add(processChunk(orderId, chunk));
+                chunk = new TreeMap<>();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            totalAmount = totalAmount.add(processChunk(orderId, chunk));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        orderRepository.updateTotalAmount(orderId, totalAmount, now);
+        existenceFilterService.orderCreated(orderId);
+        // Built from the database: the lines were written with JDBC and are not in the persistence context
+        orderSearchViewService.ordersChanged(List.of(orderId));
+        // IDs only: loading the lines here would refill the context and hold the stock locks longer
+        eventPublisher.publishEvent(new OrderIdsChangedEvent(List.of(orderId)));
+        orderRevisionService.record(OrderRevisionType.CREATED, null, new OrderSnapshot(orderId,
+                order.getCustomerId(),
+                order.getDescription(),
+                order.getStatus(),
+                totalAmount,
+                Collections.emptySortedMap()));
+
+        return new OrderSummaryResponse(
+                orderId,
+                order.getCustomerId(),
+                order.getDescription(),
+                order.getStatus(),
+                totalAmount,
+                parsed.quantitiesByProduct().size(),
+                order.getCreatedAt(),
+                now);
+    }
+
+    /**
+     * Reserves the stock of one chunk of products and inserts the matching order items.
+     *
+     * @return the chunk subtotal
+     */
+    private BigDecimal processChunk(Long orderId, TreeMap<Long, Integer> chunk) {
+
+        Map<Long, Product> products = stockService.reserveStock(chunk);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batchArgs = new ArrayList<>(chunk.size());
+        BigDecimal subtotal = BigDecimal.ZERO;
+
+        for (Map.Entry<Long, Integer> entry : chunk.entrySet()) {
+
+            BigDecimal unitPrice = products.get(entry.getKey()).getPrice();
+
+            batchArgs.add(new Object[]{orderId, entry.getKey(), entry.getValue(), unitPrice, now, now});
+            subtotal = subtotal.add(OrderItemMapper.calculateSubtotalPrice(entry.getValue(), unitPrice));
+        }
+
+        // Write the stock changes of this chunk, then drop the managed products so the context stays small
+        entityManager.flush();
+        entityManager.clear();
+
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, batchArgs);
+
+        log.debug("Processed chunk of {} products for order {}", chunk.size(), orderId);
+        return subtotal;
+    }
+}
@@ -0,0 +1,185 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.util.MyTextUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Streaming reader for large order payloads.
+ * <p>
+ * Accepts the same JSON shape as {@link com.nicolafogliaro.orderservice.api.dto.order.OrderRequest}, but reads the
+ * {@code items} array token by token instead of materializing a list of line items: each line is validated as
+ * soon as it is read and then folded into a per-product quantity. The memory needed is therefore bounded by the
+ * number of distinct products, not by the number of lines. Fields may appear in any order.
+ * </p>
+ */
+public final class LargeOrderStreamParser {
+
+    private static final int MAX_DESCRIPTION_LENGTH = 500;
+
+    private final ObjectMapper objectMapper;
+    private final int maxLines;
+
+    public LargeOrderStreamParser(ObjectMapper objectMapper, int maxLines) {
+        this.objectMapper = objectMapper;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Result of parsing: the order header plus the requested quantities aggregated by product ID (ascending).
+     */
+    public record ParsedLargeOrder(Long customerId,
+                                   String description,
+                                   OrderStatus status,
+                                   SortedMap<Long, Integer> quantitiesByProduct,
+                                   int lineCount) {}
+
+    public ParsedLargeOrder parse(InputStream body) {
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new OrderBadRequestException("Order payload must be a JSON object");
+            }
+
+            Long customerId = null;
+            String description = null;
+            OrderStatus status = null;
+            TreeMap<Long, Integer> quantities = new TreeMap<>();
+            int lineCount = 0;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "customerId" -> customerId = readLong(parser, value, "customerId");
+                    case "orderDescription" -> description = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    case "status" -> status = readStatus(parser, value);
+                    case "items" -> lineCount += readItems(parser, value, quantities, lineCount);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (customerId == null) {
+                throw new OrderBadRequestException("customerId: must not be null");
+            }
+
+            if (MyTextUtils.isEmpty(description)) {
+                throw new OrderBadRequestException("orderDescription: Order description cannot be empty");
+            }
+
+            if (description.length() > MAX_DESCRIPTION_LENGTH) {
+                throw new OrderBadRequestException("orderDescription: Description cannot exceed " + MAX_DESCRIPTION_LENGTH + " characters");
+            }
+
+            if (quantities.isEmpty()) {
+                throw new OrderBadRequestException("items: Order must contain at least one item");
+            }
+
+            return new ParsedLargeOrder(customerId,
+                    description,
+                    status != null ? status : OrderStatus.PENDING,
+                    Collections.unmodifiableSortedMap(quantities),
+                    lineCount);
+
+        } catch (IOException e) {
+            throw new OrderBadRequestException("Malformed order payload: " + e.getMessage());
+        }
+    }
+
+    private int readItems(JsonParser parser, JsonToken value, TreeMap<Long, Integer> quantities, int linesSoFar) throws IOException {
+
+        if (value != JsonToken.START_ARRAY) {
+            throw new OrderBadRequestException("items: must be an array");
+        }
+
+        int lines = 0;
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new OrderBadRequestException("items[" + lines + "]: must be an object");
+            }
+
+            Long productId = null;
+            Integer quantity = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                String field = parser.currentName();
+                JsonToken itemValue = parser.nextToken();
+
+                switch (field) {
+                    case "productId" -> productId = readLong(parser, itemValue, "items[" + lines + "].productId");
+                    case "quantity" -> quantity = readInt(parser, itemValue, "items[" + lines + "].quantity");
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (productId == null) {
+                throw new OrderBadRequestException("items[" + lines + "].productId: Product ID cannot be null");
+            }
+
+            if (quantity == null || quantity < 1) {
+                throw new OrderBadRequestException("items[" + lines + "].quantity: Quantity must be at least 1");
+            }
+
+            try {
+                quantities.merge(productId, quantity, Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new OrderBadRequestException("items[" + lines + "].quantity: total quantity for product " + productId + " is too large");
+            }
+
+            lines++;
+
+            if (linesSoFar + lines > maxLines) {
+                throw new OrderBadRequestException("items: Order must not have more than " + maxLines + " items");
+            }
+        }
+
+        return lines;
+    }
+
+    private static Long readLong(JsonParser parser, JsonToken value, String field) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value != JsonToken.VALUE_NUMBER_INT) {
+            throw new OrderBadRequestException(field + ": must be an integer");
+        }
+        return parser.getLongValue();
+    }
+
+    private static Integer readInt(JsonParser parser, JsonToken value, String field) throws IOException {
+        Long longValue = readLong(parser, value, field);
+        if (longValue == null) {
+            return null;
+        }
+        if (longValue > Integer.MAX_VALUE || longValue < Integer.MIN_VALUE) {
+            throw new OrderBadRequestException(field + ": is out of range");
+        }
+        return longValue.intValue();
+    }
+
+    private static OrderStatus readStatus(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(parser.getText());
+        } catch (IllegalArgumentException e) {
+            throw new OrderBadRequestException("status: unknown order status " + parser.getText());
+        }
+    }
+}
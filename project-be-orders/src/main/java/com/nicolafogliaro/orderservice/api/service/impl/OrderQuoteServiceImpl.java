@@ -0,0 +1,130 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.nicolafogliaro.orderservice.api.cache.CacheBulkOperations;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderQuoteResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderQuoteLineResponse;
+import com.nicolafogliaro.orderservice.api.dto.product.ProductResponse;
+import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
+import com.nicolafogliaro.orderservice.api.mapper.OrderItemMapper;
+import com.nicolafogliaro.orderservice.api.mapper.ProductMapper;
+import com.nicolafogliaro.orderservice.api.model.OrderItem;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.repository.ProductRepository;
+import com.nicolafogliaro.orderservice.api.service.OrderQuoteService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.nicolafogliaro.orderservice.api.config.CacheConfig.PRODUCT_CACHE_NAME;
+
+/**
+ * Computes order quotes from the product cache.
+ * <p>
+ * Prices and stock are read from the {@code product} cache (the one filled by {@code ProductService#getProductById}).
+ * All the misses are loaded with one {@code findAllById} query and written back to the cache only where no entry
+ * appeared meanwhile, so a quote never replaces the value cached by a concurrent update. The service is
+ * deliberately not transactional: nothing is written to the database and no row is locked, so a quote can be
+ * requested as often as the UI needs.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderQuoteServiceImpl implements OrderQuoteService {
+
+    private final ProductRepository productRepository;
+    private final CacheBulkOperations cacheBulkOperations;
+
+    @Override
+    public OrderQuoteResponse quote(OrderRequest request) throws ProductNotFoundException {
+
+        log.info(">>> [{}#quote] --> req: {}", OrderQuoteServiceImpl.class.getSimpleName(), request);
+
+        Map<Long, ProductResponse> products = loadProducts(request.items());
+
+        // Availability is checked against the total quantity of a product, which may be split over several lines
+        Map<Long, Integer> requestedByProduct = new HashMap<>();
+        request.items().forEach(item -> requestedByProduct.merge(item.productId(), item.quantity(), Integer::sum));
+
+        // Transient order: only used to compute the total exactly as a persisted order would
+        Order draft = Order.builder().orderItems(new ArrayList<>()).build();
+        List<OrderQuoteLineResponse> lines = new ArrayList<>(request.items().size());
+
+        for (OrderItemRequest item : request.items()) {
+
+            if (item.quantity() <= 0) {
+                throw new IllegalStateException("Invalid quantity for product " + item.productId());
+            }
+
+            ProductResponse product = products.get(item.productId());
+
+            if (Objects.isNull(product.price())) {
+                log.error("*** Product {} has a null price!", product.id());
+                throw new IllegalStateException("Product " + product.id() + " has a null price.");
+            }
+
+            draft.getOrderItems().add(OrderItem.builder()
+                    .quantity(item.quantity())
+                    .unitPrice(product.price())
+                    .build());
+
+            int stock = Objects.requireNonNullElse(product.stockQuantity(), 0);
+
+            lines.add(new OrderQuoteLineResponse(
+                    product.id(),
+                    product.name(),
+                    item.quantity(),
+                    product.price(),
+                    OrderItemMapper.calculateSubtotalPrice(item.quantity(), product.price()),
+                    stock,
+                    stock >= requestedByProduct.get(item.productId())));
+        }
+
+        draft.calculateTotalAmount();
+
+        OrderQuoteResponse res = new OrderQuoteResponse(
+                request.customerId(),
+                lines,
+                draft.getTotalAmount(),
+                lines.stream().allMatch(OrderQuoteLineResponse::available));
+
+        log.info("<<< [{}#quote] --> req: {} | <--- res: {}", OrderQuoteServiceImpl.class.getSimpleName(), request, res);
+        return res;
+    }
+
+    /**
+     * Resolves the products of the request from the cache, loading all the misses with a single query.
+     *
+     * @throws ProductNotFoundException if a product does not exist
+     */
+    private Map<Long, ProductResponse> loadProducts(List<OrderItemRequest> items) {
+
+        Set<Long> productIds = new LinkedHashSet<>();
+        items.forEach(item -> productIds.add(item.productId()));
+
+        // Misses are cached only if absent: an update committed after our read keeps its fresher entry
+        Map<Long, ProductResponse> products = cacheBulkOperations.getAll(PRODUCT_CACHE_NAME, productIds, ProductResponse.class, misses -> {
+            Map<Long, ProductResponse> loaded = new HashMap<>();
+            productRepository.findAllById(misses).forEach(product -> loaded.put(product.getId(), ProductMapper.toDto(product)));
+            return loaded;
+        });
+
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ProductNotFoundException("Product not found with id: " + productId);
+            }
+        }
+
+        return products;
+    }
+}
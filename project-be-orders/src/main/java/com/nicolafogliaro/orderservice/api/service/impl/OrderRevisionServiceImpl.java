@@ -0,0 +1,428 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolafogliaro.orderservice.api.dto.page.CursorPageResponse;
+import com.nicolafogliaro.orderservice.api.dto.revision.OrderRevisionResponse;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevision;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot.ItemSnapshot;
+import com.nicolafogliaro.orderservice.api.repository.OrderRevisionRepository;
+import com.nicolafogliaro.orderservice.api.service.OrderRevisionService;
+import com.nicolafogliaro.orderservice.api.util.MyTextUtils;
+import com.nicolafogliaro.orderservice.api.util.MyTransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Order change history, written off the request path.
+ * <p>
+ * {@link #record} only copies the order state into immutable snapshots and, once the business transaction has
+ * committed, offers them to a bounded in-memory queue. A scheduled writer drains the queue, computes the diffs and
+ * the JSON on its own thread and inserts up to {@code batch-size} revisions with one multi-row {@code INSERT}.
+ * </p>
+ * <p>
+ * When the queue is full the {@code overflow-policy} applies:
+ * <ul>
+ *     <li>{@code DROP} (default): the revision is discarded and counted in {@code orders.revisions.dropped};
+ *     the order write is never slowed down, so the history is best-effort under overload.</li>
+ *     <li>{@code CALLER_RUNS}: the request thread writes the revision itself (single-row insert, in its own
+ *     transaction: the business one has already committed, with the retries below); no revision is lost to
+ *     overload, at the price of pushing the audit latency back onto the write path.</li>
+ * </ul>
+ * Revisions still in the queue are flushed on shutdown, but are lost if the JVM dies.
+ * </p>
+ * <p>
+ * A failed insert is retried {@code write-attempts} times in all, waiting {@code retry-backoff} (doubled at each
+ * attempt) in between, so a transient database error does not lose the batch. If the multi-row insert still fails,
+ * the revisions are inserted one by one: a row the database rejects is the only one lost, counted in
+ * {@code orders.revisions.failed} and logged with its order and actor.
+ * </p>
+ * <p>
+ * The actor ({@code changed_by}) is read from the {@code actor-header} request header as sent by the caller: the
+ * service has no authentication of its own and trusts the gateway in front of it to set (or strip) that header.
+ * Exposed directly to clients, the field records whatever name the client claims.
+ * </p>
+ */
+@Slf4j
+@Service
+public class OrderRevisionServiceImpl implements OrderRevisionService {
+
+    public enum OverflowPolicy {DROP, CALLER_RUNS}
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO order_revisions (order_id, revision_type, changed_by, changed_at, before_state, after_state, changes) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 7;
+    private static final int MAX_ACTOR_LENGTH = 100;
+    private static final String ANONYMOUS = "anonymous";
+
+    /**
+     * Revision waiting to be written. Holds only immutable snapshots, so it is safe to hand over to the writer thread.
+     */
+    record PendingRevision(OrderRevisionType type,
+                           Long orderId,
+                           String changedBy,
+                           LocalDateTime changedAt,
+                           OrderSnapshot before,
+                           OrderSnapshot after) {}
+
+    private final OrderRevisionRepository orderRevisionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate requiresNewTransaction;
+
+    private final BlockingQueue<PendingRevision> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final String actorHeader;
+
+    private final Counter enqueuedCounter;
+    private final Counter droppedCounter;
+    private final Counter callerRunsCounter;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+    private final Timer flushTimer;
+
+    @Value("${orders.revisions.write-attempts:3}")
+    private int writeAttempts = 3;
+
+    @Value("${orders.revisions.retry-backoff:PT0.2S}")
+    private Duration retryBackoff = Duration.ofMillis(200);
+
+    @Value("${orders.items.default-page-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${orders.items.max-page-size:500}")
+    private int maxPageSize = 500;
+
+    public OrderRevisionServiceImpl(OrderRevisionRepository orderRevisionRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${orders.revisions.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${orders.revisions.batch-size:200}") int batchSize,
+                                    @Value("${orders.revisions.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                                    @Value("${orders.revisions.actor-header:X-User}") String actorHeader) {
+        this.orderRevisionRepository = orderRevisionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        // Each insert commits on its own: after commit (CALLER_RUNS), JDBC work would otherwise join the completed
+        // transaction and never be committed
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.actorHeader = actorHeader;
+
+        Gauge.builder("orders.revisions.queue.size", queue, BlockingQueue::size)
+                .description("Revisions waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("orders.revisions.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .description("Free slots in the revision queue")
+                .register(meterRegistry);
+        this.enqueuedCounter = meterRegistry.counter("orders.revisions.enqueued");
+        this.droppedCounter = meterRegistry.counter("orders.revisions.dropped");
+        this.callerRunsCounter = meterRegistry.counter("orders.revisions.caller_runs");
+        this.writtenCounter = meterRegistry.counter("orders.revisions.written");
+        this.failedCounter = meterRegistry.counter("orders.revisions.failed");
+        this.retriedCounter = meterRegistry.counter("orders.revisions.retried");
+        this.flushTimer = meterRegistry.timer("orders.revisions.flush");
+    }
+
+    @Override
+    public void record(OrderRevisionType type, OrderSnapshot before, OrderSnapshot after) {
+
+        Long orderId = after != null ? after.id() : Objects.requireNonNull(before, "before or after is required").id();
+
+        // Resolved now: the request is gone by the time the writer runs
+        PendingRevision revision = new PendingRevision(type, orderId, currentActor(), LocalDateTime.now(), before, after);
+
+        MyTransactionUtils.afterCommit(() -> enqueue(revision));
+    }
+
+    @Override
+    public CursorPageResponse<OrderRevisionResponse> getRevisions(Long orderId, Long after, Integer limit) {
+
+        int pageSize = Math.min(Math.max(Objects.requireNonNullElse(limit, defaultPageSize), 1), maxPageSize);
+
+        List<OrderRevision> rows = orderRevisionRepository.findPageByOrderId(orderId,
+                Objects.requireNonNullElse(after, 0L),
+                Limit.of(pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<OrderRevisionResponse> content = rows.stream()
+                .limit(pageSize)
+                .map(r -> new OrderRevisionResponse(r.getId(), r.getOrderId(), r.getRevisionType(), r.getChangedBy(),
+                        r.getChangedAt(), r.getBeforeState(), r.getAfterState(), r.getChanges()))
+                .toList();
+
+        return new CursorPageResponse<>(content,
+                hasNext ? content.get(content.size() - 1).id() : null,
+                hasNext,
+                pageSize);
+    }
+
+    /**
+     * Drains the queue in batches. Runs on the scheduler thread; a single thread writes, so batches stay in order.
+     */
+    @Scheduled(fixedDelayString = "${orders.revisions.flush-interval-ms:500}")
+    public void flush() {
+
+        List<PendingRevision> batch = new ArrayList<>(batchSize);
+
+        while (queue.drainTo(batch, batchSize) > 0) {
+            flushTimer.record(() -> write(batch));
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        log.info("Flushing {} pending order revisions before shutdown", queue.size());
+        flush();
+    }
+
+
+    private void enqueue(PendingRevision revision) {
+
+        if (queue.offer(revision)) {
+            enqueuedCounter.increment();
+            return;
+        }
+
+        if (overflowPolicy == OverflowPolicy.CALLER_RUNS) {
+            callerRunsCounter.increment();
+            write(List.of(revision));
+        } else {
+            droppedCounter.increment();
+            log.warn("*** Order revision queue full, dropping {} revision of order {}", revision.type(), revision.orderId());
+        }
+    }
+
+    /**
+     * Writes a batch with one multi-row insert, retried with exponential backoff; if it still fails, the rows are
+     * inserted one by one, so that a row the database rejects only loses itself.
+     */
+    private void write(List<PendingRevision> batch) {
+
+        List<PendingRevision> revisions = new ArrayList<>(batch.size());
+        List<Object[]> rows = new ArrayList<>(batch.size());
+
+        for (PendingRevision revision : batch) {
+            try {
+                rows.add(toRow(revision));
+                revisions.add(revision);
+            } catch (RuntimeException e) {
+                failed(revision, e);
+            }
+        }
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        RuntimeException failure = null;
+
+        for (int attempt = 1; attempt <= writeAttempts; attempt++) {
+            try {
+                insert(rows);
+                writtenCounter.increment(rows.size());
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+                if (attempt == writeAttempts || !backOff(attempt)) {
+                    break;
+                }
+                retriedCounter.increment();
+                log.warn("*** Failed to write {} order revisions (attempt {}/{}): {}", rows.size(), attempt, writeAttempts, e.getMessage());
+            }
+        }
+
+        if (rows.size() == 1) {
+            failed(revisions.get(0), failure);
+            return;
+        }
+
+        log.warn("*** Failed to write {} order revisions in one statement, writing them one by one", rows.size(), failure);
+
+        for (int i = 0; i < rows.size(); i++) {
+            try {
+                insert(List.<Object[]>of(rows.get(i)));
+                writtenCounter.increment();
+            } catch (RuntimeException e) {
+                failed(revisions.get(i), e);
+            }
+        }
+    }
+
+    private Object[] toRow(PendingRevision revision) {
+        return new Object[]{
+                revision.orderId(),
+                revision.type().name(),
+                revision.changedBy(),
+                Timestamp.valueOf(revision.changedAt()),
+                toJson(revision.before()),
+                toJson(revision.after()),
+                toJson(diff(revision.before(), revision.after()))};
+    }
+
+    /**
+     * Inserts the rows with one statement, committed on its own.
+     */
+    private void insert(List<Object[]> rows) {
+
+        List<Object> args = new ArrayList<>(rows.size() * COLUMNS);
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(INSERT_ROW);
+            Collections.addAll(args, rows.get(i));
+        }
+
+        requiresNewTransaction.executeWithoutResult(status -> jdbcTemplate.update(sql.toString(), args.toArray()));
+    }
+
+    /**
+     * Waits before the next attempt ({@code retry-backoff}, doubled at each attempt).
+     *
+     * @return false if interrupted: no more attempts are made
+     */
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoff.multipliedBy(1L << (attempt - 1)).toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void failed(PendingRevision revision, Exception e) {
+        failedCounter.increment();
+        log.error("*** Failed to write {} revision of order {} by {}", revision.type(), revision.orderId(), revision.changedBy(), e);
+    }
+
+    /**
+     * Changed header fields ({@code [old, new]}) and changed items per product ID.
+     */
+    static Map<String, Object> diff(OrderSnapshot before, OrderSnapshot after) {
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        compare(fields, "customerId", before != null ? before.customerId() : null, after != null ? after.customerId() : null);
+        compare(fields, "description", before != null ? before.description() : null, after != null ? after.description() : null);
+        compare(fields, "status", before != null ? before.status() : null, after != null ? after.status() : null);
+        compare(fields, "totalAmount", before != null ? before.totalAmount() : null, after != null ? after.totalAmount() : null);
+
+        Map<Long, ItemSnapshot> oldItems = before != null ? before.items() : Map.of();
+        Map<Long, ItemSnapshot> newItems = after != null ? after.items() : Map.of();
+
+        Set<Long> productIds = new TreeSet<>(oldItems.keySet());
+        productIds.addAll(newItems.keySet());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+
+        for (Long productId : productIds) {
+
+            ItemSnapshot oldItem = oldItems.get(productId);
+            ItemSnapshot newItem = newItems.get(productId);
+
+            if (oldItem != null && newItem != null
+                    && Objects.equals(oldItem.quantity(), newItem.quantity())
+                    && sameAmount(oldItem.unitPrice(), newItem.unitPrice())) {
+                continue;
+            }
+
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("productId", productId);
+            item.put("change", oldItem == null ? "ADDED" : newItem == null ? "REMOVED" : "CHANGED");
+            item.put("oldQuantity", oldItem != null ? oldItem.quantity() : null);
+            item.put("newQuantity", newItem != null ? newItem.quantity() : null);
+            item.put("oldUnitPrice", oldItem != null ? oldItem.unitPrice() : null);
+            item.put("newUnitPrice", newItem != null ? newItem.unitPrice() : null);
+            items.add(item);
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("fields", fields);
+        changes.put("items", items);
+        return changes;
+    }
+
+    private static void compare(Map<String, Object> fields, String name, Object oldValue, Object newValue) {
+
+        boolean same = oldValue instanceof BigDecimal oldAmount && newValue instanceof BigDecimal newAmount
+                ? oldAmount.compareTo(newAmount) == 0
+                : Objects.equals(oldValue, newValue);
+
+        if (!same) {
+            fields.put(name, new Object[]{oldValue, newValue});
+        }
+    }
+
+    private static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    private String toJson(Object value) {
+
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order revision", e);
+        }
+    }
+
+    /**
+     * The {@code actor-header} of the current request, unauthenticated: it is trusted as the gateway forwarded it.
+     */
+    private String currentActor() {
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            String actor = servletAttributes.getRequest().getHeader(actorHeader);
+            if (!MyTextUtils.isEmpty(actor)) {
+                return actor.length() > MAX_ACTOR_LENGTH ? actor.substring(0, MAX_ACTOR_LENGTH) : actor;
+            }
+        }
+        return ANONYMOUS;
+    }
+}
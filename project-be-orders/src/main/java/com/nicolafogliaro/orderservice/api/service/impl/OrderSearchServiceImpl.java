@@ -2,114 +2,238 @@ package com.nicolafogliaro.orderservice.api.service.impl;
 
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.dto.page.SeekPageResponse;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
 import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
 import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSearchView;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
 import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.repository.OrderSearchViewRepository;
+import com.nicolafogliaro.orderservice.api.repository.specification.FullTextQuery;
+import com.nicolafogliaro.orderservice.api.repository.specification.OrderKeyset;
 import com.nicolafogliaro.orderservice.api.repository.specification.OrderSpecifications;
-import com.nicolafogliaro.orderservice.api.service.MeilisearchService;
+import com.nicolafogliaro.orderservice.api.repository.specification.TextSearchMode;
+import com.nicolafogliaro.orderservice.api.search.CircuitBreaker;
+import com.nicolafogliaro.orderservice.api.search.OrderSearchResultCache;
+import com.nicolafogliaro.orderservice.api.search.OrderSearchResultCache.Source;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchEngine;
 import com.nicolafogliaro.orderservice.api.service.OrderSearchService;
 import com.nicolafogliaro.orderservice.api.util.MyTextUtils;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.nicolafogliaro.orderservice.api.model.order.OrderColumnNameForSearch.CREATED_AT;
+import static com.nicolafogliaro.orderservice.api.model.order.OrderColumnNameForSearch.RELEVANCE;
 
 @Service
 @Transactional(readOnly = true)
-@RequiredArgsConstructor
 @Slf4j
 public class OrderSearchServiceImpl implements OrderSearchService {
 
     private final OrderRepository orderRepository;
 
-    private final MeilisearchService meilisearchService;
+    private final OrderSearchViewRepository orderSearchViewRepository;
+
+    private final OrderSearchEngine orderSearchEngine;
+
+    private final OrderSearchResultCache orderSearchResultCache;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${search.db.text-mode:LIKE}")
+    private TextSearchMode textSearchMode = TextSearchMode.LIKE;
+
+    public OrderSearchServiceImpl(OrderRepository orderRepository,
+                                  OrderSearchViewRepository orderSearchViewRepository,
+                                  OrderSearchEngine orderSearchEngine,
+                                  OrderSearchResultCache orderSearchResultCache,
+                                  PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderSearchViewRepository = orderSearchViewRepository;
+        this.orderSearchEngine = orderSearchEngine;
+        this.orderSearchResultCache = orderSearchResultCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
 
     /**
-     * Search orders using database query with specifications
+     * Search orders using database query with specifications.
+     * Runs in two phases with a fixed number of queries: the page of IDs read from the search projection
+     * (plus the count when needed), then one fetch of those orders with their items and products.
+     * Pages are cached until an order write moves the orders epochs; the transaction only starts on a cache miss.
+     *
+     * @throws OrderBadRequestException when the sort is neither an {@link OrderSortField} nor {@code relevance}
      */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // cache hits and coalesced searches hold no connection
     public Page<OrderResponse> searchOrdersWithDb(OrderSearchCriteria criteria) {
+        sortField(criteria); // rejected before the cache, which would otherwise coalesce and share the failure
+        return orderSearchResultCache.get(Source.DB, criteria, () -> readOnlyTransaction.execute(status -> findOrders(criteria)));
+    }
+
+    private Page<OrderResponse> findOrders(OrderSearchCriteria criteria) {
 
         log.info("Searching orders with criteria: {}", criteria);
 
-        String sortField = MyTextUtils.nonEmpty(criteria.getSort()) ? criteria.getSort() : CREATED_AT;
+        String sortField = sortField(criteria);
 
         Sort.Direction direction = MyTextUtils.nonEmpty(criteria.getDirection()) ?
                 Sort.Direction.fromString(criteria.getDirection()) : Sort.Direction.DESC;
 
-        Pageable pageable = PageRequest.of(
+        Specification<OrderSearchView> spec = OrderSpecifications.withSearchCriteria(criteria, textSearchMode);
+
+        PageRequest pageRequest = PageRequest.of(
                 criteria.getPage() != null ? criteria.getPage() : 0,
-                criteria.getSize() != null ? criteria.getSize() : 20,
-                Sort.by(direction, sortField)
+                criteria.getSize() != null ? criteria.getSize() : 20
         );
 
-        Page<Order> ordersPage = orderRepository.findAll(
-                OrderSpecifications.withSearchCriteria(criteria), pageable
-        );
+        Page<OrderResponse> res;
+
+        if (RELEVANCE.equals(sortField)) {
+
+            // Relevance exists only for full-text queries; otherwise the newest orders come first
+            Optional<String> booleanQuery = textSearchMode == TextSearchMode.FULLTEXT ?
+                    FullTextQuery.toBooleanQuery(criteria.getQuery()) : Optional.empty();
+
+            res = booleanQuery.isPresent()
+                    ? fetchPage(orderSearchViewRepository.findIdPageByRelevance(spec, booleanQuery.get(), pageRequest))
+                    : fetchPage(orderSearchViewRepository.findIdPage(spec, pageRequest.withSort(Sort.Direction.DESC, CREATED_AT)));
+        } else {
+            res = fetchPage(orderSearchViewRepository.findIdPage(spec, pageRequest.withSort(direction, sortField)));
+        }
 
-        Page<OrderResponse> res = ordersPage.map(OrderMapper::toDto);
         log.info("Searching orders with criteria: {} | <--- res: {}", criteria, res);
         return res;
     }
 
 
     /**
-     * Search orders using Meilisearch for better text search capabilities
+     * Search orders using keyset pagination on {@code (sort field, id)}.
+     * Only the keys of the page are read by the seek query; the orders are then loaded with their items by ID.
      */
     @Override
-    public Page<OrderResponse> searchOrdersWithSearchEngine(OrderSearchCriteria criteria) {
-        try {
-            // First check if we need to filter by date range
-            if (criteria.getStartDate() != null || criteria.getEndDate() != null) {
-                // For date filtering, we need to combine Meilisearch and DB results
-                return searchWithMeilisearchAndDb(criteria);
-            } else {
-                // For pure text search, use only Meilisearch
-                return meilisearchService.searchOrders(criteria);
+    public SeekPageResponse<OrderResponse> searchOrdersWithDbByCursor(OrderSearchCriteria criteria) throws OrderBadRequestException {
+
+        log.info("Searching orders by cursor with criteria: {}", criteria);
+
+        String sort = MyTextUtils.nonEmpty(criteria.getSort()) ? criteria.getSort() : CREATED_AT;
+
+        OrderSortField sortField = OrderSortField.fromAttribute(sort)
+                .orElseThrow(() -> new OrderBadRequestException("sort: Unsupported sort field for cursor search: " + sort));
+
+        Sort.Direction direction = MyTextUtils.nonEmpty(criteria.getDirection()) ?
+                Sort.Direction.fromString(criteria.getDirection()) : Sort.Direction.DESC;
+
+        int size = criteria.getSize() != null ? criteria.getSize() : 20;
+
+        OrderKeyset after = null;
+
+        if (MyTextUtils.nonEmpty(criteria.getCursor())) {
+            try {
+                after = OrderKeyset.decode(criteria.getCursor(), sortField, direction);
+            } catch (IllegalArgumentException e) {
+                throw new OrderBadRequestException("cursor: " + e.getMessage());
             }
-        } catch (Exception e) {
-            log.error("Meilisearch error, falling back to database search", e);
-            // Fallback to database search if Meilisearch fails
-            return searchOrdersWithDb(criteria);
         }
+
+        Specification<OrderSearchView> spec = OrderSpecifications.withSearchCriteria(criteria, textSearchMode);
+
+        // One extra key tells whether a next page exists without running a count
+        List<OrderKeyset> keys = orderSearchViewRepository.findKeysAfter(spec, sortField, direction, after, size + 1);
+
+        boolean hasNext = keys.size() > size;
+        List<OrderKeyset> pageKeys = hasNext ? keys.subList(0, size) : keys;
+
+        List<OrderResponse> content = fetchInOrder(pageKeys.stream().map(OrderKeyset::id).toList());
+
+        Long total = Boolean.TRUE.equals(criteria.getIncludeTotal()) ? orderSearchViewRepository.count(spec) : null;
+
+        SeekPageResponse<OrderResponse> res = new SeekPageResponse<>(content,
+                hasNext ? pageKeys.get(pageKeys.size() - 1).encode() : null,
+                hasNext,
+                size,
+                total);
+
+        log.info("Searching orders by cursor with criteria: {} | <--- {} orders, hasNext: {}", criteria, content.size(), hasNext);
+        return res;
+    }
+
+
+    /**
+     * Search orders using the configured search engine (Meilisearch or embedded) for better text search capabilities.
+     * All the filters run in the engine; the database is only used when the engine fails. Pages are cached like
+     * the database search ones.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Page<OrderResponse> searchOrdersWithSearchEngine(OrderSearchCriteria criteria) {
+        return orderSearchResultCache.get(Source.ENGINE, criteria, () -> {
+            try {
+                return orderSearchEngine.searchOrders(criteria);
+            } catch (CircuitBreaker.OpenException e) {
+                // Already logged when the breaker opened
+                log.debug("Search engine unavailable ({}), searching the database", e.getMessage());
+                return readOnlyTransaction.execute(status -> findOrders(criteria));
+            } catch (Exception e) {
+                log.error("Search engine error, falling back to database search", e);
+                // Fallback to database search if the search engine fails
+                return readOnlyTransaction.execute(status -> findOrders(criteria));
+            }
+        });
     }
 
     /**
-     * Combined search using Meilisearch for text and database for filtering
+     * The sort of a page search: the projection can only be sorted on its own columns, or by relevance.
      */
-    private Page<OrderResponse> searchWithMeilisearchAndDb(OrderSearchCriteria criteria) {
-        // Get IDs from Meilisearch based on text search
-        List<Long> orderIds = meilisearchService.searchOrderIds(criteria.getQuery());
+    private static String sortField(OrderSearchCriteria criteria) {
+
+        String sort = MyTextUtils.nonEmpty(criteria.getSort()) ? criteria.getSort() : CREATED_AT;
 
-        if (orderIds.isEmpty()) {
-            return Page.empty();
+        if (!RELEVANCE.equals(sort) && OrderSortField.fromAttribute(sort).isEmpty()) {
+            throw new OrderBadRequestException("sort: Unsupported sort field: " + sort);
         }
+        return sort;
+    }
 
-        // Then filter those IDs by date using DB
-        Sort sort = Sort.by(
-                Sort.Direction.fromString(criteria.getDirection()),
-                criteria.getSort()
-        );
+    private Page<OrderResponse> fetchPage(Page<Long> ids) {
+        return new PageImpl<>(fetchInOrder(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+    }
 
-        Pageable pageable = PageRequest.of(criteria.getPage(), criteria.getSize(), sort);
+    /**
+     * Loads the given orders with their items and products in one query, keeping the order of the IDs.
+     * An order deleted since its ID was read is simply left out.
+     */
+    private List<OrderResponse> fetchInOrder(List<Long> ids) {
 
-        Specification<Order> idSpec = (root, query, cb) -> root.get("id").in(orderIds);
-        Specification<Order> dateSpec = OrderSpecifications.withSearchCriteria(criteria);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
 
-        Page<Order> filteredOrders = orderRepository.findAll(
-                Specification.where(idSpec).and(dateSpec),
-                pageable
-        );
+        Map<Long, Order> ordersById = orderRepository.findAllWithItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
 
-        return filteredOrders.map(OrderMapper::toDto);
+        return ids.stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .map(OrderMapper::toDto)
+                .toList();
     }
 }
\ No newline at end of file
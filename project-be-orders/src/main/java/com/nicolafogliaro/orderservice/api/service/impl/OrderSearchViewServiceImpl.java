@@ -0,0 +1,240 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderProductTextView;
+import com.nicolafogliaro.orderservice.api.listener.OrderEventListener.OrderIdsChangedEvent;
+import com.nicolafogliaro.orderservice.api.model.OrderItem;
+import com.nicolafogliaro.orderservice.api.model.Product;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSearchView;
+import com.nicolafogliaro.orderservice.api.model.search.OrderSearchTombstone;
+import com.nicolafogliaro.orderservice.api.repository.OrderItemRepository;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.repository.OrderSearchTombstoneRepository;
+import com.nicolafogliaro.orderservice.api.repository.OrderSearchViewRepository;
+import com.nicolafogliaro.orderservice.api.search.OrderSearchResultCache;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchViewService;
+import com.nicolafogliaro.orderservice.api.util.MyTransactionUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Incremental maintenance of {@code order_search_view}.
+ * <p>
+ * Order writes update the row of the order in the same transaction, so the search never sees an order without its
+ * projection. A product rename may touch many orders: their rows are rebuilt after the product update commits, in
+ * chunks of {@code search.projection.chunk-size} orders, each chunk in its own short transaction that also hands
+ * the chunk to the search engine. Until then the search still matches the old product text.
+ * </p>
+ * <p>
+ * Every change of a row moves its {@code changed_at} and every removal writes a tombstone: together they are the
+ * change log read by the incremental synchronization of the external search index. The customers of the changed
+ * rows, before and after the change, are handed to the {@link OrderSearchResultCache} to invalidate their searches.
+ * </p>
+ */
+@Slf4j
+@Service
+public class OrderSearchViewServiceImpl implements OrderSearchViewService {
+
+    // Bounds the row of very large orders; the text of the products beyond it is not searchable
+    private static final int MAX_TEXT_LENGTH = 1_000_000;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderSearchViewRepository orderSearchViewRepository;
+    private final OrderSearchTombstoneRepository orderSearchTombstoneRepository;
+    private final OrderSearchResultCache orderSearchResultCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate requiresNewTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${search.projection.chunk-size:500}")
+    private int chunkSize = 500;
+
+    public OrderSearchViewServiceImpl(OrderRepository orderRepository,
+                                      OrderItemRepository orderItemRepository,
+                                      OrderSearchViewRepository orderSearchViewRepository,
+                                      OrderSearchTombstoneRepository orderSearchTombstoneRepository,
+                                      OrderSearchResultCache orderSearchResultCache,
+                                      ApplicationEventPublisher eventPublisher,
+                                      PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.orderSearchViewRepository = orderSearchViewRepository;
+        this.orderSearchTombstoneRepository = orderSearchTombstoneRepository;
+        this.orderSearchResultCache = orderSearchResultCache;
+        this.eventPublisher = eventPublisher;
+        // Work started after a commit must not join the finished transaction
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional
+    @Override
+    public void orderChanged(Order order) {
+
+        // Sets the generated ID and timestamps of the order before they are copied
+        entityManager.flush();
+
+        TreeMap<Long, Product> products = new TreeMap<>();
+        order.getOrderItems().stream()
+                .map(OrderItem::getProduct)
+                .filter(Objects::nonNull)
+                .forEach(product -> products.putIfAbsent(product.getId(), product));
+
+        String searchText = searchText(order.getDescription(),
+                products.values().stream().flatMap(product -> Stream.of(product.getName(), product.getDescription())));
+
+        OrderSearchView existing = orderSearchViewRepository.findById(order.getId()).orElse(null);
+
+        Set<Long> customerIds = new HashSet<>();
+        customerIds.add(existing != null ? existing.getCustomerId() : null);
+        customerIds.add(order.getCustomerId());
+
+        upsert(order, existing, searchText);
+
+        orderSearchResultCache.invalidate(customerIds);
+    }
+
+    @Transactional
+    @Override
+    public void ordersChanged(Collection<Long> orderIds) {
+
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<OrderProductTextView>> productTexts = orderItemRepository.findProductTextsByOrderIdIn(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderProductTextView::getOrderId));
+
+        Map<Long, OrderSearchView> views = orderSearchViewRepository.findAllById(orderIds).stream()
+                .collect(Collectors.toMap(OrderSearchView::getId, Function.identity()));
+
+        Set<Long> missing = new HashSet<>(orderIds);
+
+        // Customers before the change (also those of the deleted orders) and after it
+        Set<Long> customerIds = views.values().stream().map(OrderSearchView::getCustomerId).collect(Collectors.toCollection(HashSet::new));
+
+        for (Order order : orderRepository.findAllById(orderIds)) {
+
+            missing.remove(order.getId());
+            customerIds.add(order.getCustomerId());
+
+            String searchText = searchText(order.getDescription(),
+                    productTexts.getOrDefault(order.getId(), List.of()).stream()
+                            .flatMap(product -> Stream.of(product.getProductName(), product.getProductDescription())));
+
+            upsert(order, views.get(order.getId()), searchText);
+        }
+
+        if (!missing.isEmpty()) {
+            orderSearchViewRepository.deleteAllByIdInBatch(missing);
+            LocalDateTime now = LocalDateTime.now();
+            orderSearchTombstoneRepository.saveAll(missing.stream()
+                    .map(orderId -> OrderSearchTombstone.builder().orderId(orderId).deletedAt(now).build())
+                    .toList());
+        }
+
+        orderSearchResultCache.invalidate(customerIds);
+
+        log.debug("Rebuilt the search projection of {} orders", orderIds.size());
+    }
+
+    @Transactional
+    @Override
+    public void orderDeleted(Long orderId) {
+        orderSearchViewRepository.deleteByOrderId(orderId);
+        orderSearchTombstoneRepository.save(OrderSearchTombstone.builder().orderId(orderId).deletedAt(LocalDateTime.now()).build());
+        // The customer of the order is not read back: deletions are rare, they invalidate every search
+        orderSearchResultCache.invalidateAll();
+    }
+
+    @Override
+    public void productChanged(Long productId) {
+        MyTransactionUtils.afterCommit(() -> refreshOrdersOfProduct(productId));
+    }
+
+    private void refreshOrdersOfProduct(Long productId) {
+
+        log.info(">>> [{}#refreshOrdersOfProduct] --> productId: {}", OrderSearchViewServiceImpl.class.getSimpleName(), productId);
+
+        int refreshed = 0;
+        Long after = 0L;
+
+        try {
+            while (after != null) {
+
+                Long from = after;
+                List<Long> orderIds = requiresNewTransaction.execute(status -> {
+                    List<Long> chunk = orderItemRepository.findOrderIdsByProductId(productId, from, Limit.of(chunkSize));
+                    ordersChanged(chunk);
+                    // The search engine documents embed the product text too
+                    eventPublisher.publishEvent(new OrderIdsChangedEvent(chunk));
+                    return chunk;
+                });
+
+                refreshed += orderIds.size();
+                after = orderIds.size() == chunkSize ? orderIds.get(orderIds.size() - 1) : null;
+            }
+        } catch (RuntimeException e) {
+            log.error("*** Could not refresh the search projection of the orders of product {} after {} orders", productId, refreshed, e);
+            return;
+        }
+
+        log.info("<<< [{}#refreshOrdersOfProduct] --> productId: {} | <--- refreshed orders: {}",
+                OrderSearchViewServiceImpl.class.getSimpleName(), productId, refreshed);
+    }
+
+    private void upsert(Order order, OrderSearchView existing, String searchText) {
+
+        OrderSearchView view = existing != null ? existing : OrderSearchView.builder().id(order.getId()).build();
+
+        view.setCustomerId(order.getCustomerId());
+        view.setStatus(order.getStatus());
+        view.setTotalAmount(order.getTotalAmount());
+        view.setCreatedAt(order.getCreatedAt());
+        view.setUpdatedAt(order.getUpdatedAt());
+        view.setSearchText(searchText);
+
+        if (existing == null) {
+            // persist, not save: with an assigned ID, save would first look the row up again
+            entityManager.persist(view);
+        }
+    }
+
+    /**
+     * Lowercased texts joined with {@link OrderSearchView#TEXT_SEPARATOR}, the order description first.
+     */
+    static String searchText(String description, Stream<String> productTexts) {
+
+        String text = Stream.concat(Stream.of(description), productTexts)
+                .filter(Objects::nonNull)
+                .map(value -> value.toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(String.valueOf(OrderSearchView.TEXT_SEPARATOR)));
+
+        return text.length() > MAX_TEXT_LENGTH ? text.substring(0, MAX_TEXT_LENGTH) : text;
+    }
+}
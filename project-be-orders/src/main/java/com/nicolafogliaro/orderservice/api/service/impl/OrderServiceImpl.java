@@ -1,40 +1,60 @@
 package com.nicolafogliaro.orderservice.api.service.impl;
 
+import com.nicolafogliaro.orderservice.api.cache.CacheBulkOperations;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderRequest;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.UpdateOrderRequest;
 import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemResponse;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemView;
+import com.nicolafogliaro.orderservice.api.dto.page.CursorPageResponse;
 import com.nicolafogliaro.orderservice.api.exception.ConcurrencyConflictException;
 import com.nicolafogliaro.orderservice.api.exception.InsufficientStockException;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
 import com.nicolafogliaro.orderservice.api.exception.OrderNotFoundException;
+import com.nicolafogliaro.orderservice.api.listener.OrderEventListener.OrderChangedEvent;
+import com.nicolafogliaro.orderservice.api.listener.OrderEventListener.OrderDeletedEvent;
 import com.nicolafogliaro.orderservice.api.mapper.OrderItemMapper;
 import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
 import com.nicolafogliaro.orderservice.api.model.OrderItem;
 import com.nicolafogliaro.orderservice.api.model.Product;
 import com.nicolafogliaro.orderservice.api.model.order.Order;
 import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot;
+import com.nicolafogliaro.orderservice.api.repository.OrderItemRepository;
 import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
 import com.nicolafogliaro.orderservice.api.repository.ProductRepository;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.service.OrderRevisionService;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchViewService;
 import com.nicolafogliaro.orderservice.api.service.OrderService;
 import com.nicolafogliaro.orderservice.api.service.ProductService;
 import com.nicolafogliaro.orderservice.api.util.MyCollectionUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheConfig;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.nicolafogliaro.orderservice.api.config.CacheConfig.ORDER_CACHE_NAME;
@@ -49,17 +69,101 @@ public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final ProductService productService;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderRevisionService orderRevisionService;
+    private final ExistenceFilterService existenceFilterService;
+    private final OrderSearchViewService orderSearchViewService;
+    private final CacheBulkOperations cacheBulkOperations;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${orders.items.default-page-size:50}")
+    private int defaultItemsPageSize = 50;
+
+    @Value("${orders.items.max-page-size:500}")
+    private int maxItemsPageSize = 500;
+
+    @Value("${orders.multi-get.max-ids:100}")
+    private int maxMultiGetIds = 100;
 
 
     @Override
-    @Cacheable(key = "#id") // Uses "orders" cache name from @CacheConfig
+    @Cacheable(key = "#id", sync = true) // Uses "orders" cache name from @CacheConfig; sync: concurrent misses are loaded once
     public OrderResponse getOrderById(Long id) {
         Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + id));
+                .orElseThrow(() -> {
+                    existenceFilterService.orderMissing(id);
+                    return new OrderNotFoundException("Order not found with ID: " + id);
+                });
         return OrderMapper.toDto(order);
     }
 
 
+    /**
+     * All cached orders are read with one round trip; the missing ones are loaded with one query and cached.
+     */
+    @Override
+    public List<OrderResponse> getOrdersByIds(Collection<Long> ids) throws OrderBadRequestException {
+
+        Set<Long> lookupIds = new LinkedHashSet<>();
+        ids.stream().filter(Objects::nonNull).forEach(lookupIds::add);
+
+        if (lookupIds.size() > maxMultiGetIds) {
+            throw new OrderBadRequestException("ids: Cannot request more than " + maxMultiGetIds + " orders at once");
+        }
+
+        lookupIds.removeIf(existenceFilterService::isOrderKnownMissing);
+
+        Map<Long, OrderResponse> orders = cacheBulkOperations.getAll(ORDER_CACHE_NAME, lookupIds, OrderResponse.class, misses -> {
+
+            Map<Long, OrderResponse> loaded = orderRepository.findAllWithItemsByIdIn(misses).stream()
+                    .collect(Collectors.toMap(Order::getId, OrderMapper::toDto));
+
+            misses.stream().filter(id -> !loaded.containsKey(id)).forEach(existenceFilterService::orderMissing);
+            return loaded;
+        });
+
+        return List.copyOf(orders.values());
+    }
+
+
+    @Override
+    public OrderSummaryResponse getOrderSummary(Long id) throws OrderNotFoundException {
+        return orderRepository.findSummaryById(id)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + id));
+    }
+
+
+    @Override
+    public CursorPageResponse<OrderItemResponse> getOrderItems(Long orderId, Long after, Integer limit) throws OrderNotFoundException {
+
+        int pageSize = Math.min(Math.max(Objects.requireNonNullElse(limit, defaultItemsPageSize), 1), maxItemsPageSize);
+
+        // One extra row tells whether a next page exists without running a count
+        List<OrderItemView> rows = orderItemRepository.findPageByOrderId(orderId,
+                Objects.requireNonNullElse(after, 0L),
+                Limit.of(pageSize + 1));
+
+        if (rows.isEmpty()) {
+            // Only an empty page needs to distinguish "no more items" from "no such order"
+            if (!orderRepository.existsById(orderId)) {
+                throw new OrderNotFoundException("Order not found with ID: " + orderId);
+            }
+            return CursorPageResponse.empty(pageSize);
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        List<OrderItemResponse> content = rows.stream()
+                .limit(pageSize)
+                .map(OrderItemMapper::fromView)
+                .toList();
+
+        return new CursorPageResponse<>(content,
+                hasNext ? content.get(content.size() - 1).id() : null,
+                hasNext,
+                pageSize);
+    }
+
+
     @Transactional(isolation = Isolation.REPEATABLE_READ)
     @Override
     @CachePut(key = "#result.id") // Puts the result into "orders" cache. Assumes OrderResponse has an 'id' field.
@@ -99,7 +203,12 @@ public class OrderServiceImpl implements OrderService {
 
         Order saved = orderRepository.save(newOrder);
 
+        orderRevisionService.record(OrderRevisionType.CREATED, null, OrderSnapshot.of(saved));
+        existenceFilterService.orderCreated(saved.getId());
+        orderSearchViewService.orderChanged(saved);
+
         OrderResponse res = OrderMapper.toDto(saved);
+        eventPublisher.publishEvent(new OrderChangedEvent(res));
 
         log.info("<<< [{}#createOrder] --> req: {} | <--- res: {}", OrderServiceImpl.class.getSimpleName(), request, res);
         return res;
@@ -116,6 +225,8 @@ public class OrderServiceImpl implements OrderService {
         Order existingOrder = orderRepository.findById(id)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with ID: " + id));
 
+        OrderSnapshot before = OrderSnapshot.of(existingOrder);
+
         // Basic field updates
         Optional.ofNullable(request.customerId()).ifPresent(existingOrder::setCustomerId);
         Optional.ofNullable(request.orderDescription()).ifPresent(existingOrder::setDescription);
@@ -172,7 +283,13 @@ public class OrderServiceImpl implements OrderService {
         existingOrder.getOrderItems().addAll(updatedItems);
         existingOrder.calculateTotalAmount();
 
-        OrderResponse res = OrderMapper.toDto(orderRepository.save(existingOrder));
+        Order saved = orderRepository.save(existingOrder);
+
+        orderRevisionService.record(OrderRevisionType.UPDATED, before, OrderSnapshot.of(saved));
+        orderSearchViewService.orderChanged(saved);
+
+        OrderResponse res = OrderMapper.toDto(saved);
+        eventPublisher.publishEvent(new OrderChangedEvent(res));
 
         log.info("<<< [{}#updateOrder] --> id: {}, req: {} | <--- res: {}", OrderServiceImpl.class.getSimpleName(), id, request, res);
         return res;
@@ -194,6 +311,11 @@ public class OrderServiceImpl implements OrderService {
             }
         }
         orderRepository.deleteById(id);
+
+        orderRevisionService.record(OrderRevisionType.DELETED, OrderSnapshot.of(orderToDelete), null);
+        existenceFilterService.orderDeleted(id);
+        orderSearchViewService.orderDeleted(id);
+        eventPublisher.publishEvent(new OrderDeletedEvent(id));
     }
 
 }
@@ -1,5 +1,6 @@
 package com.nicolafogliaro.orderservice.api.service.impl;
 
+import com.nicolafogliaro.orderservice.api.cache.CacheBulkOperations;
 import com.nicolafogliaro.orderservice.api.dto.product.CreateProductRequest;
 import com.nicolafogliaro.orderservice.api.dto.product.ProductResponse;
 import com.nicolafogliaro.orderservice.api.dto.product.UpdateProductRequest;
@@ -10,9 +11,14 @@ import com.nicolafogliaro.orderservice.api.mapper.ProductMapper;
 import com.nicolafogliaro.orderservice.api.model.Product;
 import com.nicolafogliaro.orderservice.api.repository.OrderItemRepository;
 import com.nicolafogliaro.orderservice.api.repository.ProductRepository;
+import com.nicolafogliaro.orderservice.api.repository.specification.FullTextQuery;
+import com.nicolafogliaro.orderservice.api.repository.specification.TextSearchMode;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchViewService;
 import com.nicolafogliaro.orderservice.api.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
@@ -21,8 +27,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.nicolafogliaro.orderservice.api.config.CacheConfig.PRODUCTS_CACHE_NAME;
@@ -39,17 +50,36 @@ public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final OrderItemRepository orderItemRepository;
+    private final ExistenceFilterService existenceFilterService;
+    private final OrderSearchViewService orderSearchViewService;
+    private final CacheBulkOperations cacheBulkOperations;
+
+    @Value("${products.multi-get.max-ids:100}")
+    private int maxMultiGetIds = 100;
+
+    @Value("${search.db.text-mode:LIKE}")
+    private TextSearchMode textSearchMode = TextSearchMode.LIKE;
 
 
     /**
      * Searches for products containing the specified name (case-insensitive).
+     * In FULLTEXT mode the name is matched word by word (each word as a prefix) through the FULLTEXT index on
+     * {@code name}, most relevant first, instead of as one substring.
      *
      * @param name Partial or full product name.
      * @return List of matching products.
      */
     @Override
     public List<ProductResponse> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name).stream()
+
+        Optional<String> booleanQuery = textSearchMode == TextSearchMode.FULLTEXT ?
+                FullTextQuery.toBooleanQuery(name) : Optional.empty();
+
+        List<Product> products = booleanQuery.isPresent()
+                ? productRepository.findByNameFullText(booleanQuery.get())
+                : productRepository.findByNameContainingIgnoreCase(name);
+
+        return products.stream()
                 .map(ProductMapper::toDto)
                 .collect(Collectors.toList());
     }
@@ -60,7 +90,7 @@ public class ProductServiceImpl implements ProductService {
      *
      * @return A list of all products. Returns an empty list if no products exist.
      */
-    @Cacheable(value = PRODUCTS_CACHE_NAME)
+    @Cacheable(value = PRODUCTS_CACHE_NAME, sync = true) // sync: concurrent misses are loaded once
     @Override
     public List<ProductResponse> getAllProducts() {
         return productRepository.findAll()
@@ -78,13 +108,44 @@ public class ProductServiceImpl implements ProductService {
      * @throws ProductNotFoundException if no product with the given ID exists.
      * @throws NullPointerException     if the provided ID is null.
      */
-    @Cacheable(value = PRODUCT_CACHE_NAME, key = "#id")
+    @Cacheable(value = PRODUCT_CACHE_NAME, key = "#id", sync = true)
     @Override
     public ProductResponse getProductById(Long id) {
         Product product = getProductOrThrow(Objects.requireNonNull(id, "Product ID cannot be null."));
         return ProductMapper.toDto(product);
     }
 
+    /**
+     * Retrieves many products by ID: the cached ones with one round trip, the others with one query.
+     *
+     * @param ids The IDs of the products, in the order they must be returned.
+     * @return The products found; IDs that do not exist are left out.
+     * @throws ProductBadRequestException if more IDs than the configured maximum are requested.
+     */
+    @Override
+    public List<ProductResponse> getProductsByIds(Collection<Long> ids) {
+
+        Set<Long> lookupIds = new LinkedHashSet<>();
+        ids.stream().filter(Objects::nonNull).forEach(lookupIds::add);
+
+        if (lookupIds.size() > maxMultiGetIds) {
+            throw new ProductBadRequestException("ids: Cannot request more than " + maxMultiGetIds + " products at once");
+        }
+
+        lookupIds.removeIf(existenceFilterService::isProductKnownMissing);
+
+        Map<Long, ProductResponse> products = cacheBulkOperations.getAll(PRODUCT_CACHE_NAME, lookupIds, ProductResponse.class, misses -> {
+
+            Map<Long, ProductResponse> loaded = productRepository.findAllById(misses).stream()
+                    .collect(Collectors.toMap(Product::getId, ProductMapper::toDto));
+
+            misses.stream().filter(id -> !loaded.containsKey(id)).forEach(existenceFilterService::productMissing);
+            return loaded;
+        });
+
+        return List.copyOf(products.values());
+    }
+
     /**
      * Helper method to retrieve product or throw exception.
      *
@@ -94,7 +155,10 @@ public class ProductServiceImpl implements ProductService {
      */
     private Product getProductOrThrow(Long id) {
         return productRepository.findById(id)
-                .orElseThrow(() -> new ProductNotFoundException("Product with ID " + id + " not found."));
+                .orElseThrow(() -> {
+                    existenceFilterService.productMissing(id);
+                    return new ProductNotFoundException("Product with ID " + id + " not found.");
+                });
     }
 
     /**
@@ -112,6 +176,7 @@ public class ProductServiceImpl implements ProductService {
     public ProductResponse createProduct(CreateProductRequest request) {
         Product product = ProductMapper.toEntity(request);
         Product saved = productRepository.save(product);
+        existenceFilterService.productCreated(saved.getId());
         log.info("Product created with ID {}", saved.getId());
         return ProductMapper.toDto(saved);
     }
@@ -131,8 +196,16 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public ProductResponse updateProduct(Long id, UpdateProductRequest request) {
         Product product = getProductOrThrow(id);
+        String name = product.getName();
+        String description = product.getDescription();
+
         ProductMapper.updateEntityFromDto(request, product);
         Product updated = productRepository.save(product);
+
+        if (!Objects.equals(name, updated.getName()) || !Objects.equals(description, updated.getDescription())) {
+            orderSearchViewService.productChanged(id);
+        }
+
         log.info("Product updated with ID {}", id);
         return ProductMapper.toDto(updated);
     }
@@ -256,6 +329,7 @@ public class ProductServiceImpl implements ProductService {
         }
 
         productRepository.deleteById(id);
+        existenceFilterService.productDeleted(id);
 
         log.info("Deleted product with ID {}", id);
     }
@@ -6,15 +6,30 @@ import com.nicolafogliaro.orderservice.api.model.Product;
 import com.nicolafogliaro.orderservice.api.repository.ProductRepository;
 import com.nicolafogliaro.orderservice.api.service.StockService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+
+import static com.nicolafogliaro.orderservice.api.config.CacheConfig.PRODUCTS_CACHE_NAME;
+import static com.nicolafogliaro.orderservice.api.config.CacheConfig.PRODUCT_CACHE_NAME;
+
+@Slf4j
 @Transactional(readOnly = true)
 @Service
 @RequiredArgsConstructor
 public class StockServiceImpl implements StockService {
 
     private final ProductRepository productRepository;
+    private final CacheManager cacheManager;
 
     @Transactional
     @Override
@@ -43,4 +58,68 @@ public class StockServiceImpl implements StockService {
         return product.getStockQuantity() >= requestedQuantity;
     }
 
-}
\ No newline at end of file
+    /**
+     * Locks all the requested products with one {@code SELECT ... FOR UPDATE} (ascending ID order),
+     * validates every line before touching any stock, then decrements the stock of the managed entities.
+     * The changes are flushed by the surrounding transaction.
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    @Override
+    public Map<Long, Product> reserveStock(SortedMap<Long, Integer> quantitiesByProduct) {
+
+        if (quantitiesByProduct.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Product> lockedProducts = productRepository.findAllByIdInWithLock(quantitiesByProduct.keySet());
+
+        Map<Long, Product> productsById = new LinkedHashMap<>();
+        lockedProducts.forEach(product -> productsById.put(product.getId(), product));
+
+        quantitiesByProduct.forEach((productId, quantity) -> {
+
+            Product product = productsById.get(productId);
+
+            if (product == null) {
+                throw new ProductNotFoundException("Product not found with id: " + productId);
+            }
+
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero.");
+            }
+
+            if (Objects.isNull(product.getPrice())) {
+                log.error("*** Product {} has a null price!", productId);
+                throw new IllegalStateException("Product " + productId + " has a null price.");
+            }
+
+            if (product.getStockQuantity() < quantity) {
+                throw new InsufficientStockException("Insufficient stockQuantity for product ID " + productId);
+            }
+        });
+
+        quantitiesByProduct.forEach((productId, quantity) -> {
+            Product product = productsById.get(productId);
+            product.setStockQuantity(product.getStockQuantity() - quantity);
+        });
+
+        evictProductCaches(quantitiesByProduct.keySet());
+
+        log.info("Reserved stockQuantity for {} products", quantitiesByProduct.size());
+        return productsById;
+    }
+
+    private void evictProductCaches(Iterable<Long> productIds) {
+
+        Cache productCache = cacheManager.getCache(PRODUCT_CACHE_NAME);
+        if (productCache != null) {
+            productIds.forEach(productCache::evict);
+        }
+
+        Cache productsCache = cacheManager.getCache(PRODUCTS_CACHE_NAME);
+        if (productsCache != null) {
+            productsCache.clear();
+        }
+    }
+
+}
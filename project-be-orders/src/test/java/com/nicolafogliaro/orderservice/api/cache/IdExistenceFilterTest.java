@@ -0,0 +1,96 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("IdExistenceFilter Tests")
+class IdExistenceFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IdExistenceFilter filter = new IdExistenceFilter("orders", 0.01, 1L << 20, Duration.ofMinutes(1), 1000, meterRegistry);
+
+    private void rebuildWithEvenIds(long maxId) {
+        filter.rebuild(maxId, ids -> LongStream.rangeClosed(1, maxId).filter(id -> id % 2 == 0).forEach(ids::accept));
+    }
+
+    @Test
+    @DisplayName("Bloom filter should never reject a present ID and keep false positives near the target rate")
+    void bloomFilter_ShouldHaveNoFalseNegatives() {
+        BloomFilter bloom = BloomFilter.create(10_000, 0.01, Long.MAX_VALUE);
+        LongStream.rangeClosed(1, 10_000).forEach(bloom::put);
+
+        assertThat(LongStream.rangeClosed(1, 10_000).allMatch(bloom::mightContain)).isTrue();
+
+        long falsePositives = LongStream.rangeClosed(10_001, 110_000).filter(bloom::mightContain).count();
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(bloom.expectedFpp()).isLessThan(0.02);
+    }
+
+    @Test
+    @DisplayName("Bloom filter should respect the memory cap at the cost of a higher false-positive rate")
+    void bloomFilter_ShouldRespectMemoryCap() {
+        BloomFilter bloom = BloomFilter.create(1_000_000, 0.001, 8 * 1024 * 8);
+
+        assertThat(bloom.memoryBytes()).isEqualTo(8 * 1024);
+    }
+
+    @Test
+    @DisplayName("Should only use the negative cache until the first rebuild")
+    void isKnownMissing_ShouldNotRejectBeforeRebuild() {
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.isKnownMissing(1)).isFalse();
+
+        filter.markMissing(1);
+
+        assertThat(filter.isKnownMissing(1)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject absent IDs up to the watermark, never IDs above it")
+    void isKnownMissing_ShouldRejectAbsentIdsBelowWatermark() {
+        rebuildWithEvenIds(1000);
+
+        assertThat(filter.getWatermark()).isEqualTo(1000);
+        assertThat(LongStream.rangeClosed(1, 1000).filter(id -> id % 2 == 0).noneMatch(filter::isKnownMissing)).isTrue();
+        assertThat(LongStream.rangeClosed(1, 1000).filter(id -> id % 2 == 1).filter(filter::isKnownMissing).count()).isGreaterThan(450);
+        // Created on another node after the rebuild: unknown here, but above the watermark
+        assertThat(filter.isKnownMissing(1001)).isFalse();
+        assertThat(meterRegistry.get("existence.filter.rejections").tag("reason", "bloom").counter().count()).isGreaterThan(450);
+    }
+
+    @Test
+    @DisplayName("Should accept created IDs and reject deleted ones until the next rebuild")
+    void markCreatedAndDeleted_ShouldUpdateFilter() {
+        rebuildWithEvenIds(1000);
+        filter.markMissing(3);
+
+        filter.markCreated(3);
+        filter.markDeleted(4);
+
+        assertThat(filter.isKnownMissing(3)).isFalse();
+        assertThat(filter.isKnownMissing(4)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep IDs created while a rebuild is scanning")
+    void rebuild_ShouldKeepIdsCreatedDuringScan() {
+        rebuildWithEvenIds(1000);
+
+        filter.rebuild(1000, ids -> {
+            ids.accept(2);
+            // Committed after the scan went past it
+            filter.markCreated(501);
+            ids.accept(600);
+        });
+
+        assertThat(filter.getWatermark()).isEqualTo(600);
+        assertThat(filter.isKnownMissing(501)).isFalse();
+        assertThat(filter.isKnownMissing(2)).isFalse();
+    }
+}
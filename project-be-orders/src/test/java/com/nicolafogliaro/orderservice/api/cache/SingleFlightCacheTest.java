@@ -0,0 +1,275 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+@DisplayName("SingleFlightCache Tests")
+class SingleFlightCacheTest {
+
+    private static final int CALLERS = 16;
+
+    private final ConcurrentMapCacheManager target = new ConcurrentMapCacheManager("product");
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static final RefreshAheadSettings NO_REFRESH = new RefreshAheadSettings(false, 1.0, 1, 10, Set.of());
+
+    private final CacheRefreshExecutor refreshExecutor = new CacheRefreshExecutor(1, 10, null);
+
+    @AfterEach
+    void tearDown() {
+        refreshExecutor.shutdown();
+    }
+
+    private SingleFlightCache cache(CacheLoadLease lease) {
+        return cache(lease, NO_REFRESH, null);
+    }
+
+    private SingleFlightCache cache(CacheLoadLease lease, RefreshAheadSettings refreshSettings, CacheEntryTtl entryTtl) {
+        SingleFlightSettings settings = new SingleFlightSettings(lease != null, Duration.ofSeconds(5), Duration.ofSeconds(1), Duration.ofMillis(5));
+        return (SingleFlightCache) new SingleFlightCacheManager(target,
+                name -> null,
+                lease,
+                settings,
+                refreshSettings,
+                name -> entryTtl,
+                refreshExecutor,
+                meterRegistry).getCache("product");
+    }
+
+    /**
+     * Every entry expires {@code ttl} after being written.
+     */
+    private static CacheEntryTtl fixedTtl(Duration ttl) {
+        return new CacheEntryTtl() {
+            @Override
+            public Duration timeToLive(Object key, Object value) {
+                return ttl;
+            }
+
+            @Override
+            public Duration remainingTimeToLive(Object key) {
+                return ttl;
+            }
+        };
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("cache.loads").tag("result", result).counter().count();
+    }
+
+    private double refreshes(String result) {
+        return meterRegistry.get("cache.refreshes").tag("result", result).counter().count();
+    }
+
+    @Test
+    @DisplayName("Should run the loader once for concurrent misses on the same key")
+    void get_ShouldCoalesceConcurrentMisses() throws Exception {
+        SingleFlightCache cache = cache(null);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> cache.get(1L, () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "v1";
+                })));
+            }
+
+            // Wait until every caller is either loading or waiting for the loader
+            await().atMost(Duration.ofSeconds(5)).until(() -> loads.get() == 1 && count("coalesced") + loads.get() == CALLERS);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+        assertThat(count("loaded")).isEqualTo(1);
+        assertThat(count("coalesced")).isEqualTo(CALLERS - 1);
+        assertThat(target.getCache("product").get(1L).get()).isEqualTo("v1");
+        assertThat(cache.inFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should propagate the loader failure to the waiting callers and not cache anything")
+    void get_ShouldPropagateLoaderFailure() throws Exception {
+        SingleFlightCache cache = cache(null);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> leader = executor.submit(() -> cache.get(1L, () -> {
+                loading.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                throw new IllegalStateException("boom");
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+
+            Future<Object> follower = executor.submit(() -> cache.get(1L, () -> "never"));
+            await().atMost(Duration.ofSeconds(5)).until(() -> count("coalesced") == 1);
+            release.countDown();
+
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(Cache.ValueRetrievalException.class)
+                    .hasRootCauseMessage("boom");
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .hasRootCauseMessage("boom");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(target.getCache("product").get(1L)).isNull();
+        assertThat(cache.inFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not overwrite a value cached by an update while loading")
+    void get_ShouldKeepValueWrittenDuringLoad() {
+        SingleFlightCache cache = cache(null);
+
+        String value = cache.get(1L, () -> {
+            target.getCache("product").put(1L, "updated");
+            return "loaded";
+        });
+
+        assertThat(value).isEqualTo("updated");
+        assertThat(target.getCache("product").get(1L).get()).isEqualTo("updated");
+    }
+
+    @Test
+    @DisplayName("Should use the value loaded by the lease holder on another node")
+    void get_ShouldWaitForLeaseHolder() {
+        CacheLoadLease heldElsewhere = new CacheLoadLease() {
+            @Override
+            public boolean tryAcquire(String cacheName, String key) {
+                // The other node fills the cache shortly after we fail to take the lease
+                new Thread(() -> target.getCache("product").put(1L, "remote")).start();
+                return false;
+            }
+
+            @Override
+            public void release(String cacheName, String key) {
+                throw new AssertionError("the lease was never acquired");
+            }
+        };
+        SingleFlightCache cache = cache(heldElsewhere);
+
+        assertThat(cache.get(1L, () -> "local")).isEqualTo("remote");
+        assertThat(count("lease-hit")).isEqualTo(1);
+        assertThat(count("loaded")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should load locally when the lease holder does not fill the cache in time")
+    void get_ShouldLoadAfterLeaseWait() {
+        List<String> released = new ArrayList<>();
+        CacheLoadLease neverFilled = new CacheLoadLease() {
+            @Override
+            public boolean tryAcquire(String cacheName, String key) {
+                return false;
+            }
+
+            @Override
+            public void release(String cacheName, String key) {
+                released.add(key);
+            }
+        };
+        SingleFlightCache cache = cache(neverFilled);
+
+        assertThat(cache.get(1L, () -> "local")).isEqualTo("local");
+        assertThat(count("lease-timeout")).isEqualTo(1);
+        assertThat(released).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should refresh in the background a hot entry that is about to expire")
+    void get_ShouldRefreshEntryCloseToExpiry() {
+        // A huge beta makes the early refresh certain for an entry expiring in 1 ms
+        SingleFlightCache cache = cache(null, new RefreshAheadSettings(true, 1e9, 1, 10, Set.of("product")), fixedTtl(Duration.ofMillis(1)));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get(1L, () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        // The hit returns the cached value at once and triggers the refresh
+        assertThat(cache.get(1L, () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> refreshes("refreshed") == 1);
+        await().atMost(Duration.ofSeconds(5)).until(() -> "v2".equals(target.getCache("product").get(1L).get()));
+        assertThat(cache.inFlightCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not refresh entries far from expiry or in caches without refresh-ahead")
+    void get_ShouldNotRefreshFreshEntries() {
+        SingleFlightCache fresh = cache(null, new RefreshAheadSettings(true, 1.0, 1, 10, Set.of("product")), fixedTtl(Duration.ofHours(1)));
+        AtomicInteger loads = new AtomicInteger();
+
+        fresh.get(1L, () -> "v" + loads.incrementAndGet());
+        for (int i = 0; i < 100; i++) {
+            fresh.get(1L, () -> "v" + loads.incrementAndGet());
+        }
+
+        SingleFlightCache disabled = cache(null, new RefreshAheadSettings(true, 1e9, 1, 10, Set.of("order")), fixedTtl(Duration.ofMillis(1)));
+        disabled.get(2L, () -> "v" + loads.incrementAndGet());
+        disabled.get(2L, () -> "v" + loads.incrementAndGet());
+
+        assertThat(loads).hasValue(2);
+        assertThat(refreshes("refreshed")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not overwrite an entry replaced by an update during the refresh")
+    void get_ShouldNotOverwriteUpdatedEntryOnRefresh() {
+        SingleFlightCache cache = cache(null, new RefreshAheadSettings(true, 1e9, 1, 10, Set.of("product")), fixedTtl(Duration.ofMillis(1)));
+
+        cache.get(1L, () -> "v1");
+        cache.get(1L, () -> {
+            target.getCache("product").put(1L, "updated");
+            return "refreshed";
+        });
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> refreshes("refreshed") == 1);
+        assertThat(target.getCache("product").get(1L).get()).isEqualTo("updated");
+    }
+
+    @Test
+    @DisplayName("Should serve the cached entry without refreshing it once the refresh pool is shut down")
+    void get_ShouldRejectRefreshAfterShutdown() {
+        SingleFlightCache cache = cache(null, new RefreshAheadSettings(true, 1e9, 1, 10, Set.of("product")), fixedTtl(Duration.ofMillis(1)));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1L, () -> "v" + loads.incrementAndGet());
+
+        refreshExecutor.shutdown();
+
+        assertThat(cache.get(1L, () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+        assertThat(refreshes("rejected")).isEqualTo(1.0);
+        assertThat(cache.inFlightCount()).isZero();
+    }
+}
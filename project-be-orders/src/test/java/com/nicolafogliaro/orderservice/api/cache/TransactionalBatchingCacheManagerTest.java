@@ -0,0 +1,107 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TransactionalBatchingCacheManager Tests")
+class TransactionalBatchingCacheManagerTest {
+
+    private final ConcurrentMapCacheManager target = new ConcurrentMapCacheManager("product", "products");
+    private final List<CacheWriteBatch> flushed = new ArrayList<>();
+    private final TransactionalBatchingCacheManager cacheManager = new TransactionalBatchingCacheManager(target, flushed::add);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @Test
+    @DisplayName("Batch should keep only the last operation per key and let a clear supersede earlier ones")
+    void batch_ShouldDeduplicate() {
+        CacheWriteBatch batch = new CacheWriteBatch();
+
+        batch.put("product", 1L, "v1");
+        batch.evict("product", 1L);
+        batch.evict("product", 2L);
+        batch.put("product", 2L, "v2");
+        batch.put("products", "all", "list");
+        batch.clear("products");
+        batch.clear("products");
+        batch.evict("products", "other");
+
+        assertThat(batch.getReceived()).isEqualTo(8);
+        assertThat(batch.size()).isEqualTo(4);
+        assertThat(batch.lookup("product", 1L).evict()).isTrue();
+        assertThat(batch.lookup("product", 2L).value()).isEqualTo("v2");
+        assertThat(batch.lookup("product", 3L)).isNull();
+        assertThat(batch.getCaches().get("products").isCleared()).isTrue();
+        assertThat(batch.getCaches().get("products").getWrites()).containsOnlyKeys("other");
+        // A key of a cleared cache reads as evicted even if it was never written
+        assertThat(batch.lookup("products", "all").evict()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Writes should be deferred to commit, visible to the transaction itself and flushed once")
+    void writes_ShouldBeFlushedOnceAfterCommit() {
+        target.getCache("product").put(1L, "old");
+        TransactionSynchronizationManager.initSynchronization();
+
+        Cache product = cacheManager.getCache("product");
+        product.evict(1L);
+        product.put(2L, "new");
+        cacheManager.getCache("products").clear();
+        cacheManager.getCache("products").clear();
+
+        // Not yet applied to the target cache...
+        assertThat(target.getCache("product").get(1L)).isNotNull();
+        assertThat(target.getCache("product").get(2L)).isNull();
+        // ...but the transaction reads its own writes
+        assertThat(product.get(1L)).isNull();
+        assertThat(product.get(2L, String.class)).isEqualTo("new");
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(flushed).hasSize(1);
+        assertThat(flushed.get(0).size()).isEqualTo(3);
+        assertThat(TransactionSynchronizationManager.getResource(cacheManager)).isNull();
+    }
+
+    @Test
+    @DisplayName("Writes should be discarded on rollback")
+    void writes_ShouldBeDroppedOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        cacheManager.getCache("product").evict(1L);
+
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(flushed).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Writes outside a transaction should go straight to the target cache")
+    void writes_WithoutTransaction_ShouldWriteThrough() {
+        cacheManager.getCache("product").put(1L, "value");
+
+        assertThat(target.getCache("product").get(1L, String.class)).isEqualTo("value");
+        assertThat(flushed).isEmpty();
+    }
+}
@@ -0,0 +1,160 @@
+package com.nicolafogliaro.orderservice.api.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TwoLevelCache Tests")
+class TwoLevelCacheTest {
+
+    private static final NearCacheSettings SETTINGS = new NearCacheSettings(true, 100, Duration.ofMinutes(1), Set.of("product", "products"));
+
+    /**
+     * Shared L2 whose reads can run a hook, to simulate an invalidation arriving while a node reads Redis.
+     */
+    private final List<Runnable> beforeNextL2Read = new ArrayList<>();
+    private final ConcurrentMapCache sharedProduct = new ConcurrentMapCache("product") {
+        @Override
+        protected Object lookup(Object key) {
+            Object value = super.lookup(key);
+            List<Runnable> hooks = List.copyOf(beforeNextL2Read);
+            beforeNextL2Read.clear();
+            hooks.forEach(Runnable::run);
+            return value;
+        }
+    };
+    private final CacheManager l2 = l2Manager();
+
+    /**
+     * In-memory bus: stamps a global version and delivers synchronously to every node, publisher included.
+     */
+    private final AtomicLong versions = new AtomicLong();
+    private final List<TwoLevelCacheManager> nodes = new ArrayList<>();
+    private final CacheInvalidationPublisher bus = (origin, entries) -> {
+        long version = versions.incrementAndGet();
+        nodes.forEach(node -> node.onMessage(new CacheInvalidationMessage(version, origin, entries)));
+        return version;
+    };
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TwoLevelCacheManager nodeA = node();
+    private final TwoLevelCacheManager nodeB = node();
+
+    private CacheManager l2Manager() {
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(List.of(sharedProduct, new ConcurrentMapCache("products"), new ConcurrentMapCache("order")));
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    private TwoLevelCacheManager node() {
+        TwoLevelCacheManager node = new TwoLevelCacheManager(l2, SETTINGS, bus, meterRegistry);
+        nodes.add(node);
+        return node;
+    }
+
+    private static TwoLevelCache product(TwoLevelCacheManager node) {
+        return (TwoLevelCache) node.getCache("product");
+    }
+
+    private double count(String level, String result) {
+        return meterRegistry.get("cache.level.gets")
+                .tag("cache", "product").tag("level", level).tag("result", result)
+                .counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from L1 after the first L2 hit")
+    void get_ShouldPopulateL1FromL2() {
+        sharedProduct.put(1L, "v1");
+
+        assertThat(product(nodeA).get(1L).get()).isEqualTo("v1");
+        assertThat(product(nodeA).get(1L).get()).isEqualTo("v1");
+
+        assertThat(count("l1", "miss")).isEqualTo(1);
+        assertThat(count("l2", "hit")).isEqualTo(1);
+        assertThat(count("l1", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should leave caches that are not configured for the near cache untouched")
+    void getCache_ShouldOnlyWrapConfiguredCaches() {
+        assertThat(nodeA.getCache("product")).isInstanceOf(TwoLevelCache.class);
+        assertThat(nodeA.getCache("order")).isNotInstanceOf(TwoLevelCache.class);
+        assertThat(nodeA.getCache("unknown")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should invalidate the L1 of the other nodes when a node writes")
+    void put_ShouldInvalidateOtherNodes() {
+        sharedProduct.put(1L, "v1");
+        product(nodeB).get(1L);
+
+        product(nodeA).put(1L, "v2");
+
+        assertThat(product(nodeB).getL1().getIfPresent("1")).isNull();
+        assertThat(product(nodeB).get(1L).get()).isEqualTo("v2");
+        assertThat(nodeB.currentVersion()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not refill L1 with a value read before a concurrent invalidation")
+    void get_ShouldNotCacheValueInvalidatedDuringRead() {
+        sharedProduct.put(1L, "v1");
+
+        // While node B reads the old value from L2, node A writes the new one and publishes the invalidation
+        beforeNextL2Read.add(() -> {
+            sharedProduct.put(1L, "v2");
+            nodeA.invalidate("product", "1");
+        });
+        Cache.ValueWrapper stale = product(nodeB).get(1L);
+
+        assertThat(stale.get()).isEqualTo("v1");
+        assertThat(product(nodeB).getL1().getIfPresent("1")).isNull();
+        assertThat(product(nodeB).get(1L).get()).isEqualTo("v2");
+        assertThat(product(nodeB).getL1().getIfPresent("1")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should not refill L1 with a value read before a concurrent clear")
+    void get_ShouldNotCacheValueClearedDuringRead() {
+        sharedProduct.put(1L, "v1");
+
+        beforeNextL2Read.add(() -> product(nodeA).clear());
+        product(nodeB).get(1L);
+
+        assertThat(product(nodeB).getL1().estimatedSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should invalidate every node with one message after a batch flush")
+    void afterFlush_ShouldInvalidateBatchKeys() {
+        sharedProduct.put(1L, "v1");
+        sharedProduct.put(2L, "v2");
+        product(nodeB).get(1L);
+        product(nodeB).get(2L);
+
+        CacheWriteBatch batch = new CacheWriteBatch();
+        batch.put("product", 1L, "v1b");
+        batch.clear("products");
+        batch.put("order", 9L, "ignored");
+
+        nodeA.afterFlush(batch);
+
+        assertThat(versions.get()).isEqualTo(1);
+        assertThat(product(nodeB).getL1().getIfPresent("1")).isNull();
+        assertThat(product(nodeB).getL1().getIfPresent("2")).isNotNull();
+    }
+}
@@ -0,0 +1,96 @@
+package com.nicolafogliaro.orderservice.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolafogliaro.orderservice.api.dto.draft.CreateDraftOrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.draft.DraftItemRequest;
+import com.nicolafogliaro.orderservice.api.dto.draft.DraftOrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
+import com.nicolafogliaro.orderservice.api.exception.ConcurrencyConflictException;
+import com.nicolafogliaro.orderservice.api.exception.DraftOrderNotFoundException;
+import com.nicolafogliaro.orderservice.api.service.DraftOrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(DraftOrderController.class)
+class DraftOrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private DraftOrderService draftOrderService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void createDraft_shouldReturnCreatedDraft() throws Exception {
+        CreateDraftOrderRequest request = new CreateDraftOrderRequest(100L, "Cart");
+        when(draftOrderService.createDraft(request)).thenReturn(new DraftOrderResponse("d1", 100L, "Cart", List.of(), 86400));
+
+        mockMvc.perform(post("/api/v1/drafts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is("d1")))
+                .andExpect(jsonPath("$.expiresInSeconds", is(86400)));
+    }
+
+    @Test
+    void setItem_shouldReturnUpdatedDraft() throws Exception {
+        when(draftOrderService.setItem("d1", 10L, 2))
+                .thenReturn(new DraftOrderResponse("d1", 100L, "Cart", List.of(new OrderItemRequest(10L, 2)), 86400));
+
+        mockMvc.perform(put("/api/v1/drafts/{id}/items/{productId}", "d1", 10L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DraftItemRequest(2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].productId", is(10)))
+                .andExpect(jsonPath("$.items[0].quantity", is(2)));
+    }
+
+    @Test
+    void setItem_withZeroQuantity_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(put("/api/v1/drafts/{id}/items/{productId}", "d1", 10L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new DraftItemRequest(0))))
+                .andExpect(status().isBadRequest());
+
+        verify(draftOrderService, never()).setItem(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void getDraft_whenExpired_shouldReturnNotFound() throws Exception {
+        when(draftOrderService.getDraft("d1")).thenThrow(new DraftOrderNotFoundException("Draft order not found with ID: d1"));
+
+        mockMvc.perform(get("/api/v1/drafts/{id}", "d1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void checkout_whenAlreadyRunning_shouldReturnConflict() throws Exception {
+        when(draftOrderService.checkout("d1")).thenThrow(new ConcurrencyConflictException("Draft order d1 is already being checked out"));
+
+        mockMvc.perform(post("/api/v1/drafts/{id}/checkout", "d1"))
+                .andExpect(status().isConflict());
+    }
+}
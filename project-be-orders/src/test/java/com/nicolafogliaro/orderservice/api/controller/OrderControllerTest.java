@@ -3,11 +3,17 @@ package com.nicolafogliaro.orderservice.api.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderRequest;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.UpdateOrderRequest;
 import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
 import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemResponse;
+import com.nicolafogliaro.orderservice.api.dto.page.CursorPageResponse;
+import com.nicolafogliaro.orderservice.api.exception.InsufficientStockException;
 import com.nicolafogliaro.orderservice.api.exception.OrderNotFoundException;
 import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.service.LargeOrderService;
+import com.nicolafogliaro.orderservice.api.service.OrderQuoteService;
 import com.nicolafogliaro.orderservice.api.service.OrderSearchService;
 import com.nicolafogliaro.orderservice.api.service.OrderService;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +24,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -44,6 +51,15 @@ class OrderControllerTest {
     @MockBean
     private OrderSearchService orderSearchService; // Must be mocked as it's a dependency
 
+    @MockBean
+    private LargeOrderService largeOrderService;
+
+    @MockBean
+    private OrderQuoteService orderQuoteService;
+
+    @MockBean
+    private ExistenceFilterService existenceFilterService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -92,6 +108,69 @@ class OrderControllerTest {
         verify(orderService).getOrderById(orderId);
     }
 
+    @Test
+    void createLargeOrder_shouldStreamBodyToServiceAndReturnSummary() throws Exception {
+        OrderSummaryResponse summary = new OrderSummaryResponse(42L, 7L, "Restock", OrderStatus.PENDING,
+                new BigDecimal("3900.00"), 2L, LocalDateTime.now(), LocalDateTime.now());
+        when(largeOrderService.createLargeOrder(any(InputStream.class))).thenReturn(summary);
+
+        mockMvc.perform(post("/api/v1/orders/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"customerId": 7, "orderDescription": "Restock",
+                                 "items": [{"productId": 10, "quantity": 2}, {"productId": 11, "quantity": 3}]}
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(42)))
+                .andExpect(jsonPath("$.itemCount", is(2)))
+                .andExpect(jsonPath("$.totalAmount", is(3900.00)))
+                .andExpect(jsonPath("$.items").doesNotExist());
+
+        verify(largeOrderService).createLargeOrder(any(InputStream.class));
+    }
+
+    @Test
+    void createLargeOrder_whenStockIsInsufficient_shouldReturnBadRequest() throws Exception {
+        when(largeOrderService.createLargeOrder(any(InputStream.class)))
+                .thenThrow(new InsufficientStockException("Insufficient stockQuantity for product ID 11"));
+
+        mockMvc.perform(post("/api/v1/orders/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\": 7, \"items\": [{\"productId\": 11, \"quantity\": 50}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getOrderById_withoutItems_shouldReturnSummary() throws Exception {
+        Long orderId = 1L;
+        OrderSummaryResponse summary = new OrderSummaryResponse(orderId, 1L, "Bulk order", OrderStatus.PENDING,
+                new BigDecimal("50.00"), 5000L, LocalDateTime.now(), LocalDateTime.now());
+        when(orderService.getOrderSummary(orderId)).thenReturn(summary);
+
+        mockMvc.perform(get("/api/v1/orders/{id}", orderId).param("includeItems", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemCount", is(5000)))
+                .andExpect(jsonPath("$.items").doesNotExist());
+
+        verify(orderService).getOrderSummary(orderId);
+        verify(orderService, never()).getOrderById(any());
+    }
+
+    @Test
+    void getOrderItems_shouldReturnCursorPage() throws Exception {
+        Long orderId = 1L;
+        when(orderService.getOrderItems(orderId, 10L, 1))
+                .thenReturn(new CursorPageResponse<>(Collections.singletonList(sampleOrderItemResponse), 1L, true, 1));
+
+        mockMvc.perform(get("/api/v1/orders/{id}/items", orderId).param("after", "10").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].productName", is(sampleOrderItemResponse.productName())))
+                .andExpect(jsonPath("$.nextCursor", is(1)))
+                .andExpect(jsonPath("$.hasNext", is(true)));
+
+        verify(orderService).getOrderItems(orderId, 10L, 1);
+    }
+
     @Test
     void getOrderById_whenOrderNotFound_shouldReturnNotFound() throws Exception {
         Long orderId = 2L;
@@ -103,6 +182,18 @@ class OrderControllerTest {
         verify(orderService).getOrderById(orderId);
     }
 
+    @Test
+    void getOrderById_whenIdIsKnownMissing_shouldReturnNotFoundWithoutLookup() throws Exception {
+        Long orderId = 3L;
+        doThrow(new OrderNotFoundException("Order not found with ID: " + orderId, false))
+                .when(existenceFilterService).requireOrder(orderId);
+
+        mockMvc.perform(get("/api/v1/orders/{id}", orderId))
+                .andExpect(status().isNotFound());
+
+        verify(orderService, never()).getOrderById(any());
+    }
+
     @Test
     void createOrder_withValidRequest_shouldReturnCreatedOrder() throws Exception {
 
@@ -5,6 +5,7 @@ import com.nicolafogliaro.orderservice.api.dto.product.CreateProductRequest;
 import com.nicolafogliaro.orderservice.api.dto.product.ProductResponse;
 import com.nicolafogliaro.orderservice.api.dto.product.UpdateProductRequest;
 import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
 import com.nicolafogliaro.orderservice.api.service.impl.ProductServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -40,6 +41,9 @@ class ProductControllerTest {
     @MockBean
     private ProductServiceImpl productService; // Mocking the concrete class used in controller
 
+    @MockBean
+    private ExistenceFilterService existenceFilterService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -103,6 +107,22 @@ class ProductControllerTest {
         verify(productService).getAllProducts();
     }
 
+    @Test
+    void getProductsByIds_shouldReturnRequestedProductsInOrder() throws Exception {
+        List<ProductResponse> products = Arrays.asList(sampleProductResponse2, sampleProductResponse1);
+        when(productService.getProductsByIds(List.of(2L, 1L))).thenReturn(products);
+
+        mockMvc.perform(get("/api/v1/products").param("ids", "2,1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is(2)))
+                .andExpect(jsonPath("$[1].id", is(1)));
+
+        verify(productService).getProductsByIds(List.of(2L, 1L));
+        verify(productService, never()).getAllProducts();
+    }
+
     @Test
     void getProductById_whenProductExists_shouldReturnProduct() throws Exception {
         Long productId = 1L;
@@ -0,0 +1,97 @@
+package com.nicolafogliaro.orderservice.api.integration;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSummaryResponse;
+import com.nicolafogliaro.orderservice.api.exception.InsufficientStockException;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.service.LargeOrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Large orders against the database, one product per chunk so that every order spans several chunks.
+ */
+@SpringBootTest(properties = "orders.large.chunk-size=1")
+@Sql(scripts = "/sql/orders.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+// The fixtures insert explicit IDs: move the identities past them
+@Sql(statements = {
+        "ALTER TABLE orders ALTER COLUMN id RESTART WITH 100",
+        "ALTER TABLE order_items ALTER COLUMN id RESTART WITH 100"
+}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class LargeOrderIntegrationTest {
+
+    @Autowired
+    private LargeOrderService largeOrderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private int stock(long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Integer.class);
+    }
+
+    @Test
+    public void createLargeOrder_overSeveralChunks_shouldReserveStockInsertItemsAndComputeTotal() {
+
+        OrderSummaryResponse summary = largeOrderService.createLargeOrder(json("""
+                {"customerId": 200, "orderDescription": "Office restock",
+                 "items": [{"productId": 11, "quantity": 2}, {"productId": 10, "quantity": 2}, {"productId": 11, "quantity": 1}]}
+                """));
+
+        assertThat(summary.customerId()).isEqualTo(200L);
+        assertThat(summary.status()).isEqualTo(OrderStatus.PENDING);
+        assertThat(summary.itemCount()).isEqualTo(2L);
+        assertThat(summary.totalAmount()).isEqualByComparingTo("3900.00");
+
+        assertThat(stock(10)).isEqualTo(3);
+        assertThat(stock(11)).isEqualTo(17);
+
+        List<String> items = jdbcTemplate.queryForList(
+                "SELECT CONCAT(product_id, ':', quantity) FROM order_items WHERE order_id = ? ORDER BY product_id",
+                String.class, summary.id());
+        assertThat(items).containsExactly("10:2", "11:3");
+
+        List<BigDecimal> unitPrices = jdbcTemplate.queryForList(
+                "SELECT unit_price FROM order_items WHERE order_id = ? ORDER BY product_id", BigDecimal.class, summary.id());
+        assertThat(unitPrices).usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("1500"), new BigDecimal("300"));
+
+        BigDecimal total = jdbcTemplate.queryForObject("SELECT total_amount FROM orders WHERE id = ?", BigDecimal.class, summary.id());
+        assertThat(total).isEqualByComparingTo("3900.00");
+    }
+
+    @Test
+    public void createLargeOrder_whenLastChunkFails_shouldRollBackEveryChunk() {
+
+        // Product 10 (first chunk) has enough stock, product 11 (last chunk) does not
+        assertThatThrownBy(() -> largeOrderService.createLargeOrder(json("""
+                {"customerId": 200, "orderDescription": "Too many chairs",
+                 "items": [{"productId": 10, "quantity": 1}, {"productId": 11, "quantity": 50}]}
+                """))).isInstanceOf(InsufficientStockException.class);
+
+        assertThat(stock(10)).isEqualTo(5);
+        assertThat(stock(11)).isEqualTo(20);
+        assertThat(count("SELECT COUNT(*) FROM orders")).isEqualTo(3);
+        assertThat(count("SELECT COUNT(*) FROM order_items")).isEqualTo(2);
+    }
+}
@@ -3,11 +3,19 @@ package com.nicolafogliaro.orderservice.api.integration;
 import com.nicolafogliaro.orderservice.api.controller.PagedOrderResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.dto.product.UpdateProductRequest;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchService;
+import com.nicolafogliaro.orderservice.api.service.OrderService;
+import com.nicolafogliaro.orderservice.api.service.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -21,7 +29,8 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.jpa.properties.hibernate.generate_statistics=true") // Counts the SQL statements of a search
 @Sql(scripts = "/sql/orders.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 @Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
 public class OrderSearchIntegrationTest {
@@ -29,6 +38,18 @@ public class OrderSearchIntegrationTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private OrderSearchService orderSearchService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
     private final String BASE_URL = "/api/v1/orders/search";
 
     private <T> HttpEntity<T> buildJsonRequest(T body) {
@@ -122,5 +143,99 @@ public class OrderSearchIntegrationTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody().getContent()).isEmpty();
     }
-}
 
+    @Test
+    public void searchOrders_withProductTextOnly_shouldMatchThroughItems() {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder()
+                .query("ergonomic") // Only in the description of the product of order 2
+                .build();
+
+        ResponseEntity<PagedOrderResponse> response = restTemplate.exchange(
+                BASE_URL,
+                HttpMethod.POST,
+                buildJsonRequest(criteria),
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getContent()).extracting(OrderResponse::id).containsExactly(2L);
+    }
+
+    @Test
+    public void searchOrders_byRelevanceInLikeMode_shouldFallBackToNewestFirst() {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder()
+                .query("order")
+                .sort("relevance")
+                .build();
+
+        ResponseEntity<PagedOrderResponse> response = restTemplate.exchange(
+                BASE_URL,
+                HttpMethod.POST,
+                buildJsonRequest(criteria),
+                new ParameterizedTypeReference<>() {}
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().getContent()).extracting(OrderResponse::id).containsExactly(2L, 1L);
+    }
+
+    @Test
+    public void searchOrders_byUnsupportedField_shouldReturnBadRequest() {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder()
+                .sort("description") // A column of orders, not of the search projection
+                .build();
+
+        ResponseEntity<String> response = restTemplate.exchange(
+                BASE_URL,
+                HttpMethod.POST,
+                buildJsonRequest(criteria),
+                String.class
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void searchOrdersWithDb_shouldRunAFixedNumberOfQueries() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // First page not full: the total is known without a count -> page of IDs + fetch of the orders
+        statistics.clear();
+        Page<OrderResponse> allOrders = orderSearchService.searchOrdersWithDb(OrderSearchCriteria.builder().size(10).build());
+
+        assertThat(allOrders.getContent()).hasSize(3);
+        assertThat(allOrders.getContent()).allMatch(order -> order.items() != null);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        // Full page: one more statement for the count, whatever the number of orders and items
+        statistics.clear();
+        Page<OrderResponse> firstOfTwo = orderSearchService.searchOrdersWithDb(OrderSearchCriteria.builder()
+                .customerId(100L)
+                .query("order")
+                .size(1)
+                .build());
+
+        assertThat(firstOfTwo.getContent()).hasSize(1);
+        assertThat(firstOfTwo.getTotalElements()).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void searchOrdersWithDb_shouldFollowProductRenamesAndOrderDeletes() {
+        productService.updateProduct(11L, new UpdateProductRequest("Standing Desk", null, null, null));
+
+        assertThat(searchIds("standing")).containsExactly(2L);
+        assertThat(searchIds("office chair")).isEmpty();
+        assertThat(searchIds("ergonomic")).containsExactly(2L); // the description did not change
+
+        orderService.deleteOrder(3L);
+
+        assertThat(searchIds("miscellaneous")).isEmpty();
+    }
+
+    private List<Long> searchIds(String query) {
+        return orderSearchService.searchOrdersWithDb(OrderSearchCriteria.builder().query(query).build())
+                .map(OrderResponse::id)
+                .getContent();
+    }
+}
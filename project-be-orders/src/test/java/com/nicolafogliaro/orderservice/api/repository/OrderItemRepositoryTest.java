@@ -1,9 +1,11 @@
 package com.nicolafogliaro.orderservice.api.repository;
 
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemView;
 import com.nicolafogliaro.orderservice.api.model.OrderItem;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
@@ -64,4 +66,19 @@ class OrderItemRepositoryTest {
         assertThat(items).hasSize(1);
     }
 
-}
\ No newline at end of file
+    @Test
+    @Sql(scripts = "/sql/orders.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+    @Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void findPageByOrderId_shouldReturnItemsAfterCursor() {
+
+        List<OrderItemView> firstPage = orderItemRepository.findPageByOrderId(2L, 0L, Limit.of(10));
+        assertThat(firstPage).hasSize(1);
+        assertThat(firstPage.get(0).getId()).isEqualTo(2L);
+        assertThat(firstPage.get(0).getProductId()).isEqualTo(11L);
+        assertThat(firstPage.get(0).getProductName()).isEqualTo("Office Chair");
+        assertThat(firstPage.get(0).getQuantity()).isEqualTo(2);
+
+        assertThat(orderItemRepository.findPageByOrderId(2L, 2L, Limit.of(10))).isEmpty();
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.nicolafogliaro.orderservice.api.repository;
 
 
+import com.nicolafogliaro.orderservice.api.dto.order.OrderVersionView;
 import com.nicolafogliaro.orderservice.api.model.OrderItem;
 import com.nicolafogliaro.orderservice.api.model.Product;
 import com.nicolafogliaro.orderservice.api.model.order.Order;
@@ -11,10 +12,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.annotation.DirtiesContext;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -229,6 +233,27 @@ public class OrderRepositoryTest {
         assertThat(testEntityManager.find(Order.class, persistedOrder.getId())).isNull();
     }
 
+    @Test
+    public void whenFindVersionsInRange_thenReturnIdsAndUpdateTimesOfTheRange() {
+        List<Order> orders = IntStream.range(0, 4)
+                .mapToObj(i -> testEntityManager.persist(Order.builder()
+                        .customerId(1L)
+                        .status(OrderStatus.PENDING)
+                        .totalAmount(new BigDecimal("10.00"))
+                        .build()))
+                .toList();
+        testEntityManager.flush();
+
+        Long first = orders.get(0).getId();
+
+        List<OrderVersionView> versions = orderRepository.findVersionsInRange(first, orders.get(2).getId(), Limit.unlimited());
+
+        assertThat(versions).extracting(OrderVersionView::getId).containsExactly(orders.get(1).getId(), orders.get(2).getId());
+        assertThat(versions).allSatisfy(version -> assertThat(version.getUpdatedAt()).isNotNull());
+        assertThat(orderRepository.findVersionsInRange(first, Long.MAX_VALUE, Limit.of(2))).hasSize(2);
+        assertThat(orderRepository.findMaxId()).isEqualTo(orders.get(3).getId());
+    }
+
     @Test
     public void testConstraintViolations() { // This test name is a bit generic, consider renaming if it tests a specific constraint
         assertThrows(DataIntegrityViolationException.class, () -> {
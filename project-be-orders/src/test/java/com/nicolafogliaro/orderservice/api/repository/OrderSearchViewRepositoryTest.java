@@ -0,0 +1,149 @@
+package com.nicolafogliaro.orderservice.api.repository;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderChangeView;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSearchView;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.repository.specification.OrderKeyset;
+import com.nicolafogliaro.orderservice.api.repository.specification.OrderSpecifications;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class OrderSearchViewRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private OrderSearchViewRepository orderSearchViewRepository;
+
+    @Test
+    public void whenFindKeysAfter_thenPagesFollowSortOrderWithoutGapsOrDuplicates() {
+        OrderStatus[] statuses = {OrderStatus.PENDING, OrderStatus.SHIPPED, OrderStatus.CONFIRMED};
+        for (int i = 0; i < 8; i++) {
+            persist(OrderSearchView.builder()
+                    .id(i + 1L)
+                    .customerId(i % 4 == 0 ? null : (long) (i % 3)) // Nulls and ties on purpose
+                    .status(statuses[i % statuses.length])
+                    .totalAmount(new BigDecimal(i % 2 == 0 ? "10.00" : "20.50"))
+                    .createdAt(NOW.minusHours(i % 3))
+                    .searchText("order " + i)
+                    .build());
+        }
+
+        List<OrderSearchView> views = orderSearchViewRepository.findAll();
+
+        assertKeysetOrder(OrderSortField.CREATED_AT, Sort.Direction.DESC, views,
+                Comparator.comparing(OrderSearchView::getCreatedAt).thenComparing(OrderSearchView::getId).reversed());
+        assertKeysetOrder(OrderSortField.STATUS, Sort.Direction.ASC, views,
+                Comparator.comparing((OrderSearchView view) -> view.getStatus().name()).thenComparing(OrderSearchView::getId));
+        assertKeysetOrder(OrderSortField.TOTAL_AMOUNT, Sort.Direction.DESC, views,
+                Comparator.comparing(OrderSearchView::getTotalAmount).thenComparing(OrderSearchView::getId).reversed());
+        assertKeysetOrder(OrderSortField.CUSTOMER_ID, Sort.Direction.ASC, views,
+                Comparator.comparing((OrderSearchView view) -> Objects.requireNonNullElse(view.getCustomerId(), 0L)).thenComparing(OrderSearchView::getId));
+    }
+
+    @Test
+    public void whenSearchingText_thenOnlyMatchingOrdersAreReturned() {
+        persist(view(1L, 1L, "monthly restock\u001Fwireless mouse\u001Fergonomic wireless mouse"));
+        persist(view(2L, 1L, "office chairs\u001Fchair\u001Fergonomic office chair"));
+        persist(view(3L, 2L, "ergonomic setup\u001Fdesk\u001Fstanding desk"));
+
+        Specification<OrderSearchView> spec = OrderSpecifications.withSearchCriteria(
+                OrderSearchCriteria.builder().query("ERGONOMIC").customerId(1L).build());
+
+        Page<Long> page = orderSearchViewRepository.findIdPage(spec, PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "id")));
+
+        assertThat(page.getContent()).containsExactly(1L, 2L);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenDeleteByOrderId_thenOnlyThatRowIsRemoved() {
+        persist(view(1L, 1L, "first"));
+        persist(view(2L, 1L, "second"));
+
+        assertThat(orderSearchViewRepository.deleteByOrderId(1L)).isEqualTo(1);
+
+        assertThat(orderSearchViewRepository.findAll()).extracting(OrderSearchView::getId).containsExactly(2L);
+    }
+
+    @Test
+    public void whenFindChangesAfter_thenRowsFollowTheWatermarkInChangeOrder() {
+        persist(view(3L, 1L, "third"));
+        persist(view(1L, 1L, "first"));
+        persist(view(2L, 1L, "second"));
+
+        LocalDateTime until = LocalDateTime.now().plusMinutes(1);
+        List<OrderChangeView> all = orderSearchViewRepository.findChangesAfter(NOW.minusYears(10), 0L, until, Limit.of(10));
+
+        assertThat(all).extracting(OrderChangeView::getOrderId).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(all).isSortedAccordingTo(Comparator.comparing(OrderChangeView::getChangedAt).thenComparing(OrderChangeView::getOrderId));
+
+        OrderChangeView first = all.get(0);
+        assertThat(orderSearchViewRepository.findChangesAfter(first.getChangedAt(), first.getOrderId(), until, Limit.of(10)))
+                .extracting(OrderChangeView::getOrderId)
+                .containsExactly(all.get(1).getOrderId(), all.get(2).getOrderId());
+        assertThat(orderSearchViewRepository.findChangesAfter(NOW.minusYears(10), 0L, first.getChangedAt().minusSeconds(1), Limit.of(10)))
+                .isEmpty();
+    }
+
+    private static OrderSearchView view(Long id, Long customerId, String searchText) {
+        return OrderSearchView.builder()
+                .id(id)
+                .customerId(customerId)
+                .status(OrderStatus.PENDING)
+                .totalAmount(new BigDecimal("100.00"))
+                .createdAt(NOW)
+                .searchText(searchText)
+                .build();
+    }
+
+    private void persist(OrderSearchView view) {
+        view.setUpdatedAt(view.getCreatedAt());
+        testEntityManager.persist(view);
+        testEntityManager.flush();
+        testEntityManager.clear();
+    }
+
+    /**
+     * Walks all the pages (size 3) through encoded cursors and compares the IDs with the expected order.
+     */
+    private void assertKeysetOrder(OrderSortField field, Sort.Direction direction, List<OrderSearchView> views,
+                                   Comparator<OrderSearchView> expectedOrder) {
+        List<Long> expected = views.stream().sorted(expectedOrder).map(OrderSearchView::getId).toList();
+
+        List<Long> actual = new ArrayList<>();
+        OrderKeyset after = null;
+        List<OrderKeyset> page;
+        do {
+            page = orderSearchViewRepository.findKeysAfter(null, field, direction, after, 3);
+            page.forEach(key -> actual.add(key.id()));
+            after = page.isEmpty() ? null : OrderKeyset.decode(page.get(page.size() - 1).encode(), field, direction);
+        } while (page.size() == 3);
+
+        assertThat(actual).as(field + " " + direction).containsExactlyElementsOf(expected);
+    }
+}
@@ -0,0 +1,54 @@
+package com.nicolafogliaro.orderservice.api.repository.specification;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FullTextQuery Tests")
+class FullTextQueryTest {
+
+    @Test
+    @DisplayName("Should require every word as a prefix")
+    void toBooleanQuery_ShouldRequireEveryWord() {
+        assertThat(FullTextQuery.toBooleanQuery("Gaming LAPTOP")).contains("+gaming* +laptop*");
+    }
+
+    @Test
+    @DisplayName("Should strip boolean-mode operators from the input")
+    void toBooleanQuery_ShouldStripOperators() {
+        assertThat(FullTextQuery.toBooleanQuery("-laptop +(chair) \"office\" ~desk* @3 <a>"))
+                .contains("+laptop* +chair* +office* +desk*");
+        assertThat(FullTextQuery.toBooleanQuery("laptop' OR '1'='1")).contains("+laptop*");
+    }
+
+    @Test
+    @DisplayName("Should drop short words, stopwords and duplicates")
+    void toBooleanQuery_ShouldDropUnindexedWords() {
+        assertThat(FullTextQuery.toBooleanQuery("the chair for an office chair")).contains("+chair* +office*");
+    }
+
+    @Test
+    @DisplayName("Should keep letters with accents and digits")
+    void toBooleanQuery_ShouldKeepUnicodeWords() {
+        assertThat(FullTextQuery.toBooleanQuery("Caffè rtx4090")).contains("+caffè* +rtx4090*");
+    }
+
+    @Test
+    @DisplayName("Should return empty when no word can be matched by the index")
+    void toBooleanQuery_ShouldBeEmptyWithoutIndexableWords() {
+        assertThat(FullTextQuery.toBooleanQuery(null)).isEmpty();
+        assertThat(FullTextQuery.toBooleanQuery("  ")).isEmpty();
+        assertThat(FullTextQuery.toBooleanQuery("a an TV +-*")).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Should limit the number of words")
+    void toBooleanQuery_ShouldLimitWords() {
+        String query = FullTextQuery.toBooleanQuery("one two three four five six seven eight nine ten eleven twelve").orElseThrow();
+
+        assertThat(query.split(" ")).hasSize(FullTextQuery.MAX_WORDS);
+    }
+}
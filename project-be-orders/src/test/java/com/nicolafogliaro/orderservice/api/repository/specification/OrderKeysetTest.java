@@ -0,0 +1,60 @@
+package com.nicolafogliaro.orderservice.api.repository.specification;
+
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("OrderKeyset Tests")
+class OrderKeysetTest {
+
+    @Test
+    @DisplayName("Should decode the cursors it encodes for every sort field")
+    void encode_ShouldRoundTrip() {
+        OrderKeyset[] keysets = {
+                new OrderKeyset(OrderSortField.CREATED_AT, Sort.Direction.DESC, LocalDateTime.of(2025, 5, 20, 10, 15, 30, 123_456_000), 1250L),
+                new OrderKeyset(OrderSortField.TOTAL_AMOUNT, Sort.Direction.ASC, new BigDecimal("20.5000"), 7L),
+                new OrderKeyset(OrderSortField.STATUS, Sort.Direction.ASC, OrderStatus.SHIPPED, 3L),
+                new OrderKeyset(OrderSortField.CUSTOMER_ID, Sort.Direction.DESC, 0L, 99L)
+        };
+
+        for (OrderKeyset keyset : keysets) {
+            assertThat(OrderKeyset.decode(keyset.encode(), keyset.field(), keyset.direction())).isEqualTo(keyset);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a cursor issued for another sort")
+    void decode_ShouldRejectOtherSort() {
+        String cursor = new OrderKeyset(OrderSortField.ID, Sort.Direction.ASC, 5L, 5L).encode();
+
+        assertThatThrownBy(() -> OrderKeyset.decode(cursor, OrderSortField.ID, Sort.Direction.DESC))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OrderKeyset.decode(cursor, OrderSortField.CREATED_AT, Sort.Direction.ASC))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursors")
+    void decode_ShouldRejectMalformed() {
+        String[] raw = {"", "1|ID|ASC|5", "2|ID|ASC|5|5", "1|ID|ASC|five|5", "1|ID|ASC|5|x"};
+
+        for (String value : raw) {
+            String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+            assertThatThrownBy(() -> OrderKeyset.decode(cursor, OrderSortField.ID, Sort.Direction.ASC))
+                    .as(value)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> OrderKeyset.decode("not base64!", OrderSortField.ID, Sort.Direction.ASC))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,163 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.nicolafogliaro.orderservice.api.search.CircuitBreaker.Permit;
+import com.nicolafogliaro.orderservice.api.search.CircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("CircuitBreaker Tests")
+class CircuitBreakerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    // Window of 10 calls, at least 4 of them, 50% failed or slow (>= 100ms) opens it for 1s, 2 probes
+    private final CircuitBreaker breaker = new CircuitBreaker("test",
+            new CircuitBreakerSettings(10, 4, 50, Duration.ofMillis(100), 50, Duration.ofSeconds(1), 2),
+            new SimpleMeterRegistry(), clock::get);
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.acquire().onSuccess();
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            breaker.acquire().onFailure();
+        }
+    }
+
+    private void open() {
+        fail(4);
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    @DisplayName("The breaker should stay closed until the window holds the minimum calls")
+    void shouldNotOpenBeforeMinimumCalls() {
+        fail(3);
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.snapshot().failureRate()).isEqualTo(100.0);
+    }
+
+    @Test
+    @DisplayName("The breaker should open when the failure rate reaches the threshold")
+    void shouldOpenOnFailureRate() {
+        succeed(3);
+        fail(2);
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+
+        fail(1);
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(breaker.snapshot().remainingOpenTime()).isEqualTo(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @DisplayName("Successful but slow calls should open the breaker too")
+    void shouldOpenOnSlowCallRate() {
+        for (int i = 0; i < 4; i++) {
+            Permit permit = breaker.acquire();
+            advance(Duration.ofMillis(150));
+            permit.onSuccess();
+        }
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    @DisplayName("Only the latest calls of the window should count")
+    void shouldForgetCallsOutOfTheWindow() {
+        succeed(5);
+        fail(3);
+        succeed(10);
+
+        assertThat(breaker.snapshot().bufferedCalls()).isEqualTo(10);
+        assertThat(breaker.snapshot().failureRate()).isZero();
+    }
+
+    @Test
+    @DisplayName("An open breaker should reject the calls until the open duration elapses")
+    void shouldRejectWhileOpen() {
+        open();
+
+        assertThat(breaker.tryAcquire()).isNull();
+        assertThatThrownBy(breaker::acquire).isInstanceOf(CircuitBreaker.OpenException.class);
+
+        advance(Duration.ofMillis(999));
+        assertThat(breaker.tryAcquire()).isNull();
+
+        advance(Duration.ofMillis(1));
+        assertThat(breaker.tryAcquire()).isNotNull();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    }
+
+    @Test
+    @DisplayName("A half-open breaker should let only its probes through and close when they succeed")
+    void halfOpen_ShouldCloseOnSuccessfulProbes() {
+        open();
+        advance(Duration.ofSeconds(1));
+
+        Permit first = breaker.acquire();
+        Permit second = breaker.acquire();
+        assertThat(breaker.tryAcquire()).isNull();
+
+        first.onSuccess();
+        assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+
+        second.onSuccess();
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+        assertThat(breaker.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("A half-open breaker should open again when the probes fail")
+    void halfOpen_ShouldReopenOnFailedProbes() {
+        open();
+        advance(Duration.ofSeconds(1));
+
+        breaker.acquire().onFailure();
+        breaker.acquire().onSuccess();
+
+        assertThat(breaker.state()).isEqualTo(State.OPEN);
+        assertThat(breaker.tryAcquire()).isNull();
+    }
+
+    @Test
+    @DisplayName("A released probe should let another probe through")
+    void halfOpen_ReleasedProbeShouldBeReplaced() {
+        open();
+        advance(Duration.ofSeconds(1));
+
+        breaker.acquire().release();
+        breaker.acquire();
+
+        assertThat(breaker.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Outcomes of calls started before the last state change should be ignored")
+    void shouldIgnoreStaleOutcomes() {
+        Permit stale = breaker.acquire();
+        open();
+        advance(Duration.ofSeconds(1));
+
+        Permit probe = breaker.acquire();
+        stale.onFailure();
+        probe.onSuccess();
+        breaker.acquire().onSuccess();
+
+        assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    }
+}
@@ -0,0 +1,77 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("CoalescingQueue Tests")
+class CoalescingQueueTest {
+
+    private final CoalescingQueue<Long, String> queue = new CoalescingQueue<>(3);
+
+    @Test
+    @DisplayName("A key offered again should keep its position with the latest value and no extra room")
+    void offer_ShouldReplaceValueOfQueuedKey() throws InterruptedException {
+        assertThat(queue.offer(1L, "a1", 0, TimeUnit.MILLISECONDS)).isEqualTo(CoalescingQueue.Offer.ADDED);
+        assertThat(queue.offer(2L, "b1", 0, TimeUnit.MILLISECONDS)).isEqualTo(CoalescingQueue.Offer.ADDED);
+        assertThat(queue.offer(1L, "a2", 0, TimeUnit.MILLISECONDS)).isEqualTo(CoalescingQueue.Offer.REPLACED);
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.poll(10, 0, TimeUnit.MILLISECONDS)).containsExactly("a2", "b1");
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("A full queue should reject new keys after the timeout but still accept queued keys")
+    void offer_ShouldRejectNewKeysWhenFull() throws InterruptedException {
+        queue.offer(1L, "a", 0, TimeUnit.MILLISECONDS);
+        queue.offer(2L, "b", 0, TimeUnit.MILLISECONDS);
+        queue.offer(3L, "c", 0, TimeUnit.MILLISECONDS);
+
+        assertThat(queue.offer(4L, "d", 20, TimeUnit.MILLISECONDS)).isEqualTo(CoalescingQueue.Offer.REJECTED);
+        assertThat(queue.offer(3L, "c2", 0, TimeUnit.MILLISECONDS)).isEqualTo(CoalescingQueue.Offer.REPLACED);
+    }
+
+    @Test
+    @DisplayName("A producer blocked on a full queue should proceed once a batch is polled")
+    void offer_ShouldWaitForRoom() throws Exception {
+        queue.offer(1L, "a", 0, TimeUnit.MILLISECONDS);
+        queue.offer(2L, "b", 0, TimeUnit.MILLISECONDS);
+        queue.offer(3L, "c", 0, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<CoalescingQueue.Offer> blocked = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queue.offer(4L, "d", 5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThat(queue.poll(2, 0, TimeUnit.MILLISECONDS)).containsExactly("a", "b");
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isEqualTo(CoalescingQueue.Offer.ADDED);
+        assertThat(queue.poll(10, 0, TimeUnit.MILLISECONDS)).containsExactly("c", "d");
+    }
+
+    @Test
+    @DisplayName("Poll should return a full batch at once and a partial batch after the timeout")
+    void poll_ShouldReturnByBatchSizeOrTimeout() throws InterruptedException {
+        queue.offer(1L, "a", 0, TimeUnit.MILLISECONDS);
+        queue.offer(2L, "b", 0, TimeUnit.MILLISECONDS);
+        queue.offer(3L, "c", 0, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        List<String> full = queue.poll(2, 10, TimeUnit.SECONDS);
+        assertThat(full).containsExactly("a", "b");
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+
+        List<String> partial = queue.poll(2, 20, TimeUnit.MILLISECONDS);
+        assertThat(partial).containsExactly("c");
+
+        assertThat(queue.poll(2, 10, TimeUnit.MILLISECONDS)).isEmpty();
+    }
+}
@@ -0,0 +1,81 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("IndexDiff Tests")
+class IndexDiffTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0, 0);
+    private static final LocalDateTime SETTLED_BEFORE = NOW.minusMinutes(2);
+
+    private final Map<Long, LocalDateTime> database = new LinkedHashMap<>();
+    private final Map<Long, LocalDateTime> indexed = new HashMap<>();
+
+    private IndexDiff diff() {
+        return IndexDiff.of(database, indexed, SETTLED_BEFORE, NOW);
+    }
+
+    @Test
+    @DisplayName("Documents with the updatedAt of their order should match, ignoring sub-second precision")
+    void shouldMatchSameUpdatedAt() {
+        database.put(1L, NOW.minusHours(1).plusNanos(300_000_000));
+        indexed.put(1L, NOW.minusHours(1));
+
+        IndexDiff diff = diff();
+
+        assertThat(diff.divergent()).isZero();
+        assertThat(diff.checked()).isEqualTo(1);
+        assertThat(diff.maxLag()).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Missing, stale and orphaned documents should be reported with their lag")
+    void shouldReportDivergences() {
+        database.put(1L, NOW.minusHours(1));
+        database.put(2L, NOW.minusMinutes(30));
+        indexed.put(2L, NOW.minusMinutes(40));
+        indexed.put(3L, NOW.minusDays(1));
+
+        IndexDiff diff = diff();
+
+        assertThat(diff.missing()).containsExactly(1L);
+        assertThat(diff.stale()).containsExactly(2L);
+        assertThat(diff.orphaned()).containsExactly(3L);
+        assertThat(diff.outdated()).containsExactly(1L, 2L);
+        assertThat(diff.divergent()).isEqualTo(3);
+        assertThat(diff.maxLag()).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("A document without updatedAt should be stale")
+    void shouldReportDocumentWithoutUpdatedAtAsStale() {
+        database.put(1L, NOW.minusHours(1));
+        indexed.put(1L, null);
+
+        assertThat(diff().stale()).isEqualTo(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Orders updated within the settle delay should be pending, not divergent")
+    void shouldSkipRecentlyUpdatedOrders() {
+        database.put(1L, NOW.minusSeconds(30));
+        database.put(2L, NOW.minusSeconds(10));
+        indexed.put(2L, NOW.minusHours(1));
+
+        IndexDiff diff = diff();
+
+        assertThat(diff.divergent()).isZero();
+        assertThat(diff.pending()).isEqualTo(2);
+        assertThat(diff.checked()).isZero();
+    }
+}
@@ -0,0 +1,151 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemResponse;
+import com.nicolafogliaro.orderservice.api.model.order.OrderSortField;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("InvertedIndex Tests")
+class InvertedIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 5, 1, 12, 0);
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    private static OrderResponse order(long id, Long customerId, OrderStatus status, String amount, LocalDateTime createdAt,
+                                       String description, String... productNames) {
+        List<OrderItemResponse> items = new ArrayList<>();
+        for (int i = 0; i < productNames.length; i++) {
+            items.add(new OrderItemResponse(id * 100 + i, i + 1L, productNames[i], null, 1, BigDecimal.ONE, BigDecimal.ONE));
+        }
+        return new OrderResponse(id, customerId, description, status, new BigDecimal(amount), items, createdAt, createdAt);
+    }
+
+    private static OrderResponse order(long id, String description, String... productNames) {
+        return order(id, 1L, OrderStatus.PENDING, "10.00", NOW, description, productNames);
+    }
+
+    private List<Long> search(String text) {
+        return ids(index.search(new InvertedIndex.Query(text, null, null, null, null, OrderSortField.ID, true, 0, 100)));
+    }
+
+    private static List<Long> ids(InvertedIndex.Result result) {
+        return result.orders().stream().map(OrderResponse::id).toList();
+    }
+
+    @Test
+    @DisplayName("Tokens should match word prefixes and infixes in any text of the order, all tokens required")
+    void search_ShouldMatchPrefixesAndInfixes() {
+        index.add(order(1, "Monthly restock", "Wireless Mouse"));
+        index.add(order(2, "Office chairs", "Ergonomic chair"));
+        index.add(order(3, "Ergonomic setup", "Standing desk"));
+
+        assertThat(search("ERGO")).containsExactly(2L, 3L);
+        assertThat(search("gonom")).containsExactly(2L, 3L);
+        assertThat(search("ergonomic desk")).containsExactly(3L);
+        assertThat(search("wireless chair")).isEmpty();
+        assertThat(search("restocking")).isEmpty();
+        assertThat(search("  ")).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Tokens shorter than a gram should only match the start of a word")
+    void search_ShortTokensShouldMatchWordStartsOnly() {
+        index.add(order(1, "desk lamp"));
+        index.add(order(2, "standing desk"));
+
+        assertThat(search("de")).containsExactly(1L, 2L);
+        assertThat(search("es")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Adding an indexed order again should replace it, removing it should hide it")
+    void addAndRemove_ShouldReplaceAndHideDocuments() {
+        index.add(order(1, "old keyboard"));
+        index.add(order(2, "keyboard"));
+
+        index.add(order(1, "new monitor"));
+
+        assertThat(search("keyboard")).containsExactly(2L);
+        assertThat(search("monitor")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(2);
+
+        index.remove(2L);
+        index.remove(42L);
+
+        assertThat(search("keyboard")).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Customer, status and creation date filters should apply on top of the text match")
+    void search_ShouldFilterByCustomerStatusAndDates() {
+        index.add(order(1, 1L, OrderStatus.PENDING, "10.00", NOW.minusDays(2), "chair"));
+        index.add(order(2, 1L, OrderStatus.SHIPPED, "10.00", NOW, "chair"));
+        index.add(order(3, 2L, OrderStatus.PENDING, "10.00", NOW, "chair"));
+        index.add(order(4, null, OrderStatus.PENDING, "10.00", NOW, "chair"));
+
+        InvertedIndex.Result byCustomer = index.search(
+                new InvertedIndex.Query("chair", 1L, null, null, null, OrderSortField.ID, true, 0, 10));
+        InvertedIndex.Result byDates = index.search(
+                new InvertedIndex.Query("chair", null, null, NOW.minusDays(1), NOW, OrderSortField.ID, true, 0, 10));
+        InvertedIndex.Result byStatus = index.search(
+                new InvertedIndex.Query("chair", null, OrderStatus.PENDING, null, null, OrderSortField.ID, true, 0, 10));
+
+        assertThat(ids(byCustomer)).containsExactly(1L, 2L);
+        assertThat(ids(byDates)).containsExactly(2L, 3L, 4L);
+        assertThat(ids(byStatus)).containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Sorting should use the doc-value columns with the order ID as tie-break, paging should keep the total")
+    void search_ShouldSortAndPage() {
+        index.add(order(1, 1L, OrderStatus.SHIPPED, "20.50", NOW, "desk"));
+        index.add(order(2, 1L, OrderStatus.CONFIRMED, "99.99", NOW, "desk"));
+        index.add(order(3, 1L, OrderStatus.SHIPPED, "20.50", NOW, "desk"));
+        index.add(order(4, 1L, OrderStatus.PENDING, "5.00", NOW, "desk"));
+
+        InvertedIndex.Result byAmount = index.search(
+                new InvertedIndex.Query("desk", null, null, null, null, OrderSortField.TOTAL_AMOUNT, false, 0, 10));
+        InvertedIndex.Result byStatus = index.search(
+                new InvertedIndex.Query("desk", null, null, null, null, OrderSortField.STATUS, true, 0, 10));
+        InvertedIndex.Result secondPage = index.search(
+                new InvertedIndex.Query("desk", null, null, null, null, OrderSortField.STATUS, true, 2, 2));
+
+        assertThat(ids(byAmount)).containsExactly(2L, 3L, 1L, 4L);
+        assertThat(ids(byStatus)).containsExactly(2L, 4L, 1L, 3L);
+        assertThat(ids(secondPage)).containsExactly(1L, 3L);
+        assertThat(secondPage.totalHits()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Compaction should keep only the current version of every order")
+    void compact_ShouldPreserveCurrentDocuments() {
+        for (long id = 1; id <= 50; id++) {
+            index.add(order(id, "order " + id, "product " + (id % 5)));
+        }
+        for (long id = 1; id <= 50; id += 2) {
+            index.add(order(id, "updated " + id));
+        }
+        index.remove(50L);
+
+        InvertedIndex compacted = index.compact();
+
+        assertThat(compacted.size()).isEqualTo(49);
+        assertThat(ids(compacted.search(new InvertedIndex.Query("updated", null, null, null, null, OrderSortField.ID, true, 0, 100))))
+                .hasSize(25)
+                .isEqualTo(search("updated"));
+        assertThat(ids(compacted.search(new InvertedIndex.Query("product", null, null, null, null, OrderSortField.ID, true, 0, 100))))
+                .isEqualTo(search("product"))
+                .hasSize(24);
+    }
+}
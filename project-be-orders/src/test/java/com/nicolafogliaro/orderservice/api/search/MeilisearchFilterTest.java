@@ -0,0 +1,50 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MeilisearchFilter Tests")
+class MeilisearchFilterTest {
+
+    @Test
+    @DisplayName("Criteria without filters should give no filter expression")
+    void of_ShouldBeEmptyWithoutFilters() {
+        assertThat(MeilisearchFilter.of(OrderSearchCriteria.builder().query("chair").build())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Customer, status and inclusive date range should be combined with AND")
+    void of_ShouldCombineAllFilters() {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder()
+                .customerId(42L)
+                .status(OrderStatus.SHIPPED)
+                .startDate(LocalDate.of(2025, 1, 1))
+                .endDate(LocalDate.of(2025, 1, 31))
+                .build();
+
+        long from = OrderSearchDocument.epochSeconds(LocalDateTime.of(2025, 1, 1, 0, 0));
+        long to = OrderSearchDocument.epochSeconds(LocalDateTime.of(2025, 1, 31, 23, 59, 59));
+
+        assertThat(MeilisearchFilter.of(criteria)).hasValue(
+                "customerId = 42 AND status = SHIPPED AND createdAtEpoch >= " + from + " AND createdAtEpoch <= " + to);
+    }
+
+    @Test
+    @DisplayName("An order created on the last day of the range should be inside it")
+    void of_EndDateShouldIncludeTheWholeDay() {
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().endDate(LocalDate.of(2025, 1, 31)).build();
+
+        long lastSecond = OrderSearchDocument.of(new OrderResponse(
+                1L, 1L, null, OrderStatus.CREATED, null, null, LocalDateTime.of(2025, 1, 31, 23, 59, 59), null)).createdAtEpoch();
+
+        assertThat(MeilisearchFilter.of(criteria)).hasValue("createdAtEpoch <= " + lastSecond);
+    }
+}
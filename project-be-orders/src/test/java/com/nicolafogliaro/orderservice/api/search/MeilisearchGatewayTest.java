@@ -0,0 +1,124 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.meilisearch.sdk.Client;
+import com.meilisearch.sdk.exceptions.MeilisearchApiException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("MeilisearchGateway Tests")
+class MeilisearchGatewayTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Calls are never slow, so that only failures move the window
+    private final CircuitBreaker breaker = new CircuitBreaker("meilisearch",
+            new CircuitBreakerSettings(10, 10, 50, Duration.ofMinutes(1), 50, Duration.ofMinutes(1), 1), meterRegistry);
+
+    // One worker and no queue: a second request in flight is rejected
+    private final ThreadPoolTaskExecutor executor = executor();
+
+    private final MeilisearchGateway gateway = new MeilisearchGateway(mock(Client.class), executor, breaker, meterRegistry);
+
+    private static ThreadPoolTaskExecutor executor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.initialize();
+        return executor;
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    private double calls(String result) {
+        return meterRegistry.counter("search.breaker.calls", "breaker", "meilisearch", "result", result).count();
+    }
+
+    @Test
+    @DisplayName("A request past the timeout should count as a failure and interrupt its worker")
+    void call_TimeoutShouldFailAndInterruptWorker() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> gateway.call("search", client -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        })).isInstanceOf(IllegalStateException.class).hasMessageContaining("timed out");
+
+        assertThat(calls("failure")).isEqualTo(1.0);
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("An API error should be rethrown and count as a success: Meilisearch answered")
+    void call_ApiErrorShouldCountAsSuccess() {
+        MeilisearchApiException invalidSort = mock(MeilisearchApiException.class);
+
+        assertThatThrownBy(() -> gateway.call("search", client -> {
+            throw invalidSort;
+        })).isSameAs(invalidSort);
+
+        assertThat(calls("success")).isEqualTo(1.0);
+        assertThat(calls("failure")).isZero();
+    }
+
+    @Test
+    @DisplayName("A request that cannot be queued should fail right away and count as a failure")
+    void call_RejectedRequestShouldFail() {
+        CountDownLatch busy = new CountDownLatch(1);
+        CompletableFuture<Object> running = gateway.callAsync("index", client -> {
+            try {
+                busy.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+
+        try {
+            assertThatThrownBy(() -> gateway.call("search", client -> "hit"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Too many");
+            assertThat(calls("failure")).isEqualTo(1.0);
+        } finally {
+            busy.countDown();
+        }
+        assertThat(running).succeedsWithin(Duration.ofSeconds(5));
+    }
+
+    @Test
+    @DisplayName("An interrupted caller should give its permit back without an outcome")
+    void call_InterruptedCallerShouldReleasePermit() {
+        Thread.currentThread().interrupt();
+
+        try {
+            assertThatThrownBy(() -> gateway.call("search", client -> "hit"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("Interrupted");
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertThat(breaker.snapshot().bufferedCalls()).isZero();
+        assertThat(calls("success") + calls("failure")).isZero();
+    }
+}
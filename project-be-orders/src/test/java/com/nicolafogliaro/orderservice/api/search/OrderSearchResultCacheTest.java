@@ -0,0 +1,100 @@
+package com.nicolafogliaro.orderservice.api.search;
+
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.search.OrderSearchResultCache.Source;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.nicolafogliaro.orderservice.api.config.CacheConfig.ORDER_SEARCH_CACHE_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("OrderSearchResultCache Tests")
+class OrderSearchResultCacheTest {
+
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> epochs = mock(ValueOperations.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+    private final OrderSearchResultCache cache = new OrderSearchResultCache(redisTemplate,
+            new ConcurrentMapCacheManager(ORDER_SEARCH_CACHE_NAME), new SimpleMeterRegistry());
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private Page<OrderResponse> search() {
+        searches.incrementAndGet();
+        return new PageImpl<>(List.of(), PageRequest.of(0, 20), 0);
+    }
+
+    @Test
+    @DisplayName("Criteria differing only by case, spaces or defaults should have the same hash")
+    void hash_ShouldNormalizeCriteria() {
+        String hash = OrderSearchResultCache.hash(OrderSearchCriteria.builder().query("Office  Chair").build());
+
+        assertThat(OrderSearchResultCache.hash(OrderSearchCriteria.builder().query(" office chair ").direction("DESC").build()))
+                .isEqualTo(hash);
+        assertThat(OrderSearchResultCache.hash(OrderSearchCriteria.builder().query("office chair").page(1).build()))
+                .isNotEqualTo(hash);
+        assertThat(OrderSearchResultCache.hash(OrderSearchCriteria.builder().query("office chair").customerId(1L).build()))
+                .isNotEqualTo(hash);
+    }
+
+    @Test
+    @DisplayName("A page should be served from the cache until the global epoch moves")
+    void get_ShouldMissAfterGlobalEpochMoves() {
+        when(redisTemplate.opsForValue()).thenReturn(epochs);
+        when(epochs.get(OrderSearchResultCache.GLOBAL_EPOCH_KEY)).thenReturn("7", "7", "8");
+
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().query("chair").build();
+
+        cache.get(Source.DB, criteria, this::search);
+        cache.get(Source.DB, criteria, this::search);
+        assertThat(searches).hasValue(1);
+
+        cache.get(Source.DB, criteria, this::search);
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("A customer search should depend on that customer's epoch only")
+    void get_CustomerSearchShouldFollowCustomerEpoch() {
+        when(redisTemplate.opsForValue()).thenReturn(epochs);
+        when(epochs.multiGet(List.of(OrderSearchResultCache.ALL_EPOCH_KEY, OrderSearchResultCache.CUSTOMER_EPOCH_KEY_PREFIX + 5)))
+                .thenReturn(Arrays.asList(null, "3"), Arrays.asList(null, "3"), Arrays.asList(null, "9"));
+
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().customerId(5L).build();
+
+        cache.get(Source.ENGINE, criteria, this::search);
+        cache.get(Source.ENGINE, criteria, this::search);
+        cache.get(Source.ENGINE, criteria, this::search);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Searches should bypass the cache when the epochs cannot be read")
+    void get_ShouldBypassWithoutRedis() {
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().query("chair").build();
+
+        cache.get(Source.DB, criteria, this::search);
+        cache.get(Source.DB, criteria, this::search);
+
+        assertThat(searches).hasValue(2);
+    }
+}
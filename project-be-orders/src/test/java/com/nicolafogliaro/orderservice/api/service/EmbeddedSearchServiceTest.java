@@ -0,0 +1,237 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderSearchCriteria;
+import com.nicolafogliaro.orderservice.api.mapper.OrderMapper;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.search.InvertedIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.DataOutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("EmbeddedSearchService Tests")
+class EmbeddedSearchServiceTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 6, 1, 12, 0);
+    private static final LocalDateTime ALL_ORDERS = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    // Orders of the database, by ID
+    private final NavigableMap<Long, Order> database = new TreeMap<>();
+
+    // Run while the database is read, as a concurrent order change would
+    private Runnable duringRead = () -> {};
+
+    @TempDir
+    Path snapshotDirectory;
+
+    @BeforeEach
+    void setUp() {
+        when(orderRepository.findIdsUpdatedSince(any(LocalDateTime.class), anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            LocalDateTime since = invocation.getArgument(0);
+            long after = invocation.getArgument(1);
+            Limit limit = invocation.getArgument(2);
+            return database.tailMap(after, false).values().stream()
+                    .filter(order -> !order.getUpdatedAt().isBefore(since))
+                    .map(Order::getId)
+                    .limit(limit.max())
+                    .toList();
+        });
+        when(orderRepository.findAllWithItemsByIdIn(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            List<Order> orders = ids.stream().map(database::get).filter(Objects::nonNull).toList();
+            Runnable change = duringRead;
+            duringRead = () -> {};
+            change.run();
+            return orders;
+        });
+    }
+
+    private EmbeddedSearchService service(Path snapshotPath) {
+        EmbeddedSearchService service = new EmbeddedSearchService(orderRepository, objectMapper, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "snapshotPath", snapshotPath != null ? snapshotPath.toString() : "");
+        return service;
+    }
+
+    private static Order order(long id, String description, LocalDateTime updatedAt) {
+        return Order.builder()
+                .id(id)
+                .customerId(100L)
+                .description(description)
+                .status(OrderStatus.PENDING)
+                .totalAmount(BigDecimal.TEN)
+                .createdAt(CREATED_AT.plusMinutes(id))
+                .updatedAt(updatedAt)
+                .orderItems(new ArrayList<>())
+                .build();
+    }
+
+    private void givenOrder(long id, String description) {
+        database.put(id, order(id, description, CREATED_AT.plusMinutes(id)));
+    }
+
+    private static Page<OrderResponse> search(EmbeddedSearchService service, String query) {
+        return service.searchOrders(OrderSearchCriteria.builder().query(query).size(100).direction("asc").build());
+    }
+
+    private static List<Long> searchIds(EmbeddedSearchService service, String query) {
+        return search(service, query).getContent().stream().map(OrderResponse::id).toList();
+    }
+
+    @Test
+    @DisplayName("Searches should be rejected until a first index is built, also after a failed build")
+    void searchOrders_ShouldWaitForFirstIndex() {
+        Path snapshot = snapshotDirectory.resolve("orders.snapshot");
+        EmbeddedSearchService service = service(snapshot);
+
+        assertThatThrownBy(() -> search(service, null)).isInstanceOf(IllegalStateException.class);
+
+        doThrow(new DataAccessResourceFailureException("Database down"))
+                .when(orderRepository).findIdsUpdatedSince(any(LocalDateTime.class), anyLong(), any(Limit.class));
+        service.initializeIndexes();
+        service.maintain();
+
+        assertThatThrownBy(() -> search(service, null)).isInstanceOf(IllegalStateException.class);
+        assertThat(snapshot).doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Changes received during a rebuild should be replayed on the new index")
+    void syncAllOrders_ShouldReplayChangesDuringBuild() {
+        givenOrder(1, "Office chair");
+        givenOrder(2, "Office chair");
+        givenOrder(3, "Office chair");
+        EmbeddedSearchService service = service(null);
+        service.initializeIndexes();
+
+        // Order 2 is deleted and order 4 created after the rebuild has read the orders
+        duringRead = () -> {
+            service.deleteOrder(2L);
+            service.indexOrder(OrderMapper.toDto(order(4, "Office chair", CREATED_AT)));
+        };
+        service.syncAllOrders();
+
+        assertThat(searchIds(service, "chair")).containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Maintenance should compact an index mostly made of replaced documents, keeping the latest versions")
+    void maintain_ShouldCompactIndex() {
+        EmbeddedSearchService service = service(null);
+        service.initializeIndexes();
+        for (long id = 1; id <= 1200; id++) {
+            service.indexOrder(OrderMapper.toDto(order(id, "Office chair", CREATED_AT)));
+        }
+        for (long id = 1; id <= 700; id++) {
+            service.indexOrder(OrderMapper.toDto(order(id, "Standing desk", CREATED_AT)));
+        }
+        InvertedIndex before = (InvertedIndex) ReflectionTestUtils.getField(service, "index");
+        assertThat(before.needsCompaction()).isTrue();
+
+        service.maintain();
+
+        InvertedIndex after = (InvertedIndex) ReflectionTestUtils.getField(service, "index");
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.needsCompaction()).isFalse();
+        assertThat(after.size()).isEqualTo(1200);
+        assertThat(search(service, "desk").getTotalElements()).isEqualTo(700);
+        assertThat(search(service, "chair").getTotalElements()).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("A saved snapshot should be loaded at startup, reading only the orders updated since it was written")
+    void snapshot_ShouldRoundTripAndCatchUp() {
+        Path snapshot = snapshotDirectory.resolve("search").resolve("orders.snapshot");
+        givenOrder(1, "Office chair");
+        givenOrder(2, "Standing desk");
+        EmbeddedSearchService first = service(snapshot);
+        first.initializeIndexes();
+        first.shutdown();
+        assertThat(snapshot).isRegularFile();
+
+        // Order 2 was deleted and order 3 created while the application was down
+        database.remove(2L);
+        database.put(3L, order(3, "Office lamp", LocalDateTime.now()));
+        clearInvocations(orderRepository);
+
+        EmbeddedSearchService second = service(snapshot);
+        second.initializeIndexes();
+
+        assertThat(searchIds(second, null)).containsExactly(1L, 2L, 3L);
+        assertThat(search(second, "desk").getContent()).extracting(OrderResponse::description).containsExactly("Standing desk");
+        verify(orderRepository, never()).findIdsUpdatedSince(eq(ALL_ORDERS), anyLong(), any(Limit.class));
+        verify(orderRepository).findAllWithItemsByIdIn(List.of(3L));
+    }
+
+    @Test
+    @DisplayName("A snapshot of another version should be ignored and the index rebuilt from the database")
+    void snapshot_WithOtherVersionShouldBeIgnored() throws Exception {
+        Path snapshot = snapshotDirectory.resolve("orders.snapshot");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(snapshot)))) {
+            out.writeInt(2);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(0);
+        }
+        givenOrder(1, "Office chair");
+        EmbeddedSearchService service = service(snapshot);
+
+        service.initializeIndexes();
+
+        verify(orderRepository).findIdsUpdatedSince(eq(ALL_ORDERS), eq(0L), any(Limit.class));
+        assertThat(searchIds(service, null)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Reindexed orders should be read again, and the ones no longer found removed")
+    void reindexOrders_ShouldRemoveOrdersNotFound() {
+        givenOrder(1, "Office chair");
+        givenOrder(2, "Office chair");
+        givenOrder(3, "Office chair");
+        EmbeddedSearchService service = service(null);
+        service.initializeIndexes();
+
+        database.remove(2L);
+        givenOrder(3, "Standing desk");
+        service.reindexOrders(List.of(1L, 2L, 3L));
+
+        assertThat(searchIds(service, null)).containsExactly(1L, 3L);
+        assertThat(searchIds(service, "desk")).containsExactly(3L);
+    }
+}
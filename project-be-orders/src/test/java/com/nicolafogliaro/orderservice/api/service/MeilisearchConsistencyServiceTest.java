@@ -0,0 +1,247 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.meilisearch.sdk.Client;
+import com.meilisearch.sdk.Index;
+import com.meilisearch.sdk.model.DocumentsQuery;
+import com.meilisearch.sdk.model.TaskInfo;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderVersionView;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchGateway;
+import com.nicolafogliaro.orderservice.api.service.MeilisearchConsistencyService.Mode;
+import com.nicolafogliaro.orderservice.api.service.MeilisearchConsistencyService.Report;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.nicolafogliaro.orderservice.api.service.MeilisearchService.ORDERS_INDEX;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("MeilisearchConsistencyService Tests")
+class MeilisearchConsistencyServiceTest {
+
+    // Largest page the stub index returns, below the chunk size asked for
+    private static final int MAX_PAGE = 200;
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2025, 6, 1, 12, 0);
+    private static final Pattern FILTER = Pattern.compile("id > (\\d+)(?: AND id <= (\\d+))?");
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final MeilisearchGateway meilisearchGateway = mock(MeilisearchGateway.class);
+    private final Index index = mock(Index.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private final MeilisearchConsistencyService service = new MeilisearchConsistencyService(orderRepository,
+            meilisearchGateway, objectMapper, mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+    // Update time of the orders in the database and of the documents in the index, by ID
+    private final NavigableMap<Long, LocalDateTime> database = new ConcurrentSkipListMap<>();
+    private final NavigableMap<Long, LocalDateTime> indexed = new ConcurrentSkipListMap<>();
+
+    // Filters of the document reads, with the offset of each page
+    private final List<String> documentReads = Collections.synchronizedList(new ArrayList<>());
+
+    private final AtomicInteger taskUids = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        Client client = mock(Client.class);
+        when(meilisearchGateway.client()).thenReturn(client);
+        when(client.index(ORDERS_INDEX)).thenReturn(index);
+
+        when(orderRepository.findMaxId()).thenAnswer(invocation -> database.isEmpty() ? 0L : database.lastKey());
+        when(orderRepository.findIdsAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return database.tailMap(after, false).keySet().stream().limit(limit.max()).toList();
+        });
+        when(orderRepository.findVersionsInRange(anyLong(), anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            return database.subMap(after, false, to, true).entrySet().stream()
+                    .map(order -> version(order.getKey(), order.getValue()))
+                    .toList();
+        });
+        when(orderRepository.findAllWithItemsByIdIn(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(MeilisearchConsistencyServiceTest::order).toList();
+        });
+
+        when(index.getRawDocuments(any(DocumentsQuery.class))).thenAnswer(invocation -> page(invocation.getArgument(0)));
+        when(index.addDocuments(anyString())).thenAnswer(invocation -> taskInfo());
+        when(index.deleteDocuments(anyList())).thenAnswer(invocation -> taskInfo());
+    }
+
+    private TaskInfo taskInfo() {
+        TaskInfo taskInfo = mock(TaskInfo.class);
+        when(taskInfo.getTaskUid()).thenReturn(taskUids.incrementAndGet());
+        return taskInfo;
+    }
+
+    /**
+     * The documents of the filtered ID range from the offset, at most {@link #MAX_PAGE} of them, with their total.
+     */
+    private String page(DocumentsQuery query) throws Exception {
+        String filter = query.getFilter()[0];
+        documentReads.add(filter + " @" + query.getOffset());
+
+        Matcher matcher = FILTER.matcher(filter);
+        assertThat(matcher.matches()).isTrue();
+        long after = Long.parseLong(matcher.group(1));
+        long to = matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : Long.MAX_VALUE;
+
+        List<Map<String, Object>> documents = indexed.subMap(after, false, to, true).entrySet().stream()
+                .map(document -> Map.<String, Object>of("id", document.getKey(), "updatedAt", document.getValue()))
+                .toList();
+        List<Map<String, Object>> results = documents.stream()
+                .skip(query.getOffset())
+                .limit(Math.min(query.getLimit(), MAX_PAGE))
+                .toList();
+
+        return objectMapper.writeValueAsString(Map.of("results", results, "total", documents.size()));
+    }
+
+    private static OrderVersionView version(Long id, LocalDateTime updatedAt) {
+        return new OrderVersionView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getUpdatedAt() {
+                return updatedAt;
+            }
+        };
+    }
+
+    private static Order order(Long id) {
+        return Order.builder()
+                .id(id)
+                .customerId(100L)
+                .description("Order " + id)
+                .status(OrderStatus.PENDING)
+                .totalAmount(BigDecimal.TEN)
+                .updatedAt(UPDATED_AT)
+                .orderItems(new ArrayList<>())
+                .build();
+    }
+
+    private void givenOrders(long count) {
+        for (long id = 1; id <= count; id++) {
+            database.put(id, UPDATED_AT);
+            indexed.put(id, UPDATED_AT);
+        }
+    }
+
+    @Test
+    @DisplayName("The full check should walk each range in chunks, stop at its bound, and leave the last range open")
+    void runFullCheck_ShouldSplitRangesIntoChunks() {
+        // 4 ranges of 750 orders: one full chunk of 500, then the rest up to the bound of the range
+        givenOrders(3000);
+
+        Report report = service.runFullCheck();
+
+        assertThat(report.mode()).isEqualTo(Mode.FULL);
+        assertThat(report.chunks()).isEqualTo(8);
+        assertThat(report.checked()).isEqualTo(3000);
+        assertThat(report.divergent()).isZero();
+
+        // The chunk read up to 1000 while the range ends at 750: the bound of the range wins
+        verify(orderRepository).findVersionsInRange(eq(0L), eq(500L), any());
+        verify(orderRepository).findVersionsInRange(eq(500L), eq(750L), any());
+        verify(orderRepository).findVersionsInRange(eq(1500L), eq(2000L), any());
+        verify(orderRepository).findVersionsInRange(eq(2000L), eq(2250L), any());
+        // The last chunk of the last range is open
+        verify(orderRepository).findVersionsInRange(eq(2250L), eq(2750L), any());
+        verify(orderRepository).findVersionsInRange(eq(2750L), eq(Long.MAX_VALUE), any());
+        assertThat(documentReads).contains("id > 2750 @0");
+
+        verify(index, never()).addDocuments(anyString());
+        verify(index, never()).deleteDocuments(anyList());
+    }
+
+    @Test
+    @DisplayName("The documents of a chunk should be read page after page until the total is reached")
+    void runFullCheck_ShouldPageDocumentsOnTotal() {
+        // One range of 450 documents, read in pages of 200
+        givenOrders(1800);
+
+        service.runFullCheck();
+
+        List<String> firstRange = documentReads.stream().filter(read -> read.startsWith("id > 0 AND id <= 450 ")).toList();
+        assertThat(firstRange).containsExactly("id > 0 AND id <= 450 @0", "id > 0 AND id <= 450 @200", "id > 0 AND id <= 450 @400");
+        verify(index, never()).addDocuments(anyString());
+    }
+
+    @Test
+    @DisplayName("Missing and stale documents should be sent again, and documents without order deleted")
+    void runFullCheck_ShouldRepairDivergences() throws Exception {
+        givenOrders(30);
+        indexed.remove(10L);
+        indexed.put(20L, UPDATED_AT.minusHours(1));
+        // Above the highest order ID: only the open last range finds it
+        indexed.put(5000L, UPDATED_AT);
+
+        Report report = service.runFullCheck();
+
+        assertThat(report.missing()).isEqualTo(1);
+        assertThat(report.stale()).isEqualTo(1);
+        assertThat(report.orphaned()).isEqualTo(1);
+        assertThat(report.repaired()).isEqualTo(3);
+
+        ArgumentCaptor<String> sent = ArgumentCaptor.forClass(String.class);
+        verify(index, times(2)).addDocuments(sent.capture());
+        List<Long> sentIds = new ArrayList<>();
+        for (String json : sent.getAllValues()) {
+            for (var document : objectMapper.readTree(json)) {
+                sentIds.add(document.path("id").asLong());
+            }
+        }
+        assertThat(sentIds).containsExactlyInAnyOrder(10L, 20L);
+        verify(index).deleteDocuments(List.of("5000"));
+    }
+
+    @Test
+    @DisplayName("Orders updated within the settle delay should be counted as pending, not repaired")
+    void runSampledCheck_ShouldLeaveRecentChangesPending() {
+        database.put(1L, LocalDateTime.now());
+
+        Report report = service.runSampledCheck();
+
+        // Both sampled chunks start below the only order
+        assertThat(report.mode()).isEqualTo(Mode.SAMPLED);
+        assertThat(report.chunks()).isEqualTo(2);
+        assertThat(report.pending()).isEqualTo(2);
+        assertThat(report.divergent()).isZero();
+        verify(index, never()).addDocuments(anyString());
+    }
+}
@@ -0,0 +1,196 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meilisearch.sdk.Client;
+import com.meilisearch.sdk.Index;
+import com.meilisearch.sdk.exceptions.MeilisearchException;
+import com.meilisearch.sdk.model.Task;
+import com.meilisearch.sdk.model.TaskInfo;
+import com.meilisearch.sdk.model.TaskStatus;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("MeilisearchReindexService Tests")
+class MeilisearchReindexServiceTest {
+
+    private static final String INDEX_UID = "orders_v1";
+    private static final int CHUNK_SIZE = 1000;
+    private static final int PARALLELISM = 4;
+
+    private final Client client = mock(Client.class);
+    private final Index index = mock(Index.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final StubGateway gateway = new StubGateway(client);
+
+    private final MeilisearchReindexService service = new MeilisearchReindexService(orderRepository, gateway,
+            new ObjectMapper(), mock(PlatformTransactionManager.class));
+
+    private final AtomicInteger taskUids = new AtomicInteger();
+
+    /**
+     * Gateway whose asynchronous requests run only when the test completes them, or right away in auto mode.
+     */
+    private static class StubGateway extends MeilisearchGateway {
+
+        private final Client client;
+        private final List<Runnable> pending = new ArrayList<>();
+        private volatile boolean autoComplete;
+        private final AtomicInteger requests = new AtomicInteger();
+
+        StubGateway(Client client) {
+            super(client, null, null, null);
+            this.client = client;
+        }
+
+        @Override
+        public <T> CompletableFuture<T> callAsync(String operation, Function<Client, T> request) {
+            requests.incrementAndGet();
+            if (autoComplete) {
+                try {
+                    return CompletableFuture.completedFuture(request.apply(client));
+                } catch (RuntimeException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            CompletableFuture<T> future = new CompletableFuture<>();
+            synchronized (pending) {
+                pending.add(() -> future.complete(request.apply(client)));
+            }
+            return future;
+        }
+
+        int requests() {
+            return requests.get();
+        }
+
+        void completePending() {
+            List<Runnable> toComplete;
+            synchronized (pending) {
+                toComplete = new ArrayList<>(pending);
+                pending.clear();
+            }
+            toComplete.forEach(Runnable::run);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(client.index(INDEX_UID)).thenReturn(index);
+        when(index.addDocuments(anyString())).thenAnswer(invocation -> {
+            TaskInfo taskInfo = mock(TaskInfo.class);
+            when(taskInfo.getTaskUid()).thenReturn(taskUids.incrementAndGet());
+            return taskInfo;
+        });
+
+        Task succeeded = task(TaskStatus.SUCCEEDED);
+        when(client.getTask(anyInt())).thenReturn(succeeded);
+    }
+
+    private static Task task(TaskStatus status) {
+        Task task = mock(Task.class);
+        when(task.getStatus()).thenReturn(status);
+        return task;
+    }
+
+    private void stubOrders(long count) {
+        when(orderRepository.findIdsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return LongStream.rangeClosed(after + 1, Math.min(after + CHUNK_SIZE, count)).boxed().toList();
+        });
+    }
+
+    @Test
+    @DisplayName("No more than the configured number of chunks should be in flight, and all should be sent")
+    void reindex_ShouldBoundChunksInFlight() throws Exception {
+        stubOrders(5500);
+
+        CompletableFuture<Long> result = CompletableFuture.supplyAsync(() -> service.reindex(INDEX_UID));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> gateway.requests() == PARALLELISM);
+        Thread.sleep(200);
+        assertThat(gateway.requests()).isEqualTo(PARALLELISM);
+        assertThat(result).isNotDone();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> {
+            gateway.completePending();
+            return result.isDone();
+        });
+
+        assertThat(result.get()).isEqualTo(5500);
+        assertThat(gateway.requests()).isEqualTo(6);
+        verify(client, times(6)).waitForTask(anyInt(), eq((int) Duration.ofMinutes(30).toMillis()), eq(500));
+    }
+
+    @Test
+    @DisplayName("A chunk that cannot be sent should stop the reading and fail the reindex before waiting for tasks")
+    void reindex_ShouldPropagateSendFailure() {
+        stubOrders(5500);
+        gateway.autoComplete = true;
+        doThrow(new MeilisearchException("unavailable")).when(index).addDocuments(anyString());
+
+        assertThatThrownBy(() -> service.reindex(INDEX_UID))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(INDEX_UID)
+                .hasCauseInstanceOf(MeilisearchException.class);
+
+        verify(orderRepository, times(1)).findIdsAfter(anyLong(), any());
+        verify(client, never()).waitForTask(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("The tasks of the chunks should be waited for in order, and a failed one should fail the reindex")
+    void reindex_ShouldWaitForTasksAndFailOnFailedTask() {
+        stubOrders(1500);
+        gateway.autoComplete = true;
+        Task failed = task(TaskStatus.FAILED);
+        when(client.getTask(2)).thenReturn(failed);
+
+        assertThatThrownBy(() -> service.reindex(INDEX_UID))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("task 2");
+
+        InOrder inOrder = inOrder(client);
+        inOrder.verify(client).waitForTask(eq(1), anyInt(), eq(500));
+        inOrder.verify(client).getTask(1);
+        inOrder.verify(client).waitForTask(eq(2), anyInt(), eq(500));
+        inOrder.verify(client).getTask(2);
+    }
+
+    @Test
+    @DisplayName("An empty database should send nothing")
+    void reindex_ShouldSendNothingWithoutOrders() {
+        stubOrders(0);
+
+        assertThat(service.reindex(INDEX_UID)).isZero();
+        assertThat(gateway.requests()).isZero();
+    }
+}
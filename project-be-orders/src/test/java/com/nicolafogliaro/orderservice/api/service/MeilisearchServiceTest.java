@@ -0,0 +1,169 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.meilisearch.sdk.Client;
+import com.meilisearch.sdk.Index;
+import com.meilisearch.sdk.model.IndexesQuery;
+import com.meilisearch.sdk.model.Results;
+import com.meilisearch.sdk.model.SwapIndexesParams;
+import com.meilisearch.sdk.model.Task;
+import com.meilisearch.sdk.model.TaskInfo;
+import com.meilisearch.sdk.model.TaskStatus;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchGateway;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchIndexer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.util.stream.IntStream;
+
+import static com.nicolafogliaro.orderservice.api.service.MeilisearchService.ORDERS_INDEX;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("MeilisearchService blue/green rebuild Tests")
+class MeilisearchServiceTest {
+
+    private static final int CREATE_TASK = 1;
+    private static final int SETTINGS_TASK = 2;
+    private static final int SWAP_TASK = 3;
+    private static final int DELETE_TASK = 4;
+
+    private final Client client = mock(Client.class);
+    private final MeilisearchGateway meilisearchGateway = mock(MeilisearchGateway.class);
+    private final MeilisearchSyncService meilisearchSyncService = mock(MeilisearchSyncService.class);
+    private final MeilisearchReindexService meilisearchReindexService = mock(MeilisearchReindexService.class);
+
+    private final MeilisearchService service = new MeilisearchService(new ObjectMapper(), meilisearchGateway,
+            mock(MeilisearchIndexer.class), meilisearchSyncService, meilisearchReindexService);
+
+    @BeforeEach
+    void setUp() {
+        when(meilisearchGateway.client()).thenReturn(client);
+
+        Results<Index> noIndexes = indexPage();
+        when(client.getIndexes(any(IndexesQuery.class))).thenReturn(noIndexes);
+
+        // Built before stubbing: they are mocks stubbed themselves
+        TaskInfo create = taskInfo(CREATE_TASK);
+        TaskInfo settings = taskInfo(SETTINGS_TASK);
+        TaskInfo swap = taskInfo(SWAP_TASK);
+        TaskInfo delete = taskInfo(DELETE_TASK);
+        Task succeeded = task(TaskStatus.SUCCEEDED);
+
+        Index index = mock(Index.class);
+        when(client.index(anyString())).thenReturn(index);
+        when(client.createIndex(anyString(), eq("id"))).thenReturn(create);
+        when(index.updateSettings(any())).thenReturn(settings);
+        when(client.swapIndexes(any(SwapIndexesParams[].class))).thenReturn(swap);
+        when(client.deleteIndex(anyString())).thenReturn(delete);
+        when(client.getTask(anyInt())).thenReturn(succeeded);
+    }
+
+    private static TaskInfo taskInfo(int taskUid) {
+        TaskInfo taskInfo = mock(TaskInfo.class);
+        when(taskInfo.getTaskUid()).thenReturn(taskUid);
+        return taskInfo;
+    }
+
+    private static Task task(TaskStatus status) {
+        Task task = mock(Task.class);
+        when(task.getStatus()).thenReturn(status);
+        return task;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Results<Index> indexPage(String... uids) {
+        Index[] indexes = new Index[uids.length];
+        for (int i = 0; i < uids.length; i++) {
+            indexes[i] = mock(Index.class);
+            when(indexes[i].getUid()).thenReturn(uids[i]);
+        }
+        Results<Index> page = mock(Results.class);
+        when(page.getResults()).thenReturn(indexes);
+        return page;
+    }
+
+    /**
+     * The upload the full synchronization runs, so that its failures reach the test.
+     */
+    private Runnable upload() {
+        service.syncAllOrders();
+        ArgumentCaptor<Runnable> upload = ArgumentCaptor.forClass(Runnable.class);
+        verify(meilisearchSyncService).runFullSync(upload.capture());
+        return upload.getValue();
+    }
+
+    private String versionUid() {
+        ArgumentCaptor<String> uid = ArgumentCaptor.forClass(String.class);
+        verify(client).createIndex(uid.capture(), eq("id"));
+        return uid.getValue();
+    }
+
+    @Test
+    @DisplayName("The new build should be swapped in, then the versioned index holding the previous documents dropped")
+    void upload_ShouldSwapThenDropPreviousDocuments() {
+        upload().run();
+
+        String versionUid = versionUid();
+        verify(meilisearchReindexService).reindex(versionUid);
+
+        InOrder inOrder = inOrder(client);
+        inOrder.verify(client).swapIndexes(any(SwapIndexesParams[].class));
+        inOrder.verify(client).getTask(SWAP_TASK);
+        inOrder.verify(client).deleteIndex(versionUid);
+    }
+
+    @Test
+    @DisplayName("A failed swap should fail the upload and keep the complete build")
+    void upload_FailedSwapShouldKeepTheBuild() {
+        Task failed = task(TaskStatus.FAILED);
+        when(client.getTask(SWAP_TASK)).thenReturn(failed);
+
+        assertThatThrownBy(upload()::run).isInstanceOf(IllegalStateException.class).hasMessageContaining("swap");
+
+        String versionUid = versionUid();
+        verify(client, never()).deleteIndex(versionUid);
+    }
+
+    @Test
+    @DisplayName("A failed settings update should fail the upload before indexing and drop the incomplete index")
+    void upload_FailedSettingsShouldDropTheBuild() {
+        Task failed = task(TaskStatus.FAILED);
+        when(client.getTask(SETTINGS_TASK)).thenReturn(failed);
+
+        assertThatThrownBy(upload()::run).isInstanceOf(IllegalStateException.class).hasMessageContaining("settings");
+
+        verify(meilisearchReindexService, never()).reindex(anyString());
+        verify(client, never()).swapIndexes(any(SwapIndexesParams[].class));
+        String versionUid = versionUid();
+        verify(client).deleteIndex(versionUid);
+    }
+
+    @Test
+    @DisplayName("Versioned indexes left by earlier rebuilds should be dropped from every page of indexes")
+    void upload_ShouldDropLeftoversOfAllPages() {
+        String[] firstPage = IntStream.range(0, 100)
+                .mapToObj(i -> i == 42 ? ORDERS_INDEX + "_v1" : "other_" + i)
+                .toArray(String[]::new);
+        Results<Index> first = indexPage(firstPage);
+        Results<Index> second = indexPage(ORDERS_INDEX, ORDERS_INDEX + "_v2");
+        when(client.getIndexes(any(IndexesQuery.class))).thenReturn(first, second);
+
+        upload().run();
+
+        verify(client).deleteIndex(ORDERS_INDEX + "_v1");
+        verify(client).deleteIndex(ORDERS_INDEX + "_v2");
+        verify(client, never()).deleteIndex(ORDERS_INDEX);
+    }
+}
@@ -0,0 +1,176 @@
+package com.nicolafogliaro.orderservice.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.meilisearch.sdk.Client;
+import com.meilisearch.sdk.Index;
+import com.meilisearch.sdk.exceptions.MeilisearchException;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderChangeView;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.model.search.OrderSearchTombstone;
+import com.nicolafogliaro.orderservice.api.model.search.SearchSyncState;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.repository.OrderSearchTombstoneRepository;
+import com.nicolafogliaro.orderservice.api.repository.OrderSearchViewRepository;
+import com.nicolafogliaro.orderservice.api.repository.SearchSyncStateRepository;
+import com.nicolafogliaro.orderservice.api.search.MeilisearchGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static com.nicolafogliaro.orderservice.api.service.MeilisearchService.ORDERS_INDEX;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("MeilisearchSyncService Tests")
+class MeilisearchSyncServiceTest {
+
+    private static final int BATCH_SIZE = 500;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderSearchViewRepository orderSearchViewRepository = mock(OrderSearchViewRepository.class);
+    private final OrderSearchTombstoneRepository orderSearchTombstoneRepository = mock(OrderSearchTombstoneRepository.class);
+    private final SearchSyncStateRepository searchSyncStateRepository = mock(SearchSyncStateRepository.class);
+    private final MeilisearchGateway meilisearchGateway = mock(MeilisearchGateway.class);
+    private final Index index = mock(Index.class);
+
+    private final MeilisearchSyncService service = new MeilisearchSyncService(orderRepository, orderSearchViewRepository,
+            orderSearchTombstoneRepository, searchSyncStateRepository, meilisearchGateway,
+            new ObjectMapper().registerModule(new JavaTimeModule()), mock(PlatformTransactionManager.class));
+
+    // Watermarks as they were when saved: the service saves the same state object again and again
+    private final List<String> savedWatermarks = new ArrayList<>();
+
+    private SearchSyncState state;
+
+    @BeforeEach
+    void setUp() {
+        Client client = mock(Client.class);
+        when(meilisearchGateway.client()).thenReturn(client);
+        when(client.index(ORDERS_INDEX)).thenReturn(index);
+
+        state = SearchSyncState.builder().indexName(ORDERS_INDEX).changedAt(START).orderId(0L).tombstoneId(0L).build();
+        when(searchSyncStateRepository.findById(ORDERS_INDEX)).thenReturn(Optional.of(state));
+        when(searchSyncStateRepository.save(any(SearchSyncState.class))).thenAnswer(invocation -> {
+            SearchSyncState saved = invocation.getArgument(0);
+            savedWatermarks.add(saved.getChangedAt() + "/" + saved.getOrderId() + "/" + saved.getTombstoneId());
+            return saved;
+        });
+
+        when(orderRepository.findAllWithItemsByIdIn(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(MeilisearchSyncServiceTest::order).toList();
+        });
+    }
+
+    private static Order order(Long id) {
+        return Order.builder()
+                .id(id)
+                .customerId(100L)
+                .description("Order " + id)
+                .status(OrderStatus.PENDING)
+                .totalAmount(BigDecimal.TEN)
+                .orderItems(new ArrayList<>())
+                .build();
+    }
+
+    private static OrderChangeView change(long orderId, LocalDateTime changedAt) {
+        return new OrderChangeView() {
+            @Override
+            public Long getOrderId() {
+                return orderId;
+            }
+
+            @Override
+            public LocalDateTime getChangedAt() {
+                return changedAt;
+            }
+        };
+    }
+
+    private static OrderSearchTombstone tombstone(long id, LocalDateTime deletedAt) {
+        return OrderSearchTombstone.builder().id(id).orderId(1000 + id).deletedAt(deletedAt).build();
+    }
+
+    @Test
+    @DisplayName("The watermark should move after each batch sent, and stay at the last one when a batch fails")
+    void syncChanges_ShouldMoveWatermarkPerBatch() {
+        LocalDateTime firstChange = START.plusMinutes(1);
+        List<OrderChangeView> firstBatch = LongStream.rangeClosed(1, BATCH_SIZE).mapToObj(id -> change(id, firstChange)).toList();
+        List<OrderChangeView> secondBatch = List.of(change(BATCH_SIZE + 1, START.plusMinutes(2)));
+        when(orderSearchViewRepository.findChangesAfter(eq(START), eq(0L), any(), any())).thenReturn(firstBatch);
+        when(orderSearchViewRepository.findChangesAfter(eq(firstChange), eq((long) BATCH_SIZE), any(), any())).thenReturn(secondBatch);
+        when(index.addDocuments(anyString()))
+                .thenReturn(null)
+                .thenThrow(new MeilisearchException("unavailable"));
+
+        service.syncChanges();
+
+        verify(index, times(2)).addDocuments(anyString());
+        assertThat(savedWatermarks).containsExactly(firstChange + "/" + BATCH_SIZE + "/0");
+        // The failed batch is read again from the first watermark by the next run
+        verify(orderSearchTombstoneRepository, never()).findPageAfter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Tombstones should be sent up to the first one not settled yet, which stops the run")
+    void syncChanges_ShouldStopAtUnsettledTombstone() {
+        when(orderSearchViewRepository.findChangesAfter(any(), any(), any(), any())).thenReturn(List.of());
+        LocalDateTime now = LocalDateTime.now();
+        when(orderSearchTombstoneRepository.findPageAfter(eq(0L), any())).thenReturn(List.of(
+                tombstone(1, now.minusMinutes(5)),
+                tombstone(2, now.plusMinutes(5)),
+                tombstone(3, now.minusMinutes(5))));
+
+        service.syncChanges();
+
+        verify(index).deleteDocuments(List.of("1001"));
+        verify(orderSearchTombstoneRepository, times(1)).findPageAfter(any(), any());
+        assertThat(savedWatermarks).containsExactly(START + "/0/1");
+    }
+
+    @Test
+    @DisplayName("A full synchronization should record a watermark taken before the upload")
+    void runFullSync_ShouldRecordWatermarkAfterUpload() {
+        when(orderSearchTombstoneRepository.findMaxId()).thenReturn(7L);
+        LocalDateTime before = LocalDateTime.now();
+
+        service.runFullSync(() -> verify(searchSyncStateRepository, never()).save(any()));
+
+        assertThat(savedWatermarks).hasSize(1);
+        assertThat(savedWatermarks.get(0)).endsWith("/0/7");
+        assertThat(LocalDateTime.parse(savedWatermarks.get(0).split("/")[0])).isBefore(before);
+    }
+
+    @Test
+    @DisplayName("A failed full synchronization should leave the watermark unchanged")
+    void runFullSync_FailedUploadShouldKeepWatermark() {
+        when(orderSearchTombstoneRepository.findMaxId()).thenReturn(7L);
+
+        assertThatThrownBy(() -> service.runFullSync(() -> {
+            throw new IllegalStateException("Task swap failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        verify(searchSyncStateRepository, never()).save(any());
+        assertThat(state.getTombstoneId()).isZero();
+    }
+}
@@ -0,0 +1,236 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.nicolafogliaro.orderservice.api.dto.draft.CreateDraftOrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.draft.DraftOrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
+import com.nicolafogliaro.orderservice.api.exception.ConcurrencyConflictException;
+import com.nicolafogliaro.orderservice.api.exception.DraftOrderNotFoundException;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
+import com.nicolafogliaro.orderservice.api.model.Product;
+import com.nicolafogliaro.orderservice.api.model.order.Order;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.service.OrderRevisionService;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchViewService;
+import com.nicolafogliaro.orderservice.api.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.nicolafogliaro.orderservice.api.service.impl.DraftOrderServiceImpl.CHECKOUT_FIELD;
+import static com.nicolafogliaro.orderservice.api.service.impl.DraftOrderServiceImpl.CREATE_SCRIPT;
+import static com.nicolafogliaro.orderservice.api.service.impl.DraftOrderServiceImpl.REMOVE_ITEM_SCRIPT;
+import static com.nicolafogliaro.orderservice.api.service.impl.DraftOrderServiceImpl.SET_ITEM_SCRIPT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DraftOrderServiceImpl Tests")
+class DraftOrderServiceImplTest {
+
+    private static final String DRAFT_ID = "d1";
+    private static final String KEY = "draft-order:" + DRAFT_ID;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderRevisionService orderRevisionService;
+
+    @Mock
+    private ExistenceFilterService existenceFilterService;
+
+    @Mock
+    private OrderSearchViewService orderSearchViewService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private DraftOrderServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        // Checkout registers its Redis clean-up with the transaction, as it would under @Transactional
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private void completeTransaction(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(status);
+        }
+    }
+
+    private void stubDraft(Map<Object, Object> fields) {
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(KEY)).thenReturn(fields);
+    }
+
+    private void stubCheckoutGuard(boolean acquired) {
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.putIfAbsent(KEY, CHECKOUT_FIELD, "1")).thenReturn(acquired);
+    }
+
+    @Test
+    @DisplayName("A new draft should be written with its TTL in one script call")
+    void createDraft_ShouldWriteHeaderAndTtlAtomically() {
+        DraftOrderResponse res = service.createDraft(new CreateDraftOrderRequest(100L, "Cart"));
+
+        verify(redisTemplate).execute(CREATE_SCRIPT, List.of("draft-order:" + res.id()), "100", "Cart", "86400");
+        verify(redisTemplate, never()).expire(anyString(), any());
+        assertThat(res.items()).isEmpty();
+        assertThat(res.expiresInSeconds()).isEqualTo(86400);
+    }
+
+    @Test
+    @DisplayName("Setting an item should pass the item field, the TTL and the limits to the script")
+    void setItem_ShouldRunScriptAndReturnTheDraft() {
+        when(redisTemplate.execute(SET_ITEM_SCRIPT, List.of(KEY), "item:10", "3", "86400", "100", "2")).thenReturn(1L);
+        stubDraft(Map.of("customerId", "100", "description", "Cart", "item:10", "3"));
+        when(redisTemplate.getExpire(KEY)).thenReturn(86400L);
+
+        DraftOrderResponse res = service.setItem(DRAFT_ID, 10L, 3);
+
+        assertThat(res.items()).containsExactly(new OrderItemRequest(10L, 3));
+        assertThat(res.expiresInSeconds()).isEqualTo(86400);
+    }
+
+    @Test
+    @DisplayName("The result codes of the item script should map to not found, too many items and checkout running")
+    void setItem_ShouldMapScriptResults() {
+        when(redisTemplate.execute(SET_ITEM_SCRIPT, List.of(KEY), "item:10", "1", "86400", "100", "2"))
+                .thenReturn(-1L, -2L, -3L);
+
+        assertThatThrownBy(() -> service.setItem(DRAFT_ID, 10L, 1)).isInstanceOf(DraftOrderNotFoundException.class);
+        assertThatThrownBy(() -> service.setItem(DRAFT_ID, 10L, 1))
+                .isInstanceOf(OrderBadRequestException.class)
+                .hasMessageContaining("100 items");
+        assertThatThrownBy(() -> service.setItem(DRAFT_ID, 10L, 1)).isInstanceOf(ConcurrencyConflictException.class);
+    }
+
+    @Test
+    @DisplayName("A quantity below 1 should be rejected without calling Redis")
+    void setItem_ShouldRejectNonPositiveQuantity() {
+        assertThatThrownBy(() -> service.setItem(DRAFT_ID, 10L, 0)).isInstanceOf(OrderBadRequestException.class);
+
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Removing an item should run its script and map its result codes")
+    void removeItem_ShouldRunScriptAndMapResults() {
+        when(redisTemplate.execute(REMOVE_ITEM_SCRIPT, List.of(KEY), "item:10", "86400")).thenReturn(1L, -1L, -3L);
+        stubDraft(Map.of("customerId", "100", "description", "Cart"));
+
+        assertThat(service.removeItem(DRAFT_ID, 10L).items()).isEmpty();
+        assertThatThrownBy(() -> service.removeItem(DRAFT_ID, 10L)).isInstanceOf(DraftOrderNotFoundException.class);
+        assertThatThrownBy(() -> service.removeItem(DRAFT_ID, 10L)).isInstanceOf(ConcurrencyConflictException.class);
+    }
+
+    @Test
+    @DisplayName("A checkout should reserve the stock of all lines, save the order and remove the draft after commit")
+    void checkout_ShouldCreateOrderAndRemoveDraftAfterCommit() {
+        stubCheckoutGuard(true);
+        when(hashOperations.entries(KEY)).thenReturn(Map.of(
+                "customerId", "100", "description", "Cart", CHECKOUT_FIELD, "1", "item:20", "1", "item:10", "2"));
+        Product first = Product.builder().id(10L).name("A").price(new BigDecimal("5.00")).stockQuantity(8).build();
+        Product second = Product.builder().id(20L).name("B").price(new BigDecimal("1.50")).stockQuantity(9).build();
+        when(stockService.reserveStock(new TreeMap<>(Map.of(10L, 2, 20L, 1)))).thenReturn(Map.of(10L, first, 20L, second));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+
+        OrderResponse res = service.checkout(DRAFT_ID);
+
+        assertThat(res.customerId()).isEqualTo(100L);
+        assertThat(res.totalAmount()).isEqualByComparingTo("11.50");
+        verify(orderRevisionService).record(any(OrderRevisionType.class), any(), any());
+        verify(redisTemplate, never()).delete(KEY);
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(redisTemplate).delete(KEY);
+        verify(hashOperations, never()).delete(KEY, CHECKOUT_FIELD);
+    }
+
+    @Test
+    @DisplayName("A second checkout of the same draft should be rejected by the HSETNX guard")
+    void checkout_ShouldRejectConcurrentCheckout() {
+        stubCheckoutGuard(false);
+
+        assertThatThrownBy(() -> service.checkout(DRAFT_ID)).isInstanceOf(ConcurrencyConflictException.class);
+
+        verify(hashOperations, never()).entries(anyString());
+        verifyNoInteractions(stockService, orderRepository);
+    }
+
+    @Test
+    @DisplayName("A failed checkout should release the guard when its transaction rolls back")
+    void checkout_ShouldReleaseGuardOnRollback() {
+        stubCheckoutGuard(true);
+        when(hashOperations.entries(KEY)).thenReturn(Map.of("customerId", "100", "description", "Cart", CHECKOUT_FIELD, "1"));
+
+        assertThatThrownBy(() -> service.checkout(DRAFT_ID)).isInstanceOf(OrderBadRequestException.class);
+        verify(hashOperations, never()).delete(KEY, CHECKOUT_FIELD);
+
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(hashOperations).delete(KEY, CHECKOUT_FIELD);
+        verify(redisTemplate, never()).delete(KEY);
+        verify(stockService, never()).reserveStock(any());
+    }
+
+    @Test
+    @DisplayName("The checkout of an expired draft should remove the lone guard field and report the draft as not found")
+    void checkout_ExpiredDraftShouldRemoveGuardKey() {
+        stubCheckoutGuard(true);
+        when(hashOperations.entries(KEY)).thenReturn(Map.of(CHECKOUT_FIELD, "1"));
+
+        assertThatThrownBy(() -> service.checkout(DRAFT_ID)).isInstanceOf(DraftOrderNotFoundException.class);
+
+        verify(redisTemplate).delete(KEY);
+        verifyNoInteractions(stockService, orderRepository);
+    }
+}
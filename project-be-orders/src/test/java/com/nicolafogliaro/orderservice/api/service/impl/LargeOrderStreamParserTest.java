@@ -0,0 +1,93 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.service.impl.LargeOrderStreamParser.ParsedLargeOrder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class LargeOrderStreamParserTest {
+
+    private final LargeOrderStreamParser parser = new LargeOrderStreamParser(new ObjectMapper(), 10);
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should aggregate quantities by product and sort products by ID")
+    void parse_ShouldAggregateByProduct() {
+        ParsedLargeOrder parsed = parser.parse(json("""
+                {"customerId": 7, "orderDescription": "Restock",
+                 "items": [{"productId": 3, "quantity": 2}, {"productId": 1, "quantity": 1}, {"productId": 3, "quantity": 5}]}
+                """));
+
+        assertThat(parsed.customerId()).isEqualTo(7L);
+        assertThat(parsed.description()).isEqualTo("Restock");
+        assertThat(parsed.status()).isEqualTo(OrderStatus.PENDING);
+        assertThat(parsed.lineCount()).isEqualTo(3);
+        assertThat(parsed.quantitiesByProduct()).containsExactly(
+                entry(1L, 1),
+                entry(3L, 7));
+    }
+
+    @Test
+    @DisplayName("Should accept header fields after the items and ignore unknown fields")
+    void parse_ShouldAcceptAnyFieldOrder() {
+        ParsedLargeOrder parsed = parser.parse(json("""
+                {"items": [{"productId": 1, "quantity": 1, "note": {"a": [1, 2]}}],
+                 "extra": [1, 2, 3], "status": "CONFIRMED", "orderDescription": "Late header", "customerId": 9}
+                """));
+
+        assertThat(parsed.customerId()).isEqualTo(9L);
+        assertThat(parsed.status()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(parsed.quantitiesByProduct()).containsOnlyKeys(1L);
+    }
+
+    @Test
+    @DisplayName("Should reject lines with invalid quantity")
+    void parse_ShouldRejectInvalidQuantity() {
+        assertThatThrownBy(() -> parser.parse(json("""
+                {"customerId": 7, "orderDescription": "Restock", "items": [{"productId": 1, "quantity": 0}]}
+                """)))
+                .isInstanceOf(OrderBadRequestException.class)
+                .hasMessageContaining("items[0].quantity");
+    }
+
+    @Test
+    @DisplayName("Should reject payloads with more lines than allowed")
+    void parse_ShouldRejectTooManyLines() {
+        String items = String.join(",", Collections.nCopies(11, "{\"productId\": 1, \"quantity\": 1}"));
+
+        assertThatThrownBy(() -> parser.parse(json("{\"customerId\": 7, \"orderDescription\": \"Big\", \"items\": [" + items + "]}")))
+                .isInstanceOf(OrderBadRequestException.class)
+                .hasMessageContaining("more than 10 items");
+    }
+
+    @Test
+    @DisplayName("Should reject missing header fields and empty items")
+    void parse_ShouldRejectMissingFields() {
+        List<String> invalidPayloads = List.of(
+                "{\"orderDescription\": \"x\", \"items\": [{\"productId\": 1, \"quantity\": 1}]}",
+                "{\"customerId\": 1, \"items\": [{\"productId\": 1, \"quantity\": 1}]}",
+                "{\"customerId\": 1, \"orderDescription\": \"x\", \"items\": []}",
+                "{\"customerId\": 1, \"orderDescription\": \"x\", \"items\": [{\"quantity\": 1}]}",
+                "[1, 2, 3]",
+                "{\"customerId\": 1, \"orderDescription\": \"x\", \"items\": [{\"productId\": 1");
+
+        invalidPayloads.forEach(payload -> assertThatThrownBy(() -> parser.parse(json(payload)))
+                .as(payload)
+                .isInstanceOf(OrderBadRequestException.class));
+    }
+}
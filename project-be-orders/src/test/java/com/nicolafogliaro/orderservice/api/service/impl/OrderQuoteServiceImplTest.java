@@ -0,0 +1,132 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.nicolafogliaro.orderservice.api.cache.CacheBulkOperations;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderQuoteResponse;
+import com.nicolafogliaro.orderservice.api.dto.order.OrderRequest;
+import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
+import com.nicolafogliaro.orderservice.api.dto.product.ProductResponse;
+import com.nicolafogliaro.orderservice.api.exception.ProductNotFoundException;
+import com.nicolafogliaro.orderservice.api.model.Product;
+import com.nicolafogliaro.orderservice.api.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static com.nicolafogliaro.orderservice.api.config.CacheConfig.PRODUCT_CACHE_NAME;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OrderQuoteServiceImpl Tests")
+class OrderQuoteServiceImplTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ConcurrentMapCacheManager cacheManager;
+
+    private OrderQuoteServiceImpl orderQuoteService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(PRODUCT_CACHE_NAME);
+        orderQuoteService = new OrderQuoteServiceImpl(productRepository, new CacheBulkOperations(cacheManager, null));
+    }
+
+    private static Product product(Long id, String price, int stock) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .description("Description " + id)
+                .price(new BigDecimal(price))
+                .stockQuantity(stock)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should load all cache misses with one query and compute subtotals and total")
+    void quote_ShouldPriceLinesAndLoadMissesInOneQuery() {
+        cacheManager.getCache(PRODUCT_CACHE_NAME).put(1L, new ProductResponse(1L, "Cached", "Cached product",
+                new BigDecimal("10.00"), 5, LocalDateTime.now(), LocalDateTime.now()));
+        when(productRepository.findAllById(Set.of(2L, 3L)))
+                .thenReturn(List.of(product(2L, "2.50", 100), product(3L, "7.00", 1)));
+
+        OrderQuoteResponse quote = orderQuoteService.quote(new OrderRequest(1L, "Preview", null, List.of(
+                new OrderItemRequest(1L, 2),
+                new OrderItemRequest(2L, 4),
+                new OrderItemRequest(3L, 2))));
+
+        assertThat(quote.items()).hasSize(3);
+        assertThat(quote.items().get(0).subtotalPrice()).isEqualByComparingTo("20.00");
+        assertThat(quote.items().get(1).subtotalPrice()).isEqualByComparingTo("10.00");
+        assertThat(quote.totalAmount()).isEqualByComparingTo("44.00");
+        assertThat(quote.items().get(2).available()).isFalse();
+        assertThat(quote.available()).isFalse();
+
+        // Misses are written back, so the next quote is served from the cache
+        assertThat(cacheManager.getCache(PRODUCT_CACHE_NAME).get(2L, ProductResponse.class)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should check availability against the quantity summed over all lines of a product")
+    void quote_ShouldAggregateQuantitiesForAvailability() {
+        when(productRepository.findAllById(Set.of(1L))).thenReturn(List.of(product(1L, "1.00", 5)));
+
+        OrderQuoteResponse quote = orderQuoteService.quote(new OrderRequest(1L, "Preview", null, List.of(
+                new OrderItemRequest(1L, 3),
+                new OrderItemRequest(1L, 3))));
+
+        assertThat(quote.items()).allMatch(line -> !line.available());
+        assertThat(quote.totalAmount()).isEqualByComparingTo("6.00");
+    }
+
+    @Test
+    @DisplayName("Should not query the database when every product is cached")
+    void quote_ShouldUseCacheOnly() {
+        cacheManager.getCache(PRODUCT_CACHE_NAME).put(1L, new ProductResponse(1L, "Cached", "Cached product",
+                new BigDecimal("10.00"), 5, LocalDateTime.now(), LocalDateTime.now()));
+
+        OrderQuoteResponse quote = orderQuoteService.quote(new OrderRequest(1L, "Preview", null, List.of(new OrderItemRequest(1L, 1))));
+
+        assertThat(quote.available()).isTrue();
+        verify(productRepository, never()).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Should not overwrite a product cached by an update while the misses were loaded")
+    void quote_ShouldKeepEntryCachedDuringLoad() {
+        ProductResponse updated = new ProductResponse(1L, "Updated", "Updated product",
+                new BigDecimal("12.00"), 3, LocalDateTime.now(), LocalDateTime.now());
+        when(productRepository.findAllById(Set.of(1L))).thenAnswer(invocation -> {
+            // An update commits between the query and the write-back
+            cacheManager.getCache(PRODUCT_CACHE_NAME).put(1L, updated);
+            return List.of(product(1L, "10.00", 5));
+        });
+
+        orderQuoteService.quote(new OrderRequest(1L, "Preview", null, List.of(new OrderItemRequest(1L, 1))));
+
+        assertThat(cacheManager.getCache(PRODUCT_CACHE_NAME).get(1L, ProductResponse.class)).isEqualTo(updated);
+    }
+
+    @Test
+    @DisplayName("Should throw ProductNotFoundException for unknown products")
+    void quote_ShouldRejectUnknownProducts() {
+        when(productRepository.findAllById(Set.of(99L))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> orderQuoteService.quote(new OrderRequest(1L, "Preview", null, List.of(new OrderItemRequest(99L, 1)))))
+                .isInstanceOf(ProductNotFoundException.class);
+    }
+}
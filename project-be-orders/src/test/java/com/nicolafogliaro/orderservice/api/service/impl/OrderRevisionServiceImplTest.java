@@ -0,0 +1,179 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot.ItemSnapshot;
+import com.nicolafogliaro.orderservice.api.repository.OrderRevisionRepository;
+import com.nicolafogliaro.orderservice.api.service.impl.OrderRevisionServiceImpl.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OrderRevisionServiceImpl Tests")
+class OrderRevisionServiceImplTest {
+
+    @Mock
+    private OrderRevisionRepository orderRevisionRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OrderRevisionServiceImpl service(int capacity, OverflowPolicy policy) {
+        return new OrderRevisionServiceImpl(orderRevisionRepository, jdbcTemplate, new ObjectMapper(), transactionManager, meterRegistry,
+                capacity, 100, policy, "X-User");
+    }
+
+    private static OrderSnapshot snapshot(OrderStatus status, Map<Long, ItemSnapshot> items) {
+        return new OrderSnapshot(1L, 100L, "Order", status, new BigDecimal("10.00"), new TreeMap<>(items));
+    }
+
+    @Test
+    @DisplayName("Should write all queued revisions with one multi-row insert")
+    void flush_ShouldWriteQueuedRevisionsInOneStatement() {
+        OrderRevisionServiceImpl service = service(10, OverflowPolicy.DROP);
+        OrderSnapshot after = snapshot(OrderStatus.PENDING, Map.of(10L, new ItemSnapshot(1, BigDecimal.ONE)));
+
+        service.record(OrderRevisionType.CREATED, null, after);
+        service.record(OrderRevisionType.UPDATED, after, snapshot(OrderStatus.CONFIRMED, Map.of()));
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+
+        service.flush();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(1)).update(sql.capture(), args.capture());
+
+        assertThat(sql.getValue()).contains("(?, ?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?, ?)");
+        assertThat(args.getValue()).hasSize(14);
+        assertThat(args.getValue()[1]).isEqualTo("CREATED");
+        assertThat(args.getValue()[2]).isEqualTo("anonymous");
+        assertThat(meterRegistry.counter("orders.revisions.written").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("DROP policy should discard revisions when the queue is full")
+    void record_WithDropPolicy_ShouldDropWhenFull() {
+        OrderRevisionServiceImpl service = service(1, OverflowPolicy.DROP);
+        OrderSnapshot after = snapshot(OrderStatus.PENDING, Map.of());
+
+        service.record(OrderRevisionType.CREATED, null, after);
+        service.record(OrderRevisionType.UPDATED, after, after);
+
+        assertThat(meterRegistry.counter("orders.revisions.dropped").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("orders.revisions.queue.size").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("CALLER_RUNS policy should write the revision on the calling thread when the queue is full")
+    void record_WithCallerRunsPolicy_ShouldWriteSynchronouslyWhenFull() {
+        OrderRevisionServiceImpl service = service(1, OverflowPolicy.CALLER_RUNS);
+        OrderSnapshot after = snapshot(OrderStatus.PENDING, Map.of());
+
+        service.record(OrderRevisionType.CREATED, null, after);
+        service.record(OrderRevisionType.UPDATED, after, after);
+
+        verify(jdbcTemplate, times(1)).update(anyString(), any(Object[].class));
+        assertThat(meterRegistry.counter("orders.revisions.caller_runs").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("orders.revisions.dropped").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("A batch that fails once should be written by the next attempt")
+    void flush_ShouldRetryFailedBatch() {
+        OrderRevisionServiceImpl service = service(10, OverflowPolicy.DROP);
+        OrderSnapshot after = snapshot(OrderStatus.PENDING, Map.of());
+        service.record(OrderRevisionType.CREATED, null, after);
+        service.record(OrderRevisionType.UPDATED, after, after);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new TransientDataAccessResourceException("connection reset"))
+                .thenReturn(2);
+
+        service.flush();
+
+        verify(jdbcTemplate, times(2)).update(contains("), ("), any(Object[].class));
+        assertThat(meterRegistry.counter("orders.revisions.retried").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("orders.revisions.written").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("orders.revisions.failed").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("A batch that keeps failing should be written row by row, losing only the rejected row")
+    void flush_ShouldFallBackToSingleRowsAndLoseOnlyTheBadOne() {
+        OrderRevisionServiceImpl service = service(10, OverflowPolicy.DROP);
+        OrderSnapshot after = snapshot(OrderStatus.PENDING, Map.of());
+        service.record(OrderRevisionType.CREATED, null, after);
+        service.record(OrderRevisionType.UPDATED, after, after);
+        service.record(OrderRevisionType.DELETED, after, null);
+        // The multi-row insert and the UPDATED row are rejected
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            Object[] args = (Object[]) invocation.getRawArguments()[1];
+            if (sql.contains("), (") || "UPDATED".equals(args[1])) {
+                throw new DataIntegrityViolationException("Data too long");
+            }
+            return 1;
+        });
+
+        service.flush();
+
+        // 3 attempts of the batch, then one insert per row
+        verify(jdbcTemplate, times(3)).update(contains("), ("), any(Object[].class));
+        verify(jdbcTemplate, times(6)).update(anyString(), any(Object[].class));
+        assertThat(meterRegistry.counter("orders.revisions.written").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("orders.revisions.failed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Diff should list changed fields and added, removed and changed items")
+    @SuppressWarnings("unchecked")
+    void diff_ShouldReportFieldAndItemChanges() {
+        OrderSnapshot before = snapshot(OrderStatus.PENDING, Map.of(
+                10L, new ItemSnapshot(1, new BigDecimal("5.00")),
+                11L, new ItemSnapshot(2, new BigDecimal("3.00")),
+                12L, new ItemSnapshot(1, new BigDecimal("1.00"))));
+        OrderSnapshot after = snapshot(OrderStatus.CONFIRMED, Map.of(
+                10L, new ItemSnapshot(1, new BigDecimal("5.0")),
+                11L, new ItemSnapshot(4, new BigDecimal("3.00")),
+                13L, new ItemSnapshot(1, new BigDecimal("9.00"))));
+
+        Map<String, Object> diff = OrderRevisionServiceImpl.diff(before, after);
+
+        Map<String, Object> fields = (Map<String, Object>) diff.get("fields");
+        assertThat(fields).containsOnlyKeys("status");
+
+        List<Map<String, Object>> items = (List<Map<String, Object>>) diff.get("items");
+        assertThat(items).extracting(item -> item.get("productId")).containsExactly(11L, 12L, 13L);
+        assertThat(items).extracting(item -> item.get("change")).containsExactly("CHANGED", "REMOVED", "ADDED");
+    }
+}
@@ -0,0 +1,64 @@
+package com.nicolafogliaro.orderservice.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderRevisionType;
+import com.nicolafogliaro.orderservice.api.model.revision.OrderSnapshot;
+import com.nicolafogliaro.orderservice.api.repository.OrderRevisionRepository;
+import com.nicolafogliaro.orderservice.api.service.impl.OrderRevisionServiceImpl.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Revisions recorded in real transactions: the business transaction is committed by the test, not rolled back.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class OrderRevisionServiceImplTransactionTest {
+
+    @Autowired
+    private OrderRevisionRepository orderRevisionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void whenQueueIsFullWithCallerRuns_thenRevisionWrittenAfterCommitIsCommitted() {
+        OrderRevisionServiceImpl service = new OrderRevisionServiceImpl(orderRevisionRepository, jdbcTemplate,
+                new ObjectMapper(), transactionManager, new SimpleMeterRegistry(), 1, 100, OverflowPolicy.CALLER_RUNS, "X-User");
+        TransactionTemplate businessTransaction = new TransactionTemplate(transactionManager);
+
+        OrderSnapshot first = new OrderSnapshot(1L, 100L, "Queued", OrderStatus.PENDING, BigDecimal.TEN, new TreeMap<>());
+        OrderSnapshot second = new OrderSnapshot(2L, 100L, "Written inline", OrderStatus.PENDING, BigDecimal.TEN, new TreeMap<>());
+
+        // Fills the queue
+        businessTransaction.executeWithoutResult(status -> service.record(OrderRevisionType.CREATED, null, first));
+        // Queue full: written by the caller once this transaction has committed
+        businessTransaction.executeWithoutResult(status -> service.record(OrderRevisionType.CREATED, null, second));
+
+        // Read in a new transaction: only committed rows are visible
+        Integer written = new TransactionTemplate(transactionManager).execute(status ->
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_revisions WHERE order_id = 2", Integer.class));
+        assertThat(written).isEqualTo(1);
+
+        service.flush();
+        assertThat(orderRevisionRepository.count()).isEqualTo(2);
+    }
+}
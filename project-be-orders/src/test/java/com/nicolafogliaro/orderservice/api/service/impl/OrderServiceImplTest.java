@@ -1,18 +1,25 @@
 package com.nicolafogliaro.orderservice.api.service.impl;
 
+import com.nicolafogliaro.orderservice.api.cache.CacheBulkOperations;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderRequest;
 import com.nicolafogliaro.orderservice.api.dto.order.OrderResponse;
 import com.nicolafogliaro.orderservice.api.dto.order.UpdateOrderRequest;
 import com.nicolafogliaro.orderservice.api.dto.orderitem.OrderItemRequest;
 import com.nicolafogliaro.orderservice.api.exception.ConcurrencyConflictException;
 import com.nicolafogliaro.orderservice.api.exception.InsufficientStockException;
+import com.nicolafogliaro.orderservice.api.exception.OrderBadRequestException;
 import com.nicolafogliaro.orderservice.api.exception.OrderNotFoundException;
+import com.nicolafogliaro.orderservice.api.listener.OrderEventListener.OrderDeletedEvent;
 import com.nicolafogliaro.orderservice.api.model.OrderItem;
 import com.nicolafogliaro.orderservice.api.model.Product;
 import com.nicolafogliaro.orderservice.api.model.order.Order;
 import com.nicolafogliaro.orderservice.api.model.order.OrderStatus;
+import com.nicolafogliaro.orderservice.api.repository.OrderItemRepository;
 import com.nicolafogliaro.orderservice.api.repository.OrderRepository;
 import com.nicolafogliaro.orderservice.api.repository.ProductRepository;
+import com.nicolafogliaro.orderservice.api.service.ExistenceFilterService;
+import com.nicolafogliaro.orderservice.api.service.OrderSearchViewService;
+import com.nicolafogliaro.orderservice.api.service.OrderRevisionService;
 import com.nicolafogliaro.orderservice.api.service.ProductService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -21,7 +28,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -29,7 +39,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.LongStream;
 
+import static com.nicolafogliaro.orderservice.api.config.CacheConfig.ORDER_CACHE_NAME;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -87,6 +100,24 @@ public class OrderServiceImplTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @Mock
+    private OrderRevisionService orderRevisionService;
+
+    @Mock
+    private ExistenceFilterService existenceFilterService;
+
+    @Mock
+    private OrderSearchViewService orderSearchViewService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private CacheBulkOperations cacheBulkOperations = new CacheBulkOperations(new ConcurrentMapCacheManager(ORDER_CACHE_NAME), null);
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -179,6 +210,46 @@ public class OrderServiceImplTest {
         verify(orderRepository).findById(1L);
     }
 
+    @Test
+    @DisplayName("Should load only uncached orders with one query and keep the requested order")
+    void getOrdersByIds_LoadsMissesOnceAndKeepsRequestOrder() {
+        // Arrange
+        Order secondOrder = Order.builder()
+                .id(2L)
+                .customerId(2L)
+                .description("Second Order")
+                .status(OrderStatus.CONFIRMED)
+                .totalAmount(BigDecimal.ZERO)
+                .orderItems(new ArrayList<>())
+                .build();
+        when(existenceFilterService.isOrderKnownMissing(anyLong())).thenReturn(false);
+        when(existenceFilterService.isOrderKnownMissing(42L)).thenReturn(true);
+        when(orderRepository.findAllWithItemsByIdIn(anyCollection())).thenReturn(List.of(mockOrder, secondOrder));
+
+        // Act
+        List<OrderResponse> first = orderService.getOrdersByIds(Arrays.asList(2L, 42L, 1L, 99L, 2L, null));
+        List<OrderResponse> second = orderService.getOrdersByIds(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(List.of(2L, 1L), first.stream().map(OrderResponse::id).toList());
+        assertEquals(List.of(1L, 2L), second.stream().map(OrderResponse::id).toList());
+
+        // The known-missing ID is never looked up, the unknown one is recorded as missing,
+        // and the second call is answered from the cache
+        verify(orderRepository, times(1)).findAllWithItemsByIdIn(Set.of(2L, 1L, 99L));
+        verify(existenceFilterService).orderMissing(99L);
+        verify(existenceFilterService, never()).orderMissing(42L);
+    }
+
+    @Test
+    @DisplayName("Should reject a multi-get with more IDs than allowed")
+    void getOrdersByIds_WithTooManyIds_ThrowsOrderBadRequestException() {
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
+
+        assertThrows(OrderBadRequestException.class, () -> orderService.getOrdersByIds(ids));
+        verifyNoInteractions(orderRepository);
+    }
+
     @Test
     @DisplayName("Should throw OrderNotFoundException when order does not exist")
     void getOrderById_WhenOrderDoesNotExist_ThrowsOrderNotFoundException() {
@@ -230,6 +301,8 @@ public class OrderServiceImplTest {
         assertEquals("New Test Order", capturedOrder.getDescription());
         assertEquals(OrderStatus.PENDING, capturedOrder.getStatus());
         assertEquals(1, capturedOrder.getOrderItems().size());
+
+        verify(orderSearchViewService).orderChanged(capturedOrder);
     }
 
     @Test
@@ -365,6 +438,8 @@ public class OrderServiceImplTest {
         // Verify method calls
         verify(orderRepository).findById(1L);
         verify(orderRepository).deleteById(1L);
+        verify(orderSearchViewService).orderDeleted(1L);
+        verify(eventPublisher).publishEvent(any(OrderDeletedEvent.class));
     }
 
     @Test
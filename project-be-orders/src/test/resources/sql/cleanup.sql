@@ -1,3 +1,4 @@
+DELETE FROM order_search_view;
 DELETE FROM order_items;
 DELETE FROM orders;
 DELETE FROM products;
\ No newline at end of file
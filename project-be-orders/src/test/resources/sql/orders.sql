@@ -16,3 +16,13 @@ INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, created
 VALUES
 (1, 1, 10, 1, 1500.00, NOW(), NOW()),
 (2, 2, 11, 2, 300.00, NOW(), NOW());
+
+-- order_search_view (normally maintained by OrderSearchViewService)
+INSERT INTO order_search_view (order_id, customer_id, status, total_amount, created_at, updated_at, changed_at, search_text)
+VALUES
+(1, 100, 'CONFIRMED', 1500.00, '2023-10-01 10:00:00', '2023-10-01 10:00:00', NOW(),
+ 'order for gaming laptop' || CHAR(31) || 'gaming laptop' || CHAR(31) || 'high performance laptop'),
+(2, 100, 'CONFIRMED', 600.00, '2023-10-02 14:00:00', '2023-10-02 14:00:00', NOW(),
+ 'order for office supplies' || CHAR(31) || 'office chair' || CHAR(31) || 'ergonomic chair'),
+(3, 101, 'PENDING', 200.00, '2023-10-10 08:00:00', '2023-10-10 08:00:00', NOW(),
+ 'miscellaneous items');